@@ -24,6 +24,7 @@ import planespotter.dataclasses.Area;
 import planespotter.dataclasses.Position;
 import planespotter.model.Statistics;
 import planespotter.model.io.DBOut;
+import planespotter.model.io.PositionVisitor;
 import planespotter.throwables.DataNotFoundException;
 import planespotter.unused.ANSIColor;
 import planespotter.util.*;
@@ -161,6 +162,57 @@ public class Test {
         }, "MathUtils Division");
     }
 
+    /**
+     * heatmap accumulation benchmark on the real database, streams all tracking positions
+     * with {@link DBOut#visitAllTrackingPositions(int, PositionVisitor)} into a {@link HeatmapBuilder}
+     * at growing parallelism and prints the 1-thread and the N-thread time with the speedup,
+     * a read without accumulation is the baseline, the DB cursor is the single producer in every run,
+     * every parallelism must produce the same counts as the single-threaded run
+     */
+    private static void heatmapScalingBenchmark() {
+        final float gridSize = 0.5f;
+        DBOut dbOut = DBOut.getDBOut();
+        long start = Time.nowMillis();
+        long rows = dbOut.visitAllTrackingPositions(DBOut.DEFAULT_FETCH_SIZE, (lat, lon) -> {});
+        long readMillis = Time.elapsedMillis(start);
+        System.out.println("[Benchmark] read only: " + readMillis + " ms, " + rows + " rows");
+        if (rows <= 0) {
+            System.out.println("[Benchmark] no tracking data, nothing to benchmark");
+            return;
+        }
+        Bitmap.Accumulator reference = null;
+        long singleMillis = 0;
+        int cores = Runtime.getRuntime().availableProcessors();
+        // 1, 2, 4, ... threads, the last run uses all cores
+        for (int parallelism = 1; ; parallelism = Math.min(cores, parallelism * 2)) {
+            Bitmap.Accumulator result;
+            long millis;
+            try (HeatmapBuilder builder = new HeatmapBuilder(Bitmap.accumulator(gridSize), parallelism)) {
+                start = Time.nowMillis();
+                dbOut.visitAllTrackingPositions(DBOut.DEFAULT_FETCH_SIZE, builder::add);
+                result = builder.merge();
+                millis = Math.max(1, Time.elapsedMillis(start));
+            }
+            if (reference == null) {
+                reference = result;
+                singleMillis = millis;
+            } else {
+                for (int x = 0; x < 721; x++) {
+                    for (int y = 0; y < 361; y++) {
+                        if (result.get(x, y) != reference.get(x, y)) {
+                            throw new IllegalStateException("Counts differ at " + x + "," + y + "!");
+                        }
+                    }
+                }
+            }
+            System.out.printf("[Benchmark] %d thread(s): %d ms, %d rows/s, speedup %.2fx%n",
+                              parallelism, millis, rows * 1000 / millis, singleMillis / (double) millis);
+            if (parallelism == cores) {
+                break;
+            }
+        }
+    }
+
     private static void cudaTest() {
         String cuFile = Paths.CUDA + "CudaArrayMean.ptx";
 
@@ -2,6 +2,7 @@ package planespotter.constants;
 
 import planespotter.util.Utilities;
 
+import java.util.Collection;
 import java.util.Deque;
 
 /**
@@ -22,6 +23,8 @@ public final class SQLQueries {
 	public static final String PLANEQUERRY = "INSERT INTO planes(icaonr, tailnr, registration, type, airline) VALUES(?,?,?,?,?)";
 	public static final String FLIGHTQUERRY = "INSERT INTO flights(plane,src,dest,flightnr,callsign,start) VALUES(?,?,?,?,?,?)";
 	public static final String TRACKINGQUERRY = "INSERT INTO tracking(flightid,latitude,longitude,altitude,groundspeed,heading,squawk,timestamp) VALUES(?,?,?,?,?,?,?,?)";
+	// tracking insert into a specific tracking partition, use with String.format(..., table)
+	public static final String TRACKING_PARTITION_QUERRY = "INSERT INTO %s(flightid,latitude,longitude,altitude,groundspeed,heading,squawk,timestamp) VALUES(?,?,?,?,?,?,?,?)";
 	public static final String CHECK_FLIGHT_IN_DB = "SELECT ID FROM flights WHERE plane == (?) AND flightnr == (?) AND endTime IS NULL";
 	
 	
@@ -29,9 +32,9 @@ public final class SQLQueries {
 	public static final String GET_LAST_FLIGHT_ID = "SELECT * from flights ORDER BY ID DESC LIMIT 1";
 	public static final String GET_TRACKING_BY_FLIGHT = "SELECT * FROM tracking WHERE ID == "; // FIXME sollte das nicht flightid sein?
 	public static final String GET_FLIGHTS = "SELECT * FROM flights";
-	public static final String GET_FLIGHT_BY_ID = "SELECT * FROM flights WHERE ID == ";
-	public static final String GET_AIRPORT_BY_TAG = "SELECT * FROM airports WHERE iatatag IS ";
-	public static final String GET_PLANE_BY_ID = "SELECT * FROM planes WHERE ID == ";
+	public static final String GET_FLIGHT_BY_ID = "SELECT * FROM flights WHERE ID == (?)";
+	public static final String GET_AIRPORT_BY_TAG = "SELECT * FROM airports WHERE iatatag IS (?)";
+	public static final String GET_PLANE_BY_ID = "SELECT * FROM planes WHERE ID == (?)";
 	public static final String GET_AIRLINE_BY_TAG = "SELECT * FROM airlines WHERE icaotag == ";
 	public static final String GET_AIRLINE_ID_BY_TAG = "SELECT ID FROM airlines WHERE icaotag == ";
 	public static final String GET_FLIGHT_IDS_BY_ICAO_LIKE = "SELECT f.ID FROM flights f JOIN planes p ON p.ID = f.plane AND p.icaonr LIKE ";
@@ -50,6 +53,10 @@ public final class SQLQueries {
 	public static final String GET_ALL_PLANETYPES = 	"SELECT DISTINCT type FROM planes WHERE type IS NOT NULL";
 	// all callsigns
 	public static final String GET_ALL_CALLSIGNS = "SELECT DISTINCT callsign FROM flights WHERE callsign IS NOT NULL";
+	// search index keys of all planes
+	public static final String GET_PLANE_SEARCH_KEYS = "SELECT ID, icaonr, tailnr, type FROM planes";
+	// search index keys of all flights, in insert order
+	public static final String GET_FLIGHT_SEARCH_KEYS = "SELECT ID, plane, callsign FROM flights ORDER BY ID";
 
 	// airline search queries
 	public static final String GET_FLIGHT_IDS_BY_AIRL_ID = "SELECT f.ID FROM flights f JOIN planes p ON p.ID = f.plane AND p.airline = (?)";
@@ -66,6 +73,10 @@ public final class SQLQueries {
 	//update Querries
 	public static final String UPDATE_FLIGHT_END = "UPDATE flights SET endTime = (?) WHERE ID == (?)";
 
+	// ID-set as one bound JSON-array parameter, e.g. 'WHERE flightid ' + IN_JSON with jsonArray(ids),
+	// the statement text is the same for every set size, so it is parsed only once
+	public static final String IN_JSON = "IN (SELECT value FROM json_each(?))";
+
 	/**
 	 *
 	 * @param inThis
@@ -73,7 +84,7 @@ public final class SQLQueries {
 	 */ // TODO zu einer Methode machen mit Wildcards & instanceof
 	public static <I> String IN_INT(final I inThis) {
 		StringBuilder out = new StringBuilder("IN (");
-		if (inThis instanceof Deque<?> deq && deq.getFirst() instanceof Integer) {
+		if (inThis instanceof Deque<?> deq && deq.peekFirst() instanceof Integer) {
 			for (int i : (Deque<Integer>) deq) {
 				out.append(i).append(",");
 			}
@@ -82,7 +93,59 @@ public final class SQLQueries {
 				out.append(i).append(",");
 			}
 		}
-		return out.substring(0, out.length()-2) + ")";
+		// removing the last comma, if there is one
+		if (out.charAt(out.length() - 1) == ',') {
+			out.setLength(out.length() - 1);
+		}
+		return out + ")";
+	}
+
+	/**
+	 * creates a JSON-array of IDs, the parameter for {@link SQLQueries#IN_JSON}
+	 *
+	 * @param ids are the IDs
+	 * @return JSON-array string like '[1,2,3]'
+	 */
+	public static String jsonArray(final int[] ids) {
+		StringBuilder out = new StringBuilder(ids.length * 8 + 2).append('[');
+		for (int i = 0; i < ids.length; i++) {
+			if (i > 0) {
+				out.append(',');
+			}
+			out.append(ids[i]);
+		}
+		return out.append(']').toString();
+	}
+
+	/**
+	 * creates a JSON-array of strings, the parameter for {@link SQLQueries#IN_JSON}
+	 *
+	 * @param strings are the strings
+	 * @return JSON-array string like '["A320","B738"]'
+	 */
+	public static String jsonArray(final Collection<String> strings) {
+		StringBuilder out = new StringBuilder("[");
+		for (String s : strings) {
+			if (out.length() > 1) {
+				out.append(',');
+			}
+			out.append('"');
+			for (char c : s.toCharArray()) {
+				switch (c) {
+					case '"' -> out.append("\\\"");
+					case '\\' -> out.append("\\\\");
+					default -> {
+						if (c < 0x20) {
+							out.append(String.format("\\u%04x", (int) c));
+						} else {
+							out.append(c);
+						}
+					}
+				}
+			}
+			out.append('"');
+		}
+		return out.append(']').toString();
 	}
 
 	public static String IN_STR(final Deque<String> inThis) {
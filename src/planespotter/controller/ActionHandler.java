@@ -294,6 +294,13 @@ public final class ActionHandler
                     ctrl.handleException(e);
                 }
             }
+            case "Top-Planetypes" -> {
+                try {
+                    StatsView.showTopPlaneTypes(ui, new Statistics());
+                } catch (DataNotFoundException e) {
+                    ctrl.handleException(e);
+                }
+            }
             case "Most-Tracked-Flights" -> {
                 try {
                     StatsView.showMostTracked(ui, new Statistics());
@@ -303,6 +310,7 @@ public final class ActionHandler
             }
             case "Position-HeatMap" -> ctrl.show(ViewType.MAP_HEATMAP);
             case "Flight-Simulation" -> ctrl.runMapFlightSimulation();
+            case "Airspace-Replay" -> ctrl.runAirspaceReplay();
             case "DevTools" -> ctrl.getUI().showDevToolsView();
             case "table-separated CSV's" -> Threading.runAsync(() -> {
                         System.out.println("Writing table-separated CSV's...");
@@ -491,6 +499,31 @@ public final class ActionHandler
         keyEntered(e, ui);
     }
 
+    /**
+     * KeyListener-method,
+     * executed when a key is released, used for search-as-you-type
+     *
+     * @param e is the Key event which contains the Key-Code and Key-Char
+     */
+    @Override
+    public void keyReleased(KeyEvent e) {
+        int key = e.getKeyCode();
+        if (!(e.getSource() instanceof JTextField field) || e.isActionKey()) {
+            return;
+        }
+        Controller ctrl = Controller.getInstance();
+        SearchPane searchPane = ctrl.getUI().getSearchPane();
+        String fieldKey = searchPane.getSuggestionKey(field);
+        if (fieldKey == null) {
+            return;
+        }
+        if (key == VK_ENTER || key == VK_ESCAPE) {
+            searchPane.hideSuggestions();
+        } else {
+            ctrl.suggest(fieldKey, field.getText());
+        }
+    }
+
     /**
      * ComponentListener-method,
      * executed when a Component is resized
@@ -708,7 +741,6 @@ public final class ActionHandler
      */
 
     @Override public void keyTyped(KeyEvent e) {}
-    @Override public void keyReleased(KeyEvent e) {}
     @Override public void componentHidden(ComponentEvent e) {}
     @Override public void componentMoved(ComponentEvent e) {}
     @Override public void mouseClicked(MouseEvent e) {}
@@ -1,7 +1,5 @@
 package planespotter.controller;
 
-import de.gtec.util.bmp.Filler;
-import de.gtec.util.math.WeightMovingAverage;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.openstreetmap.gui.jmapviewer.Coordinate;
@@ -17,6 +15,7 @@ import planespotter.constants.props.Configuration;
 import planespotter.constants.props.Property;
 import planespotter.dataclasses.*;
 import planespotter.dataclasses.Frame;
+import planespotter.display.HeatmapTiles;
 import planespotter.display.MapManager;
 import planespotter.display.StatsView;
 import planespotter.display.TreasureMap;
@@ -28,10 +27,13 @@ import planespotter.model.nio.ADSBSupplier;
 import planespotter.model.nio.DataProcessor;
 import planespotter.model.nio.FilterManager;
 import planespotter.model.nio.client.DataUploader;
+import planespotter.model.simulation.AirspaceSimulation;
 import planespotter.model.simulation.FlightSimulation;
+import planespotter.model.simulation.ReplayIndex;
 import planespotter.model.simulation.Simulator;
 import planespotter.throwables.*;
 import planespotter.util.Bitmap;
+import planespotter.util.Time;
 import planespotter.util.Utilities;
 
 import javax.imageio.ImageIO;
@@ -53,6 +55,8 @@ import java.util.List;
 import java.util.*;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static planespotter.constants.DefaultColor.DEFAULT_MAP_ICON_COLOR;
@@ -96,10 +100,6 @@ public final class Controller implements ExceptionHandler {
 
         // initializing Controller singleton instance
         INSTANCE = new Controller();
-
-        // TODO: 26.03.2023 DOWNLOAD DLL's
-        Filler.setUseNativeFill(false); // my java code java seems to be faster here
-        WeightMovingAverage.setUseNativeAvg(true);
     }
 
     // -- instance fields --
@@ -137,6 +137,9 @@ public final class Controller implements ExceptionHandler {
     // search object for DB-search operations
     private final Search search;
 
+    // the running progressive search, cancelled by a newer search
+    private final AtomicReference<SearchJob> currentSearch;
+
     // data-REST-uploader
     private final DataUploader<Frame> restUploader;
 
@@ -156,6 +159,7 @@ public final class Controller implements ExceptionHandler {
         this.scheduler = new Scheduler();
         this.dataProcessor = new DataProcessor();
         this.search = new Search();
+        this.currentSearch = new AtomicReference<>();
         this.connectionManager = new ConnectionManager(Configuration.CONNECTIONS_FILENAME);
         FileWizard fileWizard = FileWizard.getFileWizard();
         initLevel++; // IO
@@ -256,6 +260,20 @@ public final class Controller implements ExceptionHandler {
         config.setProperty("maxThreads", 40);
         config.setProperty("saveLogs", false);
         config.setProperty("uploader.threshold", 5000);
+        config.setProperty("tracking.partitionPeriod", "MONTH"); // DAY, MONTH or NONE
+        config.setProperty("tracking.retentionPeriods", 0); // 0 keeps all partitions
+        config.setProperty("compaction.enabled", true);
+        config.setProperty("compaction.posTolerance", 100.); // meters
+        config.setProperty("compaction.altTolerance", 250); // feet
+        config.setProperty("compaction.maxGap", 300L); // seconds
+        config.setProperty("compaction.graceHours", 24L);
+        config.setProperty("blocks.enabled", true);
+        config.setProperty("blocks.dropRows", true); // tracking rows of packed flights are deleted
+        config.setProperty("hotStore.hours", 6L); // 0 disables the hot store
+        config.setProperty("hotStore.maxRecords", 2_000_000); // 48 bytes off-heap per record
+        config.setProperty("dbWriter.synchronous", "NORMAL"); // NORMAL or OFF, for live frames
+        config.setProperty("dbWriter.maxGroupFrames", 2000); // max. frames per group commit, readers wait for max. one group
+        config.setProperty("resultCache.maxWeight", 1_000_000L); // max. cached rows, 0 disables the DBOut result cache
         config.setProperty("mapBaseUrl", "https://a.tile.openstreetmap.de");
         config.setProperty("fr24RequestUri", "https://data-live.flightradar24.com/");
         config.setProperty("bingMap", new BingAerialTileSource());
@@ -292,6 +310,20 @@ public final class Controller implements ExceptionHandler {
                         "NCR", "LAGR", "SNIPER", "VALOR", "MMF", "HOIS",
                         "K35R", "SONIC", "Q4", "CL", "MARTI");
         config.setProperty("collectorFilters", collectorFilterManager);
+
+        // tracking partition period, NONE disables the partitioning
+        String period = (String) config.getProperty("tracking.partitionPeriod").val;
+        DBConnector.getTrackingPartitions().setPeriod(period.equalsIgnoreCase("NONE")
+                ? null
+                : TrackingPartitions.Period.valueOf(period.toUpperCase()));
+        // off-heap hot store for the most recent tracking data
+        DBConnector.getHotStore().configure((long) config.getProperty("hotStore.hours").val * 3600L,
+                                            (int) config.getProperty("hotStore.maxRecords").val);
+        // group-commit DB writer, the synchronous level is used for live frames
+        DBWriter.getDBWriter().configure(DBWriter.Durability.valueOf(((String) config.getProperty("dbWriter.synchronous").val).toUpperCase()),
+                                         (int) config.getProperty("dbWriter.maxGroupFrames").val);
+        // write-aware DBOut result cache
+        DBOut.getDBOut().getResultCache().configure((long) config.getProperty("resultCache.maxWeight").val);
     }
 
     /**
@@ -366,7 +398,7 @@ public final class Controller implements ExceptionHandler {
         if (processRemainingFrames) {
             if (isLocalDBWriteEnabled() && fr24Collector != null) {
                 try {
-                    fr24Collector.getInserter().insertRemaining(scheduler, dataProcessor);
+                    fr24Collector.getInserter().insertRemaining(dataProcessor);
                 } catch (NoAccessException ignored) {
                 }
             }
@@ -381,8 +413,13 @@ public final class Controller implements ExceptionHandler {
         }
 */
         try {
-            // shutting down scheduler
+            // writing all queued frames, then shutting down scheduler
+            DBWriter.getDBWriter().shutdown(processRemainingFrames ? 20 : 3);
             scheduler.shutdown(processRemainingFrames ? 20 : 3);
+            DBOut.getDBOut().checkpointDensityGrid();
+            DBConnector.closeReadStatements();
+            // releasing the off-heap hot store
+            DBConnector.getHotStore().close();
             // disabling last tasks
             dbIn.setEnabled(false);
             done(true);
@@ -519,40 +556,84 @@ public final class Controller implements ExceptionHandler {
         }
 
         if (button == 1) {
-            getUI().showLoadingScreen(true);
-            setLoading(true);
-
             SearchType currentSearchType = getUI().getSearchPane().getCurrentSearchType();
-            ViewType showType;
-            try {
-                showType = switch (currentSearchType) {
-                    case AIRLINE -> {
-                        setDataList(search.forAirline(inputs));
-                        yield MAP_TRACKING_NP;
-                    }
-                    case AIRPORT -> {
-                        setDataList(search.forAirport(inputs));
-                        yield MAP_TRACKING_NP;
-                    }
-                    case FLIGHT -> {
-                        setDataList(search.forFlight(inputs));
-                        yield MAP_TRACKING;
-                    }
-                    case PLANE -> {
-                        setDataList(search.forPlane(inputs));
-                        yield MAP_FROMSEARCH;
-                    }
-                    default -> null;
-                };
-                if (showType != null) {
-                    show(showType);
+            ViewType showType = switch (currentSearchType) {
+                case AIRLINE, AIRPORT -> MAP_TRACKING_NP;
+                case FLIGHT -> MAP_TRACKING;
+                case PLANE -> MAP_FROMSEARCH;
+                default -> null;
+            };
+            if (showType != null) {
+                runSearch(currentSearchType, inputs, showType);
+            }
+        }
+    }
+
+    /**
+     * runs a progressive {@link SearchJob} on the {@link Scheduler}, a running search is cancelled,
+     * the map is cleared and every loaded chunk is added to it, so the first tracks are shown
+     * while the rest is still loading, the data list is set when the search is complete
+     *
+     * @param type is the {@link SearchType}
+     * @param inputs are the input strings of the search fields
+     * @param showType is the {@link ViewType} of the search results
+     */
+    private void runSearch(@NotNull SearchType type, @NotNull String[] inputs, @NotNull ViewType showType) {
+        MapManager mapManager = getUI().getMapManager();
+        boolean showPoints = showType == MAP_TRACKING,
+                markFlights = showType == MAP_FROMSEARCH;
+        AtomicBoolean first = new AtomicBoolean(true);
+        AtomicReference<SearchJob> self = new AtomicReference<>();
+        SearchJob job = new SearchJob(search, type, inputs, chunk -> SwingUtilities.invokeLater(() -> {
+            // chunks of a cancelled search may still be queued
+            if (!self.get().isCancelled()) {
+                mapManager.appendTrackingMap(chunk, showPoints, markFlights);
+                if (first.getAndSet(false)) {
+                    done(false);
                 }
-            } catch (DataNotFoundException dnf) {
-                handleException(dnf);
-            } finally {
-                done(false);
             }
+        }));
+        self.set(job);
+        SearchJob previous = currentSearch.getAndSet(job);
+        if (previous != null) {
+            previous.cancel();
         }
+        setLoading(true);
+        getUI().showLoadingScreen(true);
+        dataProcessor.setLive(false);
+        getUI().setViewType(showType);
+        // the markers of the previous results are not valid anymore
+        setDataList(null);
+        SwingUtilities.invokeLater(mapManager::clearMap);
+        scheduler.exec(job, "Search", false, Scheduler.MID_PRIO, false)
+                .whenComplete((v, e) -> {
+                    if (job.isCancelled()) {
+                        return;
+                    }
+                    currentSearch.compareAndSet(job, null);
+                    if (e != null) {
+                        handleException(e);
+                    } else if (job.getError() != null) {
+                        handleException(job.getError());
+                    } else {
+                        setDataList(job.getResult());
+                    }
+                    done(false);
+                });
+    }
+
+    /**
+     * search-as-you-type, finds the suggestions for the current input of a search field
+     * and shows them below the field, outdated suggestions are dropped by the {@link SearchPane}
+     *
+     * @param fieldKey is the search field key, e.g. 'flight.callsign'
+     * @param prefix is the current field input
+     */
+    public void suggest(@NotNull String fieldKey, @NotNull String prefix) {
+        scheduler.exec(() -> {
+            Deque<String> suggestions = search.suggestions(fieldKey, prefix, SearchPane.MAX_SUGGESTIONS);
+            SwingUtilities.invokeLater(() -> getUI().getSearchPane().showSuggestions(fieldKey, prefix, suggestions));
+        }, "Search Suggestions");
     }
 
     /**
@@ -601,6 +682,93 @@ public final class Controller implements ExceptionHandler {
         lp.addTop(addons, 0, 0, lp.getWidth(), lp.getHeight());
     }
 
+    /**
+     * replays every aircraft in the current map area and a time window, which ends now,
+     * the {@link ReplayIndex} is loaded in the background, then the replay can be played
+     * and scrubbed with the {@link SimulationAddons}
+     */
+    public void runAirspaceReplay() {
+        String hoursInput = getUI().getUserInput("Please enter the replay window in hours (1 - 48)", 1);
+        if (hoursInput.isBlank()) {
+            return;
+        }
+        String speedInput = getUI().getUserInput("Please enter the replay speed (1 - 3600 times)", 60);
+        if (speedInput.isBlank()) {
+            return;
+        }
+        int hours, speed;
+        try {
+            hours = Integer.parseInt(hoursInput);
+            speed = Integer.parseInt(speedInput);
+        } catch (NumberFormatException nfe) {
+            getUI().showWarning(Warning.NUMBER_EXPECTED, "Please enter integer values!");
+            return;
+        }
+        if (hours < 1 || hours > 48 || speed < 1 || speed > 3600) {
+            getUI().showWarning(Warning.OUT_OF_RANGE, "Replay window must be 1 - 48 hours and speed 1 - 3600!");
+            return;
+        }
+        Area area = Area.currentArea(getUI().getMap());
+        long to = Time.nowMillis() / 1000,
+             from = to - hours * 3600L;
+        scheduler.exec(() -> {
+            try {
+                setLoading(true);
+                getUI().showLoadingScreen(true);
+                ReplayIndex index = ReplayIndex.load(area, from, to);
+                if (index.size() == 0) {
+                    getUI().showWarning(Warning.INVALID_DATA, "No trackings found in area " + area + "!");
+                    return;
+                }
+                SwingUtilities.invokeLater(() -> showAirspaceReplay(index, speed));
+            } finally {
+                done(false);
+            }
+        }, "Loading Replay", false, Scheduler.MID_PRIO, true);
+    }
+
+    /**
+     * shows the {@link SimulationAddons} of an airspace replay, with a timeline for scrubbing
+     *
+     * @param index is the loaded {@link ReplayIndex}
+     * @param speed is the replay speed
+     */
+    private void showAirspaceReplay(@NotNull ReplayIndex index, int speed) {
+        final int period = 300;
+        LayerPane lp = getUI().getLayerPane();
+        MapManager mapManager = getUI().getMapManager();
+        AirspaceSimulation simulation = new AirspaceSimulation(index, mapManager, speed, period);
+        SimulationAddons addons = new SimulationAddons(lp);
+        Simulator<Long> simulator = new Simulator<>(0, period, simulation);
+        Runnable update = () -> {
+            int frame = Math.min(simulation.getCurrentIndex(), simulation.getFrameCount() - 1);
+            long time = simulation.getFrames().get(frame);
+            SwingUtilities.invokeLater(() -> {
+                addons.setStatus(simulator.getStatus());
+                addons.setRemaining(simulator.getRemainingMillis());
+                addons.setTimelineValue(frame, Time.dateFrom(time).toString());
+            });
+        };
+        simulator.setOnTick(update);
+        simulator.setOnStop(update);
+        simulator.setOnClose(() -> {
+            addons.setStatus(simulator.getStatus());
+            mapManager.clearMap();
+            lp.removeTop();
+        });
+        addons.setStartAction(e -> simulator.start());
+        addons.setStopAction(e -> simulator.stop());
+        addons.setCloseAction(e -> simulator.close());
+        addons.setTimeline(simulation.getFrameCount(), frame -> {
+            simulation.seek(simulation.getFrames().get(frame));
+            simulation.showFrame(frame);
+            update.run();
+        });
+        lp.addTop(addons, 0, 0, lp.getWidth(), lp.getHeight());
+        simulation.showFrame(0);
+        update.run();
+    }
+
     /**
      * confirms and saves the changed user settings
      * in the 'configuration.psc' file
@@ -950,7 +1118,7 @@ public final class Controller implements ExceptionHandler {
 
     /**
      * tries to save the current view (bitmap or map viewer) in a file
-     * file types: ('.bmp' / '.pls')
+     * file types: ('.bmp' / '.psh' / '.pls')
      */
     public void saveSelectedFile() {
         getUI().showLoadingScreen(true);
@@ -960,7 +1128,9 @@ public final class Controller implements ExceptionHandler {
         // TODO 2.Möglichkeit: center und zoom speichern
         try {
             ViewType currentViewType = getUI().getCurrentViewType();
-            String extensions = currentViewType == MAP_HEATMAP ? ".bmp" : ".pls";
+            String[] extensions = currentViewType == MAP_HEATMAP
+                    ? new String[] { ".bmp", Bitmap.HEATMAP_EXTENSION }
+                    : new String[] { ".pls" };
             JFileChooser fileChooser = getUI().showFileSaver(getUI().getWindow(), extensions);
             Rectangle rect = /*(gui.getCurrentVisibleRect() != null) ? gui.getCurrentVisibleRect() :*/ null;
             File selected = fileChooser.getSelectedFile();
@@ -972,12 +1142,19 @@ public final class Controller implements ExceptionHandler {
             switch (currentViewType) {
                 case MAP_HEATMAP -> {
                     Component bottom = getUI().getLayerPane().getBottom();
-                    if (selected.getName().endsWith(".bmp") && bottom instanceof ZoomPane zoomPane) {
+                    HeatmapTiles heatLayer = getUI().getMap().getHeatLayer();
+                    if (selected.getName().endsWith(Bitmap.HEATMAP_EXTENSION) && heatLayer != null) {
+                        // writing the finest density grid with grid size and bounds
+                        Bitmap.writeHeatmap(heatLayer.finestLevel().toBitmap(), selected);
+                    } else if (selected.getName().endsWith(".bmp") && bottom instanceof ZoomPane zoomPane) {
                         // writing Bitmap image with FileWizard
                         Image bitmap = zoomPane.getContent();
                         FileWizard.getFileWizard().writeBitmapImg(bitmap, BufferedImage.TYPE_BYTE_GRAY, selected);
+                    } else if (selected.getName().endsWith(".bmp") && heatLayer != null) {
+                        // writing the finest density grid of the heat layer
+                        Bitmap.write(heatLayer.finestLevel().toBitmap(), selected);
                     } else {
-                        getUI().showWarning(Warning.INVALID_DATA, warningMsg + extensions);
+                        getUI().showWarning(Warning.INVALID_DATA, warningMsg + String.join(", ", extensions));
                     }
                 }
                 case MAP_TRACKING, MAP_TRACKING_NP, MAP_FROMSEARCH, MAP_SIGNIFICANCE -> {
@@ -986,7 +1163,7 @@ public final class Controller implements ExceptionHandler {
                         MapData mapData = new MapData(getDataList(), currentViewType, rect);
                         FileWizard.getFileWizard().savePlsFile(mapData, selected);
                     } else {
-                        getUI().showWarning(Warning.INVALID_DATA, warningMsg + extensions);
+                        getUI().showWarning(Warning.INVALID_DATA, warningMsg + String.join(", ", extensions));
                     }
                 }
                 default -> getUI().showWarning(Warning.NOT_SUPPORTED_YET, "These filetypes are not savable yet!");
@@ -1000,7 +1177,7 @@ public final class Controller implements ExceptionHandler {
 
     /**
      * loads a specific file, which the user selects in a file chooser,
-     * if the filename ends with '.bmp' or '.pls', the file is loaded into the view
+     * if the filename ends with '.bmp', '.psh' or '.pls', the file is loaded into the view
      */
     public void loadSelectedFile() {
 
@@ -1015,6 +1192,9 @@ public final class Controller implements ExceptionHandler {
                 BufferedImage buf = ImageIO.read(file);
                 showBitmap(null, buf);
                 // TODO: 31.08.2022 show Bitmap from File or Image
+            } else if (filename.endsWith(Bitmap.HEATMAP_EXTENSION)) {
+                getUI().setViewType(MAP_HEATMAP);
+                showBitmap(Bitmap.readHeatmap(file), null);
             } else if (filename.endsWith(".pls")) {
                 FileWizard fileWizard = FileWizard.getFileWizard();
                 MapData loaded = fileWizard.loadPlsFile(file);
@@ -1140,32 +1320,23 @@ public final class Controller implements ExceptionHandler {
     }
 
     /**
-     * shows a {@link Bitmap} in the view, {@link Bitmap} can be created new with
-     * gridSize and data {@link Vector} or can just be given as parameter ({@link Bitmap} or {@link BufferedImage})
+     * shows a {@link Bitmap} in the view, the global position heatmap is shown as {@link HeatmapTiles} layer
+     * on the map, a {@link Bitmap} or {@link BufferedImage} (e.g. from a file) can be given as parameter
      *
      * @param bitmap is the {@link Bitmap} object to be displayed, may be null
      * @param buf is the {@link BufferedImage} to be displayed, may be null
      */
     public void showBitmap(@Nullable Bitmap bitmap, @Nullable BufferedImage buf) {
         if (bitmap == null && buf == null) {
-            String input = getUI().getUserInput("Please enter a grid size (0.025 - 2.0)", 0.5);
-            if (input.isBlank()) {
-                return;
-            }
             scheduler.exec(() -> {
                 try {
                     setLoading(true);
                     getUI().showLoadingScreen(true);
                     getUI().setViewType(MAP_HEATMAP);
-                    float gridSize = Float.parseFloat(input);
-                    if (gridSize < 0.025f || gridSize > 2.0f) {
-                        getUI().showWarning(Warning.OUT_OF_RANGE, "grid size must be between 0.025 and 2.0!");
-                        return;
-                    }
-                    Bitmap bmp = new Statistics().globalPositionBitmap(gridSize);
-                    StatsView.showPosHeatMap(getUI(), bmp);
-                } catch (NumberFormatException nfe) {
-                    getUI().showWarning(Warning.NUMBER_EXPECTED, "Please enter a float value (0.025 - 2.0)");
+                    TreasureMap map = getUI().getMap();
+                    // the tiles are rendered from the density grids, so the grid size depends on the zoom level
+                    map.setHeatLayer(new HeatmapTiles(new Statistics().densityLevels(), map::repaint));
+                    getUI().getLayerPane().setBottomDefault();
                 } catch (DataNotFoundException | OutOfMemoryError e) {
                     handleException(e);
                 } finally {
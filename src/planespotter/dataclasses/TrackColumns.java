@@ -0,0 +1,108 @@
+package planespotter.dataclasses;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Vector;
+
+/**
+ * @name TrackColumns
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * record TrackColumns represents the tracking data of one flight in column-layout,
+ * every column is a primitive array, index i of every array belongs to the same tracking point.
+ * This is much smaller than a Vector of {@link DataPoint}s, because there is no object per point.
+ * @see DataPoint
+ */
+public record TrackColumns(int flightID,
+                           int @NotNull [] ids, // tracking IDs
+                           long @NotNull [] timestamps, // timestamps in seconds
+                           double @NotNull [] lat, // latitudes
+                           double @NotNull [] lon, // longitudes
+                           int @NotNull [] altitude, // altitudes in feet
+                           int @NotNull [] speed, // ground speeds in knots
+                           int @NotNull [] heading, // headings in degrees
+                           int @NotNull [] squawk) { // squawk codes
+
+    /**
+     * allocates new, empty {@link TrackColumns} with a fixed size
+     *
+     * @param flightID is the flight ID
+     * @param size is the point count
+     * @return new {@link TrackColumns} with arrays of the given size
+     */
+    @NotNull
+    public static TrackColumns allocate(int flightID, int size) {
+        return new TrackColumns(flightID, new int[size], new long[size], new double[size], new double[size],
+                                new int[size], new int[size], new int[size], new int[size]);
+    }
+
+    /**
+     * creates {@link TrackColumns} from {@link DataPoint}s of one flight
+     *
+     * @param flightID is the flight ID
+     * @param dataPoints are the {@link DataPoint}s, should be sorted by timestamp
+     * @return new {@link TrackColumns} with the {@link DataPoint} values
+     */
+    @NotNull
+    public static TrackColumns fromDataPoints(int flightID, @NotNull List<DataPoint> dataPoints) {
+        TrackColumns columns = allocate(flightID, dataPoints.size());
+        int i = 0;
+        for (DataPoint dp : dataPoints) {
+            columns.set(i++, dp.id(), dp.timestamp(), dp.pos().lat(), dp.pos().lon(),
+                        dp.altitude(), dp.speed(), dp.heading(), dp.squawk());
+        }
+        return columns;
+    }
+
+    /**
+     * sets all values of one tracking point
+     *
+     * @param i is the point index
+     */
+    public void set(int i, int id, long timestamp, double lat, double lon, int altitude, int speed, int heading, int squawk) {
+        this.ids[i] = id;
+        this.timestamps[i] = timestamp;
+        this.lat[i] = lat;
+        this.lon[i] = lon;
+        this.altitude[i] = altitude;
+        this.speed[i] = speed;
+        this.heading[i] = heading;
+        this.squawk[i] = squawk;
+    }
+
+    /**
+     * @return the point count
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * creates a {@link DataPoint} of one tracking point
+     *
+     * @param i is the point index
+     * @return new {@link DataPoint} with the values at index i
+     */
+    @NotNull
+    public DataPoint dataPoint(int i) {
+        return new DataPoint(ids[i], flightID, new Position(lat[i], lon[i]), timestamps[i],
+                             squawk[i], speed[i], heading[i], altitude[i]);
+    }
+
+    /**
+     * converts these columns to {@link DataPoint}s, for the old APIs
+     *
+     * @return {@link Vector} of {@link DataPoint}s
+     */
+    @NotNull
+    public Vector<DataPoint> toDataPoints() {
+        Vector<DataPoint> dps = new Vector<>(size());
+        for (int i = 0; i < size(); i++) {
+            dps.add(dataPoint(i));
+        }
+        return dps;
+    }
+}
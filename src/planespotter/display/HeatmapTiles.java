@@ -0,0 +1,252 @@
+package planespotter.display;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import planespotter.throwables.InvalidArrayException;
+import planespotter.util.Bitmap;
+import planespotter.util.WeightedCache;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @name HeatmapTiles
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class HeatmapTiles is a tile pyramid of position density tiles, it is painted by the {@link TreasureMap}
+ * as overlay layer, so the heatmap pans and zooms with the map, without one world-sized image.
+ * The tiles have the Web-Mercator tile grid of the map tiles, every zoom level is rendered from the finest
+ * density grid whose fields are not smaller than a tile pixel, deeper zoom levels use the finest grid.
+ * Only the visible tiles are requested by the map, missing tiles are rendered in parallel on an own pool
+ * and cached in a {@link WeightedCache}, the map is repainted when a tile is ready.
+ * Tiles of a zoom level which isn't shown anymore are not rendered.
+ * @see TreasureMap#setHeatLayer(HeatmapTiles)
+ * @see planespotter.model.io.DensityGrid
+ */
+public final class HeatmapTiles {
+
+    // tile size in pixels, the same as the map tiles
+    public static final int TILE_SIZE = 256;
+
+    // max. weight of the tile cache in bytes
+    private static final long MAX_CACHE_BYTES = 64L << 20;
+
+    // cached instead of empty tiles, never painted
+    @NotNull private static final BufferedImage EMPTY = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+
+    // heat colors, index 0 is transparent
+    @NotNull private static final int[] PALETTE = palette();
+
+    // global density grids, coarsest first
+    @NotNull private final Bitmap.Accumulator[] levels;
+
+    // log-scale of every density grid, the highest field count is the hottest color
+    @NotNull private final double[] logMax;
+
+    // rendered tiles, key is 'zoom/x/y'
+    @NotNull private final WeightedCache<String, BufferedImage> cache;
+
+    // tiles which are rendered at the moment
+    @NotNull private final Set<String> pending;
+
+    // renders the tiles
+    @NotNull private final ForkJoinPool pool;
+
+    // is executed when a tile is ready, e.g. map repaint
+    @NotNull private final Runnable onTileReady;
+
+    // the zoom level of the last request, older requests are dropped
+    private volatile int currentZoom;
+
+    /**
+     * constructs a new {@link HeatmapTiles} layer
+     *
+     * @param levels are the global density grids (see {@link Bitmap#accumulator(float)}), in any order
+     * @param onTileReady is executed when a requested tile is ready, on a render thread
+     */
+    public HeatmapTiles(@NotNull Bitmap.Accumulator[] levels, @NotNull Runnable onTileReady) {
+        if (levels.length == 0) {
+            throw new InvalidArrayException("At least one density grid is required!");
+        }
+        this.levels = levels.clone();
+        Arrays.sort(this.levels, (a, b) -> Float.compare(b.gridSize(), a.gridSize()));
+        this.logMax = new double[this.levels.length];
+        for (int i = 0; i < this.levels.length; i++) {
+            this.logMax[i] = Math.log1p(max(this.levels[i]));
+        }
+        this.cache = new WeightedCache<>(MAX_CACHE_BYTES, img -> (long) img.getWidth() * img.getHeight() * Integer.BYTES);
+        this.pending = ConcurrentHashMap.newKeySet();
+        this.pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        this.onTileReady = onTileReady;
+        this.currentZoom = -1;
+    }
+
+    /**
+     * returns a tile, if it is rendered, else the tile is rendered in the background
+     *
+     * @param zoom is the zoom level
+     * @param x is the tile x index
+     * @param y is the tile y index
+     * @return the tile image, null if the tile is empty or not rendered yet
+     */
+    @Nullable
+    public BufferedImage tile(int zoom, int x, int y) {
+        currentZoom = zoom;
+        String key = zoom + "/" + x + "/" + y;
+        BufferedImage tile = cache.get(key);
+        if (tile == null && !pool.isShutdown() && pending.add(key)) {
+            pool.execute(() -> {
+                try {
+                    if (zoom != currentZoom) {
+                        // the map zoom has changed before the tile was rendered
+                        return;
+                    }
+                    cache.put(key, render(zoom, x, y));
+                } finally {
+                    pending.remove(key);
+                }
+                onTileReady.run();
+            });
+        }
+        return (tile == EMPTY) ? null : tile;
+    }
+
+    /**
+     * paints the visible tiles of a map view
+     *
+     * @param g is the {@link Graphics} of the map
+     * @param zoom is the map zoom level
+     * @param originX is the world pixel x of the upper left view corner
+     * @param originY is the world pixel y of the upper left view corner
+     * @param width is the view width
+     * @param height is the view height
+     * @param tileSize is the tile size of the map, tiles are scaled if it differs from {@link HeatmapTiles#TILE_SIZE}
+     */
+    public void paint(@NotNull Graphics g, int zoom, int originX, int originY, int width, int height, int tileSize) {
+        int max = (1 << zoom) - 1;
+        int fromX = Math.max(0, Math.floorDiv(originX, tileSize)),
+            toX = Math.min(max, Math.floorDiv(originX + width - 1, tileSize)),
+            fromY = Math.max(0, Math.floorDiv(originY, tileSize)),
+            toY = Math.min(max, Math.floorDiv(originY + height - 1, tileSize));
+        BufferedImage tile;
+        for (int y = fromY; y <= toY; y++) {
+            for (int x = fromX; x <= toX; x++) {
+                if ((tile = tile(zoom, x, y)) != null) {
+                    g.drawImage(tile, x * tileSize - originX, y * tileSize - originY, tileSize, tileSize, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the finest density grid of this layer
+     */
+    @NotNull
+    public Bitmap.Accumulator finestLevel() {
+        return levels[levels.length - 1];
+    }
+
+    /**
+     * stops the rendering and clears the cache, the layer can't render tiles afterwards
+     */
+    public void dispose() {
+        pool.shutdownNow();
+        cache.clear();
+    }
+
+    /**
+     * renders one tile from the density grid of its zoom level, every pixel gets the highest count
+     * of its k*k sample points, so no field is skipped if a pixel is wider than a field (low zoom levels)
+     *
+     * @return the tile image, {@link HeatmapTiles#EMPTY} if there is no position in the tile
+     */
+    @NotNull
+    private BufferedImage render(int zoom, int tileX, int tileY) {
+        double worldSize = (double) TILE_SIZE * (1L << zoom),
+               pixelDegrees = 360. / worldSize;
+        int level = level(pixelDegrees);
+        Bitmap.Accumulator grid = levels[level];
+        double scale = (logMax[level] == 0) ? 0 : 255. / logMax[level];
+        int k = (int) Math.ceil(pixelDegrees / grid.gridSize());
+        // the longitudes only depend on the column and the latitudes only on the row
+        double[] lons = new double[TILE_SIZE * k],
+                 lats = new double[k];
+        for (int i = 0; i < lons.length; i++) {
+            lons[i] = (tileX * TILE_SIZE + (i + .5) / k) / worldSize * 360. - 180.;
+        }
+        BufferedImage img = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+        boolean empty = true;
+        int count;
+        for (int py = 0; py < TILE_SIZE; py++) {
+            for (int j = 0; j < k; j++) {
+                lats[j] = Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1. - 2. * (tileY * TILE_SIZE + py + (j + .5) / k) / worldSize))));
+            }
+            for (int px = 0; px < TILE_SIZE; px++) {
+                count = 0;
+                for (int j = 0; j < k; j++) {
+                    for (int i = px * k; i < (px + 1) * k; i++) {
+                        count = Math.max(count, grid.get(lats[j], lons[i]));
+                    }
+                }
+                if (count > 0) {
+                    pixels[py * TILE_SIZE + px] = PALETTE[Math.max(1, Math.min(255, (int) (Math.log1p(count) * scale)))];
+                    empty = false;
+                }
+            }
+        }
+        return empty ? EMPTY : img;
+    }
+
+    /**
+     * finds the finest density grid with fields of at least one pixel,
+     * the coarsest grid if every grid is finer than a pixel
+     *
+     * @param pixelDegrees is the pixel width in degrees
+     * @return the index of the density grid
+     */
+    private int level(double pixelDegrees) {
+        for (int i = levels.length - 1; i >= 0; i--) {
+            if (levels[i].gridSize() >= pixelDegrees) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the highest field count of a density grid
+     */
+    private static int max(@NotNull Bitmap.Accumulator grid) {
+        int max = 0;
+        for (int x = 0; x < grid.width(); x++) {
+            for (int y = 0; y < grid.height(); y++) {
+                max = Math.max(max, grid.get(x, y));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return the heat colors from transparent blue (few positions) to opaque red (most positions)
+     */
+    @NotNull
+    private static int[] palette() {
+        int[] palette = new int[256];
+        float t;
+        for (int i = 1; i < palette.length; i++) {
+            t = i / 255f;
+            int rgb = Color.HSBtoRGB(.66f * (1f - t), 1f, 1f) & 0xFFFFFF;
+            int alpha = 80 + (int) (160 * t);
+            palette[i] = (alpha << 24) | rgb;
+        }
+        return palette;
+    }
+}
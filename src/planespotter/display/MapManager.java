@@ -109,13 +109,15 @@ public final class MapManager {
     /**
      * clears the map from all
      *      {@link MapMarker}s,
-     *      {@link MapPolygon}s and
-     *      {@link MapRectangle}s
+     *      {@link MapPolygon}s,
+     *      {@link MapRectangle}s and
+     *      the heat map layer
      */
     public void clearMap() {
         this.mapViewer.removeAllMapMarkers();
         this.mapViewer.removeAllMapPolygons();
         this.mapViewer.removeAllMapRectangles();
+        this.mapViewer.setHeatLayer(null);
     }
 
     /**
@@ -276,6 +278,59 @@ public final class MapManager {
         mapViewer.setMapPolygonList(polys);
     }
 
+    /**
+     * adds one chunk of a progressive search to the current map, without repainting the previous chunks,
+     * must be called on the event dispatch thread
+     *
+     * @param chunk are the {@link DataPoint}s of complete flights, ordered by flight ID and timestamp
+     * @param showPoints if every data point should get a marker
+     * @param markFlights if the last data point of every flight should get a plane marker
+     */
+    public void appendTrackingMap(@NotNull Vector<DataPoint> chunk, boolean showPoints, boolean markFlights) {
+        List<MapMarker> markers = new ArrayList<>();
+        List<MapPolygon> polys = new ArrayList<>(chunk.size());
+        DataPoint lastDp = null;
+        Color color;
+        PlaneMarker marker;
+        for (DataPoint dp : chunk) {
+            color = Utilities.colorByAltitude(dp.altitude());
+            if (lastDp != null && lastDp.flightID() == dp.flightID()) {
+                if (noLonJump(lastDp, dp)) {
+                    polys.add(new MapLine(lastDp.pos(), dp.pos(), color));
+                }
+            } else if (lastDp != null && markFlights) {
+                // the previous flight is complete
+                markers.add(PlaneMarker.fromDataPoint(lastDp, Utilities.colorByAltitude(lastDp.altitude()), true, false));
+            }
+            if (showPoints) {
+                marker = PlaneMarker.fromDataPoint(dp, false, false);
+                marker.setBackColor(color);
+                markers.add(marker);
+            }
+            lastDp = dp;
+        }
+        if (lastDp != null && markFlights) {
+            markers.add(PlaneMarker.fromDataPoint(lastDp, Utilities.colorByAltitude(lastDp.altitude()), true, false));
+        }
+        mapViewer.getMapPolygonList().addAll(polys);
+        mapViewer.getMapMarkerList().addAll(markers);
+        mapViewer.repaint();
+    }
+
+    /**
+     * shows the airspace state of one replay moment, one marker per aircraft
+     *
+     * @param states are the last-known {@link DataPoint}s of the aircraft
+     */
+    public void createAirspaceMap(DataPoint @NotNull [] states) {
+        List<MapMarker> markers = new ArrayList<>(states.length);
+        for (DataPoint dp : states) {
+            markers.add(PlaneMarker.fromDataPoint(dp, Utilities.colorByAltitude(dp.altitude()), true, false));
+        }
+        clearMap();
+        mapViewer.setMapMarkerList(markers);
+    }
+
     public void createSearchMap(Vector<DataPoint> dataPoints, boolean showAllPoints) {
         if (dataPoints == null || dataPoints.isEmpty()) {
             return;
@@ -82,6 +82,22 @@ public class StatsView {
         }
     }
 
+    public static void showTopPlaneTypes(UserInterface ui, Statistics stats)
+            throws DataNotFoundException {
+
+        String input = ui.getUserInput("Please enter a minimum significance (0-" + UnicodeChar.INFINITY.get() + ")", 250);
+        if (input.isBlank()) {
+            return;
+        }
+        LayerPane layerPane = ui.getLayerPane();
+        try {
+            int minCount = Integer.parseInt(input);
+            layerPane.replaceBottom(StatsView.barChartPanel(layerPane, stats.planeTypeSignificance(minCount)));
+        } catch (NumberFormatException nfe) {
+            ui.showWarning(Warning.NUMBER_EXPECTED);
+        }
+    }
+
     public static void showMostTracked(UserInterface ui, Statistics stats)
             throws DataNotFoundException {
 
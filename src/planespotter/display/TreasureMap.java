@@ -10,7 +10,6 @@ import org.openstreetmap.gui.jmapviewer.tilesources.TMSTileSource;
 import org.openstreetmap.gui.jmapviewer.tilesources.TileSourceInfo;
 
 import java.awt.*;
-import java.awt.image.BufferedImage;
 
 /**
  * @name TreasureMap
@@ -36,8 +35,8 @@ public class TreasureMap extends JMapViewer {
         TRANSPORT_MAP = new OsmTileSource.TransportMap();
     }
 
-    // heat map image
-    private BufferedImage heatMap;
+    // heat map overlay layer, null if there is none
+    private volatile HeatmapTiles heatLayer;
 
     /**
      * treasure map constructor
@@ -45,12 +44,12 @@ public class TreasureMap extends JMapViewer {
     public TreasureMap() {
         super(new MemoryTileCache());
 
-        heatMap = null;
+        heatLayer = null;
     }
 
     /**
-     * paints the map, if a this.heatMap is not null,
-     * the heat map is also painted
+     * paints the map, if a heat layer is set,
+     * its visible tiles are painted over the map
      *
      * @param g is the given graphics object, i don't know where it comes from
      */
@@ -59,28 +58,35 @@ public class TreasureMap extends JMapViewer {
         synchronized (PAINT_LOCK) {
             super.paintComponent(g);
         }
-        /*if (this.heatMap != null) {
-            var g2d = (Graphics2D) g;
-            g2d.drawImage(this.heatMap, 0, 0, super.getWidth(), super.getHeight(), null);
-        }*/
+        HeatmapTiles layer = this.heatLayer;
+        if (layer != null) {
+            Point center = super.getCenter();
+            layer.paint(g, super.getZoom(), center.x - super.getWidth() / 2, center.y - super.getHeight() / 2,
+                        super.getWidth(), super.getHeight(), super.tileSource.getTileSize());
+        }
     }
 
     /**
-     * getter for the bitmap {@link BufferedImage}
+     * getter for the heat map layer
      *
-     * @return the current bitmap
+     * @return the current {@link HeatmapTiles} layer, null if there is none
      */
-    public final BufferedImage getHeatMap() {
-        return this.heatMap;
+    public final HeatmapTiles getHeatLayer() {
+        return this.heatLayer;
     }
 
     /**
-     * sets the current Bitmap {@link BufferedImage}
+     * sets the heat map layer, the previous layer is disposed
      *
-     * @param heatMap is the bitmap {@link BufferedImage}
+     * @param heatLayer is the {@link HeatmapTiles} layer, null removes the layer
      */
-    public void setHeatMap(BufferedImage heatMap) {
-        this.heatMap = heatMap;
+    public void setHeatLayer(HeatmapTiles heatLayer) {
+        HeatmapTiles previous = this.heatLayer;
+        this.heatLayer = heatLayer;
+        if (previous != null && previous != heatLayer) {
+            previous.dispose();
+        }
+        super.repaint();
     }
 
 }
@@ -429,9 +429,11 @@ public class UserInterface {
         JMenuItem[] statsItems = new JMenuItem[] {
                 new JMenuItem("Top-Airports", Images.STATS_ICON_16x.get()),
                 new JMenuItem("Top-Airlines", Images.STATS_ICON_16x.get()),
+                new JMenuItem("Top-Planetypes", Images.STATS_ICON_16x.get()),
                 new JMenuItem("Most-Tracked-Flights", Images.STATS_ICON_16x.get()),
                 heatMapMenu,
-                new JMenuItem("Flight-Simulation")
+                new JMenuItem("Flight-Simulation"),
+                new JMenuItem("Airspace-Replay")
         };
         JMenuItem[] heatMapItems = new JMenuItem[] {
                 new JMenuItem("Position-HeatMap"),
@@ -563,7 +565,7 @@ public class UserInterface {
         File home = FileSystemView.getFileSystemView().getHomeDirectory();
         JFileChooser fileChooser = new JFileChooser(home);
         fileChooser.setAcceptAllFileFilterUsed(false);
-        FileNameExtensionFilter fileFilter = new FileNameExtensionFilter(".pls, .bmp", "pls", "bmp");
+        FileNameExtensionFilter fileFilter = new FileNameExtensionFilter(".pls, .bmp, .psh", "pls", "bmp", "psh");
         fileChooser.setFileFilter(fileFilter);
         fileChooser.showOpenDialog(parent);
 
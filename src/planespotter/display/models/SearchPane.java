@@ -1,6 +1,7 @@
 package planespotter.display.models;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import planespotter.constants.SearchType;
 import planespotter.controller.ActionHandler;
 import planespotter.display.UserInterface;
@@ -10,17 +11,29 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ItemListener;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static planespotter.constants.DefaultColor.*;
 
 public class SearchPane extends JPanel {
 
+    // max. suggestion count for search-as-you-type
+    public static final int MAX_SUGGESTIONS = 10;
+
+    // search fields with search-as-you-type suggestions
+    private static final Set<String> SUGGESTION_KEYS = Set.of("flight.callsign", "plane.type", "plane.icao", "plane.tailnr");
+
     @NotNull
     private final Map<SearchType, List<JComponent>> allSearchModels;
 
+    // suggestion popup below the focused search field
+    @NotNull
+    private final JPopupMenu suggestionPopup;
+
     @NotNull
     final Map<String, JTextField> searchFields;
 
@@ -45,6 +58,9 @@ public class SearchPane extends JPanel {
         super.add(searchMessage(this));
 
         this.searchFields = new HashMap<>();
+        this.suggestionPopup = new JPopupMenu();
+        // the focus stays in the search field while typing
+        this.suggestionPopup.setFocusable(false);
 
         this.allSearchModels = allSearches(this, actionHandler);
 
@@ -66,6 +82,7 @@ public class SearchPane extends JPanel {
         if (type == SearchType.AREA) {
             return; // area search is not implemented
         }
+        hideSuggestions();
         List<JComponent> search = allSearchModels.get(type);
         for (List<JComponent> model : allSearchModels.values()) {
             boolean isSearchModel = (model == search);
@@ -113,7 +130,63 @@ public class SearchPane extends JPanel {
         };
     }
 
+    /**
+     * @param field is a search field
+     * @return the key of the search field, if it has suggestions, else null
+     */
+    @Nullable
+    public String getSuggestionKey(@NotNull JTextField field) {
+        for (String key : SUGGESTION_KEYS) {
+            if (searchFields.get(key) == field) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * shows the search-as-you-type suggestions below a search field,
+     * a click on a suggestion puts it into the field,
+     * suggestions for an outdated input are dropped
+     *
+     * @param fieldKey is the search field key
+     * @param prefix is the input the suggestions were found for
+     * @param suggestions are the suggestions, the popup is hidden if there are none
+     */
+    public void showSuggestions(@NotNull String fieldKey, @NotNull String prefix, @NotNull Collection<String> suggestions) {
+        JTextField field = searchFields.get(fieldKey);
+        if (field == null || !field.isShowing() || !field.getText().equals(prefix)) {
+            return;
+        }
+        suggestionPopup.setVisible(false);
+        suggestionPopup.removeAll();
+        if (suggestions.isEmpty() || (suggestions.size() == 1 && suggestions.contains(prefix))) {
+            return;
+        }
+        JMenuItem item;
+        for (String suggestion : suggestions) {
+            item = new JMenuItem(suggestion);
+            item.setFont(UserInterface.DEFAULT_FONT);
+            item.setBackground(DEFAULT_FONT_COLOR.get());
+            item.setForeground(DEFAULT_FG_COLOR.get());
+            item.addActionListener(e -> {
+                field.setText(suggestion);
+                suggestionPopup.setVisible(false);
+            });
+            suggestionPopup.add(item);
+        }
+        suggestionPopup.show(field, 0, field.getHeight());
+    }
+
+    /**
+     * hides the search-as-you-type suggestions
+     */
+    public void hideSuggestions() {
+        suggestionPopup.setVisible(false);
+    }
+
     public void clearSearch() {
+        hideSuggestions();
         final String blank = "";
         allSearchModels.get(currentSearchType)
                 .forEach(m -> {
@@ -9,14 +9,19 @@ import javax.swing.*;
 import javax.swing.border.Border;
 import java.awt.*;
 import java.awt.event.ActionListener;
+import java.util.function.IntConsumer;
 
 public class SimulationAddons extends JPanel {
 
     private static final Font DEFAULT_FONT = new Font("Arial", Font.BOLD, 11);
 
-    private JPanel info, buttons;
-    private JLabel status, remTime;
+    private JPanel info, buttons, timeline;
+    private JLabel status, remTime, time;
     private UWPButton start, stop, close;
+    private JSlider slider;
+
+    // true while the slider is moved by the simulation, not by the user
+    private boolean updating;
 
     public SimulationAddons(JComponent parent) {
         this(parent, null, null, null);
@@ -94,6 +99,61 @@ public class SimulationAddons extends JPanel {
         setBounds(x, y, width, height);
         info.setLocation(getWidth() - 250, getHeight() - 120);
         buttons.setLocation(getWidth() - 250, getHeight() - 60);
+        if (timeline != null) {
+            timeline.setLocation(getWidth() - 250, getHeight() - 180);
+        }
+    }
+
+    /**
+     * adds a timeline slider, which can be dragged to jump to a frame
+     *
+     * @param frameCount is the frame count of the simulation
+     * @param onScrub gets the frame index, when the slider is moved by the user
+     */
+    public void setTimeline(int frameCount, @NotNull IntConsumer onScrub) {
+        if (timeline != null) {
+            remove(timeline);
+        }
+        slider = new JSlider(0, Math.max(0, frameCount - 1), 0);
+        slider.setOpaque(false);
+        slider.setBounds(10, 5, 210, 20);
+        slider.addChangeListener(e -> {
+            if (!updating) {
+                onScrub.accept(slider.getValue());
+            }
+        });
+        time = new JLabel();
+        time.setFont(DEFAULT_FONT);
+        time.setForeground(DefaultColor.DEFAULT_MAP_ICON_COLOR.get());
+        time.setBounds(20, 30, 200, 20);
+
+        timeline = new JPanel(null);
+        timeline.setBackground(DefaultColor.DEFAULT_FONT_COLOR.get());
+        timeline.setBorder(BorderFactory.createLineBorder(Color.RED));
+        timeline.setBounds(0, 0, 230, 55);
+        timeline.add(slider);
+        timeline.add(time);
+        add(timeline);
+        resize(getX(), getY(), getWidth(), getHeight());
+    }
+
+    /**
+     * moves the timeline slider to the current frame, without calling the scrub action
+     *
+     * @param frame is the current frame index
+     * @param text is the time text of the frame
+     */
+    public void setTimelineValue(int frame, @NotNull String text) {
+        if (timeline == null) {
+            return;
+        }
+        updating = true;
+        try {
+            slider.setValue(frame);
+        } finally {
+            updating = false;
+        }
+        time.setText(text);
     }
 
     public void setStartAction(@NotNull ActionListener onStart) {
@@ -2,6 +2,7 @@ package planespotter.model;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Range;
+import planespotter.constants.props.Configuration;
 import planespotter.controller.Controller;
 import planespotter.dataclasses.Area;
 import planespotter.dataclasses.Frame;
@@ -10,6 +11,9 @@ import planespotter.model.io.DBIn;
 import planespotter.model.io.Inserter;
 import planespotter.model.io.Keeper;
 import planespotter.model.io.KeeperOfTheArchives;
+import planespotter.model.io.PartitionKeeper;
+import planespotter.model.io.TrackBlockPacker;
+import planespotter.model.io.TrackCompactor;
 import planespotter.model.nio.DataProcessor;
 import planespotter.model.nio.FilterManager;
 import planespotter.model.nio.Fr24Deserializer;
@@ -110,13 +114,44 @@ public final class Fr24Collector extends Collector<Fr24Supplier> {
     @Override
     public void startCollecting() {
         Fr24Deserializer deserializer = new Fr24Deserializer();
-        Keeper keeper = new KeeperOfTheArchives(1200L);
+        Keeper keeper = new KeeperOfTheArchives(1200L, createCompactor(), createPacker());
         if (filtersEnabled()) {
             deserializer.setFilterManager(filterManager);
         }
         super.startNewMainThread(() -> collect(keeper), "Fr24-Collector");
     }
 
+    /**
+     * creates the {@link TrackCompactor} for closed flights by the configuration
+     *
+     * @return the {@link TrackCompactor} or null if the compaction is disabled
+     */
+    private TrackCompactor createCompactor() {
+        Configuration config = Controller.getInstance().getConfig();
+        if (!(boolean) config.getProperty("compaction.enabled").val) {
+            return null;
+        }
+        return new TrackCompactor((double) config.getProperty("compaction.posTolerance").val,
+                                  (int) config.getProperty("compaction.altTolerance").val,
+                                  (long) config.getProperty("compaction.maxGap").val,
+                                  (long) config.getProperty("compaction.graceHours").val * 3600L);
+    }
+
+    /**
+     * creates the {@link TrackBlockPacker} for closed flights by the configuration
+     *
+     * @return the {@link TrackBlockPacker} or null if the track blocks are disabled
+     */
+    private TrackBlockPacker createPacker() {
+        Configuration config = Controller.getInstance().getConfig();
+        if (!(boolean) config.getProperty("blocks.enabled").val) {
+            return null;
+        }
+        return new TrackBlockPacker((long) config.getProperty("compaction.graceHours").val * 3600L,
+                                    (boolean) config.getProperty("compaction.enabled").val,
+                                    (boolean) config.getProperty("blocks.dropRows").val);
+    }
+
     /**
      * collecting task for the collector
      */
@@ -139,6 +174,11 @@ public final class Fr24Collector extends Collector<Fr24Supplier> {
         // executing the keeper every 400 seconds
         scheduler.schedule(() -> scheduler.exec(keeper, "Keeper Thread", true, Scheduler.LOW_PRIO, false),
                 100 * 1000, 400 * 1000);
+        // executing the partition keeper (retention, analyze, vacuum) every hour
+        int retention = (int) Controller.getInstance().getConfig().getProperty("tracking.retentionPeriods").val;
+        Keeper partitionKeeper = new PartitionKeeper(retention);
+        scheduler.schedule(() -> scheduler.exec(partitionKeeper, "Partition-Keeper Thread", true, Scheduler.LOW_PRIO, false),
+                300 * 1000, 3600 * 1000);
         // updating display
         DBIn dbIn = DBIn.getDBIn();
         scheduler.schedule(() -> {
@@ -1,11 +1,12 @@
 package planespotter.model;
 
 import org.jetbrains.annotations.NotNull;
+import planespotter.constants.SearchType;
 import planespotter.dataclasses.DataPoint;
 import planespotter.model.io.DBOut;
+import planespotter.model.io.SearchIndex;
 import planespotter.throwables.DataNotFoundException;
 import planespotter.throwables.InvalidArrayException;
-import planespotter.util.LRUCache;
 import planespotter.util.Utilities;
 
 import java.util.ArrayDeque;
@@ -20,30 +21,38 @@ import java.util.Vector;
  * @description
  * class search contains search methods for flights, planes, airports, airlines and areas
  * it gets its parameters from other classes like Controller and tries to return search results.
+ * The results are cached by the write-aware {@link planespotter.model.io.ResultCache} of {@link DBOut},
+ * so repeated searches stay up-to-date while the collector is running.
  */
 public class Search {
 
-    // search cache for data recycling, but still in development
-    private final LRUCache<@NotNull String, Vector<DataPoint>> searchCache;
-
     // flight count from current search query
     private int currentFlightCount;
 
     /**
-     * constructor, equivalent to 'new Search(100)'
+     * constructor
      */
     public Search() {
-        this(100);
+        this.currentFlightCount = 0;
     }
 
     /**
-     * constructor
+     * resolves the flight IDs of a search, without loading any tracking data,
+     * used by the progressive {@link SearchJob}
      *
-     * @param cacheSize is the cache size
+     * @param type is the {@link SearchType}
+     * @param inputs are the input strings of the search fields
+     * @return the found flight IDs, not empty
+     * @throws DataNotFoundException if no flight was found
      */
-    public Search(int cacheSize) {
-        this.searchCache = new LRUCache<>(cacheSize, false);
-        this.currentFlightCount = 0;
+    public int @NotNull [] flightIDs(@NotNull SearchType type, @NotNull String[] inputs) throws DataNotFoundException {
+        return switch (type) {
+            case FLIGHT -> flightIDsForFlight(inputs);
+            case PLANE -> flightIDsForPlane(inputs);
+            case AIRPORT -> flightIDsForAirport(inputs);
+            case AIRLINE -> flightIDsForAirline(inputs);
+            default -> throw new DataNotFoundException("Search type " + type + " is not supported!");
+        };
     }
 
     /**
@@ -52,49 +61,90 @@ public class Search {
      * @param inputs are the input strings
      */
     public Vector<DataPoint> forFlight(String[] inputs) throws DataNotFoundException {
+        Vector<DataPoint> data = DBOut.getDBOut().getTrackingsByFlightIDs(flightIDsForFlight(inputs));
+        if (data.isEmpty()) {
+            throw new DataNotFoundException("No flight found for these inputs!");
+        }
+        return data;
+    }
+
+    /**
+     * starts a DB-search for a specific {@link planespotter.dataclasses.Plane}
+     *
+     * @param inputs are the input strings
+     */
+    public Vector<DataPoint> forPlane(String[] inputs) throws DataNotFoundException {
+        return DBOut.getDBOut().getTrackingsByFlightIDs(flightIDsForPlane(inputs));
+    }
+
+    /**
+     * starts a DB-search for an {@link planespotter.dataclasses.Airport}
+     *
+     * @param inputs are the input strings [id,tag,name]
+     * @return Vector of all DataPoints containing a flight with the input airport
+     * @throws DataNotFoundException if no airport or no flights where found
+     */
+    // TODO: 25.05.2022 Airport suche mit Start und Ziel Airport
+    @NotNull
+    public Vector<DataPoint> forAirport(String[] inputs) throws DataNotFoundException {
+        Vector<DataPoint> data = DBOut.getDBOut().getTrackingsByFlightIDs(flightIDsForAirport(inputs));
+        if (data.isEmpty()) {
+            throw new DataNotFoundException("No airports found for these inputs!");
+        }
+        return data;
+    }
+
+    /**
+     * starts a DB-search for an {@link planespotter.dataclasses.Airline}
+     *
+     * @param inputs are the input {@link String}s to search for
+     * @return {@link Vector} of {@link DataPoint}s, all tracking points with that airlines
+     * @throws DataNotFoundException if no {@link planespotter.dataclasses.Airline} or
+     *                               {@link planespotter.dataclasses.Flight} was found
+     */
+    @NotNull
+    public Vector<DataPoint> forAirline(@NotNull String[] inputs) throws DataNotFoundException {
+        return DBOut.getDBOut().getTrackingsByFlightIDs(flightIDsForAirline(inputs));
+    }
 
-        DataNotFoundException ex = new DataNotFoundException("No flights found!");
+    /**
+     * finds the flight IDs of the flight search, by ID or callsign
+     *
+     * @param inputs are the input strings [id,callsign]
+     * @return the found flight IDs, not empty
+     * @throws DataNotFoundException if no flight was found
+     */
+    private int @NotNull [] flightIDsForFlight(String[] inputs) throws DataNotFoundException {
         String id = inputs[0];
         String callsign = inputs[1];
-        try {
+        if (!id.isBlank()) {
+            currentFlightCount = 1;
+            return new int[] { Integer.parseInt(id) };
+        } else if (!callsign.isBlank()) {
             DBOut out = DBOut.getDBOut();
-            if (!id.isBlank()) {
-                int fid = Integer.parseInt(id);
-                currentFlightCount = 1;
-                return out.getTrackingByFlight(fid);
-            } else if (!callsign.isBlank()) {
-                Deque<String> signs = findCallsigns(callsign);
-                Deque<Integer> fids = new ArrayDeque<>();
-                while (!signs.isEmpty()) {
-                    fids.addAll(out.getFlightIDsByCallsign(signs.poll()));
-                }
-                int[] ids = Utilities.parseIntArray(fids);
-                currentFlightCount = ids.length;
-                String key = "flight." + callsign;
-                Vector<DataPoint> data = searchCache.get(key);
-                if (data == null) {
-                    data = out.getTrackingsByFlightIDs(ids);
-                    searchCache.put(key, data);
-                }
-                if (data.isEmpty()) {
-                    ex = new DataNotFoundException("No flight found for callsign " + callsign + "!");
-                } else {
-                    return data;
-                }
+            Deque<String> signs = findCallsigns(callsign);
+            Deque<Integer> fids = new ArrayDeque<>();
+            while (!signs.isEmpty()) {
+                fids.addAll(out.getFlightIDsByCallsign(signs.poll()));
             }
-        } catch (DataNotFoundException dnf) {
-            ex = dnf;
+            int[] ids = Utilities.parseIntArray(fids);
+            currentFlightCount = ids.length;
+            if (ids.length == 0) {
+                throw new DataNotFoundException("No flight found for callsign " + callsign + "!");
+            }
+            return ids;
         }
-        throw ex;
+        throw new DataNotFoundException("No flights found!");
     }
 
     /**
-     * starts a DB-search for a specific {@link planespotter.dataclasses.Plane}
+     * finds the flight IDs of the plane search, by ID, type, ICAO or tail number
      *
-     * @param inputs are the input strings
+     * @param inputs are the input strings [id,type,icao,tailNr]
+     * @return the found flight IDs, not empty
+     * @throws DataNotFoundException if no flight was found
      */
-    public Vector<DataPoint> forPlane(String[] inputs) throws DataNotFoundException {
-
+    private int @NotNull [] flightIDsForPlane(String[] inputs) throws DataNotFoundException {
         String id = inputs[0];
         String type = inputs[1];
         String icao = inputs[2]; // find ICAOs
@@ -105,7 +155,7 @@ public class Search {
         if (id != null && !id.isBlank()) {
             fids = new int[] { Integer.parseInt(id) };
         } else if (type != null && !type.isBlank()) {
-            Deque<String> planetypes = dbOut.getAllPlanetypesLike(inputs[1]);
+            Deque<String> planetypes = dbOut.getAllPlanetypesLike(type);
             fids = dbOut.getFlightIDsByPlaneTypes(planetypes);
         } else if (!icao.isBlank()) {
             fids = dbOut.getFlightIDsByICAOLike(icao);
@@ -115,63 +165,44 @@ public class Search {
         if (fids == null || fids.length == 0) {
             throw new DataNotFoundException("no data found / no input at Search::verifyPlane!");
         }
-        return dbOut.getTrackingsByFlightIDs(fids);
+        return fids;
     }
 
     /**
-     * starts a DB-search for an {@link planespotter.dataclasses.Airport}
+     * finds the flight IDs of the airport search, by tag or name
      *
      * @param inputs are the input strings [id,tag,name]
-     * @return Vector of all DataPoints containing a flight with the input airport
-     * @throws DataNotFoundException if no airport or no flights where found
+     * @return the found flight IDs, not empty
+     * @throws DataNotFoundException if no flight was found
      */
-    // TODO: 25.05.2022 Airport suche mit Start und Ziel Airport
-    @NotNull
-    public Vector<DataPoint> forAirport(String[] inputs) throws DataNotFoundException {
-
+    private int @NotNull [] flightIDsForAirport(String[] inputs) throws DataNotFoundException {
         String id = inputs[0];
         String tag = inputs[1];
         String name = inputs[2];
         DBOut out = DBOut.getDBOut();
-        Vector<DataPoint> data = null;
-        String key;
+        int[] fids = null;
         if (!id.isBlank()) {
             // trackings with airport id (-> airport join)
         } else if (!tag.isBlank()) {
-            key = "airport" + tag.toUpperCase();
-            data = searchCache.get(key);
-            if (data == null) {
-                int[] fids = out.getFlightIDsByAirportTag(tag);
-                data = out.getTrackingsByFlightIDs(fids);
-                searchCache.put(key, data);
-            }
+            fids = out.getFlightIDsByAirportTag(tag);
         } else if (!name.isBlank()) {
-            key = "airport" + name.toUpperCase();
-            data = searchCache.get(key);
-            if (data == null) {
-                // FIXME too slow
-                int[] fids = out.getFlightIDsByAirportName(name);
-                data = out.getTrackingsByFlightIDs(fids);
-                searchCache.put(key, data);
-            }
+            // FIXME too slow
+            fids = out.getFlightIDsByAirportName(name);
         }
-        if (data == null || data.isEmpty()) {
+        if (fids == null || fids.length == 0) {
             throw new DataNotFoundException("No airports found for these inputs!");
         }
-        return data;
+        return fids;
     }
 
     /**
-     * starts a DB-search for an {@link planespotter.dataclasses.Airline}
+     * finds the flight IDs of the airline search, by ID, tag, name or country
      *
-     * @param inputs are the input {@link String}s to search for
-     * @return {@link Vector} of {@link DataPoint}s, all tracking points with that airlines
-     * @throws DataNotFoundException if no {@link planespotter.dataclasses.Airline} or
-     *                               {@link planespotter.dataclasses.Flight} was found
+     * @param inputs are the input strings [id,tag,name,country]
+     * @return the found flight IDs, not empty
+     * @throws DataNotFoundException if no flight was found
      */
-    @NotNull
-    public Vector<DataPoint> forAirline(@NotNull String[] inputs) throws DataNotFoundException {
-
+    private int @NotNull [] flightIDsForAirline(@NotNull String[] inputs) throws DataNotFoundException {
         if (inputs.length != 4) {
             throw new InvalidArrayException("Array length must be 4!");
         }
@@ -202,7 +233,7 @@ public class Search {
         if (fids.length == 0) {
             throw new DataNotFoundException("No airports found for these inputs!");
         }
-        return dbOut.getTrackingsByFlightIDs(fids);
+        return fids;
     }
 
     /**
@@ -223,6 +254,30 @@ public class Search {
         return allCallsigns;
     }
 
+    /**
+     * finds the search suggestions for a search field, for search-as-you-type,
+     * the suggestions are resolved by the in-memory {@link SearchIndex}
+     *
+     * @param fieldKey is the search field key, e.g. 'flight.callsign'
+     * @param prefix is the current field input
+     * @param limit is the max. suggestion count
+     * @return {@link Deque} of the suggestions in sorted order, empty if the field has no suggestions
+     */
+    @NotNull
+    public Deque<String> suggestions(@NotNull String fieldKey, @NotNull String prefix, int limit) {
+        SearchIndex.Field field = switch (fieldKey) {
+            case "flight.callsign" -> SearchIndex.Field.CALLSIGN;
+            case "plane.icao" -> SearchIndex.Field.ICAO;
+            case "plane.tailnr" -> SearchIndex.Field.TAILNR;
+            case "plane.type" -> SearchIndex.Field.TYPE;
+            default -> null;
+        };
+        if (field == null || prefix.isBlank()) {
+            return new ArrayDeque<>();
+        }
+        return DBOut.getDBOut().getSearchIndex().keys(field, prefix, limit);
+    }
+
     /**
      * getter for current {@link planespotter.dataclasses.Flight} count
      *
@@ -0,0 +1,148 @@
+package planespotter.model;
+
+import org.jetbrains.annotations.NotNull;
+import planespotter.constants.SearchType;
+import planespotter.dataclasses.DataPoint;
+import planespotter.dataclasses.Position;
+import planespotter.model.io.DBOut;
+import planespotter.throwables.DataNotFoundException;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Vector;
+import java.util.function.Consumer;
+
+/**
+ * @name SearchJob
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class SearchJob is one progressive search execution, it runs on the {@link Scheduler}.
+ * First, only the flight IDs of the search are resolved, then the tracking data is streamed
+ * in chunks of flights, which grow from a few flights up to {@link SearchJob#MAX_CHUNK},
+ * so the first tracks are shown after one small query, even for huge result sets.
+ * Every chunk is passed to a chunk consumer, ordered by flight ID and timestamp.
+ * A job can be cancelled at any time, it stops before the next chunk,
+ * the controller cancels the running job when a newer search is submitted.
+ * @see Search#flightIDs(SearchType, String[])
+ */
+public final class SearchJob implements Runnable {
+
+    // flight count of the first chunk and max. flight count of a chunk
+    public static final int FIRST_CHUNK = 8, MAX_CHUNK = 512;
+
+    // search object, resolves the flight IDs
+    @NotNull private final Search search;
+
+    // search type and field inputs
+    @NotNull private final SearchType type;
+    @NotNull private final String[] inputs;
+
+    // gets every loaded chunk
+    @NotNull private final Consumer<Vector<DataPoint>> onChunk;
+
+    // all loaded data points, in chunk order
+    @NotNull private final Vector<DataPoint> result;
+
+    // true if the job was cancelled
+    private volatile boolean cancelled;
+
+    // exception of the flight ID search or of a failed tracking read, null if there is none
+    private volatile DataNotFoundException error;
+
+    /**
+     * constructs a new {@link SearchJob}
+     *
+     * @param search is the {@link Search} which resolves the flight IDs
+     * @param type is the {@link SearchType}
+     * @param inputs are the input strings of the search fields
+     * @param onChunk gets every loaded chunk, not called after cancellation
+     */
+    public SearchJob(@NotNull Search search, @NotNull SearchType type,
+                     @NotNull String[] inputs, @NotNull Consumer<Vector<DataPoint>> onChunk) {
+        this.search = search;
+        this.type = type;
+        this.inputs = inputs;
+        this.onChunk = onChunk;
+        this.result = new Vector<>();
+        this.cancelled = false;
+        this.error = null;
+    }
+
+    /**
+     * resolves the flight IDs and streams their tracking data in growing chunks,
+     * stops as soon as the job is cancelled
+     */
+    @Override
+    public void run() {
+        int[] ids;
+        try {
+            ids = search.flightIDs(type, inputs);
+        } catch (DataNotFoundException dnf) {
+            error = dnf;
+            return;
+        }
+        DBOut dbOut = DBOut.getDBOut();
+        int chunkSize = FIRST_CHUNK;
+        for (int from = 0, to; from < ids.length && !cancelled; from = to) {
+            to = Math.min(ids.length, from + chunkSize);
+            Vector<DataPoint> chunk = new Vector<>();
+            // streamed, the chunks are not put into the result cache
+            long visited = dbOut.visitTrackingsByFlightIDs(Arrays.copyOfRange(ids, from, to), DBOut.DEFAULT_FETCH_SIZE,
+                    (id, flightID, lat, lon, timestamp, squawk, speed, heading, altitude) ->
+                            chunk.add(new DataPoint(id, flightID, new Position(lat, lon), timestamp,
+                                                    squawk, speed, heading, altitude)));
+            if (cancelled) {
+                return;
+            }
+            if (visited < 0) {
+                // the loaded chunks are incomplete, the job fails instead of showing them as the whole result
+                error = new DataNotFoundException("Couldn't read the tracking of flights " + from + " to " + to + " of the search!");
+                return;
+            }
+            chunk.sort(Comparator.comparingInt(DataPoint::flightID).thenComparingLong(DataPoint::timestamp));
+            result.addAll(chunk);
+            onChunk.accept(chunk);
+            chunkSize = Math.min(MAX_CHUNK, chunkSize * 2);
+        }
+    }
+
+    /**
+     * cancels this job, the running chunk is discarded
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return true if this job was cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return the {@link SearchType} of this job
+     */
+    @NotNull
+    public SearchType getType() {
+        return type;
+    }
+
+    /**
+     * @return all loaded data points, complete after the job has finished
+     */
+    @NotNull
+    public Vector<DataPoint> getResult() {
+        return result;
+    }
+
+    /**
+     * @return the exception of the flight ID search or of a failed tracking read,
+     *         null if flights were found and their tracking was read
+     */
+    public DataNotFoundException getError() {
+        return error;
+    }
+}
@@ -13,11 +13,15 @@ import org.jfree.data.category.CategoryDataset;
 import org.jfree.data.category.DefaultCategoryDataset;
 import planespotter.controller.Controller;
 import planespotter.dataclasses.*;
+import planespotter.model.io.Counters;
 import planespotter.model.io.DBOut;
+import planespotter.model.io.DensityGrid;
 import planespotter.model.nio.client.http.FrameSender;
 import planespotter.throwables.DataNotFoundException;
 import planespotter.throwables.InvalidDataException;
 import planespotter.util.Bitmap;
+import planespotter.util.HeatmapBuilder;
+import planespotter.util.SparseBitmap;
 import planespotter.util.Time;
 import planespotter.util.Utilities;
 
@@ -44,6 +48,9 @@ import static planespotter.util.math.MathUtils.abs;
  */
 public class Statistics {
 
+    // max. flight count of the most tracked flights
+    private static final int MOST_TRACKED_LIMIT = 50;
+
     private class Triple<A, B, C> {
         final A a; final B b; final C c;
 
@@ -98,10 +105,34 @@ public class Statistics {
         return dataset;
     }
 
+    /**
+     * creates copies of the global density grids at every {@link DensityGrid} base resolution,
+     * e.g. for the heatmap tile layer, no tracking rows are read if the density grid is loaded
+     *
+     * @return the density grids, coarsest first
+     * @throws DataNotFoundException if no {@link Position}s were counted
+     */
+    @NotNull
+    public Bitmap.Accumulator[] densityLevels()
+            throws DataNotFoundException {
+
+        DensityGrid density = DBOut.getDBOut().getDensityGrid();
+        if (density.count() == 0) {
+            throw new DataNotFoundException("No trackings found!");
+        }
+        Bitmap.Accumulator[] levels = new Bitmap.Accumulator[DensityGrid.RESOLUTIONS.length];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = Objects.requireNonNull(density.grid(DensityGrid.RESOLUTIONS[i]));
+        }
+        return levels;
+    }
+
     /**
      * this method creates a {@link Bitmap} containing all positions from the tracking-table (DB),
      * so all existing {@link Position}s from all {@link DataPoint}s,
-     * the higher a level on a {@link Bitmap}-field, the more {@link Position}s are there
+     * the higher a level on a {@link Bitmap}-field, the more {@link Position}s are there.
+     * Grid sizes which are a multiple of a {@link DensityGrid} base resolution are read from the density grid,
+     * other grid sizes need a scan of all tracking rows
      *
      * @param gridSize is the multiplier for one grid-rectangle
      *                 (gridSize = 1 : 360x180,
@@ -115,17 +146,78 @@ public class Statistics {
     public Bitmap globalPositionBitmap(float gridSize)
             throws DataNotFoundException {
 
-        DBOut dbOut = DBOut.getDBOut();
-        Vector<Position> allPositions = dbOut.getAllTrackingPositions();
-        return Bitmap.fromPosVector(allPositions, gridSize);
+        // the density grid has every base resolution and its multiples
+        DensityGrid density = DBOut.getDBOut().getDensityGrid();
+        Bitmap.Accumulator grid = density.grid(gridSize);
+        if (grid != null) {
+            if (grid.count() == 0) {
+                throw new DataNotFoundException("No trackings found!");
+            }
+            return grid.toBitmap();
+        }
+        // streaming the positions from the cursor into per-thread grids, constant memory for any DB size
+        try (HeatmapBuilder builder = new HeatmapBuilder(Bitmap.accumulator(gridSize))) {
+            DBOut.getDBOut().visitAllTrackingPositions(DBOut.DEFAULT_FETCH_SIZE, builder::add);
+            if (builder.count() == 0) {
+                throw new DataNotFoundException("No trackings found!");
+            }
+            return builder.toBitmap();
+        }
     }
 
     /**
-     * calculates the flights with the longest tracked
-     * flight-route, might be unaccurate when a flight
-     * has a too long time period between data points
+     * creates a {@link Bitmap} of the {@link Position}s inside an {@link Area} and a time range,
+     * e.g. for the current map viewport, only the matching tracking rows are read
      *
-     * @return the most tracked flights (longest routes), key is the callsign, value is the route length in KM
+     * @param gridSize is the grid-rectangle size in degrees
+     * @param area is the {@link Area} of the {@link Bitmap}
+     * @param from is the first timestamp in seconds (inclusive)
+     * @param to is the last timestamp in seconds (inclusive)
+     * @return {@link Bitmap} which only covers the {@link Area}
+     * @throws DataNotFoundException if no {@link Position}s were found in the {@link Area}
+     */
+    @NotNull
+    public Bitmap areaPositionBitmap(float gridSize, @NotNull Area area, long from, long to)
+            throws DataNotFoundException {
+
+        try (HeatmapBuilder builder = new HeatmapBuilder(Bitmap.accumulator(gridSize, area))) {
+            DBOut.getDBOut().visitPositionsInArea(area, from, to, DBOut.DEFAULT_FETCH_SIZE, builder::add);
+            if (builder.count() == 0) {
+                throw new DataNotFoundException("No trackings found in area " + area + "!");
+            }
+            return builder.toBitmap();
+        }
+    }
+
+    /**
+     * counts the {@link Position}s inside an {@link Area} and a time range into a {@link SparseBitmap},
+     * for fine grid sizes, only the tiles with positions use memory
+     *
+     * @param gridSize is the grid-rectangle size in degrees, {@link SparseBitmap#MIN_GRID_SIZE} or higher
+     * @param area is the {@link Area} of the grid
+     * @param from is the first timestamp in seconds (inclusive)
+     * @param to is the last timestamp in seconds (inclusive)
+     * @return {@link SparseBitmap} which only covers the {@link Area}
+     * @throws DataNotFoundException if no {@link Position}s were found in the {@link Area}
+     */
+    @NotNull
+    public SparseBitmap areaPositionGrid(float gridSize, @NotNull Area area, long from, long to)
+            throws DataNotFoundException {
+
+        SparseBitmap grid = SparseBitmap.forArea(gridSize, area);
+        DBOut.getDBOut().visitPositionsInArea(area, from, to, DBOut.DEFAULT_FETCH_SIZE, grid::add);
+        if (grid.count() == 0) {
+            throw new DataNotFoundException("No trackings found in area " + area + "!");
+        }
+        return grid;
+    }
+
+    /**
+     * calculates the flights with the longest tracked flight-route,
+     * local flights are read from the flight summaries of the database, over all history,
+     * distances between data points with a too long time period between them are not counted
+     *
+     * @return the most tracked flights (longest routes), longest first, key is the callsign, value is the route length in KM
      */
     public Map<String, Integer> mostTrackedFlights(int minCount) throws DataNotFoundException {
         // helper
@@ -133,14 +225,12 @@ public class Statistics {
         DataOutput currentOut = out.getCurrentOut();
         Controller ctrl = Controller.getInstance();
 
-        Map<Object, Triple<Vector2D<Double>, Integer, Long>> mostTracked = ConcurrentCollections.map();
-
         if (currentOut instanceof DBOut dbOut) {
-
-            int limit = (int) ctrl.getConfig().getProperty("dataLimit").val;
-            mostTracked = localMostTracked(mostTracked, dbOut, limit);
-
-        } else if (currentOut instanceof FrameSender frameSender) {
+            // one indexed top-N query, no tracking data is read
+            return dbOut.getLongestFlights(minCount, MOST_TRACKED_LIMIT);
+        }
+        Map<Object, Triple<Vector2D<Double>, Integer, Long>> mostTracked = ConcurrentCollections.map();
+        if (currentOut instanceof FrameSender frameSender) {
 
             String host = ctrl.getRestUploader().getHost();
             URI uri = URI.create(host + "/data/api/download/all");
@@ -149,54 +239,6 @@ public class Statistics {
         return filteredAndSorted(mostTracked, minCount);
     }
 
-    @NotNull
-    private Map<Object, Triple<Vector2D<Double>, Integer, Long>> localMostTracked(Map<Object, Triple<Vector2D<Double>, Integer, Long>> mostTracked, DBOut dbOut, int dataLimit) throws DataNotFoundException {
-        Queue<DataPoint> tracking = dbOut.allTrackingData(dataLimit);
-        DataPoint[] arr = tracking.stream().toArray(DataPoint[]::new);
-
-        Arrays.sort(arr, Comparator.comparingLong(DataPoint::timestamp));
-        tracking = Threading.concurrentQueue(Arrays.asList(arr));
-
-        while (!tracking.isEmpty()) {
-            Vector2D<Double> now;
-            DataPoint dp = tracking.poll();
-            int fid = dp.flightID();
-            if (fid == 998) {
-                // skipping invalid entry (could be N/A or private flight)
-                continue;
-            }
-            // TODO: 29.03.2023 add timestamp to tuple , always re-calc avg timestamp and check variation
-            long timestamp = dp.timestamp();
-            double xn = dp.pos().lat();
-            double yn = dp.pos().lon();
-            now = new Vector2D<>(xn, yn);
-
-            if (!mostTracked.containsKey(fid)) {
-                mostTracked.put(fid, new Triple<>(now, 0, dp.timestamp()));
-
-            } else {
-                Triple<Vector2D<Double>, Integer, Long> entry = mostTracked.get(fid);
-                long time = entry.c;
-                int distance = entry.b;
-
-                if (Math.abs(time - timestamp) > 360000) { // ~ 1 hour
-                    // timestamps too far from eachother
-                    mostTracked.put(fid, new Triple<>(now, distance, timestamp));
-                    continue;
-                }
-                Vector2D last = entry.a;
-                de.gtec.util.math.vector.Vector<Double> result = Vectors.subtract(now, last);
-                distance += Maths.abs(result);
-
-                mostTracked.put(fid, new Triple<>(now, distance, timestamp));
-            }
-        }
-        return mostTracked.entrySet()
-                .stream()
-                .collect(Collectors.toMap(e -> e.getKey().toString(), e -> e.getValue()));
-    }
-
-
     @NotNull
     private Map<Object, Triple<Vector2D<Double>, Integer, Long>> onlineMostTracked(Map<Object, Triple<Vector2D<Double>, Integer, Long>> mostTracked, FrameSender frameSender, URI uri) throws DataNotFoundException {
         Queue<UniFrame> frames;
@@ -249,85 +291,26 @@ public class Statistics {
         return mostTracked.entrySet()
                 .parallelStream()
                 .filter(e -> e.getValue().b >= minValue)
-                .sorted(Comparator.comparingInt(e -> e.getValue().b))
-                .limit(50)
-                .collect(Collectors.toMap(e -> e.getKey().toString(), e -> e.getValue().b));
+                .sorted(Comparator.comparingInt((Map.Entry<Object, Triple<Vector2D<Double>, Integer, Long>> e) -> e.getValue().b).reversed())
+                .limit(MOST_TRACKED_LIMIT)
+                .collect(Collectors.toMap(e -> e.getKey().toString(), e -> e.getValue().b, (a, b) -> a, LinkedHashMap::new));
     }
 
     /**
      * creates a {@link Map} of {@link Airport} tags and {@link Airline} IDs by counting the most-present
-     * {@link Airline}s for each {@link Airport}
+     * {@link Airline}s for each {@link Airport}, over all {@link Flight}s in the database,
+     * the flights are grouped by the database and only the top {@link Airline}s are kept
      *
      * @param maxAirlinesPerAirport is the max. {@link Airline} count displayed for one {@link Airport}
-     * @return {@link Map} of {@link Airport}-tag (String) and {@link Airline}-IDs (int[])
+     * @return {@link Map} of {@link Airport}-tag (String) and {@link Airline}-IDs (int[]), most flights first
      * @throws DataNotFoundException if no data was found in the database
+     * @see DBOut#getTopAirlinesPerAirport(int)
      */
-    // FIXME: 23.08.2022 will probably take too much time
     @NotNull
-    public Map<String, int[]> topAirlinesPerAirport(int maxAirlinesPerAirport, int dataLimit)
+    public Map<String, int[]> topAirlinesPerAirport(int maxAirlinesPerAirport)
             throws DataNotFoundException {
 
-        DBOut dbOut = DBOut.getDBOut();
-        Map<String, Map<Integer, Integer>> airportMap = new HashMap<>();
-        // TODO replace allFLights with extra method with a smaller (faster) query
-        List<Flight> allFlights = dbOut.getAllFlights(dataLimit);
-        Map<String, int[]> apTopAirlines = new HashMap<>();
-        String src, dest;
-        int airline;
-        for (Flight flight : allFlights) {
-            src = flight.src().iataTag();
-            dest = flight.dest().iataTag();
-            airline = flight.plane().airline().id();
-
-            putSorted(airportMap, airline, src, dest);
-        }
-
-        Set<Map.Entry<String, Map<Integer, Integer>>> entries = airportMap.entrySet();
-        int[] airlineIDs;
-        Set<Integer> keys;
-        for (Map.Entry<String, Map<Integer, Integer>> entry : entries) {
-            keys = entry.getValue().keySet();
-            airlineIDs = keys.stream()
-                    .mapToInt(i -> i)
-                    .limit(maxAirlinesPerAirport)
-                    .toArray();
-            apTopAirlines.put(entry.getKey(), airlineIDs);
-        }
-        return apTopAirlines;
-    }
-
-    /**
-     * this method will probably take too much time
-     *
-     * @param airportMap
-     * @param airline
-     * @param airports
-     */
-    // TODO: 24.08.2022 put directly in the right order, do not sort after putting
-    private void putSorted(@NotNull Map<String, Map<Integer, Integer>> airportMap, int airline, @NotNull String... airports) {
-        Map<Integer, Integer> airlineMap;
-        for (String airport : airports) {
-            if (airportMap.containsKey(airport)) {
-                airlineMap = airportMap.get(airport);
-                if (airlineMap.containsKey(airline)) {
-                    airlineMap.replace(airline, airlineMap.get(airline) + 1);
-                }
-            } else {
-                airlineMap = new HashMap<>(1);
-                airlineMap.put(airline, 1);
-                airportMap.put(airport, airlineMap);
-            }
-            airportMap.replace(airport, sortMapByValues(airlineMap));
-        }
-    }
-
-    @NotNull
-    private Map<Integer, Integer> sortMapByValues(@NotNull Map<Integer, Integer> airlineMap) {
-        Set<Map.Entry<Integer, Integer>> entries = airlineMap.entrySet();
-        Map.Entry[] sorted = entries.stream()
-                .sorted((a, b) -> a.getValue() < b.getValue() ? a.getKey() : b.getKey())
-                .toArray(Map.Entry[]::new);
-        return Map.ofEntries(sorted);
+        return DBOut.getDBOut().getTopAirlinesPerAirport(maxAirlinesPerAirport);
     }
 
     /**
@@ -461,41 +444,56 @@ public class Statistics {
     }
 
     /**
+     * creates a bar chart of the flight count per {@link Airline},
+     * read from the materialized counters of the database
      *
-     *
-     * @param minCount
-     * @return
-     * @throws DataNotFoundException
+     * @param minCount is the min. flight count of a shown {@link Airline}
+     * @return the airline significance chart
+     * @throws DataNotFoundException if no {@link Airline} has the min. flight count
      */
     public JFreeChart airlineSignificance(int minCount)
             throws DataNotFoundException {
 
-        DBOut dbOut = DBOut.getDBOut();
-        Deque<String> airlineTags = dbOut.getAllAirlineTags();
-        Map<String, Integer> airlStats = this.onlySignificant(this.tagCount(airlineTags), minCount);
+        Map<String, Integer> airlStats = DBOut.getDBOut().getCounts(Counters.Kind.AIRLINE, minCount);
         CategoryDataset dataset = Statistics.createBarDataset(airlStats);
         return ChartFactory.createBarChart("Airline-Significance", "Airlines", "Flight-Count",
                                             dataset, PlotOrientation.HORIZONTAL, true, true, false);
     }
 
     /**
+     * creates a bar chart of the flight count per {@link Airport}, source and destination,
+     * read from the materialized counters of the database
      *
-     *
-     * @param minCount
-     * @return
-     * @throws DataNotFoundException
+     * @param minCount is the min. flight count of a shown {@link Airport}
+     * @return the airport significance chart
+     * @throws DataNotFoundException if no {@link Airport} has the min. flight count
      */
     public JFreeChart airportSignificance(int minCount)
             throws DataNotFoundException {
 
-        DBOut dbOut = DBOut.getDBOut();
-        Deque<String> airportTags = dbOut.getAllAirportTagsNotDistinct();
-        Map<String, Integer> apStats = this.onlySignificant(this.tagCount(airportTags), minCount);
+        Map<String, Integer> apStats = DBOut.getDBOut().getCounts(Counters.Kind.AIRPORT, minCount);
         CategoryDataset dataset = Statistics.createBarDataset(apStats);
         return ChartFactory.createBarChart("Airport-Significance", "Airports", "Flight-Count",
                                             dataset, PlotOrientation.HORIZONTAL, true, true, false);
     }
 
+    /**
+     * creates a bar chart of the flight count per aircraft type,
+     * read from the materialized counters of the database
+     *
+     * @param minCount is the min. flight count of a shown type
+     * @return the plane type significance chart
+     * @throws DataNotFoundException if no type has the min. flight count
+     */
+    public JFreeChart planeTypeSignificance(int minCount)
+            throws DataNotFoundException {
+
+        Map<String, Integer> typeStats = DBOut.getDBOut().getCounts(Counters.Kind.TYPE, minCount);
+        CategoryDataset dataset = Statistics.createBarDataset(typeStats);
+        return ChartFactory.createBarChart("Planetype-Significance", "Planetypes", "Flight-Count",
+                                            dataset, PlotOrientation.HORIZONTAL, true, true, false);
+    }
+
     /**
      * creates a heat map for airport significance,
      * one entry has an airport and a level (significance)
@@ -0,0 +1,201 @@
+package planespotter.model.io;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.*;
+import java.util.Locale;
+
+import static planespotter.util.Time.elapsedSeconds;
+import static planespotter.util.Time.nowMillis;
+
+/**
+ * @name Counters
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class Counters contains the 'counters'-table, the materialized flight counts per airline, airport
+ * and aircraft type, and the running row totals of the planes- and flights-table.
+ * The counters are incremented by {@link DBIn} in the write transaction of every plane- and flight-insert,
+ * so the significance charts and table sizes are read from a few rows, without counting any table.
+ * Every flight counts once for the airline and the type of its plane and once for its source
+ * and destination airport, unknown values ('None', blank and the default airline) are not counted.
+ * If the table doesn't exist yet, it is built once from the flights- and planes-table.
+ * @see DBIn
+ * @see DBOut#getCounts(Counters.Kind, int)
+ */
+public final class Counters {
+
+    /**
+     * enum Kind represents the counted values
+     */
+    public enum Kind {
+        // flights per airline ICAO tag
+        AIRLINE,
+        // flights per airport IATA tag, source and destination
+        AIRPORT,
+        // flights per aircraft type
+        TYPE,
+        // rows per table name
+        TABLE;
+
+        /**
+         * @return the kind as it is saved in the table
+         */
+        @NotNull
+        String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    // counter table name, must not start with 'tracking_' (partition prefix)
+    public static final String TABLE = "counters";
+
+    // the default airline ID, planes without known airline
+    private static final int NO_AIRLINE = 1;
+
+    // creates a missing counter with 0
+    private static final String CREATE_COUNTER = "INSERT OR IGNORE INTO " + TABLE + "(kind, key, count) VALUES(?,?,0)";
+
+    // increments a counter
+    private static final String INCREMENT = "UPDATE " + TABLE + " SET count = count + 1 WHERE kind = (?) AND key = (?)";
+
+    // airline tag, airline ID and type of a plane
+    private static final String PLANE_KEYS = "SELECT a.icaotag, a.ID, p.type FROM planes p " +
+                                             "LEFT JOIN airlines a ON a.ID = p.airline WHERE p.ID = (?)";
+
+    // SQL-filter for known values, the same as in increment()
+    private static final String KNOWN = " IS NOT NULL AND %1$s != '' AND %1$s != 'None'";
+
+    // 'table created' flag
+    private static volatile boolean tableCreated = false;
+
+    /**
+     * private constructor, this is a utility class
+     */
+    private Counters() {
+        throw new UnsupportedOperationException("Counters is a utility class!");
+    }
+
+    /**
+     * creates the counter table and builds it from the flights and planes, if it doesn't exist yet,
+     * and returns its name, must not be called inside a write transaction
+     *
+     * @return the counter table name
+     */
+    @NotNull
+    static String table() {
+        if (!tableCreated) {
+            synchronized (DBConnector.DB_SYNC) {
+                if (!tableCreated) {
+                    try {
+                        create();
+                        tableCreated = true;
+                    } catch (SQLException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+        return TABLE;
+    }
+
+    /**
+     * @return true if the counter table exists, else the counters are built when it is created
+     */
+    static boolean isCreated() {
+        return tableCreated;
+    }
+
+    /**
+     * counts an inserted plane, in the open write transaction
+     *
+     * @param statements is the {@link StatementCache} of the write connection
+     * @throws SQLException if the counter could not be written
+     */
+    static void planeInserted(@NotNull StatementCache statements) throws SQLException {
+        increment(statements, Kind.TABLE, "planes");
+    }
+
+    /**
+     * counts an inserted flight for its airline, type, airports and the flights-table,
+     * in the open write transaction
+     *
+     * @param statements is the {@link StatementCache} of the write connection
+     * @param planeID is the plane ID of the flight
+     * @param src is the source airport tag
+     * @param dest is the destination airport tag
+     * @throws SQLException if a counter could not be read or written
+     */
+    static void flightInserted(@NotNull StatementCache statements, int planeID, @Nullable String src, @Nullable String dest)
+            throws SQLException {
+
+        String airline = null, type = null;
+        try (ResultSet rs = statements.prepare(PLANE_KEYS, planeID).executeQuery()) {
+            if (rs.next()) {
+                airline = (rs.getInt(2) == NO_AIRLINE) ? null : rs.getString(1);
+                type = rs.getString(3);
+            }
+        }
+        increment(statements, Kind.AIRLINE, airline);
+        increment(statements, Kind.TYPE, type);
+        increment(statements, Kind.AIRPORT, src);
+        increment(statements, Kind.AIRPORT, dest);
+        increment(statements, Kind.TABLE, "flights");
+    }
+
+    /**
+     * increments a counter, unknown keys are ignored
+     */
+    private static void increment(@NotNull StatementCache statements, @NotNull Kind kind, @Nullable String key)
+            throws SQLException {
+
+        if (key == null || key.isEmpty() || key.equals("None")) {
+            return;
+        }
+        statements.prepare(CREATE_COUNTER, kind.key(), key).executeUpdate();
+        statements.prepare(INCREMENT, kind.key(), key).executeUpdate();
+    }
+
+    /**
+     * creates the table, if it doesn't exist, with the counts of all flights and planes,
+     * the table is created in the same transaction as its rows, so there is never a half built table
+     */
+    private static void create() throws SQLException {
+        try (Connection conn = DBConnector.getConnection(false)) {
+            try (PreparedStatement pstmt = conn.prepareStatement("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = (?)")) {
+                pstmt.setString(1, TABLE);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return;
+                    }
+                }
+            }
+            long startTime = nowMillis();
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("CREATE TABLE IF NOT EXISTS " + TABLE + " (" +
+                                   "kind TEXT NOT NULL, key TEXT NOT NULL, count INTEGER NOT NULL, " +
+                                   "PRIMARY KEY (kind, key))");
+                stmt.executeUpdate("INSERT INTO " + TABLE + " SELECT '" + Kind.AIRLINE.key() + "', a.icaotag, count(*) " +
+                                   "FROM flights f JOIN planes p ON p.ID = f.plane JOIN airlines a ON a.ID = p.airline " +
+                                   "WHERE a.ID != " + NO_AIRLINE + " AND a.icaotag" + String.format(KNOWN, "a.icaotag") + " " +
+                                   "GROUP BY a.icaotag");
+                stmt.executeUpdate("INSERT INTO " + TABLE + " SELECT '" + Kind.TYPE.key() + "', p.type, count(*) " +
+                                   "FROM flights f JOIN planes p ON p.ID = f.plane " +
+                                   "WHERE p.type" + String.format(KNOWN, "p.type") + " GROUP BY p.type");
+                stmt.executeUpdate("INSERT INTO " + TABLE + " SELECT '" + Kind.AIRPORT.key() + "', airport, count(*) " +
+                                   "FROM (SELECT src AS airport FROM flights UNION ALL SELECT dest FROM flights) " +
+                                   "WHERE airport" + String.format(KNOWN, "airport") + " GROUP BY airport");
+                stmt.executeUpdate("INSERT INTO " + TABLE + " SELECT '" + Kind.TABLE.key() + "', 'flights', count(*) FROM flights");
+                stmt.executeUpdate("INSERT INTO " + TABLE + " SELECT '" + Kind.TABLE.key() + "', 'planes', count(*) FROM planes");
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+            System.out.println("[Counters] built the flight counters in " + elapsedSeconds(startTime) + " seconds!");
+        }
+    }
+}
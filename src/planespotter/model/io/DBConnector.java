@@ -8,6 +8,7 @@ import planespotter.dataclasses.DBResult;
 import planespotter.throwables.InvalidDataException;
 import planespotter.throwables.NoAccessException;
 
+import java.io.File;
 import java.sql.*;
 
 /**
@@ -38,6 +39,27 @@ public abstract sealed class DBConnector
 	// database Source-Object
 	@NotNull private static final SQLiteDataSource DATABASE;
 
+	// tracking partitions, routing layer for the tracking tables
+	@NotNull protected static final TrackingPartitions PARTITIONS;
+
+	// off-heap hot tier for the most recent tracking data
+	@NotNull protected static final HotStore HOT_STORE;
+
+	// write state of the tables, updated by DBIn after every commit
+	@NotNull protected static final HighWaterMarks MARKS;
+
+	// in-memory prefix index of the search fields, updated by DBIn after every commit
+	@NotNull protected static final SearchIndex SEARCH_INDEX;
+
+	// persistent global position density, updated by DBIn after every commit
+	@NotNull protected static final DensityGrid DENSITY;
+
+	// max. cached statements of the shared read connection
+	private static final int READ_STATEMENTS = 128;
+
+	// statement cache of the shared read connection, opened on first use, guarded by DB_SYNC
+	private static StatementCache readStatements;
+
 	// initializing Database
 	static {
 		// setting database monitor object
@@ -60,6 +82,48 @@ public abstract sealed class DBConnector
 
 		DATABASE.setConfig(dbConfig);
 
+		// setting up tracking partitions
+		PARTITIONS = new TrackingPartitions();
+		// setting up the hot store, disabled until it is configured
+		HOT_STORE = new HotStore();
+		// setting up the table high-water marks
+		MARKS = new HighWaterMarks();
+		// setting up the search index, loaded by DBOut on first use
+		SEARCH_INDEX = new SearchIndex();
+		// setting up the density grid, loaded by DBOut on first use
+		DENSITY = new DensityGrid(new File("density.grid"));
+	}
+
+	/**
+	 * getter for the tracking partitions, which route tracking
+	 * inserts and queries to the right tracking tables
+	 *
+	 * @return the {@link TrackingPartitions} instance
+	 */
+	@NotNull
+	public static TrackingPartitions getTrackingPartitions() {
+		return PARTITIONS;
+	}
+
+	/**
+	 * getter for the hot store, which holds the most recent tracking data off-heap
+	 *
+	 * @return the {@link HotStore} instance
+	 */
+	@NotNull
+	public static HotStore getHotStore() {
+		return HOT_STORE;
+	}
+
+	/**
+	 * getter for the table high-water marks, which tell
+	 * the result caches if a table has changed
+	 *
+	 * @return the {@link HighWaterMarks} instance
+	 */
+	@NotNull
+	public static HighWaterMarks getHighWaterMarks() {
+		return MARKS;
 	}
 
 	/**
@@ -76,6 +140,70 @@ public abstract sealed class DBConnector
 		return DATABASE.getConnection();
 	}
 
+	/**
+	 * executes a read-only query with a cached {@link PreparedStatement} of the shared read connection,
+	 * so every SQL-string is parsed only once, the values should be given as parameters
+	 * instead of concatenated into the SQL-string. ID-sets can be given as one JSON-array
+	 * parameter, see {@link planespotter.constants.SQLQueries#IN_JSON}.
+	 * The caller must hold DB_SYNC and close the returned {@link ResultSet}, but not its statement,
+	 * and must not run the same SQL-string again while the {@link ResultSet} is open.
+	 *
+	 * @param sql is the SQL-string with placeholders (?)
+	 * @param params are the parameters for the placeholders
+	 * @return the {@link ResultSet} of the query
+	 * @throws SQLException if the query failed
+	 */
+	@NotNull
+	protected static ResultSet queryCached(@NotNull String sql, Object... params)
+			throws SQLException {
+
+		assert Thread.holdsLock(DB_SYNC) : "DB_SYNC must be held for the shared read connection";
+		StatementCache statements = readStatements();
+		try {
+			return statements.prepare(sql, params).executeQuery();
+		} catch (SQLException e) {
+			if (!statements.isClosed()) {
+				statements.evict(sql);
+				throw e;
+			}
+		}
+		// the shared connection was closed, retrying once with a new one
+		closeReadStatements();
+		return readStatements().prepare(sql, params).executeQuery();
+	}
+
+	/**
+	 * closes the shared read connection and its cached statements,
+	 * it is reopened by the next cached query
+	 */
+	public static void closeReadStatements() {
+		synchronized (DB_SYNC) {
+			if (readStatements != null) {
+				readStatements.close();
+				try {
+					readStatements.connection().close();
+				} catch (SQLException e) {
+					e.printStackTrace();
+				}
+				readStatements = null;
+			}
+		}
+	}
+
+	/**
+	 * returns the statement cache of the shared read connection, opens the connection if needed
+	 *
+	 * @return the {@link StatementCache} of the shared read connection
+	 * @throws SQLException if the connection could not be opened
+	 */
+	@NotNull
+	private static StatementCache readStatements() throws SQLException {
+		if (readStatements == null || readStatements.isClosed()) {
+			readStatements = new StatementCache(getConnection(true), READ_STATEMENTS);
+		}
+		return readStatements;
+	}
+
 	/**
 	 * creates a PreparedStatement with given SQL-statement
 	 * in the form 'SELECT ... FROM ... WHERE ID = (?)',
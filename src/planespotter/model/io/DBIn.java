@@ -2,8 +2,10 @@ package planespotter.model.io;
 
 import org.jetbrains.annotations.NotNull;
 import planespotter.constants.SQLQueries;
+import planespotter.dataclasses.DBResult;
 import planespotter.dataclasses.Fr24Frame;
 import planespotter.dataclasses.Frame;
+import planespotter.dataclasses.TrackColumns;
 import planespotter.model.Scheduler;
 import planespotter.model.nio.DataProcessor;
 import planespotter.throwables.DataNotFoundException;
@@ -38,6 +40,9 @@ public final class DBIn extends DBConnector {
 	// last inserted frame
 	private Frame lastFrame;
 
+	// registry of all non-ended flights with their last tracking timestamp
+	private final OpenFlights openFlights;
+
 	// inserted frames counter for all writeToDB inserts
 	private int frameCount, planeCount, flightCount;
 	private long frameBytes;
@@ -52,6 +57,7 @@ public final class DBIn extends DBConnector {
 	 */
 	private DBIn() {
 		this.lastFrame = null;
+		this.openFlights = new OpenFlights();
 		this.frameCount = 0;
 		this.planeCount = 0;
 		this.flightCount = 0;
@@ -84,17 +90,34 @@ public final class DBIn extends DBConnector {
 	}
 
 	/**
-	 * writes frames to the database,
-	 * old strategy from @Lukas, but revised (fixed the memory problem by
-	 * getting all dbOut-data before instead of in the loop)
+	 * writes frames to the database, the frames are written by the {@link DBWriter}
+	 * in a group commit, this method waits until the frames are committed
 	 *
 	 * @param frames is a {@link Deque} of {@link Frame}s to write, can be {@link Fr24Frame}s
 	 *               and {@link planespotter.dataclasses.ADSBFrame}s
 	 */
-	public synchronized <E extends Frame> void write(final Queue<E> frames) {
+	public <E extends Frame> void write(final Queue<E> frames) {
 		if (!enabled || frames == null || frames.isEmpty()) {
 			return;
 		}
+		DBWriter.getDBWriter().submitFrames(frames).join();
+	}
+
+	/**
+	 * writes frames with an open connection, without commit,
+	 * old strategy from @Lukas, but revised (fixed the memory problem by
+	 * getting all dbOut-data before instead of in the loop),
+	 * used by the {@link DBWriter} for group commits
+	 *
+	 * @param statements is the {@link StatementCache} of the open connection, auto-commit should be disabled
+	 * @param frames are the {@link Frame}s to write, the queue is emptied
+	 * @param onCommit gets the tasks which must run after the commit
+	 * @return the count of written frames
+	 * @throws SQLException if an insert fails, the transaction should be rolled back then
+	 */
+	<E extends Frame> int writeFrames(@NotNull StatementCache statements, @NotNull Queue<E> frames, @NotNull Queue<Runnable> onCommit)
+			throws SQLException {
+
 		Exception ex = null;
 		long startTime = nowMillis();
 		DBOut dbo = DBOut.getDBOut();
@@ -111,7 +134,8 @@ public final class DBIn extends DBConnector {
 			// ( For example when the DB gets cleared )
 		}
 		E frame;
-		int airlineID, planeID, flightID;
+		String flightNr;
+		int airlineID, planeID, flightID, written = 0;
 		while (!frames.isEmpty() && enabled) {
 			frame = frames.poll();
 			// insert into planes
@@ -120,33 +144,53 @@ public final class DBIn extends DBConnector {
 
 			if (planeID <= -1) {
 				try {
-					planeID = insertPlane(frame, airlineID);
-					// increasing inserted planes value
-					increasePlaneCount();
+					planeID = insertPlane(statements, frame, airlineID, onCommit);
+					// later frames of the same plane get the new ID
+					planeIcaoIDs.put(frame.getIcaoAddr(), planeID);
+					onCommit.add(() -> {
+						MARKS.changed(HighWaterMarks.Table.PLANES);
+						// increasing inserted planes value
+						increasePlaneCount();
+					});
 				} catch (MalformedFrameException e) {
 					ex = e;
 				}
 			}
 			// insert into flights
-			flightID = flightNRsIDs.getOrDefault(frame instanceof Fr24Frame fr24 ? fr24.getFlightnumber() : "None", -1);
+			flightNr = frame instanceof Fr24Frame fr24 ? fr24.getFlightnumber() : "None";
+			flightID = flightNRsIDs.getOrDefault(flightNr, -1);
 
 			if (flightID <= -1) {
-				flightID = insertFlight(frame, planeID);
-				// increasing inserted flights value
-				increaseFlightCount();
+				flightID = insertFlight(statements, frame, planeID, onCommit);
+				// later frames of the same flight get the new ID
+				flightNRsIDs.put(flightNr, flightID);
+				// new flights are complete in the hot store
+				final int newFlightID = flightID;
+				onCommit.add(() -> {
+					HOT_STORE.openFlight(newFlightID);
+					MARKS.changed(HighWaterMarks.Table.FLIGHTS);
+					// increasing inserted flights value
+					increaseFlightCount();
+				});
 			}
 			// insert into tracking
-			insertTracking(frame, flightID);
-			// increasing the inserted frames value
-			increaseFrameCount();
-			increaseFrameBytes(frame);
-			// setting current frame as last frame
-			lastFrame = frame;
+			insertTracking(statements, frame, flightID, onCommit);
+			written++;
+			// the counts and the last frame only change with the commit, a retried group isn't counted twice
+			final E writtenFrame = frame;
+			onCommit.add(() -> {
+				// increasing the inserted frames value
+				increaseFrameCount();
+				increaseFrameBytes(writtenFrame);
+				// setting current frame as last frame
+				lastFrame = writtenFrame;
+			});
 		}
-		System.out.println("[DBWriter] filled DB in " + elapsedSeconds(startTime) + " seconds!");
+		System.out.println("[DBWriter] wrote " + written + " frames in " + elapsedSeconds(startTime) + " seconds!");
 		if (ex != null) {
 			ex.printStackTrace();
 		}
+		return written;
 	}
 
 	/**
@@ -158,6 +202,16 @@ public final class DBIn extends DBConnector {
 		return lastFrame;
 	}
 
+	/**
+	 * getter for the open flights registry, which is updated on every tracking-insert
+	 *
+	 * @return the {@link OpenFlights} registry of this writer
+	 */
+	@NotNull
+	public OpenFlights getOpenFlights() {
+		return openFlights;
+	}
+
 	/**
 	 * @return true if the DBWriter is enabled, else false
 	 */
@@ -245,36 +299,63 @@ public final class DBIn extends DBConnector {
 	 */
 	public <E extends Frame> int insertPlane(@NotNull E frame, int airlineID) throws MalformedFrameException {
 		synchronized (DB_SYNC) {
-			// insert into planes
-			String icao, tailNr, reg, type;
-			if ((icao = frame.getIcaoAddr()) == null) {
-				throw new MalformedFrameException("Frame has no ICAO!");
-			}
-			if (frame instanceof Fr24Frame fr24) {
-				tailNr = fr24.getTailnr();
-				reg = fr24.getRegistration();
-				type = fr24.getPlanetype();
-			} else {
-				tailNr = reg = type = "None";
-			}
+			Counters.table();
+			Queue<Runnable> onCommit = new ArrayDeque<>();
 			try (Connection conn = DBConnector.getConnection(false);
-				 PreparedStatement pstmt = conn.prepareStatement(SQLQueries.PLANEQUERRY, Statement.RETURN_GENERATED_KEYS)) {
-				pstmt.setString(1, icao);
-				pstmt.setString(2, tailNr);
-				pstmt.setString(3, reg);
-				pstmt.setString(4, type);
-				pstmt.setInt(5, airlineID);
-				pstmt.executeUpdate();
-
-				ResultSet rs = pstmt.getGeneratedKeys();
-				return rs.next() ? rs.getInt(1) : -1;
+				 StatementCache statements = new StatementCache(conn, 1)) {
+				return insertPlane(statements, frame, airlineID, onCommit);
 			} catch (SQLException e) {
 				e.printStackTrace();
+			} finally {
+				onCommit.forEach(Runnable::run);
+				MARKS.changed(HighWaterMarks.Table.PLANES);
 			}
 		}
 		return -1;
 	}
 
+	/**
+	 * inserts a {@link planespotter.dataclasses.Plane} with an open connection and counts it,
+	 * the search index is updated by the onCommit-task
+	 *
+	 * @see DBIn#insertPlane(Frame, int)
+	 */
+	private <E extends Frame> int insertPlane(@NotNull StatementCache statements, @NotNull E frame, int airlineID,
+											  @NotNull Queue<Runnable> onCommit) throws MalformedFrameException, SQLException {
+
+		// insert into planes
+		String icao, tailNr, reg, type;
+		if ((icao = frame.getIcaoAddr()) == null) {
+			throw new MalformedFrameException("Frame has no ICAO!");
+		}
+		if (frame instanceof Fr24Frame fr24) {
+			tailNr = fr24.getTailnr();
+			reg = fr24.getRegistration();
+			type = fr24.getPlanetype();
+		} else {
+			tailNr = reg = type = "None";
+		}
+		PreparedStatement pstmt = statements.prepareInsert(SQLQueries.PLANEQUERRY);
+		pstmt.setString(1, icao);
+		pstmt.setString(2, tailNr);
+		pstmt.setString(3, reg);
+		pstmt.setString(4, type);
+		pstmt.setInt(5, airlineID);
+		pstmt.executeUpdate();
+
+		int id;
+		try (ResultSet rs = pstmt.getGeneratedKeys()) {
+			id = rs.next() ? rs.getInt(1) : -1;
+		}
+		if (id != -1) {
+			if (Counters.isCreated()) {
+				Counters.planeInserted(statements);
+			}
+			onCommit.add(() -> SEARCH_INDEX.planeInserted(id, icao, tailNr, type));
+		}
+		return id;
+	}
+
 	/**
 	 * inserts a {@link planespotter.dataclasses.Flight} into the database,
 	 * gets the flight data from the given {@link Fr24Frame} or {@link planespotter.dataclasses.ADSBFrame}
@@ -284,6 +365,31 @@ public final class DBIn extends DBConnector {
 	 * @return inserted {@link planespotter.dataclasses.Flight} ID or -1 if nothing was inserted
 	 */
 	public <E extends Frame> int insertFlight(@NotNull E frame, int planeID) {
+		synchronized (DB_SYNC) {
+			Counters.table();
+			Queue<Runnable> onCommit = new ArrayDeque<>();
+			try (Connection conn = getConnection(false);
+				 StatementCache statements = new StatementCache(conn, 1)) {
+				return insertFlight(statements, frame, planeID, onCommit);
+			} catch (SQLException e) {
+				e.printStackTrace();
+			} finally {
+				onCommit.forEach(Runnable::run);
+				MARKS.changed(HighWaterMarks.Table.FLIGHTS);
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * inserts a {@link planespotter.dataclasses.Flight} with an open connection and counts it,
+	 * the search index is updated by the onCommit-task
+	 *
+	 * @see DBIn#insertFlight(Frame, int)
+	 */
+	private <E extends Frame> int insertFlight(@NotNull StatementCache statements, @NotNull E frame, int planeID,
+											   @NotNull Queue<Runnable> onCommit) throws SQLException {
+
 		String src, dest, flightNr, callsign;
 
 		if (frame instanceof Fr24Frame fr24) {
@@ -297,25 +403,27 @@ public final class DBIn extends DBConnector {
 				callsign = src;
 			}
 		}
-		synchronized (DB_SYNC) {
-			try (Connection conn = getConnection(false);
-				 PreparedStatement pstmt = conn.prepareStatement(SQLQueries.FLIGHTQUERRY, Statement.RETURN_GENERATED_KEYS)) {
-
-				pstmt.setInt(1, planeID);
-				pstmt.setString(2, src);
-				pstmt.setString(3, dest);
-				pstmt.setString(4, flightNr);
-				pstmt.setString(5, callsign);
-				pstmt.setLong(6, frame.getTimestamp());
-				pstmt.executeUpdate();
-
-				ResultSet rs = pstmt.getGeneratedKeys();
-				return rs.next() ? rs.getInt(1) : -1;
-			} catch (SQLException e) {
-				e.printStackTrace();
+		PreparedStatement pstmt = statements.prepareInsert(SQLQueries.FLIGHTQUERRY);
+		pstmt.setInt(1, planeID);
+		pstmt.setString(2, src);
+		pstmt.setString(3, dest);
+		pstmt.setString(4, flightNr);
+		pstmt.setString(5, callsign);
+		pstmt.setLong(6, frame.getTimestamp());
+		pstmt.executeUpdate();
+
+		int id;
+		try (ResultSet rs = pstmt.getGeneratedKeys()) {
+			id = rs.next() ? rs.getInt(1) : -1;
+		}
+		if (id != -1) {
+			if (Counters.isCreated()) {
+				Counters.flightInserted(statements, planeID, src, dest);
 			}
+			final String flightCallsign = callsign;
+			onCommit.add(() -> SEARCH_INDEX.flightInserted(id, planeID, flightCallsign));
 		}
-		return -1;
+		return id;
 	}
 
 	/**
@@ -328,24 +436,106 @@ public final class DBIn extends DBConnector {
 	 */
 	public <E extends Frame> void insertTracking(@NotNull E frame, int flightID) {
 		synchronized (DB_SYNC) {
-			// insert into tracking
+			prepareTracking(frame.getTimestamp());
+			Queue<Runnable> onCommit = new ArrayDeque<>();
 			try (Connection conn = DBConnector.getConnection(false);
-				 PreparedStatement pstmt = conn.prepareStatement(SQLQueries.TRACKINGQUERRY)) {
-				pstmt.setInt(1, flightID);
-				pstmt.setDouble(2, frame.getLat());
-				pstmt.setDouble(3, frame.getLon());
-				pstmt.setInt(4, frame.getAltitude());
-				pstmt.setInt(5, frame.getGroundspeed());
-				pstmt.setInt(6, frame.getHeading());
-				pstmt.setInt(7, frame.getSquawk());
-				pstmt.setLong(8, frame.getTimestamp());
-				pstmt.executeUpdate();
+				 StatementCache statements = new StatementCache(conn, 1)) {
+				insertTracking(statements, frame, flightID, onCommit);
 			} catch (SQLException e) {
 				e.printStackTrace();
 			}
+			onCommit.forEach(Runnable::run);
 		}
 	}
 
+	/**
+	 * inserts tracking data with an open connection and updates the flight summary,
+	 * the open flights registry, the hot store and the density grid are updated by the onCommit-tasks
+	 *
+	 * @see DBIn#insertTracking(Frame, int)
+	 */
+	private <E extends Frame> void insertTracking(@NotNull StatementCache statements, @NotNull E frame, int flightID,
+												  @NotNull Queue<Runnable> onCommit) throws SQLException {
+		// insert into tracking
+		// routing the insert to the partition of the frame timestamp
+		String table = PARTITIONS.tableFor(frame.getTimestamp());
+		// late frames go to an older partition, the ID must still be higher than every ID of the newer ones
+		statements.prepare(TrackingPartitions.SHARE_SEQUENCE, table).executeUpdate();
+		PreparedStatement pstmt = statements.prepareInsert(String.format(SQLQueries.TRACKING_PARTITION_QUERRY, table));
+		pstmt.setInt(1, flightID);
+		pstmt.setDouble(2, frame.getLat());
+		pstmt.setDouble(3, frame.getLon());
+		pstmt.setInt(4, frame.getAltitude());
+		pstmt.setInt(5, frame.getGroundspeed());
+		pstmt.setInt(6, frame.getHeading());
+		pstmt.setInt(7, frame.getSquawk());
+		pstmt.setLong(8, frame.getTimestamp());
+		pstmt.executeUpdate();
+		// updating the flight summary in the same transaction
+		if (FlightSummaries.isCreated()) {
+			FlightSummaries.trackingInserted(statements, flightID, frame.getLat(), frame.getLon(), frame.getTimestamp());
+		}
+		// writing through to the hot store, after the commit
+		int id;
+		try (ResultSet rs = pstmt.getGeneratedKeys()) {
+			id = rs.next() ? rs.getInt(1) : -1;
+		}
+		onCommit.add(() -> {
+			openFlights.touch(flightID, frame.getTimestamp());
+			if (id != -1) {
+				HOT_STORE.append(id, flightID, frame.getTimestamp(), frame.getLat(), frame.getLon(),
+								 frame.getAltitude(), frame.getGroundspeed(), frame.getHeading(), frame.getSquawk());
+				// after the hot store, so a marked row is always readable
+				MARKS.trackingInserted(id);
+				DENSITY.trackingInserted(id, frame.getLat(), frame.getLon());
+			}
+		});
+	}
+
+	/**
+	 * prepares the tracking insert of a timestamp outside a write transaction:
+	 * creates the tracking partition and the counters, attaches existing flight summaries and seeds the hot store, if needed
+	 *
+	 * @param timestamp is the tracking timestamp in seconds
+	 */
+	void prepareTracking(long timestamp) {
+		synchronized (DB_SYNC) {
+			PARTITIONS.tableFor(timestamp);
+			FlightSummaries.attach();
+			Counters.table();
+			if (HOT_STORE.isEnabled() && !HOT_STORE.isSeeded()) {
+				seedHotStore();
+			}
+		}
+	}
+
+	/**
+	 * seeds the {@link HotStore} with the newest tracking timestamp in the database,
+	 * every later tracking point is written through the hot store.
+	 * Only the partitions in the hot window are read, by their R*Tree time range if they have one,
+	 * older points can't be in the store anyway, so it covers the whole window if there are none
+	 */
+	private void seedHotStore() {
+		long from = nowMillis() / 1000L - HOT_STORE.windowSeconds();
+		long newest = from - 1;
+		String query;
+		for (String table : PARTITIONS.tables(from, Long.MAX_VALUE)) {
+			query = SpatialIndex.ensure(table)
+					? "SELECT max(maxTs) FROM " + SpatialIndex.tableOf(table) + " WHERE maxTs >= " + from
+					: "SELECT max(timestamp) FROM " + table + " WHERE timestamp >= " + from;
+			try (DBResult result = queryDB(query);
+				 ResultSet rs = result.resultSet()) {
+				if (rs.next() && rs.getObject(1) != null) {
+					newest = Math.max(newest, rs.getLong(1));
+				}
+			} catch (NoAccessException | SQLException e) {
+				e.printStackTrace();
+				return;
+			}
+		}
+		HOT_STORE.seed(newest);
+	}
+
 	/**
 	 * updates a specific {@link planespotter.dataclasses.Flight} regarding the last timestamp,
 	 * if a timestamp was null before, the {@link planespotter.dataclasses.Flight} has ended
@@ -362,8 +552,155 @@ public final class DBIn extends DBConnector {
 				pstmt.executeUpdate();
 			} catch (SQLException e) {
 				e.printStackTrace();
+			} finally {
+				MARKS.changed(HighWaterMarks.Table.FLIGHTS);
+			}
+		}
+	}
+
+	/**
+	 * updates multiple {@link planespotter.dataclasses.Flight}s regarding their last timestamp,
+	 * uses one batched statement, which is committed together with the
+	 * other pending writes by the {@link DBWriter}, this method waits for the commit
+	 *
+	 * @param ids are the {@link planespotter.dataclasses.Flight} IDs to be updated
+	 * @param timestamps are the new timestamps, paired index-wise with the IDs
+	 * @return the count of updated flights
+	 */
+	public int updateFlightEnds(int @NotNull [] ids, long @NotNull [] timestamps) {
+		if (ids.length != timestamps.length) {
+			throw new IllegalArgumentException("ID-array and timestamp-array must have the same length!");
+		}
+		if (ids.length == 0) {
+			return 0;
+		}
+		return DBWriter.getDBWriter()
+				.submit((conn, onCommit) -> {
+					int updated = 0;
+					try (PreparedStatement pstmt = conn.prepareStatement(SQLQueries.UPDATE_FLIGHT_END)) {
+						for (int i = 0; i < ids.length; i++) {
+							pstmt.setLong(1, timestamps[i]);
+							pstmt.setInt(2, ids[i]);
+							pstmt.addBatch();
+						}
+						for (int count : pstmt.executeBatch()) {
+							updated += Math.max(count, 0);
+						}
+					}
+					onCommit.add(() -> {
+						openFlights.close(ids, timestamps);
+						MARKS.changed(HighWaterMarks.Table.FLIGHTS);
+					});
+					return updated;
+				}, DBWriter.Durability.NORMAL)
+				.exceptionally(ex -> {
+					ex.printStackTrace();
+					return 0;
+				})
+				.join();
+	}
+
+	/**
+	 * deletes tracking rows of a flight by their IDs, only the tracking partitions
+	 * of the given time range are searched and only rows of the flight are deleted,
+	 * uses one batched statement per partition
+	 *
+	 * @param flightID is the flight ID of the tracking rows
+	 * @param trackingIDs are the tracking IDs to delete
+	 * @param from is the first timestamp of the tracking rows in seconds
+	 * @param to is the last timestamp of the tracking rows in seconds
+	 * @return the count of deleted tracking rows, -1 if the delete failed, nothing is deleted then
+	 */
+	public int deleteTracking(int flightID, int @NotNull [] trackingIDs, long from, long to) {
+		if (trackingIDs.length == 0) {
+			return 0;
+		}
+		int deleted = 0;
+		synchronized (DB_SYNC) {
+			try (Connection conn = DBConnector.getConnection(false)) {
+				conn.setAutoCommit(false);
+				for (String table : PARTITIONS.tables(from, to)) {
+					try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM " + table + " WHERE ID = (?) AND flightid = (?)")) {
+						for (int id : trackingIDs) {
+							pstmt.setInt(1, id);
+							pstmt.setInt(2, flightID);
+							pstmt.addBatch();
+						}
+						for (int count : pstmt.executeBatch()) {
+							deleted += Math.max(count, 0);
+						}
+					}
+				}
+				conn.commit();
+			} catch (SQLException e) {
+				e.printStackTrace();
+				return -1;
+			}
+		}
+		HOT_STORE.remove(flightID, trackingIDs);
+		// cached results may contain the deleted rows
+		MARKS.invalidate();
+		return deleted;
+	}
+
+	/**
+	 * packs the track of a flight into track blocks of max. {@link TrackBlocks#BLOCK_SIZE} points,
+	 * existing blocks of the flight are replaced, the tracking rows can be deleted in the same
+	 * transaction, because packed flights are only read from their blocks
+	 *
+	 * @param columns are the {@link TrackColumns} of the flight, sorted by timestamp
+	 * @param dropRows indicates if the tracking rows of the flight should be deleted
+	 * @param from is the first timestamp of the flight in seconds
+	 * @param to is the last timestamp of the flight in seconds
+	 * @return the count of written blocks
+	 */
+	public int writeTrackBlocks(@NotNull TrackColumns columns, boolean dropRows, long from, long to) {
+		int size = columns.size();
+		if (size == 0) {
+			return 0;
+		}
+		String table = TrackBlocks.table();
+		int blocks = 0;
+		synchronized (DB_SYNC) {
+			try (Connection conn = DBConnector.getConnection(false)) {
+				conn.setAutoCommit(false);
+				try (PreparedStatement delete = conn.prepareStatement("DELETE FROM " + table + " WHERE flightid = (?)");
+					 PreparedStatement insert = conn.prepareStatement("INSERT INTO " + table + " VALUES (?,?,?,?,?,?)")) {
+					delete.setInt(1, columns.flightID());
+					delete.executeUpdate();
+					for (int first = 0; first < size; first += TrackBlocks.BLOCK_SIZE) {
+						int last = Math.min(first + TrackBlocks.BLOCK_SIZE, size);
+						insert.setInt(1, columns.flightID());
+						insert.setInt(2, blocks++);
+						insert.setInt(3, last - first);
+						insert.setLong(4, columns.timestamps()[first]);
+						insert.setLong(5, columns.timestamps()[last - 1]);
+						insert.setBytes(6, TrackBlocks.encode(columns, first, last));
+						insert.addBatch();
+					}
+					insert.executeBatch();
+					if (dropRows) {
+						for (String tracking : PARTITIONS.tables(from, to)) {
+							try (PreparedStatement drop = conn.prepareStatement("DELETE FROM " + tracking + " WHERE flightid = (?)")) {
+								drop.setInt(1, columns.flightID());
+								drop.executeUpdate();
+							}
+						}
+					}
+					conn.commit();
+				} catch (SQLException e) {
+					conn.rollback();
+					throw e;
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
+				return 0;
 			}
 		}
+		if (dropRows) {
+			HOT_STORE.remove(columns.flightID(), null);
+		}
+		return blocks;
 	}
 
 }
@@ -1,6 +1,7 @@
 package planespotter.model.io;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Range;
 import org.jetbrains.annotations.TestOnly;
 import planespotter.a_test.Test;
@@ -11,12 +12,20 @@ import planespotter.throwables.DataNotFoundException;
 import planespotter.throwables.InvalidDataException;
 import planespotter.throwables.NoAccessException;
 import planespotter.util.HighMemory;
+import planespotter.util.TopK;
 import planespotter.util.Utilities;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import static planespotter.util.Time.elapsedSeconds;
+import static planespotter.util.Time.nowMillis;
 
 /**
  * @name DBOut
@@ -40,10 +49,188 @@ public final class DBOut extends DBConnector implements DataOutput {
 	// (ONE and ONLY) DBOut instance
 	private static final DBOut INSTANCE = new DBOut();
 
+	// default fetch size for streaming reads
+	public static final int DEFAULT_FETCH_SIZE = 10_000;
+
+	// tracking columns for the visitor queries, in TrackingVisitor order
+	private static final String VISITOR_COLUMNS = "ID, flightid, latitude, longitude, timestamp, squawk, groundspeed, heading, altitude";
+
+	// visitor columns of an area query, the tracking table has the alias 't'
+	private static final String AREA_VISITOR_COLUMNS = "t.ID, t.flightid, t.latitude, t.longitude, t.timestamp, " +
+													   "t.squawk, t.groundspeed, t.heading, t.altitude";
+
+	// table dependencies of the cached results
+	private static final Set<HighWaterMarks.Table> FLIGHTS = EnumSet.of(HighWaterMarks.Table.FLIGHTS),
+												   FLIGHTS_PLANES = EnumSet.of(HighWaterMarks.Table.FLIGHTS, HighWaterMarks.Table.PLANES);
+
+	// write-aware query result cache
+	@NotNull private final ResultCache resultCache;
+
 	/**
 	 * private constructor for main instance
 	 */
 	private DBOut() {
+		this.resultCache = new ResultCache(MARKS, 1_000_000L);
+	}
+
+	/**
+	 * getter for the write-aware query result cache
+	 *
+	 * @return the {@link ResultCache} of this {@link DBOut}
+	 */
+	@NotNull
+	public ResultCache getResultCache() {
+		return resultCache;
+	}
+
+	/**
+	 * getter for the in-memory search index, loads it on first use
+	 *
+	 * @return the loaded {@link SearchIndex}
+	 */
+	@NotNull
+	public SearchIndex getSearchIndex() {
+		if (!SEARCH_INDEX.isLoaded()) {
+			synchronized (DB_SYNC) {
+				if (!SEARCH_INDEX.isLoaded()) {
+					loadSearchIndex();
+				}
+			}
+		}
+		return SEARCH_INDEX;
+	}
+
+	/**
+	 * loads all planes and flights into the {@link SearchIndex}, must hold DB_SYNC,
+	 * so no commit can happen during the load, later commits are indexed by {@link DBIn}
+	 */
+	private void loadSearchIndex() {
+		long startTime = nowMillis();
+		try (DBResult result = queryDB(SQLQueries.GET_PLANE_SEARCH_KEYS);
+			 ResultSet rs = result.resultSet()) {
+			while (rs.next()) {
+				SEARCH_INDEX.planeInserted(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4));
+			}
+		} catch (NoAccessException | SQLException e) {
+			e.printStackTrace();
+			return;
+		}
+		try (DBResult result = queryDB(SQLQueries.GET_FLIGHT_SEARCH_KEYS);
+			 ResultSet rs = result.resultSet()) {
+			while (rs.next()) {
+				SEARCH_INDEX.flightInserted(rs.getInt(1), rs.getInt(2), rs.getString(3));
+			}
+		} catch (NoAccessException | SQLException e) {
+			e.printStackTrace();
+			return;
+		}
+		SEARCH_INDEX.setLoaded();
+		System.out.println("[DBOut] loaded search index in " + elapsedSeconds(startTime) + " seconds!");
+	}
+
+	/**
+	 * returns the {@link DensityGrid}, it is loaded on first use
+	 * from its checkpoint and the newer rows, or by one full scan
+	 *
+	 * @return the loaded {@link DensityGrid}
+	 */
+	@NotNull
+	public DensityGrid getDensityGrid() {
+		if (!DENSITY.isLoaded()) {
+			synchronized (DB_SYNC) {
+				if (!DENSITY.isLoaded()) {
+					DENSITY.load(this);
+				}
+			}
+		}
+		return DENSITY;
+	}
+
+	/**
+	 * writes the {@link DensityGrid} checkpoint, if the grid was loaded, e.g. on shutdown
+	 */
+	public void checkpointDensityGrid() {
+		DENSITY.checkpoint();
+	}
+
+	/**
+	 * returns the flights with the longest great-circle distance flown, over all history,
+	 * read from the {@link FlightSummaries} by one indexed top-N query,
+	 * flights without flight number (collected ADS-B frames) are ignored
+	 *
+	 * @param minDistance is the min. distance in km
+	 * @param limit is the max. flight count
+	 * @return the flights ordered by distance (longest first), key is 'callsign (flight ID)', value is the distance in km
+	 * @throws DataNotFoundException if no flight has the min. distance
+	 */
+	@NotNull
+	public Map<String, Integer> getLongestFlights(int minDistance, int limit) throws DataNotFoundException {
+		Map<String, Integer> longest = new LinkedHashMap<>();
+		synchronized (DB_SYNC) {
+			String query = "SELECT s.flightid, f.callsign, s.distance FROM " + FlightSummaries.table() + " s " +
+						   "JOIN flights f ON f.ID = s.flightid " +
+						   "WHERE s.distance >= (?) AND f.flightnr IS NOT 'None' " +
+						   "ORDER BY s.distance DESC LIMIT (?)";
+			try (ResultSet rs = queryCached(query, minDistance, limit)) {
+				while (rs.next()) {
+					longest.put(rs.getString(2) + " (" + rs.getInt(1) + ")", (int) Math.round(rs.getDouble(3)));
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		if (longest.isEmpty()) {
+			throw new DataNotFoundException("No flight with a distance of " + minDistance + " km or more found!");
+		}
+		return longest;
+	}
+
+	/**
+	 * returns the highest tracking ID, which was ever given,
+	 * read from the ID sequences of the tracking tables
+	 *
+	 * @return the highest tracking ID, 0 if there is none
+	 */
+	long getLastTrackingID() {
+		synchronized (DB_SYNC) {
+			try (Connection conn = getConnection(true);
+				 Statement stmt = conn.createStatement()) {
+				return TrackingPartitions.lastTrackingID(stmt);
+			} catch (SQLException e) {
+				e.printStackTrace();
+				return 0L;
+			}
+		}
+	}
+
+	/**
+	 * streams all tracking rows with an ID higher than a tracking ID to a {@link TrackingVisitor},
+	 * packed flights are not read, they only contain older rows
+	 *
+	 * @param trackingID is the last known tracking ID
+	 * @param fetchSize is the row count which is fetched from the database at once
+	 * @param visitor is the {@link TrackingVisitor} which gets every row
+	 * @return the count of visited rows
+	 */
+	long visitTrackingAfter(long trackingID, int fetchSize, @NotNull TrackingVisitor visitor) {
+		String query = "SELECT " + VISITOR_COLUMNS + " FROM " + PARTITIONS.source() + " WHERE ID > ?";
+		long count = 0;
+		synchronized (DB_SYNC) {
+			try (Connection conn = getConnection(true);
+				 PreparedStatement stmt = conn.prepareStatement(query)) {
+				stmt.setFetchSize(fetchSize);
+				stmt.setLong(1, trackingID);
+				ResultSet rs = stmt.executeQuery();
+				while (rs.next()) {
+					visitor.visit(rs.getInt(1), rs.getInt(2), rs.getDouble(3), rs.getDouble(4), rs.getLong(5),
+								  rs.getInt(6), rs.getInt(7), rs.getInt(8), rs.getInt(9));
+					count++;
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		return count;
 	}
 
 	/**
@@ -119,49 +306,33 @@ public final class DBOut extends DBConnector implements DataOutput {
 		final Airport[] aps = new Airport[] { nullAirport, nullAirport };
 		// synchronizing on DB-sync to prevent SQLITE_BUSY error
 		synchronized (DB_SYNC) {
-			try (DBResult srcResult = queryDB(SQLQueries.GET_AIRPORT_BY_TAG + Utilities.packString(srcAirport));
-				 DBResult destResult = queryDB(SQLQueries.GET_AIRPORT_BY_TAG + Utilities.packString(destAirport));
-				 ResultSet rsSrc = srcResult.resultSet();
-				 ResultSet rsDest = destResult.resultSet()) {
-				// getting airports and replacing array
-				if (rsSrc.next()) {
-					aps[0] = new Airport(rsSrc.getInt("ID"), rsSrc.getString("iatatag"), rsSrc.getString("name"),
-										 new Position(rsSrc.getDouble("lat"), rsSrc.getDouble("lon")));
-				}
-				if (rsDest.next()) {
-					aps[1] = new Airport(rsDest.getInt("ID"), rsDest.getString("iatatag"), rsDest.getString("name"),
-										new Position(rsDest.getDouble("lat"), rsDest.getDouble("lon")));
+			// the same cached statement is used for both airports, one after another
+			String[] tags = { srcAirport, destAirport };
+			for (int i = 0; i < tags.length; i++) {
+				try (ResultSet rs = queryCached(SQLQueries.GET_AIRPORT_BY_TAG, tags[i])) {
+					// getting airports and replacing array
+					if (rs.next()) {
+						aps[i] = new Airport(rs.getInt("ID"), rs.getString("iatatag"), rs.getString("name"),
+											 new Position(rs.getDouble("lat"), rs.getDouble("lon")));
+					}
+				} catch (SQLException e) {
+					e.printStackTrace();
 				}
-			} catch (SQLException | NoAccessException e) {
-				e.printStackTrace();
 			}
 		}
 		return aps;
 	}
 
 	/**
-	 * This Method is used to query a single Plane by its ICAO Tag
-	 * It takes a String containing the ICAO Tag and returns a Plane Object
+	 * returns all {@link Flight} IDs, which {@link Plane} ICAO address starts with the given ICAO,
+	 * resolved by the in-memory {@link SearchIndex}, ignoring the case
 	 *
-	 * @param icao String containing the ICAO Tag
-	 * @return Plane the Object containing all Information about the Plane
+	 * @param icao is the ICAO address prefix
+	 * @return sorted {@link Flight} IDs of the matching {@link Plane}s
+	 * @throws DataNotFoundException if no {@link Flight} was found
 	 */
 	public int[] getFlightIDsByICAOLike(@NotNull String icao) throws DataNotFoundException {
-		int[] ids = new int[0];
-		synchronized (DB_SYNC) {
-			try (DBResult result = queryDB(SQLQueries.GET_FLIGHT_IDS_BY_ICAO_LIKE + "'" + icao + "%'");
-				 ResultSet rs = result.resultSet()) {
-				int id, length;
-				while (rs.next()) {
-					id = rs.getInt(1);
-					length = ids.length;
-					ids = Arrays.copyOf(ids, length + 1);
-					ids[length] = id;
-				}
-			} catch (NoAccessException | SQLException e) {
-				e.printStackTrace();
-			}
-		}
+		int[] ids = getSearchIndex().flightIDs(SearchIndex.Field.ICAO, icao);
 		if (ids.length == 0) {
 			throw new DataNotFoundException("No plane id found for icao " + icao + "!");
 		}
@@ -182,13 +353,12 @@ public final class DBOut extends DBConnector implements DataOutput {
 		Airline airline;
 		Plane plane = null;
 		synchronized (DB_SYNC) {
-			try (DBResult result = queryDB(SQLQueries.GET_PLANE_BY_ID + id)) {
-				 ResultSet rs = result.resultSet();
+			try (ResultSet rs = queryCached(SQLQueries.GET_PLANE_BY_ID, id)) {
 				if (rs.next()) {
 					airline = getAirlineByID(rs.getInt("airline"));
 					plane = new Plane(rs.getInt("ID"), rs.getString("icaonr"), rs.getString("tailnr"), rs.getString("type"), rs.getString("registration"), airline);
 				}
-			} catch (SQLException | NoAccessException e) {
+			} catch (SQLException e) {
 				e.printStackTrace();
 			}
 		}
@@ -212,13 +382,12 @@ public final class DBOut extends DBConnector implements DataOutput {
 		Airline airline = null;
 		String query, tag, name, country;
 
-		query = "SELECT * FROM airlines a " +
+		query = "SELECT a.* FROM airlines a " +
 				"JOIN planes p " +
 				"ON ((p.airline = a.ID) " +
-				"AND (p.ID = " + id + "))";
+				"AND (p.ID = (?)))";
 		synchronized (DB_SYNC) {
-			try (DBResult result = queryDB(query);
-				 ResultSet rs = result.resultSet()) {
+			try (ResultSet rs = queryCached(query, id)) {
 
 				if (rs.next()) {
 					airlineID = rs.getInt("ID");
@@ -227,7 +396,7 @@ public final class DBOut extends DBConnector implements DataOutput {
 					country = rs.getString("country");
 					airline = new Airline(airlineID, tag, name, country);
 				}
-			} catch (SQLException | NoAccessException e) {
+			} catch (SQLException e) {
 				e.printStackTrace();
 			}
 		}
@@ -274,20 +443,29 @@ public final class DBOut extends DBConnector implements DataOutput {
 	public Vector<DataPoint> getTrackingByFlight(int flightID)
 			throws DataNotFoundException {
 
+		// recent flights are read from the hot store
+		Vector<DataPoint> hot = HOT_STORE.track(flightID);
+		if (hot != null && !hot.isEmpty()) {
+			return hot;
+		}
+		// packed flights are read from their track blocks
+		TrackColumns packed = getPackedTrack(flightID);
+		if (packed != null) {
+			return packed.toDataPoints();
+		}
 		Position pos;
 		DataPoint dp;
 		final Vector<DataPoint> dps = new Vector<>();
-		String query = "SELECT * FROM tracking WHERE flightid = " + flightID;
 		synchronized (DB_SYNC) {
-			try (DBResult result = queryDB(query);
-				 ResultSet rs = result.resultSet()) {
+			String query = "SELECT * FROM " + PARTITIONS.source() + " WHERE flightid = (?)";
+			try (ResultSet rs = queryCached(query, flightID)) {
 				while (rs.next()) {
 					pos = new Position(rs.getDouble("latitude"), rs.getDouble("longitude"));
 					dp = new DataPoint(rs.getInt("ID"), rs.getInt("flightid"), pos, rs.getInt("timestamp"),
 							rs.getInt("squawk"), rs.getInt("groundspeed"), rs.getInt("heading"), rs.getInt("altitude"));
 					dps.add(dp);
 				}
-			} catch (NoAccessException | SQLException e) {
+			} catch (SQLException e) {
 				e.printStackTrace();
 			}
 		}
@@ -310,9 +488,22 @@ public final class DBOut extends DBConnector implements DataOutput {
 			throws DataNotFoundException {
 
 		final HashMap<Integer, DataPoint> dps = new HashMap<>();
+		// recent flights are read from the hot store
+		Vector<DataPoint> hot = HOT_STORE.track(flightID);
+		if (hot != null && !hot.isEmpty()) {
+			hot.forEach(dp -> dps.put(dp.id(), dp));
+			return dps;
+		}
+		// packed flights are read from their track blocks
+		TrackColumns packed = getPackedTrack(flightID);
+		if (packed != null) {
+			for (int i = 0; i < packed.size(); i++) {
+				dps.put(packed.ids()[i], packed.dataPoint(i));
+			}
+			return dps;
+		}
 		synchronized (DB_SYNC) {
-			try (DBResult result = queryDB("SELECT * FROM tracking WHERE flightid = " + flightID);
-				 ResultSet rs = result.resultSet()) {
+			try (ResultSet rs = queryCached("SELECT * FROM " + PARTITIONS.source() + " WHERE flightid = (?)", flightID)) {
 				while (rs.next()) {
 					// TODO: IF STATEMENT
 					var p = new Position(rs.getDouble("latitude"), rs.getDouble("longitude"));
@@ -320,7 +511,7 @@ public final class DBOut extends DBConnector implements DataOutput {
 							rs.getInt("squawk"), rs.getInt("groundspeed"), rs.getInt("heading"), rs.getInt("altitude"));
 					dps.put(rs.getInt("ID"), dp);
 				}
-			} catch (SQLException | NoAccessException e) {
+			} catch (SQLException e) {
 				e.printStackTrace();
 			}
 			if (dps.isEmpty()) {
@@ -341,16 +532,24 @@ public final class DBOut extends DBConnector implements DataOutput {
 	public long getLastTimestampByFlightID(int id)
 			throws DataNotFoundException {
 
+		DataPoint hot = HOT_STORE.last(id);
+		if (hot != null) {
+			return hot.timestamp();
+		}
+		// packed flights are read from their last track block
+		TrackColumns packed = getLastPackedBlock(id);
+		if (packed != null) {
+			return packed.timestamps()[packed.size() - 1];
+		}
 		long timestamp = -1;
-		String getLastTracking = "SELECT max(timestamp) FROM tracking WHERE flightid = " + id;
 		synchronized (DB_SYNC) {
-			try (DBResult result = queryDB(getLastTracking);
-				ResultSet rs = result.resultSet()) {
+			String getLastTracking = "SELECT max(timestamp) FROM " + PARTITIONS.source() + " WHERE flightid = (?)";
+			try (ResultSet rs = queryCached(getLastTracking, id)) {
 
 				while (rs.next()) {
 					timestamp = rs.getLong(1);
 				}
-			} catch (SQLException | NoAccessException e) {
+			} catch (SQLException e) {
 				e.printStackTrace();
 			}
 		}
@@ -368,12 +567,19 @@ public final class DBOut extends DBConnector implements DataOutput {
 	public DataPoint getLastTrackingByFlightID(final int id)
 			throws DataNotFoundException {
 
+		DataPoint dp = HOT_STORE.last(id);
+		if (dp != null) {
+			return dp;
+		}
+		// packed flights are read from their last track block
+		TrackColumns packed = getLastPackedBlock(id);
+		if (packed != null) {
+			return packed.dataPoint(packed.size() - 1);
+		}
 		Position p;
-		DataPoint dp = null;
-		String query =  "SELECT * FROM tracking WHERE flightid = '"+ id +"' ORDER BY ID DESC LIMIT 1";
 		synchronized (DB_SYNC) {
-			try (DBResult result = queryDB(query);
-				 ResultSet rs = result.resultSet()) {
+			String query =  "SELECT * FROM " + PARTITIONS.source() + " WHERE flightid = (?) ORDER BY ID DESC LIMIT 1";
+			try (ResultSet rs = queryCached(query, id)) {
 
 				while (rs.next()) {
 					p = new Position(rs.getDouble("latitude"), rs.getDouble("longitude"));
@@ -381,7 +587,7 @@ public final class DBOut extends DBConnector implements DataOutput {
 							rs.getInt("squawk"), rs.getInt("groundspeed"), rs.getInt("heading"), rs.getInt("altitude"));
 
 				}
-			} catch (SQLException | NoAccessException e) {
+			} catch (SQLException e) {
 				e.printStackTrace();
 			}
 			if (dp == null) {
@@ -402,15 +608,23 @@ public final class DBOut extends DBConnector implements DataOutput {
 	public int getLastTrackingIDByFlightID(final int flightID)
 			throws DataNotFoundException {
 
+		DataPoint hot = HOT_STORE.last(flightID);
+		if (hot != null) {
+			return hot.id();
+		}
+		// packed flights are read from their last track block
+		TrackColumns packed = getLastPackedBlock(flightID);
+		if (packed != null) {
+			return packed.ids()[packed.size() - 1];
+		}
 		int tid = -1;
-		String query =  "SELECT ID FROM tracking WHERE flightid = '"+ flightID +"' ORDER BY ID DESC LIMIT 1";
 		synchronized (DB_SYNC) {
-			try (DBResult result = queryDB(query);
-				 ResultSet rs = result.resultSet()) {
+			String query =  "SELECT ID FROM " + PARTITIONS.source() + " WHERE flightid = (?) ORDER BY ID DESC LIMIT 1";
+			try (ResultSet rs = queryCached(query, flightID)) {
 				if (rs.next()) {
 					tid = rs.getInt("ID");
 				}
-			} catch (SQLException | NoAccessException e) {
+			} catch (SQLException e) {
 				e.printStackTrace();
 			}
 			if (tid == -1) {
@@ -420,6 +634,215 @@ public final class DBOut extends DBConnector implements DataOutput {
 		return tid;
 	}
 
+	/**
+	 * returns all {@link DataPoint}s in a certain time range,
+	 * only the tracking partitions which overlap the time range are queried,
+	 * packed flights are read from their track blocks in the time range
+	 *
+	 * @param startTs is the first timestamp in seconds (inclusive)
+	 * @param endTs is the last timestamp in seconds (inclusive)
+	 * @return {@link Vector} of all {@link DataPoint}s in the time range
+	 * @throws DataNotFoundException if no tracking was found in the time range
+	 */
+	@NotNull
+	public Vector<DataPoint> getTrackingBetween(long startTs, long endTs)
+			throws DataNotFoundException {
+
+		// recent time ranges are read from the hot store
+		Vector<DataPoint> hot = HOT_STORE.between(startTs, endTs);
+		if (hot != null) {
+			if (hot.isEmpty()) {
+				throw new DataNotFoundException("No tracking found between " + startTs + " and " + endTs + "!");
+			}
+			return hot;
+		}
+		Position pos;
+		DataPoint dp;
+		final Vector<DataPoint> dps = new Vector<>();
+		synchronized (DB_SYNC) {
+			// packed flights are read from their track blocks, only blocks in the time range are decoded
+			forEachBlock("WHERE lastTs >= ? AND firstTs <= ?", block -> {
+				for (int i = 0; i < block.size(); i++) {
+					if (block.timestamps()[i] >= startTs && block.timestamps()[i] <= endTs) {
+						dps.add(block.dataPoint(i));
+					}
+				}
+			}, startTs, endTs);
+			String query = "SELECT * FROM " + PARTITIONS.source(startTs, endTs) + " " +
+						   "WHERE timestamp BETWEEN " + startTs + " AND " + endTs + " " +
+						   "AND flightid NOT IN (SELECT flightid FROM " + TrackBlocks.table() + ")";
+			try (DBResult result = queryDB(query);
+				 ResultSet rs = result.resultSet()) {
+				while (rs.next()) {
+					pos = new Position(rs.getDouble("latitude"), rs.getDouble("longitude"));
+					dp = new DataPoint(rs.getInt("ID"), rs.getInt("flightid"), pos, rs.getLong("timestamp"),
+							rs.getInt("squawk"), rs.getInt("groundspeed"), rs.getInt("heading"), rs.getInt("altitude"));
+					dps.add(dp);
+				}
+			} catch (NoAccessException | SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		if (dps.isEmpty()) {
+			throw new DataNotFoundException("No tracking found between " + startTs + " and " + endTs + "!");
+		}
+		return dps;
+	}
+
+	/**
+	 * returns the complete track of a {@link Flight} in column-layout, sorted by timestamp,
+	 * packed flights are decoded directly from their track blocks into primitive arrays,
+	 * other flights are read from the tracking rows
+	 *
+	 * @param flightID is the {@link Flight} ID
+	 * @return {@link TrackColumns} of the {@link Flight}
+	 * @throws DataNotFoundException if no tracking was found for the {@link Flight}
+	 */
+	@NotNull
+	public TrackColumns getTrackColumns(int flightID)
+			throws DataNotFoundException {
+
+		TrackColumns packed = getPackedTrack(flightID);
+		if (packed != null) {
+			return packed;
+		}
+		Vector<DataPoint> tracking = getTrackingByFlight(flightID);
+		tracking.sort(Comparator.comparingLong(DataPoint::timestamp));
+		return TrackColumns.fromDataPoints(flightID, tracking);
+	}
+
+	/**
+	 * decodes all track blocks of a packed {@link Flight} into one {@link TrackColumns}
+	 *
+	 * @param flightID is the {@link Flight} ID
+	 * @return the decoded {@link TrackColumns} or null if the {@link Flight} is not packed
+	 */
+	@Nullable
+	private TrackColumns getPackedTrack(int flightID) {
+		List<byte[]> blocks = new ArrayList<>();
+		int size = 0;
+		synchronized (DB_SYNC) {
+			try (ResultSet rs = queryCached("SELECT data FROM " + TrackBlocks.table() + " WHERE flightid = (?) ORDER BY seq", flightID)) {
+				byte[] block;
+				while (rs.next()) {
+					block = rs.getBytes(1);
+					size += TrackBlocks.count(block);
+					blocks.add(block);
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		if (blocks.isEmpty()) {
+			return null;
+		}
+		TrackColumns columns = TrackColumns.allocate(flightID, size);
+		int offset = 0;
+		for (byte[] block : blocks) {
+			offset += TrackBlocks.decode(block, columns, offset);
+		}
+		return columns;
+	}
+
+	/**
+	 * decodes the last track block of a packed {@link Flight}, which contains its newest points
+	 *
+	 * @param flightID is the {@link Flight} ID
+	 * @return the decoded last block or null if the {@link Flight} is not packed
+	 */
+	@Nullable
+	private TrackColumns getLastPackedBlock(int flightID) {
+		synchronized (DB_SYNC) {
+			try (ResultSet rs = queryCached("SELECT data FROM " + TrackBlocks.table() + " WHERE flightid = (?) ORDER BY seq DESC LIMIT 1", flightID)) {
+				if (rs.next()) {
+					byte[] data = rs.getBytes(1);
+					TrackColumns block = TrackColumns.allocate(flightID, TrackBlocks.count(data));
+					TrackBlocks.decode(data, block, 0);
+					return (block.size() > 0) ? block : null;
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * decodes every track block that matches a WHERE-clause and passes it to a {@link Consumer}
+	 *
+	 * @param where is the WHERE-clause on the block table, may be empty
+	 * @param action is the {@link Consumer} which gets the decoded blocks
+	 * @param params are the parameters for the placeholders in the WHERE-clause
+	 */
+	private void forEachBlock(@NotNull String where, @NotNull Consumer<TrackColumns> action, Object... params) {
+		try {
+			readBlocks(where, action, params);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * decodes every track block that matches a WHERE-clause, like {@link DBOut#forEachBlock(String, Consumer, Object...)},
+	 * but passes a failed query to the caller
+	 *
+	 * @throws SQLException if the block query failed
+	 */
+	private void readBlocks(@NotNull String where, @NotNull Consumer<TrackColumns> action, Object... params)
+			throws SQLException {
+
+		synchronized (DB_SYNC) {
+			try (ResultSet rs = queryCached("SELECT flightid, data FROM " + TrackBlocks.table() + " " + where + " ORDER BY flightid, seq", params)) {
+				byte[] data;
+				TrackColumns block;
+				while (rs.next()) {
+					data = rs.getBytes(2);
+					block = TrackColumns.allocate(rs.getInt(1), TrackBlocks.count(data));
+					TrackBlocks.decode(data, block, 0);
+					action.accept(block);
+				}
+			}
+		}
+	}
+
+	/**
+	 * adds all positions of a decoded track block to a {@link Vector}
+	 *
+	 * @param block is the decoded block
+	 * @param positions is the {@link Vector} to add the {@link Position}s to
+	 */
+	private static void addPositions(@NotNull TrackColumns block, @NotNull Vector<Position> positions) {
+		for (int i = 0; i < block.size(); i++) {
+			positions.add(new Position(block.lat()[i], block.lon()[i]));
+		}
+	}
+
+	/**
+	 * serves flight IDs from the {@link HotStore} and returns the IDs which must be queried
+	 *
+	 * @param flightIDs are the flight IDs to serve
+	 * @param lookup is the {@link HotStore} lookup, returns null if a flight is not hot
+	 * @param action gets every non-null lookup result
+	 * @return the flight IDs which are not in the {@link HotStore}
+	 */
+	private static <T> int[] hotPartition(int @NotNull [] flightIDs, @NotNull IntFunction<T> lookup, @NotNull Consumer<T> action) {
+		if (!HOT_STORE.isSeeded()) {
+			return flightIDs;
+		}
+		int[] cold = new int[flightIDs.length];
+		int coldCount = 0;
+		T hot;
+		for (int id : flightIDs) {
+			hot = lookup.apply(id);
+			if (hot == null) {
+				cold[coldCount++] = id;
+			} else {
+				action.accept(hot);
+			}
+		}
+		return Arrays.copyOf(cold, coldCount);
+	}
+
 	/**
 	 * This Method is used to retrieve ALL flights and their representative Data from the DB
 	 * It takes no Parameters and returns a List<Flight> containing all Flight Objects
@@ -438,32 +861,17 @@ public final class DBOut extends DBConnector implements DataOutput {
 	@HighMemory(msg = "Uses too much memory!")
 	public List<Flight> getAllFlights(int dataLimit) throws DataNotFoundException {
 
-		HashMap<Integer, DataPoint> dps; Airport[] aps; Flight flight; Plane plane;
-		ArrayList<Flight> flights = new ArrayList<>();
-		synchronized (DB_SYNC) {
-			try (DBResult result = queryDB(SQLQueries.GET_FLIGHTS);
-				 ResultSet rs = result.resultSet()) {
-
-				int counter = 0;
-				while (rs.next() && counter++ <= dataLimit) { // counter: max flights -> to limit the incoming data (prevents a crash)
-					dps = getCompleteTrackingByFlight(rs.getInt("ID"));
-					aps = getAirports(rs.getString("src"), rs.getString("dest"));
-					plane = getPlaneByID(rs.getInt("plane"));
-					flight = new Flight(rs.getInt("ID"), aps[0], aps[1], rs.getString("callsign"), plane, rs.getString("flightnr"), dps);
-					flights.add(flight);
-				}
-			} catch (SQLException | NoAccessException e) {
-				e.printStackTrace();
-			}
-			if (flights.isEmpty()) {
-				throw new DataNotFoundException("No flights found!");
-			}
+		// dataLimit: max flights -> to limit the incoming data (prevents a crash)
+		List<Flight> flights = loadFlights("", dataLimit);
+		if (flights.isEmpty()) {
+			throw new DataNotFoundException("No flights found!");
 		}
 		return flights;
 	}
 
 	/**
-	 * returns all {@link Flight} IDs with a specific callsign
+	 * returns all {@link Flight} IDs with a specific callsign,
+	 * resolved by the in-memory {@link SearchIndex}, ignoring the case
 	 *
 	 * @param callsign is the call sign to search for
 	 * @return a {@link Deque} of the {@link Flight} IDs with matching call sign
@@ -473,22 +881,15 @@ public final class DBOut extends DBConnector implements DataOutput {
 	public Deque<Integer> getFlightIDsByCallsign(@NotNull String callsign)
 			throws DataNotFoundException {
 
-		ArrayDeque<Integer> ids = new ArrayDeque<>();
-		synchronized (DB_SYNC) {
-			try (DBResult result = queryDB(SQLQueries.GET_FLIGHT_IDS_BY_CALLSIGN + Utilities.packString(callsign));
-				 ResultSet rs = result.resultSet()) {
-
-				while (rs.next()) {
-					ids.add(rs.getInt("ID"));
-				}
-			} catch (SQLException | NoAccessException e) {
-				e.printStackTrace();
-			}
-			if (ids.isEmpty()) {
-				throw new DataNotFoundException("No flights ids found for callsign " + callsign);
-			}
+		int[] ids = getSearchIndex().flightIDsOf(SearchIndex.Field.CALLSIGN, callsign);
+		if (ids.length == 0) {
+			throw new DataNotFoundException("No flights ids found for callsign " + callsign);
 		}
-		return ids;
+		ArrayDeque<Integer> deque = new ArrayDeque<>(ids.length);
+		for (int id : ids) {
+			deque.add(id);
+		}
+		return deque;
 	}
 
 	/**
@@ -542,8 +943,7 @@ public final class DBOut extends DBConnector implements DataOutput {
 		Flight flight = null;
 		Plane plane;
 		synchronized (DB_SYNC) {
-			try (DBResult result = queryDB(SQLQueries.GET_FLIGHT_BY_ID + id);
-				 ResultSet rs = result.resultSet()) {
+			try (ResultSet rs = queryCached(SQLQueries.GET_FLIGHT_BY_ID, id)) {
 
 				if (rs.next()) {
 					Airport[] airports = getAirports(rs.getString("src"), rs.getString("dest"));
@@ -551,7 +951,7 @@ public final class DBOut extends DBConnector implements DataOutput {
 					plane = getPlaneByID(rs.getInt("plane"));
 					flight = new Flight(rs.getInt("ID"), airports[0], airports[1], rs.getString("callsign"), plane, rs.getString("flightnr"), tracking);
 				}
-			} catch (SQLException | NoAccessException e) {
+			} catch (SQLException e) {
 				e.printStackTrace();
 			}
 			if (flight == null) {
@@ -573,38 +973,138 @@ public final class DBOut extends DBConnector implements DataOutput {
 	public List<Flight> getAllFlightsBetween(int startID, int endID)
 			throws DataNotFoundException {
 
-		List<Flight> flights = new ArrayList<>();
-		HashMap<Integer, DataPoint> dps;
-		Airport[] aps;
-		Plane plane;
-		Flight flight;
-		String query = "SELECT * FROM flights " +
-					   "WHERE (ID BETWEEN " + startID + " AND " + endID + ") " +
+		String where = "WHERE (ID BETWEEN " + startID + " AND " + endID + ") " +
 					   "AND endTime IS NULL";
+		// limit: immer begrenzte Anzahl an Datensätzen
+		List<Flight> flights = loadFlights(where, endID - startID + 1);
+		if (flights.isEmpty()) {
+			throw new DataNotFoundException("No flights found between " + startID + " and " + endID + "!");
+		}
+		return flights;
+	}
+
+	/**
+	 * loads multiple {@link Flight}s with a fixed count of queries, independent of the flight count:
+	 * one for the flights, one for their {@link Plane}s and {@link Airline}s, one for the {@link Airport}s,
+	 * one for the track blocks and one for the tracking rows, ordered by flight ID.
+	 * The {@link Flight} objects are assembled in one pass over the tracking rows,
+	 * {@link Flight}s without tracking are skipped.
+	 *
+	 * @param where is the WHERE-clause on the flights-table, may be empty
+	 * @param limit is the max. flight count
+	 * @return the loaded {@link Flight}s, ordered by ID
+	 */
+	@NotNull
+	private List<Flight> loadFlights(@NotNull String where, int limit) {
+		final Airport nullAirport = new Airport(-1, "None", "None", new Position(0., 0.));
+		final Airline nullAirline = new Airline(-1, "None", "None", "None");
+		final String flightIDs = "SELECT ID FROM flights " + where + " ORDER BY ID LIMIT " + limit;
+
+		// flight rows: ID -> [plane, src, dest, callsign, flightnr]
+		Map<Integer, Object[]> flightRows = new LinkedHashMap<>();
+		Map<Integer, Plane> planes = new HashMap<>();
+		Map<String, Airport> airports = new HashMap<>();
+		Map<Integer, HashMap<Integer, DataPoint>> tracking = new HashMap<>();
+		long start = Long.MAX_VALUE, end = Long.MIN_VALUE;
 		synchronized (DB_SYNC) {
-			try (DBResult result = queryDB(query);
+			try (DBResult result = queryDB("SELECT ID, plane, src, dest, callsign, flightnr, start, endTime FROM flights " +
+										   where + " ORDER BY ID LIMIT " + limit);
 				 ResultSet rs = result.resultSet()) {
-
-				int counter = 0;
-				while (rs.next() && counter++ <= endID - startID) { // counter: immer begrenzte Anzahl an Datensätzen
-					dps = getCompleteTrackingByFlight(rs.getInt("ID"));
-					aps = getAirports(rs.getString("src"), rs.getString("dest"));
-					plane = getPlaneByID(rs.getInt("plane"));
-					flight = new Flight(rs.getInt("ID"), aps[0], aps[1], rs.getString("callsign"), plane, rs.getString("flightnr"), dps);
-					flights.add(flight);
+				while (rs.next()) {
+					flightRows.put(rs.getInt(1), new Object[] { rs.getInt(2), rs.getString(3), rs.getString(4),
+																rs.getString(5), rs.getString(6) });
+					start = Math.min(start, rs.getLong(7));
+					end = (rs.getObject(8) == null) ? Long.MAX_VALUE : Math.max(end, rs.getLong(8));
+				}
+			} catch (SQLException | NoAccessException e) {
+				e.printStackTrace();
+			}
+			if (flightRows.isEmpty()) {
+				return new ArrayList<>();
+			}
+			// planes with airlines
+			try (DBResult result = queryDB("SELECT p.ID, p.icaonr, p.tailnr, p.type, p.registration, " +
+										   "a.ID, a.icaotag, a.name, a.country FROM planes p " +
+										   "LEFT JOIN airlines a ON a.ID = p.airline " +
+										   "WHERE p.ID IN (SELECT plane FROM flights WHERE ID IN (" + flightIDs + "))");
+				 ResultSet rs = result.resultSet()) {
+				Airline airline;
+				while (rs.next()) {
+					airline = (rs.getObject(6) == null)
+							? nullAirline
+							: new Airline(rs.getInt(6), rs.getString(7), rs.getString(8), rs.getString(9));
+					planes.put(rs.getInt(1), new Plane(rs.getInt(1), rs.getString(2), rs.getString(3),
+													   rs.getString(4), rs.getString(5), airline));
+				}
+			} catch (SQLException | NoAccessException e) {
+				e.printStackTrace();
+			}
+			// airports, the first airport of every tag
+			try (DBResult result = queryDB("SELECT ID, iatatag, name, lat, lon FROM airports " +
+										   "WHERE iatatag IN (SELECT src FROM flights WHERE ID IN (" + flightIDs + ")) " +
+										   "OR iatatag IN (SELECT dest FROM flights WHERE ID IN (" + flightIDs + ")) " +
+										   "ORDER BY ID");
+				 ResultSet rs = result.resultSet()) {
+				while (rs.next()) {
+					airports.putIfAbsent(rs.getString(2), new Airport(rs.getInt(1), rs.getString(2), rs.getString(3),
+																	  new Position(rs.getDouble(4), rs.getDouble(5))));
 				}
 			} catch (SQLException | NoAccessException e) {
 				e.printStackTrace();
 			}
-			if (flights.isEmpty()) {
-				throw new DataNotFoundException("No flights found between " + startID + " and " + endID + "!");
+			// packed flights are read from their track blocks
+			forEachBlock("WHERE flightid IN (" + flightIDs + ")", block -> {
+				HashMap<Integer, DataPoint> dps = tracking.computeIfAbsent(block.flightID(), id -> new HashMap<>());
+				for (int i = 0; i < block.size(); i++) {
+					dps.put(block.ids()[i], block.dataPoint(i));
+				}
+			});
+			// all tracking rows in one query, ordered by flight, the partitions are pruned by the flight times
+			String query = "SELECT " + VISITOR_COLUMNS + " FROM " + PARTITIONS.source(start, end) + " " +
+						   "WHERE flightid IN (" + flightIDs + ") " +
+						   "AND flightid NOT IN (SELECT flightid FROM " + TrackBlocks.table() + ") " +
+						   "ORDER BY flightid";
+			try (Connection conn = getConnection(true);
+				 PreparedStatement stmt = conn.prepareStatement(query)) {
+				stmt.setFetchSize(DEFAULT_FETCH_SIZE);
+				ResultSet rs = stmt.executeQuery();
+				int flightID, lastFlightID = -1;
+				HashMap<Integer, DataPoint> dps = null;
+				DataPoint dp;
+				while (rs.next()) {
+					flightID = rs.getInt(2);
+					if (flightID != lastFlightID) {
+						dps = tracking.computeIfAbsent(flightID, id -> new HashMap<>());
+						lastFlightID = flightID;
+					}
+					dp = new DataPoint(rs.getInt(1), flightID, new Position(rs.getDouble(3), rs.getDouble(4)), rs.getLong(5),
+									   rs.getInt(6), rs.getInt(7), rs.getInt(8), rs.getInt(9));
+					dps.put(dp.id(), dp);
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		List<Flight> flights = new ArrayList<>(flightRows.size());
+		HashMap<Integer, DataPoint> dps;
+		Plane plane;
+		for (Map.Entry<Integer, Object[]> row : flightRows.entrySet()) {
+			dps = tracking.get(row.getKey());
+			if (dps == null || dps.isEmpty()) {
+				continue;
 			}
+			Object[] values = row.getValue();
+			plane = planes.getOrDefault((Integer) values[0], new Plane(-1, "None", "None", "None", "None", nullAirline));
+			flights.add(new Flight(row.getKey(), airports.getOrDefault((String) values[1], nullAirport),
+								   airports.getOrDefault((String) values[2], nullAirport),
+								   (String) values[3], plane, (String) values[4], dps));
 		}
 		return flights;
 	}
 
 	/**
-	 * returns the element count of a certain table in the database
+	 * returns the element count of a certain table in the database,
+	 * tracking tables also count the points of packed flights, which are in their track blocks
 	 *
 	 * @return length of a certain database table
 	 * @param table is the table name
@@ -614,11 +1114,20 @@ public final class DBOut extends DBConnector implements DataOutput {
 			throws DataNotFoundException {
 
 		synchronized (DB_SYNC) {
-			try (DBResult result = super.queryDB("SELECT count(*) FROM " + table + " WHERE flightid == " + flightID);
-				ResultSet rs = result.resultSet()) {
+			if (table.startsWith(TrackingPartitions.LEGACY_TABLE)) {
+				// packed flights are only read from their blocks
+				try (ResultSet rs = queryCached("SELECT sum(count) FROM " + TrackBlocks.table() + " WHERE flightid = (?)", flightID)) {
+					if (rs.next() && rs.getObject(1) != null) {
+						return rs.getInt(1);
+					}
+				} catch (SQLException e) {
+					e.printStackTrace();
+				}
+			}
+			try (ResultSet rs = queryCached("SELECT count(*) FROM " + table + " WHERE flightid == (?)", flightID)) {
 
 				return rs.getInt(1);
-			} catch (SQLException | NoAccessException e) {
+			} catch (SQLException e) {
 				e.printStackTrace();
 			}
 		}
@@ -638,16 +1147,16 @@ public final class DBOut extends DBConnector implements DataOutput {
 
 		Deque<Integer> flights = new ArrayDeque<>();
 		String query = "SELECT ID FROM flights " +
-					   "WHERE plane " + SQLQueries.IN_INT(ids);
+					   "WHERE plane " + SQLQueries.IN_JSON;
+		int[] planeIDs = ids.stream().mapToInt(Integer::intValue).toArray();
 		synchronized (DB_SYNC) {
-			try (DBResult result = super.queryDB(query);
-				 ResultSet rs = result.resultSet()) {
+			try (ResultSet rs = queryCached(query, SQLQueries.jsonArray(planeIDs))) {
 				int id;
 				while (rs.next()) {
 					id = rs.getInt("ID");
 					flights.add(id);
 				}
-			} catch (SQLException | NoAccessException e) {
+			} catch (SQLException e) {
 				e.printStackTrace();
 			}
 			if (flights.isEmpty()) {
@@ -661,6 +1170,7 @@ public final class DBOut extends DBConnector implements DataOutput {
 	 * TODO hier muss ein Fehler drin sein!! oder in der Querry
 	 *
 	 * returns all {@link Flight} IDs, which {@link Plane} type matches one of the given ones
+	 * the result is cached until the flights or planes change
 	 *
 	 * @param planetypes are the plane types to search for
 	 * @return int array of the {@link Flight} IDs
@@ -668,14 +1178,21 @@ public final class DBOut extends DBConnector implements DataOutput {
 	 */
 	public int[] getFlightIDsByPlaneTypes(@NotNull Deque<String> planetypes)
 			throws DataNotFoundException {
+		return resultCache.get("getFlightIDsByPlaneTypes." + planetypes, FLIGHTS_PLANES, () -> queryFlightIDsByPlaneTypes(planetypes)).clone();
+	}
+
+	/**
+	 * uncached query, see {@link DBOut#getFlightIDsByPlaneTypes(Deque)}
+	 */
+	private int[] queryFlightIDsByPlaneTypes(@NotNull Deque<String> planetypes)
+			throws DataNotFoundException {
 
 		int[] ids = new int[0];
 		final String query = "SELECT f.ID FROM flights f " +
 							 "JOIN planes p ON ((p.ID = f.plane) AND (f.endTime IS NULL))" +
-							 "WHERE (p.type " + SQLQueries.IN_STR(planetypes) + ")";
+							 "WHERE (p.type " + SQLQueries.IN_JSON + ")";
 		synchronized (DB_SYNC) {
-			try (DBResult result = super.queryDB(query);
-				 ResultSet rs = result.resultSet()) {
+			try (ResultSet rs = queryCached(query, SQLQueries.jsonArray(planetypes))) {
 
 				int id, length;
 				while (rs.next()) {
@@ -685,7 +1202,7 @@ public final class DBOut extends DBConnector implements DataOutput {
 					ids[length] = id;
 
 				}
-			} catch (SQLException | NoAccessException e) {
+			} catch (SQLException e) {
 				e.printStackTrace();
 			}
 			if (ids.length == 0) {
@@ -696,101 +1213,72 @@ public final class DBOut extends DBConnector implements DataOutput {
 	}
 
 	/**
-	 * returns all {@link Plane} IDs which are paired with a {@link Plane} with a specific tail number
+	 * returns all {@link Flight} IDs, which {@link Plane} tail number starts with the given tail number,
+	 * resolved by the in-memory {@link SearchIndex}, ignoring the case
 	 *
-	 * @param tailNr is the {@link Plane} tail number
-	 * @return {@link Plane} that matches the given tail number
+	 * @param tailNr is the {@link Plane} tail number prefix
+	 * @return sorted {@link Flight} IDs of the matching {@link Plane}s
 	 * @throws DataNotFoundException if no {@link Plane} was found
 	 */
 	public int[] getFlightIDsByTailNrLike(@NotNull String tailNr) throws DataNotFoundException {
-
-		int[] ids = new int[0];
-		synchronized (DB_SYNC) {
-			try (DBResult result = queryDB(SQLQueries.GET_FLIGHT_IDS_BY_TAILNR_LIKE + "'" + tailNr + "%'");
-				 ResultSet rs = result.resultSet()) {
-
-				int id, length;
-				while (rs.next()) {
-					id = rs.getInt("ID");
-					length = ids.length;
-					ids = Arrays.copyOf(ids, length + 1);
-					ids[length] = id;
-				}
-			} catch (SQLException | NoAccessException e) {
-				e.printStackTrace();
-			}
-			if (ids.length == 0) {
-				throw new DataNotFoundException("No plane found for tailnumber " + tailNr + "!");
-			}
+		int[] ids = getSearchIndex().flightIDs(SearchIndex.Field.TAILNR, tailNr);
+		if (ids.length == 0) {
+			throw new DataNotFoundException("No plane found for tailnumber " + tailNr + "!");
 		}
 		return ids;
 	}
 
 	/**
-	 * queries all plane types that are like the input type
+	 * finds all plane types that start with the input type,
+	 * resolved by the in-memory {@link SearchIndex}, ignoring the case
 	 *
 	 * @param planetype is the comparison-type
 	 * @return {@link Deque} of all plane types like the param-type
+	 * @throws DataNotFoundException if no plane type was found
 	 */
 	@NotNull
 	public Deque<String> getAllPlanetypesLike(@NotNull final String planetype)
 			throws DataNotFoundException {
 
-		final Deque<String> allTypes = new ArrayDeque<>();
-		final String query = "SELECT DISTINCT type FROM planes WHERE type LIKE '" + planetype + "%'/* GROUP BY type*/";
-		synchronized (DB_SYNC) {
-			try (DBResult result = super.queryDB(query);
-				 ResultSet rs = result.resultSet()) {
-
-				while (rs.next()) {
-					allTypes.add(rs.getString("type"));
-				}
-				return allTypes;
-			} catch (SQLException | NoAccessException e) {
-				e.printStackTrace();
-			}
-			if (allTypes.isEmpty()) {
-				throw new DataNotFoundException("No planetype found!");
-			}
+		Deque<String> allTypes = getSearchIndex().keys(SearchIndex.Field.TYPE, planetype, Integer.MAX_VALUE);
+		if (allTypes.isEmpty()) {
+			throw new DataNotFoundException("No planetype found!");
 		}
-		throw new DataNotFoundException("No planetype found!");
+		return allTypes;
 	}
 
 	/**
-	 * queries all callsigns that are like the input callsign
+	 * finds all callsigns that start with the input callsign,
+	 * resolved by the in-memory {@link SearchIndex}, ignoring the case
 	 *
 	 * @param callsign is the callsign to search for
 	 * @return {@link Deque} of all callsigns like the param callsign
+	 * @throws DataNotFoundException if no callsign was found
 	 */
 	@NotNull
 	public ArrayDeque<String> getAllCallsignsLike(@NotNull final String callsign) throws DataNotFoundException {
-
-		final var allCallsigns = new ArrayDeque<String>();
-		String query = "SELECT DISTINCT callsign FROM flights WHERE callsign LIKE '" + callsign + "%'";
-		synchronized (DB_SYNC) {
-			try (DBResult result = super.queryDB(query);
-				 ResultSet rs = result.resultSet()) {
-
-				while (rs.next()) {
-					allCallsigns.add(rs.getString("callsign"));
-				}
-			} catch (SQLException | NoAccessException e) {
-				e.printStackTrace();
-			}
-			if (allCallsigns.isEmpty()) {
-				throw new DataNotFoundException("No callsigns found!");
-			}
+		ArrayDeque<String> allCallsigns = new ArrayDeque<>(getSearchIndex().keys(SearchIndex.Field.CALLSIGN, callsign, Integer.MAX_VALUE));
+		if (allCallsigns.isEmpty()) {
+			throw new DataNotFoundException("No callsigns found!");
 		}
 		return allCallsigns;
 	}
 
 	/**
 	 * returns all {@link Flight} IDs that flew to a specific {@link Airport}
+	 * the result is cached until the flights change
 	 *
 	 * @param tag is the {@link Airport} tag
 	 * @return int[] of all {@link Flight} IDs that match the {@link Airport}
 	 */ // FIXME: 05.05.2022 HIER IST EIN FEHLER !!
 	public int[] getFlightIDsByAirportTag(String tag) throws DataNotFoundException {
+		return resultCache.get("getFlightIDsByAirportTag." + tag, FLIGHTS, () -> queryFlightIDsByAirportTag(tag)).clone();
+	}
+
+	/**
+	 * uncached query, see {@link DBOut#getFlightIDsByAirportTag(String)}
+	 */
+	private int[] queryFlightIDsByAirportTag(String tag) throws DataNotFoundException {
 
 		int[] fids = new int[0];
 		String query = "SELECT DISTINCT f.ID " +
@@ -835,12 +1323,21 @@ public final class DBOut extends DBConnector implements DataOutput {
 
 		Position p; DataPoint dp;
 		Vector<DataPoint> dps = new Vector<>();
+		// flights with points in the hot store are not queried
+		int[] coldIDs = hotPartition(flightIDs, HOT_STORE::last, dps::add);
+		if (coldIDs.length == 0) {
+			return dps;
+		}
 		String querry = "SELECT max(t.ID), t.flightid, t.latitude, t.longitude, t.altitude, t.groundspeed, t.heading, t.squawk, t.timestamp " +
-						"FROM tracking t " +
-						"WHERE flightid " + SQLQueries.IN_INT(flightIDs) + " GROUP BY flightid";
+						"FROM " + PARTITIONS.source() + " t " +
+						"WHERE flightid " + SQLQueries.IN_JSON + " " +
+						"AND flightid NOT IN (SELECT flightid FROM " + TrackBlocks.table() + ") GROUP BY flightid";
 		synchronized (DB_SYNC) {
-			try (DBResult result = queryDB(querry);
-				 ResultSet rs = result.resultSet()) {
+			// packed flights are read from their last track block
+			forEachBlock("WHERE flightid " + SQLQueries.IN_JSON + " " +
+						 "AND seq = (SELECT max(b.seq) FROM " + TrackBlocks.TABLE + " b WHERE b.flightid = " + TrackBlocks.TABLE + ".flightid)",
+						 block -> dps.add(block.dataPoint(block.size() - 1)), SQLQueries.jsonArray(coldIDs));
+			try (ResultSet rs = queryCached(querry, SQLQueries.jsonArray(coldIDs))) {
 
 				while (rs.next()) {
 					p = new Position(rs.getDouble(3), rs.getDouble(4));
@@ -848,7 +1345,7 @@ public final class DBOut extends DBConnector implements DataOutput {
 									   rs.getInt(6), rs.getInt(7), rs.getInt(5));
 					dps.add(dp);
 				}
-			} catch (SQLException | NoAccessException e) {
+			} catch (SQLException e) {
 				e.printStackTrace();
 			}
 			if (dps.isEmpty()) {
@@ -899,29 +1396,299 @@ public final class DBOut extends DBConnector implements DataOutput {
 	 * @throws DataNotFoundException if no {@link Flight} was found
 	 */
 	@NotNull
+	@HighMemory(msg = "Loads all positions into memory, use visitAllTrackingPositions for bulk reads")
 	public Vector<Position> getAllTrackingPositions() throws DataNotFoundException {
 
 		Vector<Position> positions = new Vector<>();
+		visitAllTrackingPositions(DEFAULT_FETCH_SIZE, (lat, lon) -> positions.add(new Position(lat, lon)));
+		if (positions.isEmpty()) {
+			throw new DataNotFoundException("No trackings found!");
+		}
+		return positions;
+	}
+
+	/**
+	 * streams all tracking {@link Position}s to a {@link PositionVisitor}, row by row,
+	 * no position objects are created and no rows are collected, so the memory usage is constant
+	 *
+	 * @param fetchSize is the row count which is fetched from the database at once
+	 * @param visitor is the {@link PositionVisitor} which gets every position
+	 * @return the count of visited positions
+	 */
+	public long visitAllTrackingPositions(int fetchSize, @NotNull PositionVisitor visitor) {
 		String query = "SELECT latitude, longitude " +
-					   "FROM tracking ";
+					   "FROM " + PARTITIONS.source() + " " +
+					   "WHERE flightid NOT IN (SELECT flightid FROM " + TrackBlocks.table() + ")";
+		long count = 0;
 		synchronized (DB_SYNC) {
-			try (DBResult result = queryDB(query);
-				 ResultSet rs = result.resultSet()) {
-				Position pos;
+			// packed flights are read from their track blocks
+			long[] blockCount = new long[1];
+			forEachBlock("", block -> {
+				for (int i = 0; i < block.size(); i++) {
+					visitor.visit(block.lat()[i], block.lon()[i]);
+				}
+				blockCount[0] += block.size();
+			});
+			count += blockCount[0];
+			try (Connection conn = getConnection(true);
+				 PreparedStatement stmt = conn.prepareStatement(query)) {
+				stmt.setFetchSize(fetchSize);
+				ResultSet rs = stmt.executeQuery();
 				while (rs.next()) {
-					pos = new Position(rs.getDouble(1), rs.getDouble(2));
-					positions.add(pos);
+					visitor.visit(rs.getDouble(1), rs.getDouble(2));
+					count++;
 				}
-			} catch (SQLException | NoAccessException e) {
+			} catch (SQLException e) {
 				e.printStackTrace();
 			}
-			if (positions.isEmpty()) {
-				throw new DataNotFoundException("No trackings found!");
-			}
+		}
+		return count;
+	}
+
+	/**
+	 * returns all tracking {@link Position}s inside an {@link Area} and a time range,
+	 * only the matching rows are read, see {@link DBOut#visitPositionsInArea(Area, long, long, int, PositionVisitor)}
+	 *
+	 * @param area is the {@link Area}
+	 * @param from is the first timestamp in seconds (inclusive)
+	 * @param to is the last timestamp in seconds (inclusive)
+	 * @return all {@link Position}s inside the {@link Area} and the time range
+	 * @throws DataNotFoundException if no {@link Position} was found
+	 */
+	@NotNull
+	public Vector<Position> getPositionsInArea(@NotNull Area area, long from, long to) throws DataNotFoundException {
+		Vector<Position> positions = new Vector<>();
+		visitPositionsInArea(area, from, to, DEFAULT_FETCH_SIZE, (lat, lon) -> positions.add(new Position(lat, lon)));
+		if (positions.isEmpty()) {
+			throw new DataNotFoundException("No trackings found in area " + area + "!");
 		}
 		return positions;
 	}
 
+	/**
+	 * streams all tracking {@link Position}s inside an {@link Area} and a time range to a {@link PositionVisitor}, row by row,
+	 * see {@link DBOut#visitTrackingInArea(Area, long, long, int, TrackingVisitor)}
+	 *
+	 * @param area is the {@link Area}, corners in any order
+	 * @param from is the first timestamp in seconds (inclusive)
+	 * @param to is the last timestamp in seconds (inclusive)
+	 * @param fetchSize is the row count which is fetched from the database at once
+	 * @param visitor is the {@link PositionVisitor} which gets every position
+	 * @return the count of visited positions
+	 */
+	public long visitPositionsInArea(@NotNull Area area, long from, long to, int fetchSize, @NotNull PositionVisitor visitor) {
+		return visitTrackingInArea(area, from, to, fetchSize,
+				(id, flightID, lat, lon, timestamp, squawk, speed, heading, altitude) -> visitor.visit(lat, lon));
+	}
+
+	/**
+	 * streams all tracking rows inside an {@link Area} and a time range to a {@link TrackingVisitor}, row by row,
+	 * the rows are found by the {@link SpatialIndex} of every tracking partition in the time range,
+	 * packed flights are read from their track blocks in the time range,
+	 * the rows are not ordered
+	 *
+	 * @param area is the {@link Area}, corners in any order
+	 * @param from is the first timestamp in seconds (inclusive)
+	 * @param to is the last timestamp in seconds (inclusive)
+	 * @param fetchSize is the row count which is fetched from the database at once
+	 * @param visitor is the {@link TrackingVisitor} which gets every row
+	 * @return the count of visited rows
+	 */
+	public long visitTrackingInArea(@NotNull Area area, long from, long to, int fetchSize, @NotNull TrackingVisitor visitor) {
+		Position topLeft = area.getTopLeft(),
+				 bottomRight = area.getBottomRight();
+		double minLat = Math.min(topLeft.lat(), bottomRight.lat()),
+			   maxLat = Math.max(topLeft.lat(), bottomRight.lat()),
+			   minLon = Math.min(topLeft.lon(), bottomRight.lon()),
+			   maxLon = Math.max(topLeft.lon(), bottomRight.lon());
+		long count = 0;
+		synchronized (DB_SYNC) {
+			// packed flights are read from their track blocks, only blocks in the time range are decoded
+			long[] blockCount = new long[1];
+			forEachBlock("WHERE lastTs >= ? AND firstTs <= ?", block -> {
+				double lat, lon;
+				long timestamp;
+				for (int i = 0; i < block.size(); i++) {
+					lat = block.lat()[i];
+					lon = block.lon()[i];
+					timestamp = block.timestamps()[i];
+					if (timestamp >= from && timestamp <= to && lat >= minLat && lat <= maxLat && lon >= minLon && lon <= maxLon) {
+						visitor.visit(block.ids()[i], block.flightID(), lat, lon, timestamp,
+									  block.squawk()[i], block.speed()[i], block.heading()[i], block.altitude()[i]);
+						blockCount[0]++;
+					}
+				}
+			}, from, to);
+			count += blockCount[0];
+
+			// one R*Tree query per partition in the time range
+			StringBuilder query = new StringBuilder();
+			List<Object> params = new ArrayList<>();
+			boolean indexed;
+			for (String table : PARTITIONS.tables(from, to)) {
+				indexed = SpatialIndex.ensure(table);
+				if (!query.isEmpty()) {
+					query.append(" UNION ALL ");
+				}
+				query.append(SpatialIndex.select(table, AREA_VISITOR_COLUMNS, indexed))
+					 .append(" AND t.flightid NOT IN (SELECT flightid FROM ").append(TrackBlocks.table()).append(")");
+				params.addAll(Arrays.asList(SpatialIndex.bounds(minLat, maxLat, minLon, maxLon, from, to, indexed)));
+			}
+			if (query.isEmpty()) {
+				return count;
+			}
+			try (Connection conn = getConnection(true);
+				 PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+				stmt.setFetchSize(fetchSize);
+				for (int i = 0; i < params.size(); i++) {
+					stmt.setObject(i + 1, params.get(i));
+				}
+				ResultSet rs = stmt.executeQuery();
+				while (rs.next()) {
+					visitor.visit(rs.getInt(1), rs.getInt(2), rs.getDouble(3), rs.getDouble(4), rs.getLong(5),
+								  rs.getInt(6), rs.getInt(7), rs.getInt(8), rs.getInt(9));
+					count++;
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * streams all tracking rows of certain {@link Flight}s to a {@link TrackingVisitor}, row by row
+	 *
+	 * @param ids are the {@link Flight} IDs
+	 * @param fetchSize is the row count which is fetched from the database at once
+	 * @param visitor is the {@link TrackingVisitor} which gets every row
+	 * @return the count of visited rows, -1 if the read failed
+	 */
+	public long visitTrackingsByFlightIDs(int @NotNull [] ids, int fetchSize, @NotNull TrackingVisitor visitor) {
+		if (ids.length == 0) {
+			return 0;
+		}
+		String query = "SELECT " + VISITOR_COLUMNS + " FROM " + PARTITIONS.source() + " " +
+					   "WHERE flightid " + SQLQueries.IN_JSON + " " +
+					   "AND flightid NOT IN (SELECT flightid FROM " + TrackBlocks.table() + ")";
+		try {
+			return visitTracking("WHERE flightid " + SQLQueries.IN_JSON, query, Long.MAX_VALUE, fetchSize, visitor,
+								 SQLQueries.jsonArray(ids));
+		} catch (SQLException e) {
+			e.printStackTrace();
+			return -1;
+		}
+	}
+
+	/**
+	 * streams all tracking rows to a {@link TrackingVisitor}, row by row,
+	 * no objects are created and no rows are collected, so the memory usage is constant
+	 *
+	 * @param limit is the max. count of visited rows
+	 * @param fetchSize is the row count which is fetched from the database at once
+	 * @param visitor is the {@link TrackingVisitor} which gets every row
+	 * @return the count of visited rows, -1 if the read failed
+	 */
+	public long visitAllTracking(long limit, int fetchSize, @NotNull TrackingVisitor visitor) {
+		try {
+			return visitTracking("", allTrackingQuery(), limit, fetchSize, visitor);
+		} catch (SQLException e) {
+			e.printStackTrace();
+			return -1;
+		}
+	}
+
+	/**
+	 * streams all tracking points to a {@link TrackingVisitor}, flight by flight and every flight in time order,
+	 * like {@link DBOut#visitAllTracking(long, int, TrackingVisitor)}, the rows are sorted by the database
+	 *
+	 * @param fetchSize is the row count which is fetched from the database at once
+	 * @param visitor is the {@link TrackingVisitor} which gets every point
+	 * @return the count of visited points, -1 if the read failed
+	 */
+	public long visitAllTrackingByFlight(int fetchSize, @NotNull TrackingVisitor visitor) {
+		try {
+			// blocks are read by flight and sequence, a packed flight has no tracking rows
+			return visitTracking("", allTrackingQuery() + " ORDER BY flightid, timestamp", Long.MAX_VALUE, fetchSize, visitor);
+		} catch (SQLException e) {
+			e.printStackTrace();
+			return -1;
+		}
+	}
+
+	/**
+	 * @return the visitor query over all tracking rows, without the rows of packed flights
+	 */
+	@NotNull
+	private String allTrackingQuery() {
+		return "SELECT " + VISITOR_COLUMNS + " FROM " + PARTITIONS.source() + " " +
+			   "WHERE flightid NOT IN (SELECT flightid FROM " + TrackBlocks.table() + ")";
+	}
+
+	/**
+	 * streams the points of all packed flights to a {@link TrackingVisitor}, block by block,
+	 * the tracking rows are not visited
+	 *
+	 * @param visitor is the {@link TrackingVisitor} which gets every packed point
+	 * @return the count of visited points
+	 */
+	public long visitPackedTracking(@NotNull TrackingVisitor visitor) {
+		long[] count = new long[1];
+		forEachBlock("", block -> {
+			for (int i = 0; i < block.size(); i++, count[0]++) {
+				visitor.visit(block.ids()[i], block.flightID(), block.lat()[i], block.lon()[i], block.timestamps()[i],
+							  block.squawk()[i], block.speed()[i], block.heading()[i], block.altitude()[i]);
+			}
+		});
+		return count[0];
+	}
+
+	/**
+	 * streams the matching track blocks and tracking rows to a {@link TrackingVisitor}
+	 *
+	 * @param blockWhere is the WHERE-clause for the track blocks
+	 * @param query is the tracking query, must select the {@link DBOut#VISITOR_COLUMNS}
+	 * @param limit is the max. count of visited rows
+	 * @param fetchSize is the fetch size for the tracking rows
+	 * @param visitor is the {@link TrackingVisitor}
+	 * @param params are the parameters of the block WHERE-clause and the tracking query, the same for both
+	 * @return the count of visited rows
+	 * @throws SQLException if the block or the tracking query failed
+	 */
+	private long visitTracking(@NotNull String blockWhere, @NotNull String query, long limit,
+							   int fetchSize, @NotNull TrackingVisitor visitor, Object... params)
+			throws SQLException {
+
+		long[] count = new long[1];
+		synchronized (DB_SYNC) {
+			// packed flights are read from their track blocks
+			readBlocks(blockWhere, block -> {
+				for (int i = 0; i < block.size() && count[0] < limit; i++, count[0]++) {
+					visitor.visit(block.ids()[i], block.flightID(), block.lat()[i], block.lon()[i], block.timestamps()[i],
+								  block.squawk()[i], block.speed()[i], block.heading()[i], block.altitude()[i]);
+				}
+			}, params);
+			if (count[0] >= limit) {
+				return count[0];
+			}
+			// streamed on an own connection, the visitor may run other queries meanwhile
+			try (Connection conn = getConnection(true);
+				 PreparedStatement stmt = conn.prepareStatement(query)) {
+				for (int i = 0; i < params.length; i++) {
+					stmt.setObject(i + 1, params[i]);
+				}
+				stmt.setFetchSize(fetchSize);
+				ResultSet rs = stmt.executeQuery();
+				while (count[0] < limit && rs.next()) {
+					visitor.visit(rs.getInt(1), rs.getInt(2), rs.getDouble(3), rs.getDouble(4), rs.getLong(5),
+								  rs.getInt(6), rs.getInt(7), rs.getInt(8), rs.getInt(9));
+					count[0]++;
+				}
+			}
+		}
+		return count[0];
+	}
+
 	/**
 	 * returns all flight IDs that have no endTime, connected to the {@link DataPoint}-timestamp of the flight
 	 *
@@ -933,7 +1700,7 @@ public final class DBOut extends DBConnector implements DataOutput {
 
 		HashMap<Integer, Long> map = new HashMap<>();
 		String query = "SELECT t.flightid AS fid, max(t.timestamp) AS ts " +
-					   "FROM tracking t " +
+					   "FROM " + PARTITIONS.source() + " t " +
 					   "JOIN flights f " +
 					   "ON (f.ID = t.flightid) AND (f.endTime IS NULL)" +
 					   "GROUP BY t.flightid";
@@ -979,9 +1746,38 @@ public final class DBOut extends DBConnector implements DataOutput {
 		return map;
 	}
 
+	/**
+	 * returns the materialized counts of one {@link Counters.Kind}, e.g. the flight count per airline,
+	 * read from the {@link Counters}, no flight is counted
+	 *
+	 * @param kind is the {@link Counters.Kind} of the counts
+	 * @param minCount is the min. count
+	 * @return the keys with their counts, highest count first
+	 * @throws DataNotFoundException if no key has the min. count
+	 */
+	@NotNull
+	public Map<String, Integer> getCounts(@NotNull Counters.Kind kind, int minCount) throws DataNotFoundException {
+		Map<String, Integer> counts = new LinkedHashMap<>();
+		synchronized (DB_SYNC) {
+			String query = "SELECT key, count FROM " + Counters.table() + " WHERE kind = (?) AND count >= (?) ORDER BY count DESC";
+			try (ResultSet rs = queryCached(query, kind.key(), minCount)) {
+				while (rs.next()) {
+					counts.put(rs.getString(1), rs.getInt(2));
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		if (counts.isEmpty()) {
+			throw new DataNotFoundException("No " + kind.key() + " with " + minCount + " or more flights found!");
+		}
+		return counts;
+	}
+
 	/**
 	 * returns the table size of a specific table from the DB,
-	 * if the table does not exist, an exception is thrown
+	 * if the table does not exist, an exception is thrown,
+	 * the sizes of the planes- and flights-table are read from their running totals in the {@link Counters}
 	 *
 	 * @param table is the table-name of the requested table
 	 * @return size of the requested table, if it exists
@@ -997,6 +1793,16 @@ public final class DBOut extends DBConnector implements DataOutput {
 		String query = "SELECT count(ID) " +
 					   "FROM " + table;
 		synchronized (DB_SYNC) {
+			if (table.equals("planes") || table.equals("flights")) {
+				String total = "SELECT count FROM " + Counters.table() + " WHERE kind = (?) AND key = (?)";
+				try (ResultSet rs = queryCached(total, Counters.Kind.TABLE.key(), table)) {
+					if (rs.next()) {
+						return rs.getInt(1);
+					}
+				} catch (SQLException e) {
+					e.printStackTrace();
+				}
+			}
 			try (DBResult result = queryDB(query);
 				 ResultSet rs = result.resultSet()) {
 				if (rs.next()) {
@@ -1068,6 +1874,43 @@ public final class DBOut extends DBConnector implements DataOutput {
 		return map;
 	}
 
+	/**
+	 * returns the {@link Airline}s with the most {@link Flight}s from or to every {@link Airport},
+	 * the flights are counted by one GROUP BY-query, every (airport, airline)-count is
+	 * streamed once into a bounded {@link TopK}-heap of its airport, so no flight is loaded,
+	 * unknown airports and airlines are ignored
+	 *
+	 * @param k is the max. {@link Airline} count per {@link Airport}
+	 * @return {@link Map} of {@link Airport} tag and {@link Airline} IDs, most flights first
+	 * @throws DataNotFoundException if no {@link Flight} with known airport and airline was found
+	 */
+	@NotNull
+	public Map<String, int[]> getTopAirlinesPerAirport(int k) throws DataNotFoundException {
+		String query = "SELECT airport, airline, count(*) FROM (" +
+					   "SELECT f.src AS airport, p.airline AS airline FROM flights f JOIN planes p ON p.ID = f.plane " +
+					   "UNION ALL " +
+					   "SELECT f.dest, p.airline FROM flights f JOIN planes p ON p.ID = f.plane) " +
+					   "WHERE airport IS NOT NULL AND airport != '' AND airport != 'None' AND airline != 1 " +
+					   "GROUP BY airport, airline";
+		Map<String, TopK> airports = new HashMap<>();
+		synchronized (DB_SYNC) {
+			try (ResultSet rs = queryCached(query)) {
+				while (rs.next()) {
+					airports.computeIfAbsent(rs.getString(1), tag -> new TopK(k))
+							.offer(rs.getInt(2), rs.getLong(3));
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		if (airports.isEmpty()) {
+			throw new DataNotFoundException("Couldn't find any flight with airport and airline!");
+		}
+		Map<String, int[]> topAirlines = new HashMap<>(airports.size() * 2);
+		airports.forEach((tag, top) -> topAirlines.put(tag, top.keys()));
+		return topAirlines;
+	}
+
 	/**
 	 * returns all {@link Airport} tags with duplicates
 	 *
@@ -1137,12 +1980,20 @@ public final class DBOut extends DBConnector implements DataOutput {
 
 	/**
 	 * returns all {@link Flight} IDs from {@link Flight}s with specific {@link Airport} names
+	 * the result is cached until the flights change
 	 *
 	 * @param name is the {@link Airport} name
 	 * @return all {@link Flight} IDs with the Airport with the name
 	 * @throws DataNotFoundException if no {@link Airport} was found
 	 */
 	public int[] getFlightIDsByAirportName(String name) throws DataNotFoundException {
+		return resultCache.get("getFlightIDsByAirportName." + name, FLIGHTS, () -> queryFlightIDsByAirportName(name)).clone();
+	}
+
+	/**
+	 * uncached query, see {@link DBOut#getFlightIDsByAirportName(String)}
+	 */
+	private int[] queryFlightIDsByAirportName(String name) throws DataNotFoundException {
 
 		int[] ids = new int[0];
 		String query = "SELECT f.ID " +
@@ -1170,7 +2021,8 @@ public final class DBOut extends DBConnector implements DataOutput {
 	}
 
 	/**
-	 * returns all {@link DataPoint}s with a speific {@link Flight} ID
+	 * returns all {@link DataPoint}s with a speific {@link Flight} ID,
+	 * the result is cached, new tracking rows are appended to the cached result
 	 *
 	 * @param ids is an int-array of the {@link Flight} IDs
 	 * @return {@link Vector} of {@link DataPoint} with the given {@link Flight} IDs
@@ -1182,29 +2034,61 @@ public final class DBOut extends DBConnector implements DataOutput {
 		if (ids.length == 0) {
 			throw new DataNotFoundException("No given flight IDs!");
 		}
+		int[] sorted = ids.clone();
+		Arrays.sort(sorted);
+		String idArray = SQLQueries.jsonArray(sorted);
+		return new Vector<>(resultCache.tracking("getTrackingsByFlightIDs." + idArray,
+												 () -> queryTrackingsByFlightIDs(ids),
+												 mark -> getTrackingsAfter(idArray, mark)));
+	}
+
+	/**
+	 * uncached query, see {@link DBOut#getTrackingsByFlightIDs(int[])}
+	 */
+	@NotNull
+	private Vector<DataPoint> queryTrackingsByFlightIDs(int[] ids) throws DataNotFoundException {
 
-		DataPoint dp; Position p;
 		Vector<DataPoint> dps = new Vector<>();
-		String query = "SELECT * FROM tracking " +
-					   "WHERE flightid " + SQLQueries.IN_INT(ids);
-		try (DBResult result = queryDB(query);
-			 ResultSet rs = result.resultSet()) {
-				while (rs.next()) {
-					p = new Position(rs.getDouble(3), rs.getDouble(4));
-					dp = new DataPoint(rs.getInt(1), rs.getInt(2), p,
-									   rs.getLong(9), rs.getInt(8), rs.getInt(6),
-									   rs.getInt(7), rs.getInt(5));
-					dps.add(dp);
-				}
-		} catch (SQLException | NoAccessException e) {
-			e.printStackTrace();
+		// complete flights in the hot store are not queried
+		int[] coldIDs = hotPartition(ids, HOT_STORE::track, dps::addAll);
+		if (coldIDs.length == 0) {
+			return dps;
 		}
+		visitTrackingsByFlightIDs(coldIDs, DEFAULT_FETCH_SIZE, (id, flightID, lat, lon, timestamp, squawk, speed, heading, altitude) ->
+				dps.add(new DataPoint(id, flightID, new Position(lat, lon), timestamp, squawk, speed, heading, altitude)));
 		if (dps.isEmpty()) {
 			throw new DataNotFoundException("No tracking found for these flight IDs!");
 		}
 		return dps;
 	}
 
+	/**
+	 * returns the tracking rows of certain {@link Flight}s with an ID above a tracking high-water mark,
+	 * used to refresh cached tracking results, packed {@link Flight}s get no new rows
+	 *
+	 * @param idArray are the {@link Flight} IDs as JSON-array
+	 * @param trackingID is the tracking high-water mark
+	 * @return the new {@link DataPoint}s, may be empty
+	 */
+	@NotNull
+	private Vector<DataPoint> getTrackingsAfter(@NotNull String idArray, long trackingID) {
+		Vector<DataPoint> dps = new Vector<>();
+		String query = "SELECT " + VISITOR_COLUMNS + " FROM " + PARTITIONS.source() + " " +
+					   "WHERE ID > (?) AND flightid " + SQLQueries.IN_JSON + " " +
+					   "AND flightid NOT IN (SELECT flightid FROM " + TrackBlocks.table() + ")";
+		synchronized (DB_SYNC) {
+			try (ResultSet rs = queryCached(query, trackingID, idArray)) {
+				while (rs.next()) {
+					dps.add(new DataPoint(rs.getInt(1), rs.getInt(2), new Position(rs.getDouble(3), rs.getDouble(4)), rs.getLong(5),
+										  rs.getInt(6), rs.getInt(7), rs.getInt(8), rs.getInt(9)));
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		return dps;
+	}
+
 	/**
 	 * returns all {@link Position}s by certain {@link Flight} IDs
 	 *
@@ -1218,21 +2102,26 @@ public final class DBOut extends DBConnector implements DataOutput {
 		if (fids.length == 0) {
 			throw new DataNotFoundException("FlightID-array is empty!");
 		}
-		final String query = "SELECT t.latitude, t.longitude FROM tracking t " +
-					   		 "WHERE t.flightid " + SQLQueries.IN_INT(fids);
+		final String query = "SELECT t.latitude, t.longitude FROM " + PARTITIONS.source() + " t " +
+					   		 "WHERE t.flightid " + SQLQueries.IN_JSON + " " +
+							 "AND t.flightid NOT IN (SELECT flightid FROM " + TrackBlocks.table() + ")";
+		final String idArray = SQLQueries.jsonArray(fids);
 
 		Vector<Position> positions = new Vector<>();
+		synchronized (DB_SYNC) {
+			// packed flights are read from their track blocks
+			forEachBlock("WHERE flightid " + SQLQueries.IN_JSON, block -> addPositions(block, positions), idArray);
 
-		try (DBResult result = queryDB(query);
-			 ResultSet rs = result.resultSet()) {
+			try (ResultSet rs = queryCached(query, idArray)) {
 
-			Position pos;
-			while (rs.next()) {
-				pos = new Position(rs.getDouble(1), rs.getDouble(2));
-				positions.add(pos);
+				Position pos;
+				while (rs.next()) {
+					pos = new Position(rs.getDouble(1), rs.getDouble(2));
+					positions.add(pos);
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
 			}
-		} catch (NoAccessException | SQLException e) {
-			e.printStackTrace();
 		}
 		if (positions.isEmpty()) {
 			throw new DataNotFoundException("No Positions found for the given FlightIDs!");
@@ -1242,11 +2131,19 @@ public final class DBOut extends DBConnector implements DataOutput {
 
 	/**
 	 * returns all {@link Flight} IDs by an {@link Airline} ID
+	 * the result is cached until the flights or planes change
 	 *
 	 * @param aID is the {@link Airline} ID to search for
 	 * @return int array of the {@link Flight} IDs with that {@link Airline} ID
 	 */
 	public int[] getFlightIDsByAirlineID(int aID) throws DataNotFoundException {
+		return resultCache.get("getFlightIDsByAirlineID." + aID, FLIGHTS_PLANES, () -> queryFlightIDsByAirlineID(aID)).clone();
+	}
+
+	/**
+	 * uncached query, see {@link DBOut#getFlightIDsByAirlineID(int)}
+	 */
+	private int[] queryFlightIDsByAirlineID(int aID) throws DataNotFoundException {
 		try (PreparedStatement stmt = createPreparedStatement(SQLQueries.GET_FLIGHT_IDS_BY_AIRL_ID, true)) {
 
 			stmt.setInt(1, aID);
@@ -1266,11 +2163,19 @@ public final class DBOut extends DBConnector implements DataOutput {
 
 	/**
 	 * returns all {@link Flight} IDs by an {@link Airline} tag
+	 * the result is cached until the flights or planes change
 	 *
 	 * @param aTag is the {@link Airline} tag to search for
 	 * @return int array of the {@link Flight} IDs with that {@link Airline} tag
 	 */
 	public int[] getFlightIDsByAirlineTag(@NotNull String aTag) throws DataNotFoundException {
+		return resultCache.get("getFlightIDsByAirlineTag." + aTag, FLIGHTS_PLANES, () -> queryFlightIDsByAirlineTag(aTag)).clone();
+	}
+
+	/**
+	 * uncached query, see {@link DBOut#getFlightIDsByAirlineTag(String)}
+	 */
+	private int[] queryFlightIDsByAirlineTag(@NotNull String aTag) throws DataNotFoundException {
 		try (PreparedStatement stmt = createPreparedStatement(SQLQueries.GET_FLIGHT_IDS_BY_AIRL_TAG, true)) {
 
 			stmt.setString(1, aTag);
@@ -1290,11 +2195,19 @@ public final class DBOut extends DBConnector implements DataOutput {
 
 	/**
 	 * returns all {@link Flight} IDs by an {@link Airline} name
+	 * the result is cached until the flights or planes change
 	 *
 	 * @param aName is the {@link Airline} name to search for
 	 * @return int array of the {@link Flight} IDs with that {@link Airline} name
 	 */
 	public int[] getFlightIDsByAirlineName(@NotNull String aName) throws DataNotFoundException {
+		return resultCache.get("getFlightIDsByAirlineName." + aName, FLIGHTS_PLANES, () -> queryFlightIDsByAirlineName(aName)).clone();
+	}
+
+	/**
+	 * uncached query, see {@link DBOut#getFlightIDsByAirlineName(String)}
+	 */
+	private int[] queryFlightIDsByAirlineName(@NotNull String aName) throws DataNotFoundException {
 		try (PreparedStatement stmt = createPreparedStatement(SQLQueries.GET_FLIGHT_IDS_BY_AIRL_NAME, true)) {
 
 			stmt.setString(1, aName);
@@ -1314,11 +2227,19 @@ public final class DBOut extends DBConnector implements DataOutput {
 
 	/**
 	 * returns all {@link Flight} IDs by an {@link Airline} country
+	 * the result is cached until the flights or planes change
 	 *
 	 * @param aCountry is the {@link Airline} country to search for
 	 * @return int array of the {@link Flight} IDs with that {@link Airline} country
 	 */
 	public int[] getFlightIDsByAirlineCountry(@NotNull String aCountry) throws DataNotFoundException {
+		return resultCache.get("getFlightIDsByAirlineCountry." + aCountry, FLIGHTS_PLANES, () -> queryFlightIDsByAirlineCountry(aCountry)).clone();
+	}
+
+	/**
+	 * uncached query, see {@link DBOut#getFlightIDsByAirlineCountry(String)}
+	 */
+	private int[] queryFlightIDsByAirlineCountry(@NotNull String aCountry) throws DataNotFoundException {
 		try (PreparedStatement stmt = createPreparedStatement(SQLQueries.GET_FLIGHT_IDS_BY_AIRL_COUNTRY, true)) {
 
 			stmt.setString(1, aCountry);
@@ -1342,20 +2263,15 @@ public final class DBOut extends DBConnector implements DataOutput {
 			throw new IllegalAccessError();
 		}*/
 		Queue<DataPoint> dps = new ArrayDeque<>();
-		Position pos; DataPoint dp;
-		int i = 0;
-		try (PreparedStatement stmt = createPreparedStatement("SELECT * FROM tracking", true)) {
-			ResultSet rs = stmt.executeQuery();
-			while (rs.next() && i++ < dataLimit) {
-				pos = new Position(rs.getDouble("latitude"), rs.getDouble("longitude"));
-				dp = new DataPoint(rs.getInt("ID"), rs.getInt("flightid"), pos, rs.getInt("timestamp"),
-						rs.getInt("squawk"), rs.getInt("groundspeed"), rs.getInt("heading"), rs.getInt("altitude"));
-				dps.add(dp);
-			}
-
+		try {
+			visitTracking("", allTrackingQuery(), dataLimit, DEFAULT_FETCH_SIZE, (id, flightID, lat, lon, timestamp, squawk, speed, heading, altitude) ->
+					dps.add(new DataPoint(id, flightID, new Position(lat, lon), timestamp, squawk, speed, heading, altitude)));
 		} catch (SQLException e) {
 			throw new DataNotFoundException(e);
 		}
+		if (dps.isEmpty()) {
+			throw new DataNotFoundException("No tracking data found!");
+		}
 		return dps;
 	}
 }
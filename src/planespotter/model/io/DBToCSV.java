@@ -4,16 +4,34 @@ import org.jetbrains.annotations.NotNull;
 import planespotter.constants.Paths;
 import planespotter.throwables.DataNotFoundException;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.IOException;
+import java.io.*;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class DBToCSV {
 
     private static boolean debug = false;
     private static final String DBG = "[DBToCSV-DEBUG]: ";
 
+    // flight, plane, airport and airline columns of the combined CSV, for the points of packed flights
+    private static final String COMBINED_FLIGHT_COLUMNS =
+            "f.plane AS PID, f.src, f.dest, f.flightnr AS FNR, f.callsign, f.start AS startTime, f.endTime," +
+            "p.tailnr AS plane_TNR, p. icaonr AS plane_icao, p.registration AS plane_reg, p.type AS plane_type, p.airline AS ALID," +
+            "ap.ID AS APID, ap.iatatag AS ap_iata, ap.name AS ap_name, ap.country AS ap_country, ap.lat AS ap_lat, ap.lon AS ap_lon," +
+            "al.icaotag AS al_icao, al.name AS al_name, al.country AS al_country ";
+
+    // joins the flights to their plane, airports and airline
+    private static final String COMBINED_JOIN =
+                        "AND f.plane = p.ID " +
+                        "AND ((f.src IS ap.iatatag) OR (f.dest IS ap.iatatag)) " +
+                        "AND p.airline = al.ID";
+
 
     /*public static void main(String[] args) throws SQLException, FileNotFoundException {
         String arg;
@@ -64,16 +82,13 @@ public class DBToCSV {
                 "SELECT " +
                     "t.ID AS TID, t.flightid AS FID, t.latitude AS lat, t.longitude AS lon, t.altitude AS alt, " +
                     "t.groundspeed AS speed, t.heading AS track, t.squawk, t.timestamp," +
-                    "f.plane AS PID, f.src, f.dest, f.flightnr AS FNR, f.callsign, f.start AS startTime, f.endTime," +
-                    "p.tailnr AS plane_TNR, p. icaonr AS plane_icao, p.registration AS plane_reg, p.type AS plane_type, p.airline AS ALID," +
-                    "ap.ID AS APID, ap.iatatag AS ap_iata, ap.name AS ap_name, ap.country AS ap_country, ap.lat AS ap_lat, ap.lon AS ap_lon," +
-                    "al.icaotag AS al_icao, al.name AS al_name, al.country AS al_country " +
-                "FROM tracking t, flights f, planes p, airports ap, airlines al " +
+                    COMBINED_FLIGHT_COLUMNS +
+                "FROM " + DBConnector.getTrackingPartitions().source() + " t, flights f, planes p, airports ap, airlines al " +
                 "WHERE " +
                             "t.flightid = f.ID " +
-                        "AND f.plane = p.ID " +
-                        "AND ((f.src IS ap.iatatag) OR (f.dest IS ap.iatatag)) " +
-                        "AND p.airline = al.ID";
+                        // packed flights are appended from their track blocks
+                        "AND t.flightid NOT IN (SELECT flightid FROM " + TrackBlocks.table() + ") " +
+                        COMBINED_JOIN;
 
         /*String sql2 = "SELECT " +
                 "t.ID AS TID, t.flightid AS FID, t.latitude AS lat, t.longitude AS lon, t.altitude AS alt, " +
@@ -106,6 +121,7 @@ public class DBToCSV {
         if (inDebugMode())
             System.out.println(DBG + "starting to write");
         writer.writeToCSV(file, header, types);
+        packedToCombinedCSV(file);
         if (inDebugMode())
             System.out.println(DBG + "finished write");
 
@@ -130,13 +146,82 @@ public class DBToCSV {
         csv.writeToCSV(file, header, types);
     }
 
-    private static void trackingToCSV(@NotNull String path) throws SQLException, DataNotFoundException, IOException {
-        File file = new File(path + "tracking.csv");
-        BufferedCSVWriter csv = new BufferedCSVWriter("SELECT * FROM tracking");
+    /**
+     * appends the points of all packed flights to the combined CSV, joined like the tracking rows,
+     * the flight columns of the packed flights are read once, before the track blocks are decoded
+     *
+     * @param file is the combined CSV file, which already contains the header and the tracking rows
+     */
+    private static void packedToCombinedCSV(@NotNull File file) throws SQLException, IOException {
+        Map<Integer, List<String>> flightColumns = new HashMap<>();
+        String sql = "SELECT f.ID, " + COMBINED_FLIGHT_COLUMNS +
+                     "FROM flights f, planes p, airports ap, airlines al " +
+                     "WHERE f.ID IN (SELECT flightid FROM " + TrackBlocks.table() + ") " +
+                     COMBINED_JOIN;
+        synchronized (DBConnector.DB_SYNC) {
+            try (Connection conn = DBConnector.getConnection(true);
+                 PreparedStatement stmt = conn.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                int columns = rs.getMetaData().getColumnCount();
+                StringBuilder row;
+                String value;
+                while (rs.next()) {
+                    row = new StringBuilder();
+                    for (int col = 2; col <= columns; col++) {
+                        value = rs.getString(col);
+                        row.append(',').append(value == null ? "NA" : value);
+                    }
+                    flightColumns.computeIfAbsent(rs.getInt(1), id -> new ArrayList<>()).add(row.toString());
+                }
+            }
+        }
+        if (flightColumns.isEmpty()) {
+            return;
+        }
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, true))) {
+            DBOut.getDBOut().visitPackedTracking((id, flightID, lat, lon, timestamp, squawk, speed, heading, altitude) -> {
+                List<String> rows = flightColumns.get(flightID);
+                if (rows == null) {
+                    return;
+                }
+                String point = id + "," + flightID + "," + lat + "," + lon + "," + altitude + "," +
+                               speed + "," + heading + "," + squawk + "," + timestamp;
+                for (String row : rows) {
+                    writeLine(writer, point + row);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
 
+    private static void trackingToCSV(@NotNull String path) throws IOException {
+        File file = new File(path + "tracking.csv");
         String[] header = new String[] {"ID", "flightid", "latitude", "longitude", "altitude", "groundspeed", "heading", "squawk", "timestamp"};
-        String[] types = new String[] {"int", "int", "double", "double", "int", "int", "int", "int", "long"};
-        csv.writeToCSV(file, header, types);
+        // tracking rows and the track blocks of packed flights, streamed without collecting them
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            writeLine(writer, String.join(",", header));
+            DBOut.getDBOut().visitAllTracking(Long.MAX_VALUE, DBOut.DEFAULT_FETCH_SIZE,
+                    (id, flightID, lat, lon, timestamp, squawk, speed, heading, altitude) ->
+                            writeLine(writer, id + "," + flightID + "," + lat + "," + lon + "," + altitude + "," +
+                                              speed + "," + heading + "," + squawk + "," + timestamp));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * writes one CSV line, for the visitor callbacks, which can't throw an {@link IOException}
+     *
+     * @throws UncheckedIOException if the line could not be written
+     */
+    private static void writeLine(@NotNull BufferedWriter writer, @NotNull String line) {
+        try {
+            writer.write(line);
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     private static void flightsToCSV(@NotNull String path) throws SQLException, DataNotFoundException, IOException {
@@ -0,0 +1,457 @@
+package planespotter.model.io;
+
+import org.jetbrains.annotations.NotNull;
+import planespotter.dataclasses.Frame;
+import planespotter.util.LatencyHistogram;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @name DBWriter
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class DBWriter is the database writer service, the only thread which writes
+ * to the database in normal operation. All producers (the {@link Inserter}, insertRemaining
+ * on shutdown, the {@link KeeperOfTheArchives}) submit their work into one bounded queue,
+ * so a slow commit only blocks the producers, if the queue is full.
+ * The writer thread takes all queued work (up to {@code maxGroupFrames} frames) and writes it
+ * in one transaction with one commit (group commit), the frames of all tasks are written together,
+ * so the plane/flight lookups are done only once per group.
+ * Every group holds the DB_SYNC lock for its transaction, so readers wait for max. one group,
+ * submits with more than {@code maxGroupFrames} frames are split into slices of that size.
+ * The durability is set per task: a group is committed with 'PRAGMA synchronous = NORMAL',
+ * if one of its tasks needs it, else with 'synchronous = OFF'.
+ * If a group commit fails, every task is retried in its own transaction, so one bad task
+ * doesn't discard the other ones. Commit and queue latencies are recorded in histograms.
+ * The writer thread is started by the first submit and exits after {@link DBWriter#shutdown(int)},
+ * when the queue is empty; starting and exiting are synchronized with the submits,
+ * so no task is queued after the thread decided to exit.
+ * @see DBIn
+ * @see Inserter
+ * @see LatencyHistogram
+ */
+public final class DBWriter implements Runnable {
+
+    /**
+     * enum Durability represents the SQLite 'synchronous' level of a write task
+     */
+    public enum Durability {
+        // no sync, fastest, the last commits may be lost on a power failure
+        OFF,
+        // sync at critical moments, safe in WAL mode
+        NORMAL
+    }
+
+    /**
+     * functional interface Work is a write task, which is executed in an open transaction
+     */
+    @FunctionalInterface
+    interface Work {
+
+        /**
+         * writes with the open connection, without commit
+         *
+         * @param conn is the open {@link Connection} with disabled auto-commit
+         * @param onCommit gets the tasks which must run after the commit, like cache updates
+         * @return a result value, e.g. the count of written rows
+         * @throws SQLException if the write fails, the group is rolled back then
+         */
+        int write(@NotNull Connection conn, @NotNull Queue<Runnable> onCommit) throws SQLException;
+    }
+
+    // max. queued tasks, producers wait if the queue is full
+    private static final int QUEUE_CAPACITY = 64;
+
+    // max. cached statements per group connection, one insert per tracking partition and table
+    private static final int GROUP_STATEMENTS = 16;
+
+    // (ONE and ONLY) main instance
+    private static final DBWriter INSTANCE;
+
+    // initializing instance
+    static {
+        INSTANCE = new DBWriter();
+    }
+
+    // bounded task queue
+    private final BlockingQueue<Task> queue;
+
+    // latency histograms: commit duration and time from submit to commit
+    private final LatencyHistogram commitLatency, queueLatency;
+
+    // durability for frame writes
+    private volatile Durability framesDurability;
+
+    // max. frames per group commit
+    private volatile int maxGroupFrames;
+
+    // writer thread, null if not started or exited, guarded by this
+    private Thread thread;
+
+    // producers between start check and queue put, the writer doesn't exit while > 0, guarded by this
+    private int producers;
+
+    // 'terminated' flag
+    private volatile boolean terminated;
+
+    // committed group count
+    private long groups;
+
+    /**
+     * private constructor, for main instance
+     */
+    private DBWriter() {
+        this.queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+        this.commitLatency = new LatencyHistogram("commit");
+        this.queueLatency = new LatencyHistogram("submit-to-commit");
+        this.framesDurability = Durability.NORMAL;
+        this.maxGroupFrames = 2000;
+        this.terminated = false;
+        this.producers = 0;
+        this.groups = 0L;
+    }
+
+    /**
+     * getter for DBWriter main instance
+     *
+     * @return main instance of DBWriter class
+     */
+    @NotNull
+    public static DBWriter getDBWriter() {
+        return INSTANCE;
+    }
+
+    /**
+     * configures the writer
+     *
+     * @param framesDurability is the {@link Durability} of frame writes
+     * @param maxGroupFrames is the max. frame count per group commit
+     */
+    public void configure(@NotNull Durability framesDurability, int maxGroupFrames) {
+        this.framesDurability = framesDurability;
+        this.maxGroupFrames = Math.max(maxGroupFrames, 1);
+    }
+
+    /**
+     * submits frames to the writer, with the configured frames {@link Durability},
+     * waits if the queue is full
+     *
+     * @param frames are the {@link Frame}s to write
+     * @return {@link CompletableFuture} with the written frame count, completed after the commit
+     */
+    @NotNull
+    public CompletableFuture<Integer> submitFrames(@NotNull Queue<? extends Frame> frames) {
+        return submitFrames(frames, framesDurability);
+    }
+
+    /**
+     * submits frames to the writer, waits if the queue is full,
+     * more than {@code maxGroupFrames} frames are written in slices, one transaction per slice,
+     * so the future fails if one slice fails, but the slices before are committed
+     *
+     * @param frames are the {@link Frame}s to write
+     * @param durability is the {@link Durability} of this write
+     * @return {@link CompletableFuture} with the written frame count, completed after the (last) commit
+     */
+    @NotNull
+    public CompletableFuture<Integer> submitFrames(@NotNull Queue<? extends Frame> frames, @NotNull Durability durability) {
+        int max = maxGroupFrames;
+        if (frames.size() <= max) {
+            return enqueue(new Task(frames, null, durability));
+        }
+        List<CompletableFuture<Integer>> slices = new ArrayList<>();
+        Iterator<? extends Frame> iterator = frames.iterator();
+        Queue<Frame> slice;
+        while (iterator.hasNext()) {
+            slice = new ArrayDeque<>(max);
+            while (slice.size() < max && iterator.hasNext()) {
+                slice.add(iterator.next());
+            }
+            slices.add(enqueue(new Task(slice, null, durability)));
+        }
+        return CompletableFuture.allOf(slices.toArray(CompletableFuture[]::new))
+                .thenApply(done -> slices.stream().mapToInt(CompletableFuture::join).sum());
+    }
+
+    /**
+     * submits a write task to the writer, waits if the queue is full
+     *
+     * @param work is the {@link Work} to execute
+     * @param durability is the {@link Durability} of the work
+     * @return {@link CompletableFuture} with the work result, completed after the commit
+     */
+    @NotNull
+    CompletableFuture<Integer> submit(@NotNull Work work, @NotNull Durability durability) {
+        return enqueue(new Task(null, work, durability));
+    }
+
+    /**
+     * stops the writer after all queued tasks are written,
+     * waits max. timeoutSec seconds for the remaining tasks
+     *
+     * @param timeoutSec is the timeout in seconds
+     * @return true if all tasks were written
+     */
+    public boolean shutdown(int timeoutSec) {
+        Thread writer;
+        synchronized (this) {
+            terminated = true;
+            writer = thread;
+        }
+        if (writer == null) {
+            return queue.isEmpty();
+        }
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(timeoutSec));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("[DBWriter] " + groups + " group commits\n" + commitLatency + "\n" + queueLatency);
+        return queue.isEmpty() && !writer.isAlive();
+    }
+
+    /**
+     * @return the commit latency histogram
+     */
+    @NotNull
+    public LatencyHistogram getCommitLatency() {
+        return commitLatency;
+    }
+
+    /**
+     * @return the submit-to-commit latency histogram
+     */
+    @NotNull
+    public LatencyHistogram getQueueLatency() {
+        return queueLatency;
+    }
+
+    /**
+     * @return the queued task count
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * the writer loop, takes groups of tasks and commits them together,
+     * runs until the writer is terminated and the queue is empty
+     */
+    @Override
+    public void run() {
+        List<Task> group = new ArrayList<>();
+        Task next;
+        while (true) {
+            try {
+                next = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                if (terminated) {
+                    continue;
+                }
+                // the queued tasks are written by the next started thread
+                exit(true);
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (next == null) {
+                if (terminated && exit(false)) {
+                    return;
+                }
+                continue;
+            }
+            group.add(next);
+            int frames = next.size();
+            // coalescing the queued tasks into one group, max. maxGroupFrames frames (or one bigger task)
+            while ((next = queue.peek()) != null && frames + next.size() <= maxGroupFrames) {
+                group.add(queue.poll());
+                frames += next.size();
+            }
+            writeGroup(group);
+            group.clear();
+        }
+    }
+
+    /**
+     * enqueues a task and starts the writer thread, if needed,
+     * the writer thread can't exit between the start check and the put
+     */
+    @NotNull
+    private CompletableFuture<Integer> enqueue(@NotNull Task task) {
+        synchronized (this) {
+            if (thread == null) {
+                terminated = false;
+                thread = new Thread(this, "DB-Writer Thread");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.NORM_PRIORITY + 1);
+                thread.start();
+            }
+            producers++;
+        }
+        try {
+            // outside the lock, a full queue must not block the writer thread
+            queue.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.future.completeExceptionally(e);
+        } finally {
+            synchronized (this) {
+                producers--;
+            }
+        }
+        return task.future;
+    }
+
+    /**
+     * lets the writer thread exit, if there is no queued task and no producer is enqueueing one
+     *
+     * @param force is true if the thread exits in any case
+     * @return true if the writer thread must exit now
+     */
+    private synchronized boolean exit(boolean force) {
+        if (!force && (producers > 0 || !queue.isEmpty())) {
+            return false;
+        }
+        thread = null;
+        return true;
+    }
+
+    /**
+     * writes a group of tasks in one transaction, retries every task
+     * in its own transaction if the group fails
+     */
+    private void writeGroup(@NotNull List<Task> group) {
+        DBIn dbIn = DBIn.getDBIn();
+        // partitions are created outside the transaction
+        for (Task task : group) {
+            if (task.frames != null) {
+                for (Frame frame : task.frames) {
+                    dbIn.prepareTracking(frame.getTimestamp());
+                }
+            }
+        }
+        try {
+            commit(group);
+        } catch (SQLException e) {
+            if (group.size() == 1) {
+                group.get(0).future.completeExceptionally(e);
+                return;
+            }
+            for (Task task : group) {
+                try {
+                    commit(List.of(task));
+                } catch (SQLException single) {
+                    task.future.completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    /**
+     * executes tasks in one transaction and commits it,
+     * completes the task futures after the commit
+     *
+     * @throws SQLException if the transaction was rolled back
+     */
+    private void commit(@NotNull List<Task> tasks) throws SQLException {
+        DBIn dbIn = DBIn.getDBIn();
+        Queue<Runnable> onCommit = new ArrayDeque<>();
+        int[] results = new int[tasks.size()];
+        Durability durability = Durability.OFF;
+        for (Task task : tasks) {
+            if (task.durability == Durability.NORMAL) {
+                durability = Durability.NORMAL;
+            }
+        }
+        long commitNanos;
+        synchronized (DBConnector.DB_SYNC) {
+            // the statements are prepared once per group and reused for every frame
+            try (Connection conn = DBConnector.getConnection(false);
+                 StatementCache statements = new StatementCache(conn, GROUP_STATEMENTS)) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("PRAGMA synchronous = " + durability.name());
+                }
+                conn.setAutoCommit(false);
+                try {
+                    // all frames of the group are written together
+                    Queue<Frame> frames = new ArrayDeque<>();
+                    for (Task task : tasks) {
+                        if (task.frames != null) {
+                            frames.addAll(task.frames);
+                        }
+                    }
+                    if (!frames.isEmpty()) {
+                        dbIn.writeFrames(statements, frames, onCommit);
+                    }
+                    for (int i = 0; i < tasks.size(); i++) {
+                        Task task = tasks.get(i);
+                        results[i] = (task.work != null) ? task.work.write(conn, onCommit) : task.size();
+                    }
+                    long start = System.nanoTime();
+                    conn.commit();
+                    commitNanos = System.nanoTime() - start;
+                } catch (SQLException | RuntimeException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            }
+        }
+        commitLatency.record(commitNanos);
+        groups++;
+        onCommit.forEach(Runnable::run);
+        long now = System.nanoTime();
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            queueLatency.record(now - task.submitNanos);
+            task.future.complete(results[i]);
+        }
+    }
+
+    /**
+     * a queued write task, frames or work
+     */
+    private static final class Task {
+
+        // frames to write, may be null
+        private final Queue<? extends Frame> frames;
+
+        // work to execute, may be null
+        private final Work work;
+
+        // durability of this task
+        private final Durability durability;
+
+        // result future
+        private final CompletableFuture<Integer> future;
+
+        // submit time
+        private final long submitNanos;
+
+        private Task(Queue<? extends Frame> frames, Work work, @NotNull Durability durability) {
+            this.frames = frames;
+            this.work = work;
+            this.durability = durability;
+            this.future = new CompletableFuture<>();
+            this.submitNanos = System.nanoTime();
+        }
+
+        /**
+         * @return the weight of this task, the frame count or 1
+         */
+        private int size() {
+            return (frames != null) ? frames.size() : 1;
+        }
+    }
+}
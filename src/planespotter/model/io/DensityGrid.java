@@ -0,0 +1,291 @@
+package planespotter.model.io;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import planespotter.util.Bitmap;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static planespotter.util.Time.elapsedMillis;
+import static planespotter.util.Time.nowMillis;
+
+/**
+ * @name DensityGrid
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class DensityGrid is the persistent global position density at several base resolutions
+ * ({@link DensityGrid#RESOLUTIONS}), so heatmaps and area planning don't need a full tracking scan.
+ * It is loaded once by {@link DBOut} from its checkpoint file and the rows inserted after the checkpoint,
+ * or built by one scan if there is no checkpoint. After that, {@link DBIn} counts every inserted tracking row
+ * after the commit, and the grid is checkpointed to disk every {@link DensityGrid#CHECKPOINT_ROWS} rows
+ * (at most once per minute) and on shutdown.
+ * The grid counts every observed position, deleted or compacted tracking rows are not subtracted.
+ * Other grid sizes, which are a multiple of a base resolution, are aggregated from that level.
+ * @see DBOut#getDensityGrid()
+ * @see DBIn
+ */
+public final class DensityGrid {
+
+    // base resolutions in degrees, coarsest first
+    public static final float[] RESOLUTIONS = { 1.0f, 0.5f, 0.25f };
+
+    // inserted rows between two checkpoints
+    public static final int CHECKPOINT_ROWS = 100_000;
+
+    // min. time between two checkpoints in milliseconds
+    private static final long CHECKPOINT_MILLIS = 60_000L;
+
+    // checkpoint file header and version
+    private static final int MAGIC = 0x50534447, VERSION = 1;
+
+    // checkpoint file
+    @NotNull private final File file;
+
+    // one grid per base resolution
+    @NotNull private final Bitmap.Accumulator[] levels;
+
+    // highest tracking ID in the grid
+    private long lastTrackingID;
+
+    // highest tracking ID at load time, rows up to this ID were counted by the load
+    private long loadedUpTo;
+
+    // rows counted since the last checkpoint and time of the last checkpoint
+    private int sinceCheckpoint;
+    private long lastCheckpoint;
+
+    // true if the grid was loaded
+    private volatile boolean loaded;
+
+    /**
+     * constructs a new, empty {@link DensityGrid}
+     *
+     * @param file is the checkpoint file
+     */
+    DensityGrid(@NotNull File file) {
+        this.file = file;
+        this.levels = new Bitmap.Accumulator[RESOLUTIONS.length];
+        for (int i = 0; i < RESOLUTIONS.length; i++) {
+            this.levels[i] = Bitmap.accumulator(RESOLUTIONS[i]);
+        }
+        this.lastTrackingID = 0L;
+        this.loadedUpTo = 0L;
+        this.sinceCheckpoint = 0;
+        this.lastCheckpoint = nowMillis();
+        this.loaded = false;
+    }
+
+    /**
+     * counts one inserted tracking row, called by {@link DBIn} after the commit,
+     * rows which were already counted by the load are ignored
+     *
+     * @param trackingID is the tracking ID
+     * @param lat is the latitude
+     * @param lon is the longitude
+     */
+    void trackingInserted(long trackingID, double lat, double lon) {
+        if (!loaded) {
+            // the load reads the row from the database
+            return;
+        }
+        boolean checkpoint;
+        synchronized (this) {
+            if (trackingID <= loadedUpTo) {
+                return;
+            }
+            add(trackingID, lat, lon);
+            checkpoint = ++sinceCheckpoint >= CHECKPOINT_ROWS && elapsedMillis(lastCheckpoint) >= CHECKPOINT_MILLIS;
+        }
+        if (checkpoint) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * loads the grid from the checkpoint file and counts the rows after the checkpoint,
+     * or counts all rows if there is no valid checkpoint, must hold DB_SYNC,
+     * so no commit can happen during the load
+     *
+     * @param dbOut is the {@link DBOut} instance to read the rows
+     */
+    synchronized void load(@NotNull DBOut dbOut) {
+        long startTime = nowMillis();
+        boolean restored = restore();
+        if (restored) {
+            dbOut.visitTrackingAfter(lastTrackingID, DBOut.DEFAULT_FETCH_SIZE,
+                    (id, flightID, lat, lon, timestamp, squawk, speed, heading, altitude) -> add(id, lat, lon));
+        } else {
+            lastTrackingID = dbOut.getLastTrackingID();
+            dbOut.visitAllTrackingPositions(DBOut.DEFAULT_FETCH_SIZE, (lat, lon) -> {
+                for (Bitmap.Accumulator level : levels) {
+                    level.add(lat, lon);
+                }
+            });
+        }
+        loadedUpTo = lastTrackingID;
+        loaded = true;
+        System.out.println("[DensityGrid] " + (restored ? "restored" : "built") + " density grid with " +
+                           levels[0].count() + " positions in " + elapsedMillis(startTime) + " ms");
+        if (!restored) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * @return true if the grid was loaded
+     */
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * creates the global {@link Bitmap} of a grid size, aggregated from the finest base resolution
+     * which divides the grid size
+     *
+     * @param gridSize is the grid size in degrees
+     * @return the {@link Bitmap} of all counted positions, null if no base resolution divides the grid size
+     */
+    @Nullable
+    public Bitmap bitmap(float gridSize) {
+        Bitmap.Accumulator grid = grid(gridSize);
+        return (grid == null) ? null : grid.toBitmap();
+    }
+
+    /**
+     * creates a copy of the global grid of a grid size, aggregated from the finest base resolution
+     * which divides the grid size
+     *
+     * @param gridSize is the grid size in degrees
+     * @return new {@link Bitmap.Accumulator} with the position counts, null if no base resolution divides the grid size
+     */
+    @Nullable
+    public synchronized Bitmap.Accumulator grid(float gridSize) {
+        for (int i = levels.length - 1; i >= 0; i--) {
+            double factor = (double) gridSize / RESOLUTIONS[i];
+            long k = Math.round(factor);
+            if (k >= 1 && Math.abs(factor - k) < 1e-6) {
+                return aggregate(levels[i], Bitmap.accumulator(gridSize), (int) k);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the count of all counted positions
+     */
+    public synchronized long count() {
+        return levels[0].count();
+    }
+
+    /**
+     * writes the grid into the checkpoint file, the file is replaced atomically
+     */
+    public void checkpoint() {
+        if (!loaded) {
+            return;
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        synchronized (this) {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tmp))))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(lastTrackingID);
+                out.writeInt(levels.length);
+                for (Bitmap.Accumulator level : levels) {
+                    out.writeFloat(level.gridSize());
+                    out.writeInt(level.width());
+                    out.writeInt(level.height());
+                    for (int x = 0; x < level.width(); x++) {
+                        for (int y = 0; y < level.height(); y++) {
+                            out.writeInt(level.get(x, y));
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+            sinceCheckpoint = 0;
+            lastCheckpoint = nowMillis();
+        }
+    }
+
+    /**
+     * counts one row into every level, must hold the lock
+     */
+    private void add(long trackingID, double lat, double lon) {
+        for (Bitmap.Accumulator level : levels) {
+            level.add(lat, lon);
+        }
+        lastTrackingID = Math.max(lastTrackingID, trackingID);
+    }
+
+    /**
+     * reads the checkpoint file, the levels stay empty if the file is missing or doesn't match the base resolutions
+     *
+     * @return true if the grid was restored
+     */
+    private boolean restore() {
+        if (!file.exists()) {
+            return false;
+        }
+        Bitmap.Accumulator[] restored = new Bitmap.Accumulator[levels.length];
+        long trackingID;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return false;
+            }
+            trackingID = in.readLong();
+            if (in.readInt() != levels.length) {
+                return false;
+            }
+            for (int i = 0; i < levels.length; i++) {
+                restored[i] = Bitmap.accumulator(RESOLUTIONS[i]);
+                if (in.readFloat() != RESOLUTIONS[i] || in.readInt() != restored[i].width() || in.readInt() != restored[i].height()) {
+                    return false;
+                }
+                for (int x = 0; x < restored[i].width(); x++) {
+                    for (int y = 0; y < restored[i].height(); y++) {
+                        restored[i].add(x, y, in.readInt());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[DensityGrid] checkpoint is invalid, rebuilding the density grid: " + e.getMessage());
+            return false;
+        }
+        for (int i = 0; i < levels.length; i++) {
+            levels[i].merge(restored[i]);
+        }
+        lastTrackingID = trackingID;
+        return true;
+    }
+
+    /**
+     * sums the fields of a fine grid into a coarser grid, k fine fields per coarse field and axis
+     */
+    @NotNull
+    private static Bitmap.Accumulator aggregate(@NotNull Bitmap.Accumulator fine, @NotNull Bitmap.Accumulator coarse, int k) {
+        int n;
+        for (int x = 0; x < fine.width(); x++) {
+            for (int y = 0; y < fine.height(); y++) {
+                if ((n = fine.get(x, y)) != 0) {
+                    coarse.add(Math.min(x / k, coarse.width() - 1), Math.min(y / k, coarse.height() - 1), n);
+                }
+            }
+        }
+        return coarse;
+    }
+}
@@ -0,0 +1,324 @@
+package planespotter.model.io;
+
+import org.jetbrains.annotations.NotNull;
+import planespotter.util.math.MathUtils;
+
+import java.sql.*;
+import java.util.HashMap;
+import java.util.Map;
+
+import static planespotter.util.Time.elapsedSeconds;
+import static planespotter.util.Time.nowMillis;
+
+/**
+ * @name FlightSummaries
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class FlightSummaries contains the 'flight_summary'-table, which holds one row per flight with the
+ * first and last timestamp, the bounding box, the point count and the great-circle distance flown.
+ * The rows are updated by {@link DBIn} in the write transaction of every tracking insert, so distance
+ * rankings are one indexed top-N query over all history, without reading any tracking row.
+ * The distance between two points which are more than {@link FlightSummaries#MAX_GAP_SECONDS} apart
+ * is not counted, because the route between them is unknown, points which are older than the last point
+ * only extend the time range and the bounding box.
+ * Deleted tracking rows (compaction, dropped partitions) are not subtracted, a summary contains every observed point.
+ * If the table doesn't exist yet, it is built once by the first read, with a scan over all tracking rows
+ * and track blocks, which holds the database lock, the tracking insert only updates an existing table.
+ * @see DBIn
+ * @see DBOut#getLongestFlights(int, int)
+ */
+public final class FlightSummaries {
+
+    // summary table name, must not start with 'tracking_' (partition prefix)
+    public static final String TABLE = "flight_summary";
+
+    // max. time between two points whose distance is counted, in seconds
+    public static final long MAX_GAP_SECONDS = 3600L;
+
+    // table columns, in bind order
+    private static final String COLUMNS = "flightid, firstTs, lastTs, minLat, maxLat, minLon, maxLon, points, distance, lastLat, lastLon";
+
+    // summary of one flight
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE flightid = (?)";
+
+    // inserts or replaces the summary of one flight
+    private static final String UPSERT = "INSERT OR REPLACE INTO " + TABLE + "(" + COLUMNS + ") VALUES(?,?,?,?,?,?,?,?,?,?,?)";
+
+    // 'table created' flag
+    private static volatile boolean tableCreated = false;
+
+    /**
+     * private constructor, this is a utility class
+     */
+    private FlightSummaries() {
+        throw new UnsupportedOperationException("FlightSummaries is a utility class!");
+    }
+
+    /**
+     * creates the summary table and builds it from the tracking data, if it doesn't exist yet,
+     * and returns its name, must not be called inside a write transaction.
+     * The build sorts and reads every tracking point and blocks all database access meanwhile,
+     * this can take minutes for a large history, so it is only done by the readers, never by the insert
+     *
+     * @return the summary table name
+     */
+    @NotNull
+    static String table() {
+        if (!tableCreated) {
+            synchronized (DBConnector.DB_SYNC) {
+                if (!tableCreated) {
+                    try {
+                        create();
+                        tableCreated = true;
+                    } catch (SQLException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+        return TABLE;
+    }
+
+    /**
+     * marks the summary table as created if it exists, so every tracking insert updates it,
+     * a missing table is not built here, it is built by the first {@link FlightSummaries#table()}-call
+     */
+    static void attach() {
+        if (!tableCreated) {
+            synchronized (DBConnector.DB_SYNC) {
+                try (Connection conn = DBConnector.getConnection(true)) {
+                    tableCreated = exists(conn);
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the summary table exists, else the summaries are built when it is created
+     */
+    static boolean isCreated() {
+        return tableCreated;
+    }
+
+    /**
+     * updates the summary of a flight with an inserted tracking point, in the open write transaction
+     *
+     * @param statements is the {@link StatementCache} of the write connection
+     * @param flightID is the flight ID of the point
+     * @param lat is the latitude
+     * @param lon is the longitude
+     * @param timestamp is the timestamp in seconds
+     * @throws SQLException if the summary could not be read or written
+     */
+    static void trackingInserted(@NotNull StatementCache statements, int flightID, double lat, double lon, long timestamp)
+            throws SQLException {
+
+        Summary summary;
+        try (ResultSet rs = statements.prepare(SELECT, flightID).executeQuery()) {
+            summary = rs.next() ? read(rs) : new Summary(flightID);
+        }
+        summary.add(lat, lon, timestamp);
+        bind(statements.prepare(UPSERT), summary).executeUpdate();
+    }
+
+    /**
+     * creates the table, if it doesn't exist, with the summaries of all tracking data,
+     * the table is created in the same transaction as its rows, so there is never a half built table
+     */
+    private static void create() throws SQLException {
+        try (Connection conn = DBConnector.getConnection(true)) {
+            if (exists(conn)) {
+                return;
+            }
+        }
+        System.out.println("[FlightSummaries] building the flight summaries, the database is locked until the scan is done...");
+        long startTime = nowMillis();
+        Map<Integer, Summary> summaries = new HashMap<>();
+        // every flight in time order, so the distance of all consecutive points is counted
+        long points = DBOut.getDBOut().visitAllTrackingByFlight(DBOut.DEFAULT_FETCH_SIZE,
+                (id, flightID, lat, lon, timestamp, squawk, speed, heading, altitude) ->
+                        summaries.computeIfAbsent(flightID, Summary::new).add(lat, lon, timestamp));
+        if (points < 0) {
+            throw new SQLException("Couldn't read the tracking data for the flight summaries!");
+        }
+        try (Connection conn = DBConnector.getConnection(false)) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement();
+                 PreparedStatement insert = conn.prepareStatement(UPSERT)) {
+                stmt.executeUpdate("CREATE TABLE IF NOT EXISTS " + TABLE + " (" +
+                                   "flightid INTEGER PRIMARY KEY, firstTs INTEGER, lastTs INTEGER, " +
+                                   "minLat REAL, maxLat REAL, minLon REAL, maxLon REAL, " +
+                                   "points INTEGER, distance REAL, lastLat REAL, lastLon REAL)");
+                stmt.executeUpdate("CREATE INDEX IF NOT EXISTS idx_" + TABLE + "_distance ON " + TABLE + "(distance)");
+                for (Summary summary : summaries.values()) {
+                    bind(insert, summary).addBatch();
+                }
+                insert.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        System.out.println("[FlightSummaries] built " + summaries.size() + " flight summaries from " + points +
+                           " points in " + elapsedSeconds(startTime) + " seconds!");
+    }
+
+    /**
+     * @return true if the summary table exists
+     */
+    private static boolean exists(@NotNull Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = (?)")) {
+            pstmt.setString(1, TABLE);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * reads a summary row, which was selected with {@link FlightSummaries#COLUMNS}
+     */
+    @NotNull
+    private static Summary read(@NotNull ResultSet rs) throws SQLException {
+        Summary summary = new Summary(rs.getInt(1));
+        summary.firstTs = rs.getLong(2);
+        summary.lastTs = rs.getLong(3);
+        summary.minLat = rs.getDouble(4);
+        summary.maxLat = rs.getDouble(5);
+        summary.minLon = rs.getDouble(6);
+        summary.maxLon = rs.getDouble(7);
+        summary.points = rs.getInt(8);
+        summary.distance = rs.getDouble(9);
+        summary.lastLat = rs.getDouble(10);
+        summary.lastLon = rs.getDouble(11);
+        return summary;
+    }
+
+    /**
+     * binds a summary to the {@link FlightSummaries#UPSERT} statement
+     */
+    @NotNull
+    private static PreparedStatement bind(@NotNull PreparedStatement pstmt, @NotNull Summary summary) throws SQLException {
+        pstmt.setInt(1, summary.flightID);
+        pstmt.setLong(2, summary.firstTs);
+        pstmt.setLong(3, summary.lastTs);
+        pstmt.setDouble(4, summary.minLat);
+        pstmt.setDouble(5, summary.maxLat);
+        pstmt.setDouble(6, summary.minLon);
+        pstmt.setDouble(7, summary.maxLon);
+        pstmt.setInt(8, summary.points);
+        pstmt.setDouble(9, summary.distance);
+        pstmt.setDouble(10, summary.lastLat);
+        pstmt.setDouble(11, summary.lastLon);
+        return pstmt;
+    }
+
+    /**
+     * Class Summary is the mutable summary of one flight, the points can be added in any order,
+     * but only the distance between consecutive points in time order is counted
+     */
+    public static final class Summary {
+
+        // the flight ID
+        private final int flightID;
+
+        // first and last timestamp in seconds
+        private long firstTs, lastTs;
+
+        // bounding box
+        private double minLat, maxLat, minLon, maxLon;
+
+        // point count
+        private int points;
+
+        // great-circle distance flown in km
+        private double distance;
+
+        // position of the newest point
+        private double lastLat, lastLon;
+
+        /**
+         * constructs a new, empty {@link Summary}
+         *
+         * @param flightID is the flight ID
+         */
+        public Summary(int flightID) {
+            this.flightID = flightID;
+            this.points = 0;
+            this.distance = 0.;
+        }
+
+        /**
+         * adds a tracking point, the distance from the newest point is counted,
+         * if the point is newer and not more than {@link FlightSummaries#MAX_GAP_SECONDS} after it
+         *
+         * @param lat is the latitude
+         * @param lon is the longitude
+         * @param timestamp is the timestamp in seconds
+         */
+        public void add(double lat, double lon, long timestamp) {
+            if (points++ == 0) {
+                firstTs = lastTs = timestamp;
+                minLat = maxLat = lastLat = lat;
+                minLon = maxLon = lastLon = lon;
+                return;
+            }
+            minLat = Math.min(minLat, lat);
+            maxLat = Math.max(maxLat, lat);
+            minLon = Math.min(minLon, lon);
+            maxLon = Math.max(maxLon, lon);
+            firstTs = Math.min(firstTs, timestamp);
+            if (timestamp < lastTs) {
+                // older point, the route between the known points is kept
+                return;
+            }
+            if (timestamp - lastTs <= MAX_GAP_SECONDS) {
+                distance += MathUtils.greatCircleKm(lastLat, lastLon, lat, lon);
+            }
+            lastTs = timestamp;
+            lastLat = lat;
+            lastLon = lon;
+        }
+
+        public int flightID() {
+            return flightID;
+        }
+
+        public long firstTimestamp() {
+            return firstTs;
+        }
+
+        public long lastTimestamp() {
+            return lastTs;
+        }
+
+        public int points() {
+            return points;
+        }
+
+        public double distance() {
+            return distance;
+        }
+
+        public double minLat() {
+            return minLat;
+        }
+
+        public double maxLat() {
+            return maxLat;
+        }
+
+        public double minLon() {
+            return minLon;
+        }
+
+        public double maxLon() {
+            return maxLon;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package planespotter.model.io;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @name HighWaterMarks
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class HighWaterMarks holds the write state of the database tables, it is updated by {@link DBIn}
+ * after every commit and used by the {@link ResultCache} to find out, if a cached result is still valid.
+ * Every table has a version, which is incremented on every insert or update.
+ * The tracking table also has a high-water mark, the highest inserted tracking ID, so cached
+ * tracking results can be refreshed by reading only the rows above their mark.
+ * Deletes (e.g. compaction, dropped partitions) and out-of-order tracking IDs increment the generation,
+ * which invalidates all cached results, because rows were removed or appending is not possible anymore.
+ * @see ResultCache
+ * @see DBIn
+ */
+public final class HighWaterMarks {
+
+    /**
+     * enum Table represents the tables which can change while the collector is running
+     */
+    public enum Table {
+        TRACKING,
+        FLIGHTS,
+        PLANES
+    }
+
+    // table versions, indexed by Table ordinal
+    @NotNull private final AtomicLongArray versions;
+
+    // highest inserted tracking ID
+    @NotNull private final AtomicLong trackingID;
+
+    // generation, incremented if rows were deleted
+    @NotNull private final AtomicLong generation;
+
+    /**
+     * constructs new {@link HighWaterMarks}, all versions start at zero
+     */
+    HighWaterMarks() {
+        this.versions = new AtomicLongArray(Table.values().length);
+        this.trackingID = new AtomicLong(0L);
+        this.generation = new AtomicLong(0L);
+    }
+
+    /**
+     * marks an insert or update on a table
+     *
+     * @param table is the changed {@link Table}
+     */
+    void changed(@NotNull Table table) {
+        versions.incrementAndGet(table.ordinal());
+    }
+
+    /**
+     * marks an inserted tracking row, an ID below the high-water mark
+     * invalidates all cached results, because they can't be refreshed by appending
+     *
+     * @param id is the inserted tracking ID
+     */
+    void trackingInserted(long id) {
+        long previous = trackingID.getAndAccumulate(id, Math::max);
+        if (id <= previous) {
+            generation.incrementAndGet();
+        }
+        versions.incrementAndGet(Table.TRACKING.ordinal());
+    }
+
+    /**
+     * invalidates all cached results, must be called after rows were deleted
+     */
+    void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * @param table is the {@link Table}
+     * @return the current version of the table
+     */
+    public long version(@NotNull Table table) {
+        return versions.get(table.ordinal());
+    }
+
+    /**
+     * @return the highest tracking ID, which was inserted since the start
+     */
+    public long trackingID() {
+        return trackingID.get();
+    }
+
+    /**
+     * @return the current generation
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * sums up the versions of some tables, the sum changes on every change of one of the tables,
+     * because the versions only increase
+     *
+     * @param tables are the {@link Table}s
+     * @return the version sum of the tables
+     */
+    public long version(@NotNull Set<Table> tables) {
+        long sum = 0L;
+        for (Table table : tables) {
+            sum += versions.get(table.ordinal());
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,570 @@
+package planespotter.model.io;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import planespotter.dataclasses.DataPoint;
+import planespotter.dataclasses.Position;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Vector;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @name HotStore
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class HotStore is the in-process hot tier for the most recent tracking data.
+ * Every tracking point which is written by the {@link DBIn} is appended to an off-heap ring buffer
+ * (fixed 48-byte records in direct {@link ByteBuffer} segments of {@link HotStore#SEGMENT_RECORDS} records),
+ * which holds the last {@code windowSeconds} of tracking or max. {@code maxRecords} points.
+ * The records are indexed by flight (ascending record sequences per flight)
+ * and by time (one sequence range per minute bucket).
+ * The {@link DBOut} serves queries from the hot store, if they can be answered completely:
+ * time ranges which start at or after {@link HotStore#coveredFrom()}, and flights whose
+ * complete track was written since the store was started. Everything else goes to SQLite.
+ * All methods are guarded by a read-write-lock, no database calls are done while holding it,
+ * so it can be used with or without the DB_SYNC monitor.
+ * The segments count to the JVM direct memory limit (-XX:MaxDirectMemorySize), they are released
+ * by {@link HotStore#close()} on shutdown or by a new configuration.
+ * @see DBIn
+ * @see DBOut
+ */
+public final class HotStore {
+
+    // record layout: ID, flightID, timestamp, lat, lon, altitude, speed, heading, squawk
+    private static final int RECORD_BYTES = 48;
+    private static final int OFF_ID = 0, OFF_FLIGHT = 4, OFF_TS = 8, OFF_LAT = 16, OFF_LON = 24,
+                             OFF_ALT = 32, OFF_SPEED = 36, OFF_HEADING = 40, OFF_SQUAWK = 44;
+
+    // records per off-heap segment, a power of 2
+    public static final int SEGMENT_RECORDS = 1 << 16;
+    private static final int SEGMENT_SHIFT = 16;
+
+    // time index bucket length in seconds
+    private static final long BUCKET_SECONDS = 60L;
+
+    // read-write-lock, the writer is the DBIn, readers are the DBOut queries
+    private final ReentrantReadWriteLock lock;
+
+    // flight index, flight ID -> record sequences of the flight
+    private final Map<Integer, FlightIndex> flights;
+
+    // time index, bucket start -> [min. sequence, max. sequence]
+    private final TreeMap<Long, long[]> buckets;
+
+    // off-heap segments, null if not allocated yet
+    private ByteBuffer[] segments;
+
+    // hot window in seconds, 0 means disabled
+    private long windowSeconds;
+
+    // max. record count, a multiple of SEGMENT_RECORDS
+    private volatile long capacity;
+
+    // sequence of the oldest record (head) and of the next record (tail)
+    private long head, tail;
+
+    // first timestamp for which the store contains all tracking points
+    private long coveredFrom;
+
+    // newest appended timestamp
+    private long newestTimestamp;
+
+    // 'seeded' flag, true if coveredFrom is set
+    private volatile boolean seeded;
+
+    // served and missed query counters, updated by concurrent readers
+    private final LongAdder hits, misses;
+
+    /**
+     * constructs a new, disabled {@link HotStore}
+     */
+    HotStore() {
+        this.lock = new ReentrantReadWriteLock();
+        this.flights = new HashMap<>();
+        this.buckets = new TreeMap<>();
+        this.segments = new ByteBuffer[0];
+        this.windowSeconds = 0L;
+        this.capacity = 0L;
+        this.coveredFrom = Long.MAX_VALUE;
+        this.seeded = false;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    /**
+     * configures the hot window, all hot data is dropped and the off-heap memory is freed,
+     * the memory is allocated lazy, segment by segment
+     *
+     * @param windowSeconds is the hot window in seconds, 0 disables the store
+     * @param maxRecords is the max. count of points in the store
+     */
+    public void configure(long windowSeconds, int maxRecords) {
+        lock.writeLock().lock();
+        try {
+            free();
+            this.windowSeconds = Math.max(windowSeconds, 0L);
+            int segmentCount = (maxRecords + SEGMENT_RECORDS - 1) >> SEGMENT_SHIFT;
+            this.segments = new ByteBuffer[this.windowSeconds == 0L ? 0 : Math.max(segmentCount, 1)];
+            this.capacity = (long) segments.length << SEGMENT_SHIFT;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * releases all off-heap segments and disables the store, called on shutdown
+     */
+    public void close() {
+        configure(0L, 0);
+    }
+
+    /**
+     * @return true if the store is enabled
+     */
+    public boolean isEnabled() {
+        return capacity > 0L;
+    }
+
+    /**
+     * @return the hot window in seconds, 0 if the store is disabled
+     */
+    public long windowSeconds() {
+        lock.readLock().lock();
+        try {
+            return windowSeconds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return true if the store is enabled and seeded, only then queries can be served
+     */
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * seeds the store with the newest timestamp that is already in the database,
+     * all later points are written through the store, so the store is complete after it
+     *
+     * @param newestDBTimestamp is the newest tracking timestamp in the database, in seconds
+     */
+    void seed(long newestDBTimestamp) {
+        lock.writeLock().lock();
+        try {
+            if (!seeded && isEnabled()) {
+                coveredFrom = newestDBTimestamp + 1;
+                seeded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * marks a flight as new, its complete track will be in the store
+     *
+     * @param flightID is the ID of the new flight
+     */
+    void openFlight(int flightID) {
+        if (!isEnabled()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            flights.computeIfAbsent(flightID, id -> new FlightIndex()).complete = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * appends a tracking point to the store, old points are evicted
+     * if they are out of the hot window or if the store is full
+     */
+    void append(int id, int flightID, long timestamp, double lat, double lon,
+                int altitude, int speed, int heading, int squawk) {
+        if (!isEnabled()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            newestTimestamp = Math.max(newestTimestamp, timestamp);
+            long cutoff = newestTimestamp - windowSeconds;
+            while (head < tail && (tail - head >= capacity || timestamp(head) < cutoff)) {
+                evictHead();
+            }
+            long seq = tail++;
+            ByteBuffer segment = segment(seq);
+            int offset = offset(seq);
+            segment.putInt(offset + OFF_ID, id);
+            segment.putInt(offset + OFF_FLIGHT, flightID);
+            segment.putLong(offset + OFF_TS, timestamp);
+            segment.putDouble(offset + OFF_LAT, lat);
+            segment.putDouble(offset + OFF_LON, lon);
+            segment.putInt(offset + OFF_ALT, altitude);
+            segment.putInt(offset + OFF_SPEED, speed);
+            segment.putInt(offset + OFF_HEADING, heading);
+            segment.putInt(offset + OFF_SQUAWK, squawk);
+
+            flights.computeIfAbsent(flightID, fid -> new FlightIndex()).add(seq);
+            long[] bucket = buckets.computeIfAbsent(bucketOf(timestamp), b -> new long[] { seq, seq });
+            bucket[0] = Math.min(bucket[0], seq);
+            bucket[1] = Math.max(bucket[1], seq);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * removes tracking points of a flight, which were deleted in the database
+     *
+     * @param flightID is the flight ID
+     * @param trackingIDs are the removed tracking IDs, null removes the whole flight
+     */
+    void remove(int flightID, int @Nullable [] trackingIDs) {
+        if (!isEnabled()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            FlightIndex index = flights.get(flightID);
+            if (index == null) {
+                return;
+            }
+            int[] sorted = null;
+            if (trackingIDs != null) {
+                sorted = trackingIDs.clone();
+                Arrays.sort(sorted);
+            }
+            long seq;
+            for (int i = index.first; i < index.size; i++) {
+                seq = index.seqs[i];
+                if (sorted == null || Arrays.binarySearch(sorted, getInt(seq, OFF_ID)) >= 0) {
+                    // tombstone, the flight ID is kept for the eviction
+                    segment(seq).putInt(offset(seq) + OFF_FLIGHT, ~flightID);
+                }
+            }
+            if (sorted == null) {
+                // the rest of the flight is only in the database now
+                index.complete = false;
+                index.removed = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * removes all tracking points in a time range, which were deleted in the database,
+     * the store is not complete for this time range anymore
+     *
+     * @param from is the first timestamp in seconds (inclusive)
+     * @param to is the last timestamp in seconds (exclusive)
+     */
+    void remove(long from, long to) {
+        if (!isEnabled()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            coveredFrom = Math.max(coveredFrom, to);
+            long ts;
+            int flightID;
+            for (long seq = head; seq < tail; seq++) {
+                ts = timestamp(seq);
+                flightID = getInt(seq, OFF_FLIGHT);
+                if (flightID >= 0 && ts >= from && ts < to) {
+                    segment(seq).putInt(offset(seq) + OFF_FLIGHT, ~flightID);
+                    FlightIndex index = flights.get(flightID);
+                    if (index != null) {
+                        index.complete = false;
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * returns the complete track of a flight, if it is in the store
+     *
+     * @param flightID is the flight ID
+     * @return the {@link DataPoint}s of the flight in insert order,
+     *         or null if the store doesn't contain the complete track
+     */
+    @Nullable
+    public Vector<DataPoint> track(int flightID) {
+        lock.readLock().lock();
+        try {
+            FlightIndex index = flights.get(flightID);
+            if (!seeded || index == null || !index.complete) {
+                misses.increment();
+                return null;
+            }
+            Vector<DataPoint> dps = new Vector<>(index.size - index.first);
+            for (int i = index.first; i < index.size; i++) {
+                if (getInt(index.seqs[i], OFF_FLIGHT) == flightID) {
+                    dps.add(dataPoint(index.seqs[i]));
+                }
+            }
+            hits.increment();
+            return dps;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * returns the last tracking point of a flight, if the flight has points in the store,
+     * the newest points of a flight are always the last ones evicted
+     *
+     * @param flightID is the flight ID
+     * @return the last {@link DataPoint} of the flight or null if the flight has no points in the store
+     */
+    @Nullable
+    public DataPoint last(int flightID) {
+        lock.readLock().lock();
+        try {
+            FlightIndex index = flights.get(flightID);
+            if (seeded && index != null && !index.removed) {
+                for (int i = index.size - 1; i >= index.first; i--) {
+                    if (getInt(index.seqs[i], OFF_FLIGHT) == flightID) {
+                        hits.increment();
+                        return dataPoint(index.seqs[i]);
+                    }
+                }
+            }
+            misses.increment();
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * returns all tracking points in a time range, if the time range is covered by the store
+     *
+     * @param from is the first timestamp in seconds (inclusive)
+     * @param to is the last timestamp in seconds (inclusive)
+     * @return the {@link DataPoint}s in the time range or null if the store doesn't cover the time range
+     */
+    @Nullable
+    public Vector<DataPoint> between(long from, long to) {
+        lock.readLock().lock();
+        try {
+            if (!seeded || from < coveredFrom) {
+                misses.increment();
+                return null;
+            }
+            Vector<DataPoint> dps = new Vector<>();
+            long minSeq = Long.MAX_VALUE, maxSeq = Long.MIN_VALUE;
+            for (long[] bucket : buckets.subMap(bucketOf(from), true, bucketOf(to), true).values()) {
+                minSeq = Math.min(minSeq, bucket[0]);
+                maxSeq = Math.max(maxSeq, bucket[1]);
+            }
+            long ts;
+            for (long seq = Math.max(minSeq, head); seq <= maxSeq && seq < tail; seq++) {
+                ts = timestamp(seq);
+                if (ts >= from && ts <= to && getInt(seq, OFF_FLIGHT) >= 0) {
+                    dps.add(dataPoint(seq));
+                }
+            }
+            hits.increment();
+            return dps;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the first timestamp for which the store contains all tracking points
+     */
+    public long coveredFrom() {
+        lock.readLock().lock();
+        try {
+            return coveredFrom;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the count of points in the store, including removed points
+     */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return tail - head;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the allocated off-heap memory in bytes
+     */
+    public long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            return Arrays.stream(segments).filter(s -> s != null).count() * SEGMENT_RECORDS * RECORD_BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the count of served queries
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the count of queries which had to go to the database
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * evicts the oldest record, must be called with the write-lock
+     */
+    private void evictHead() {
+        long seq = head++;
+        long ts = timestamp(seq);
+        int flightID = getInt(seq, OFF_FLIGHT);
+        if (flightID < 0) {
+            flightID = ~flightID;
+        }
+        FlightIndex index = flights.get(flightID);
+        if (index != null && index.first < index.size && index.seqs[index.first] == seq) {
+            index.first++;
+            index.complete = false;
+            if (index.first == index.size) {
+                flights.remove(flightID);
+            }
+        }
+        // the store is not complete before an evicted point anymore
+        coveredFrom = Math.max(coveredFrom, ts + 1);
+        Map.Entry<Long, long[]> oldest;
+        while ((oldest = buckets.firstEntry()) != null && oldest.getValue()[1] < head) {
+            buckets.pollFirstEntry();
+        }
+    }
+
+    /**
+     * returns the off-heap segment of a record, allocates the segment if needed,
+     * must be called with a lock
+     */
+    @NotNull
+    private ByteBuffer segment(long seq) {
+        int segment = (int) ((seq % capacity) >> SEGMENT_SHIFT);
+        ByteBuffer buffer = segments[segment];
+        if (buffer == null) {
+            // only the writer reaches new slots, it holds the write-lock
+            buffer = segments[segment] = ByteBuffer.allocateDirect(SEGMENT_RECORDS * RECORD_BYTES)
+                                                   .order(ByteOrder.nativeOrder());
+        }
+        return buffer;
+    }
+
+    /**
+     * @return the byte offset of a record in its segment
+     */
+    private int offset(long seq) {
+        return (int) ((seq % capacity) & (SEGMENT_RECORDS - 1)) * RECORD_BYTES;
+    }
+
+    /**
+     * @return an int field of a record, must be called with a lock
+     */
+    private int getInt(long seq, int field) {
+        return segment(seq).getInt(offset(seq) + field);
+    }
+
+    /**
+     * @return the timestamp of a record, must be called with a lock
+     */
+    private long timestamp(long seq) {
+        return segment(seq).getLong(offset(seq) + OFF_TS);
+    }
+
+    /**
+     * reads a {@link DataPoint} from an off-heap record
+     */
+    @NotNull
+    private DataPoint dataPoint(long seq) {
+        ByteBuffer segment = segment(seq);
+        int offset = offset(seq);
+        Position pos = new Position(segment.getDouble(offset + OFF_LAT), segment.getDouble(offset + OFF_LON));
+        return new DataPoint(segment.getInt(offset + OFF_ID), segment.getInt(offset + OFF_FLIGHT), pos,
+                             segment.getLong(offset + OFF_TS), segment.getInt(offset + OFF_SQUAWK),
+                             segment.getInt(offset + OFF_SPEED), segment.getInt(offset + OFF_HEADING),
+                             segment.getInt(offset + OFF_ALT));
+    }
+
+    /**
+     * releases all segments and drops all indices, must be called with the write-lock,
+     * the direct buffers are freed by the garbage collector when they are unreachable
+     */
+    private void free() {
+        segments = new ByteBuffer[0];
+        capacity = 0L;
+        head = tail = 0L;
+        flights.clear();
+        buckets.clear();
+        coveredFrom = Long.MAX_VALUE;
+        newestTimestamp = 0L;
+        seeded = false;
+    }
+
+    /**
+     * @return the time bucket of a timestamp
+     */
+    private static long bucketOf(long timestamp) {
+        return Math.floorDiv(timestamp, BUCKET_SECONDS);
+    }
+
+    /**
+     * the record sequences of one flight, in ascending order
+     */
+    private static final class FlightIndex {
+
+        // record sequences, valid from 'first' to 'size'
+        private long[] seqs = new long[16];
+        private int first, size;
+
+        // true if all points of the flight are in the store
+        private boolean complete;
+
+        // true if the flight was removed from the database
+        private boolean removed;
+
+        private void add(long seq) {
+            if (size == seqs.length) {
+                if (first > 0) {
+                    // compacting the evicted head first
+                    System.arraycopy(seqs, first, seqs, 0, size - first);
+                    size -= first;
+                    first = 0;
+                }
+                if (size == seqs.length) {
+                    seqs = Arrays.copyOf(seqs, seqs.length << 1);
+                }
+            }
+            seqs[size++] = seq;
+        }
+    }
+}
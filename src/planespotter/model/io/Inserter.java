@@ -14,6 +14,7 @@ import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -81,8 +82,18 @@ public final class Inserter implements Runnable, Parkable {
         // writing frames to DB and/or to HTTP server
         if (frames != null) {
             Queue<? extends Frame> queue = frames.collect(Collectors.toCollection(ArrayDeque::new));
-            if (isDBWriter()) {
-                dbIn.write(queue);
+            if (isDBWriter() && dbIn.isEnabled() && !queue.isEmpty()) {
+                // the DB-Writer commits the frames asynchronous, the upload doesn't wait for the commit
+                int count = queue.size();
+                DBWriter.getDBWriter().submitFrames(new ArrayDeque<>(queue))
+                        .whenComplete((written, error) -> {
+                            if (error != null) {
+                                // the DB-Writer retried the frames already, they are lost
+                                System.err.println("[Inserter] " + count + " frames could not be written!");
+                                Controller.getInstance().handleException(
+                                        (error instanceof CompletionException ce && ce.getCause() != null) ? ce.getCause() : error);
+                            }
+                        });
             }
             if (isWebWriter()) {
                 restUploader.addData((Collection<Frame>) queue);
@@ -91,22 +102,23 @@ public final class Inserter implements Runnable, Parkable {
     }
 
     /**
-     * inserts all remaining data from the insertLater-queue into the DB
+     * inserts all remaining data from the insertLater-queue into the DB,
+     * the frames are committed by the {@link DBWriter} with full durability
      *
-     * @param scheduler is the Scheduler which executes tasks
-     * @return inserted frames count as an int
+     * @param dataProcessor is the {@link DataProcessor} with the remaining frames
+     * @return {@link CompletableFuture} with the inserted frames count, completed after the commit
      */
     @NotNull
-    public synchronized CompletableFuture<Void> insertRemaining(@NotNull final Scheduler scheduler, @NotNull DataProcessor dataProcessor)
+    public synchronized CompletableFuture<Integer> insertRemaining(@NotNull DataProcessor dataProcessor)
             throws NoAccessException {
         DBIn dbIn = DBIn.getDBIn();
         if (!dbIn.isEnabled()) {
             throw new NoAccessException("DB-Writer is disabled!");
         }
-        Stream<? extends Frame> frames = dataProcessor.pollFrames(Integer.MAX_VALUE);
-
-        return scheduler.exec(() -> dbIn.write(frames), "Insert Remaining", false, Scheduler.HIGH_PRIO, false);
+        Queue<? extends Frame> frames = dataProcessor.pollFrames(Integer.MAX_VALUE)
+                .collect(Collectors.toCollection(ArrayDeque::new));
 
+        return DBWriter.getDBWriter().submitFrames(frames, DBWriter.Durability.NORMAL);
     }
 
     /**
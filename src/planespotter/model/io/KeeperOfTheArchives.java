@@ -1,12 +1,10 @@
 package planespotter.model.io;
 
-import planespotter.throwables.DataNotFoundException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import planespotter.unused.KeeperOfTheArchivesSenior;
 import planespotter.util.math.MathUtils;
 
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
-
 import static planespotter.util.Time.elapsedSeconds;
 import static planespotter.util.Time.nowMillis;
 
@@ -23,6 +21,12 @@ import static planespotter.util.Time.nowMillis;
  * This KeeperOfTheArchives fixes the previous Problem, that the KeeperOfTheArchivesSenior
  * runs for a very long time on big amount of data, time doesn't increase that fast here,
  * even with big amount of data.
+ * The last-seen timestamps are read from the {@link OpenFlights} registry of the {@link DBIn} writer,
+ * so the keeper cost depends on the open flights count, not on the tracking-table size.
+ * All expired flights are closed with one batched statement per pass.
+ * Optional follow-up {@link Keeper}s, like the {@link TrackCompactor} and the {@link TrackBlockPacker},
+ * run after every pass, in the given order.
+ * @see OpenFlights
  * @see KeeperOfTheArchivesSenior
  * @see Keeper
  * @see DBConnector
@@ -33,6 +37,8 @@ public class KeeperOfTheArchives implements Keeper {
     // DB-In/Out for database communication
     private final DBOut dbo;
     private final DBIn dbi;
+    // keepers which run after closing flights, in this order
+    @NotNull private final Keeper[] afterClose;
 
     /**
      * constructor of KeeperOfTheArchives, creates a Keeper with custom
@@ -41,9 +47,21 @@ public class KeeperOfTheArchives implements Keeper {
      * @param endThreshold is the end threshold in milliseconds
      */
     public KeeperOfTheArchives(final long endThreshold) {
+        this(endThreshold, new Keeper[0]);
+    }
+
+    /**
+     * constructor of KeeperOfTheArchives, creates a Keeper with custom
+     * endThreshold and follow-up Keepers, which run after every pass
+     *
+     * @param endThreshold is the end threshold in milliseconds
+     * @param afterClose are the {@link Keeper}s which run after closing the flights, null values are skipped
+     */
+    public KeeperOfTheArchives(final long endThreshold, @Nullable Keeper... afterClose) {
         this.thresholdMillis = endThreshold;
         this.dbo = DBOut.getDBOut();
         this.dbi = DBIn.getDBIn();
+        this.afterClose = (afterClose == null) ? new Keeper[0] : afterClose;
     }
 
     /**
@@ -54,28 +72,29 @@ public class KeeperOfTheArchives implements Keeper {
     public void keep() {
         long startMillis = nowMillis();
         System.out.println("KeeperOfTheArchives has started working...");
-        AtomicInteger rowsUpdated = new AtomicInteger();
-        Map<Integer, Long> fIDsAndTimestamps;
-        try {
-            fIDsAndTimestamps = dbo.getLiveFlightIDsWithTimestamp();
-        } catch (DataNotFoundException e) {
-            e.printStackTrace();
+        OpenFlights openFlights = dbi.getOpenFlights();
+        // loading flights that were opened before the program start, only done once
+        openFlights.seed(dbo);
+        if (openFlights.size() == 0) {
+            runAfterClose();
             return;
         }
-        if (fIDsAndTimestamps.isEmpty()) {
-            return;
-        }
-        fIDsAndTimestamps.forEach((id, ts) -> {
-            long tDiff = MathUtils.divide(nowMillis(), 1000L) - ts;
-            if (tDiff > this.thresholdMillis) {
-                dbi.updateFlightEnd(id, ts);
-                // TODO: 29.08.2022 we could use one big query at the end instead of this
-                // TODO: 29.08.2022 updateFlightEnds(int[] ids, long[] timestamps)
-                rowsUpdated.getAndIncrement();
-            }
-        });
+        OpenFlights.Expired expired = openFlights.expired(MathUtils.divide(nowMillis(), 1000L), this.thresholdMillis);
+        int rowsUpdated = expired.isEmpty() ? 0 : dbi.updateFlightEnds(expired.flightIDs(), expired.timestamps());
         long elapsed = elapsedSeconds(startMillis);
         System.out.println("KeeperOfTheArchives finished work on the DB in " + elapsed +
                            " seconds!\n" + rowsUpdated + " rows updated");
+        runAfterClose();
+    }
+
+    /**
+     * runs the follow-up {@link Keeper}s, if there are any
+     */
+    private void runAfterClose() {
+        for (Keeper keeper : afterClose) {
+            if (keeper != null) {
+                keeper.keep();
+            }
+        }
     }
 }
@@ -0,0 +1,142 @@
+package planespotter.model.io;
+
+import org.jetbrains.annotations.NotNull;
+import planespotter.throwables.DataNotFoundException;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @name OpenFlights
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class OpenFlights is an in-memory registry of all non-ended flights,
+ * each flight ID is connected to the last tracking timestamp (in seconds) of the flight.
+ * It is maintained by the {@link DBIn} writer on every tracking-insert and read by the
+ * {@link KeeperOfTheArchives}, so the keeper doesn't need to scan the whole tracking-table
+ * on every pass. The registry is seeded once from the database, because flights that were
+ * opened before the program start are not known by the writer.
+ * @see DBIn
+ * @see KeeperOfTheArchives
+ */
+public final class OpenFlights {
+
+    // flight ID -> last seen timestamp (seconds)
+    private final Map<Integer, Long> lastSeen;
+
+    // 'seeded from DB' flag
+    private volatile boolean seeded;
+
+    /**
+     * constructs a new, empty {@link OpenFlights} registry
+     */
+    OpenFlights() {
+        this.lastSeen = new ConcurrentHashMap<>();
+        this.seeded = false;
+    }
+
+    /**
+     * seeds the registry with the open flights from the database,
+     * this is only done once, later calls do nothing
+     *
+     * @param dbOut is the {@link DBOut} instance to load the open flights with
+     */
+    synchronized void seed(@NotNull DBOut dbOut) {
+        if (seeded) {
+            return;
+        }
+        try {
+            dbOut.getLiveFlightIDsWithTimestamp()
+                    .forEach(this::touch);
+        } catch (DataNotFoundException ignored) {
+            // no open flights in the DB, nothing to seed
+        }
+        seeded = true;
+    }
+
+    /**
+     * registers a new tracking timestamp for a flight,
+     * only newer timestamps replace the old ones
+     *
+     * @param flightID is the flight ID
+     * @param timestamp is the tracking timestamp in seconds
+     */
+    void touch(int flightID, long timestamp) {
+        lastSeen.merge(flightID, timestamp, Math::max);
+    }
+
+    /**
+     * removes flights from the registry, after they were closed,
+     * a flight is only removed if it wasn't touched since the close decision,
+     * else it stays open with its newer timestamp
+     *
+     * @param flightIDs are the closed flight IDs
+     * @param timestamps are the last timestamps which the close decision was based on, paired index-wise
+     */
+    void close(int @NotNull [] flightIDs, long @NotNull [] timestamps) {
+        for (int i = 0; i < flightIDs.length; i++) {
+            lastSeen.remove(flightIDs[i], timestamps[i]);
+        }
+    }
+
+    /**
+     * collects all expired flights, flights that weren't seen for
+     * longer than the threshold, into a {@link Expired} record
+     *
+     * @param nowSeconds is the current time in seconds
+     * @param thresholdSeconds is the max. time in seconds without tracking
+     * @return {@link Expired} record with flight IDs and their last timestamps
+     */
+    @NotNull
+    Expired expired(long nowSeconds, long thresholdSeconds) {
+        int[] ids = new int[lastSeen.size()];
+        long[] timestamps = new long[ids.length];
+        int count = 0;
+        for (Map.Entry<Integer, Long> entry : lastSeen.entrySet()) {
+            if (count == ids.length) {
+                // registry has grown while iterating
+                break;
+            }
+            long ts = entry.getValue();
+            if (nowSeconds - ts > thresholdSeconds) {
+                ids[count] = entry.getKey();
+                timestamps[count++] = ts;
+            }
+        }
+        return new Expired(Arrays.copyOf(ids, count), Arrays.copyOf(timestamps, count));
+    }
+
+    /**
+     * @return the count of currently open flights
+     */
+    public int size() {
+        return lastSeen.size();
+    }
+
+    /**
+     * @return true if the registry was already seeded from the database
+     */
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * record Expired contains the flight IDs of expired flights,
+     * paired index-wise with their last timestamps
+     *
+     * @param flightIDs are the expired flight IDs
+     * @param timestamps are the last timestamps, same order as the flight IDs
+     */
+    record Expired(int @NotNull [] flightIDs, long @NotNull [] timestamps) {
+
+        /**
+         * @return true if there are no expired flights
+         */
+        boolean isEmpty() {
+            return flightIDs.length == 0;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package planespotter.model.io;
+
+import org.jetbrains.annotations.NotNull;
+import planespotter.util.math.MathUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static planespotter.util.Time.elapsedSeconds;
+import static planespotter.util.Time.nowMillis;
+
+/**
+ * @name PartitionKeeper
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class PartitionKeeper is the {@link Keeper} for the time-partitioned tracking storage.
+ * On every pass it drops the partitions which are older than the retention period,
+ * runs ANALYZE on every closed partition (once) and frees unused pages with an
+ * incremental vacuum, if the database has auto_vacuum=INCREMENTAL.
+ * The retention period is counted back from the current period, so missing partitions
+ * (periods without data) don't extend it. Partitions which are still written are never touched.
+ * The legacy tracking table is not dropped, but its rows before the retention cutoff are deleted.
+ * The flights of dropped partitions are kept as history, like their counters and summaries,
+ * readers get no tracking for them. Open flights whose whole tracking was dropped are ended
+ * with their last dropped timestamp first and closed in the {@link OpenFlights} registry,
+ * else they would stay open forever.
+ * @see TrackingPartitions
+ * @see Keeper
+ */
+public class PartitionKeeper implements Keeper {
+
+    // max. pages freed per incremental vacuum pass
+    private static final int VACUUM_PAGES = 2000;
+
+    // count of kept partition periods, 0 means 'keep all'
+    private final int retentionPeriods;
+
+    // tracking partitions
+    private final TrackingPartitions partitions;
+
+    // already analyzed partition tables
+    private final Set<String> analyzed;
+
+    /**
+     * constructs a new {@link PartitionKeeper} with a retention policy
+     *
+     * @param retentionPeriods is the count of kept partition periods (including the current one),
+     *                         older partitions are dropped, 0 keeps all partitions
+     */
+    public PartitionKeeper(int retentionPeriods) {
+        if (retentionPeriods < 0) {
+            throw new IllegalArgumentException("Retention periods must be 0 or higher!");
+        }
+        this.retentionPeriods = retentionPeriods;
+        this.partitions = DBConnector.getTrackingPartitions();
+        this.analyzed = new HashSet<>();
+    }
+
+    /**
+     * drops expired partitions, analyzes closed partitions
+     * and runs an incremental vacuum
+     */
+    @Override
+    public void keep() {
+        if (partitions.getPeriod() == null) {
+            return;
+        }
+        long startMillis = nowMillis();
+        long nowSeconds = MathUtils.divide(startMillis, 1000L);
+        System.out.println("PartitionKeeper has started working...");
+        List<TrackingPartitions.Partition> all = new ArrayList<>(partitions.partitions()),
+                                           expired = new ArrayList<>();
+        int dropped = 0, analyzedNow = 0;
+        long cutoff = cutoff(partitions.getPeriod(), nowSeconds);
+        List<String> expiredSources = new ArrayList<>();
+        for (TrackingPartitions.Partition partition : all) {
+            if (partition.isClosed(nowSeconds) && partition.start() < cutoff) {
+                expired.add(partition);
+                expiredSources.add("SELECT flightid, timestamp FROM " + partition.table());
+            }
+        }
+        // the legacy rows before the cutoff expire like a partition, the table itself is kept
+        TrackingPartitions.Partition legacy = partitions.legacyPartition();
+        boolean legacyExpired = legacy != null && legacy.start() < cutoff;
+        if (legacyExpired) {
+            expiredSources.add("SELECT flightid, timestamp FROM " + TrackingPartitions.LEGACY_TABLE + " WHERE timestamp < " + cutoff);
+        }
+
+        synchronized (DBConnector.DB_SYNC) {
+            try (Connection conn = DBConnector.getConnection(false);
+                 Statement stmt = conn.createStatement()) {
+                if (!expiredSources.isEmpty()) {
+                    endExpiredFlights(stmt, expiredSources, cutoff);
+                }
+                if (legacyExpired) {
+                    int deleted = stmt.executeUpdate("DELETE FROM " + TrackingPartitions.LEGACY_TABLE + " WHERE timestamp < " + cutoff);
+                    partitions.resetLegacy();
+                    DBConnector.getHotStore().remove(legacy.start(), cutoff);
+                    DBConnector.getHighWaterMarks().invalidate();
+                    System.out.println("[PartitionKeeper] deleted " + deleted + " expired rows of the legacy tracking table");
+                }
+                for (TrackingPartitions.Partition partition : all) {
+                    if (!partition.isClosed(nowSeconds)) {
+                        continue;
+                    }
+                    if (expired.contains(partition)) {
+                        stmt.executeUpdate("DROP TABLE IF EXISTS " + partition.table());
+                        SpatialIndex.drop(stmt, partition.table());
+                        partitions.remove(partition);
+                        DBConnector.getHotStore().remove(partition.start(), partition.end());
+                        DBConnector.getHighWaterMarks().invalidate();
+                        analyzed.remove(partition.table());
+                        dropped++;
+                    } else if (analyzed.add(partition.table())) {
+                        stmt.executeUpdate("ANALYZE " + partition.table());
+                        analyzedNow++;
+                    }
+                }
+                if (isIncrementalVacuum(stmt)) {
+                    stmt.execute("PRAGMA incremental_vacuum(" + VACUUM_PAGES + ")");
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        System.out.println("PartitionKeeper finished work on the DB in " + elapsedSeconds(startMillis) + " seconds!\n" +
+                           dropped + " partitions dropped, " + analyzedNow + " partitions analyzed");
+    }
+
+    /**
+     * computes the retention cutoff, the start of the oldest kept period,
+     * counted back from the period which contains the current time
+     *
+     * @param period is the partition {@link TrackingPartitions.Period}
+     * @param nowSeconds is the current time in seconds
+     * @return the first second of the oldest kept period, {@link Long#MIN_VALUE} if all partitions are kept
+     */
+    private long cutoff(@NotNull TrackingPartitions.Period period, long nowSeconds) {
+        if (retentionPeriods == 0) {
+            return Long.MIN_VALUE;
+        }
+        long start = period.startOf(nowSeconds);
+        for (int i = 1; i < retentionPeriods; i++) {
+            start = period.previous(start);
+        }
+        return start;
+    }
+
+    /**
+     * ends the open flights whose tracking is only in the expired rows, with their last timestamp,
+     * and closes them in the {@link OpenFlights} registry,
+     * flights with tracking in the kept periods or in a track block stay open
+     *
+     * @param stmt is the {@link Statement} of the write connection
+     * @param expiredSources are the SELECT-queries of the expired rows, with the columns flightid and timestamp
+     * @param cutoff is the start of the oldest kept period
+     */
+    private void endExpiredFlights(@NotNull Statement stmt, @NotNull List<String> expiredSources, long cutoff)
+            throws SQLException {
+
+        String expiredSource = "(" + String.join(" UNION ALL ", expiredSources) + ")";
+        String query = "SELECT t.flightid, max(t.timestamp) FROM " + expiredSource + " t " +
+                       "JOIN flights f ON f.ID = t.flightid AND f.endTime IS NULL " +
+                       "WHERE NOT EXISTS (SELECT 1 FROM " + partitions.source(cutoff, Long.MAX_VALUE) + " k " +
+                       "WHERE k.flightid = t.flightid AND k.timestamp >= " + cutoff + ") " +
+                       "AND t.flightid NOT IN (SELECT flightid FROM " + TrackBlocks.table() + ") " +
+                       "GROUP BY t.flightid";
+        List<long[]> flights = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery(query)) {
+            while (rs.next()) {
+                flights.add(new long[] { rs.getInt(1), rs.getLong(2) });
+            }
+        }
+        if (flights.isEmpty()) {
+            return;
+        }
+        int[] ids = new int[flights.size()];
+        long[] timestamps = new long[ids.length];
+        try (PreparedStatement update = stmt.getConnection().prepareStatement("UPDATE flights SET endTime = (?) WHERE ID = (?) AND endTime IS NULL")) {
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = (int) flights.get(i)[0];
+                timestamps[i] = flights.get(i)[1];
+                update.setLong(1, timestamps[i]);
+                update.setInt(2, ids[i]);
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+        // the writer must not treat them as open anymore
+        DBIn.getDBIn().getOpenFlights().close(ids, timestamps);
+        DBConnector.getHighWaterMarks().changed(HighWaterMarks.Table.FLIGHTS);
+        System.out.println("[PartitionKeeper] ended " + ids.length + " open flights without kept tracking");
+    }
+
+    /**
+     * @return true if the database has auto_vacuum=INCREMENTAL (2),
+     *         which is required for the incremental vacuum
+     */
+    private boolean isIncrementalVacuum(@NotNull Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA auto_vacuum")) {
+            return rs.next() && rs.getInt(1) == 2;
+        }
+    }
+}
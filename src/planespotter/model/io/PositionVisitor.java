@@ -0,0 +1,24 @@
+package planespotter.model.io;
+
+/**
+ * @name PositionVisitor
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Functional Interface PositionVisitor is a callback for streaming position reads,
+ * every position is passed as two primitive values, without creating any objects.
+ * @see TrackingVisitor
+ * @see DBOut#visitAllTrackingPositions(int, PositionVisitor)
+ */
+@FunctionalInterface
+public interface PositionVisitor {
+
+    /**
+     * visits one position
+     *
+     * @param lat is the latitude
+     * @param lon is the longitude
+     */
+    void visit(double lat, double lon);
+}
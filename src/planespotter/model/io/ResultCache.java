@@ -0,0 +1,265 @@
+package planespotter.model.io;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import planespotter.dataclasses.DataPoint;
+import planespotter.model.io.HighWaterMarks.Table;
+import planespotter.throwables.DataNotFoundException;
+import planespotter.util.WeightedCache;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @name ResultCache
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class ResultCache is the write-aware query result cache of {@link DBOut}, keyed by query and parameters.
+ * Every entry is stamped with the {@link HighWaterMarks} of the tables it was read from, the stamps
+ * are taken before the query, so a write during the query only makes the entry stale, never wrong.
+ * A result is served from the cache as long as its tables didn't change.
+ * Tracking results are refreshed incrementally: only the rows above the tracking high-water mark of the entry
+ * are read and appended, so a repeated search over a live database reads only the new rows.
+ * After deletes (new generation) all entries are reloaded.
+ * The entries are stored in a {@link WeightedCache}, weighed by their row count, so a few big tracking results
+ * can't fill the memory, lookups are lock-free and loading is done outside any lock.
+ * @see HighWaterMarks
+ * @see DBOut
+ */
+public final class ResultCache {
+
+    /**
+     * functional interface Loader loads a result from the database
+     *
+     * @param <T> is the result type
+     */
+    @FunctionalInterface
+    interface Loader<T> {
+
+        /**
+         * @return the loaded result, must not be modified afterwards
+         * @throws DataNotFoundException if there is no result, nothing is cached then
+         */
+        @NotNull
+        T load() throws DataNotFoundException;
+    }
+
+    /**
+     * functional interface Appender loads the new tracking rows of a cached tracking result
+     */
+    @FunctionalInterface
+    interface Appender {
+
+        /**
+         * @param trackingID is the tracking high-water mark of the cached result
+         * @return all tracking rows of the result with an ID above the mark, may be empty
+         */
+        @NotNull
+        Vector<DataPoint> after(long trackingID);
+    }
+
+    /**
+     * a cache entry with its stamps
+     *
+     * @param value is the cached result
+     * @param generation is the {@link HighWaterMarks} generation of the result
+     * @param version is the table version of the result
+     * @param trackingMark is the tracking high-water mark of a tracking result
+     */
+    private record Entry(@NotNull Object value, long generation, long version, long trackingMark) {
+    }
+
+    // write state of the database
+    @NotNull private final HighWaterMarks marks;
+
+    // cached entries, weighed by row count
+    @NotNull private final WeightedCache<String, Entry> entries;
+
+    // hit, refresh and miss counters
+    @NotNull private final LongAdder hits, refreshes, misses;
+
+    /**
+     * constructs a new {@link ResultCache}
+     *
+     * @param marks are the {@link HighWaterMarks} of the database
+     * @param maxWeight is the max. cached row count, 0 disables the cache
+     */
+    ResultCache(@NotNull HighWaterMarks marks, long maxWeight) {
+        this.marks = marks;
+        this.entries = new WeightedCache<>(maxWeight, ResultCache::weigh);
+        this.hits = new LongAdder();
+        this.refreshes = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    /**
+     * returns a cached result or loads it, if one of its tables changed since it was cached
+     *
+     * @param key is the query key, including all parameters
+     * @param tables are the {@link Table}s the result depends on
+     * @param loader is the {@link Loader} of the result
+     * @param <T> is the result type
+     * @return the cached or loaded result, must not be modified by the caller
+     * @throws DataNotFoundException if the {@link Loader} found no result
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    <T> T get(@NotNull String key, @NotNull Set<Table> tables, @NotNull Loader<T> loader)
+            throws DataNotFoundException {
+
+        long generation = marks.generation(), version = marks.version(tables);
+        Entry entry = lookup(key);
+        if (entry != null && entry.generation() == generation && entry.version() == version) {
+            hits.increment();
+            return (T) entry.value();
+        }
+        misses.increment();
+        T value = loader.load();
+        store(key, new Entry(value, generation, version, 0L));
+        return value;
+    }
+
+    /**
+     * returns a cached tracking result, appends the new rows if the tracking changed,
+     * or loads it, if rows were deleted since it was cached
+     *
+     * @param key is the query key, including all parameters
+     * @param loader is the {@link Loader} of the complete result
+     * @param appender is the {@link Appender} of the new rows
+     * @return the cached, refreshed or loaded result, must not be modified by the caller
+     * @throws DataNotFoundException if the {@link Loader} found no result
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    Vector<DataPoint> tracking(@NotNull String key, @NotNull Loader<Vector<DataPoint>> loader, @NotNull Appender appender)
+            throws DataNotFoundException {
+
+        long generation = marks.generation(), version = marks.version(Table.TRACKING), mark = marks.trackingID();
+        Entry entry = lookup(key);
+        if (entry != null && entry.generation() == generation) {
+            Vector<DataPoint> cached = (Vector<DataPoint>) entry.value();
+            if (entry.version() == version) {
+                hits.increment();
+                return cached;
+            }
+            refreshes.increment();
+            Vector<DataPoint> added = appender.after(entry.trackingMark());
+            Vector<DataPoint> value = cached;
+            if (!added.isEmpty()) {
+                // rows above the old mark may already be cached, if they were written during the load
+                Set<Integer> present = new HashSet<>();
+                for (DataPoint dp : cached) {
+                    if (dp.id() > entry.trackingMark()) {
+                        present.add(dp.id());
+                    }
+                }
+                value = new Vector<>(cached.size() + added.size());
+                value.addAll(cached);
+                for (DataPoint dp : added) {
+                    if (!present.contains(dp.id())) {
+                        value.add(dp);
+                    }
+                }
+            }
+            store(key, new Entry(value, generation, version, mark));
+            return value;
+        }
+        misses.increment();
+        Vector<DataPoint> value = loader.load();
+        store(key, new Entry(value, generation, version, mark));
+        return value;
+    }
+
+    /**
+     * sets the max. cached row count, removes the least recently used entries if needed
+     *
+     * @param maxWeight is the max. cached row count, 0 disables the cache
+     */
+    public void configure(long maxWeight) {
+        entries.setMaxWeight(maxWeight);
+    }
+
+    /**
+     * removes all entries
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return the cached entry count
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the cached row count
+     */
+    public long weight() {
+        return entries.weight();
+    }
+
+    /**
+     * @return the count of entries, which were removed because the cache was full
+     */
+    public long evictions() {
+        return entries.evictions();
+    }
+
+    /**
+     * @return the count of results served from the cache
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the count of incrementally refreshed tracking results
+     */
+    public long refreshes() {
+        return refreshes.sum();
+    }
+
+    /**
+     * @return the count of loaded results
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the entry for a key or null
+     */
+    @Nullable
+    private Entry lookup(@NotNull String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * stores an entry, if the cache is enabled and the entry is not heavier than the max. weight
+     */
+    private void store(@NotNull String key, @NotNull Entry entry) {
+        entries.put(key, entry);
+    }
+
+    /**
+     * weighs an entry by its row count, every entry weighs at least 1
+     */
+    private static long weigh(@NotNull Entry entry) {
+        Object value = entry.value();
+        if (value instanceof Collection<?> rows) {
+            return rows.size() + 1L;
+        } else if (value instanceof int[] ids) {
+            return ids.length + 1L;
+        } else if (value instanceof Object[] rows) {
+            return rows.length + 1L;
+        }
+        return 1L;
+    }
+}
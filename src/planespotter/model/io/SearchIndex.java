@@ -0,0 +1,297 @@
+package planespotter.model.io;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * @name SearchIndex
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class SearchIndex is the in-memory prefix index for the string search fields (callsign, ICAO, tail number and plane type).
+ * Every field has a sorted, case-insensitive key map (like SQL LIKE), so a prefix lookup is a range of the map,
+ * every key points to a compressed posting list of the flight IDs with that key.
+ * The index is loaded once from the database by {@link DBOut} and updated by {@link DBIn} after every commit,
+ * flights and planes are never deleted, so it only grows.
+ * Inserts are idempotent, so rows which are loaded and also inserted during the load are indexed only once.
+ * @see DBOut#getSearchIndex()
+ * @see DBIn
+ */
+public final class SearchIndex {
+
+    /**
+     * enum Field represents the indexed search fields
+     */
+    public enum Field {
+        CALLSIGN,
+        ICAO,
+        TAILNR,
+        TYPE
+    }
+
+    // sorted keys of every field with their flight IDs
+    @NotNull private final EnumMap<Field, ConcurrentSkipListMap<String, PostingList>> fields;
+
+    // plane keys (icao, tailnr, type) by plane ID, used to index the flights of a plane
+    @NotNull private final ConcurrentHashMap<Integer, String[]> planes;
+
+    // true if the index was loaded from the database
+    private volatile boolean loaded;
+
+    /**
+     * constructs a new, empty {@link SearchIndex}
+     */
+    SearchIndex() {
+        this.fields = new EnumMap<>(Field.class);
+        for (Field field : Field.values()) {
+            this.fields.put(field, new ConcurrentSkipListMap<>(String.CASE_INSENSITIVE_ORDER));
+        }
+        this.planes = new ConcurrentHashMap<>();
+        this.loaded = false;
+    }
+
+    /**
+     * indexes a plane, its keys are searchable even without flights
+     *
+     * @param planeID is the plane ID
+     * @param icao is the ICAO address, may be null
+     * @param tailNr is the tail number, may be null
+     * @param type is the plane type, may be null
+     */
+    void planeInserted(int planeID, @Nullable String icao, @Nullable String tailNr, @Nullable String type) {
+        planes.put(planeID, new String[] { icao, tailNr, type });
+        posting(Field.ICAO, icao);
+        posting(Field.TAILNR, tailNr);
+        posting(Field.TYPE, type);
+    }
+
+    /**
+     * indexes a flight by its callsign and the keys of its plane
+     *
+     * @param flightID is the flight ID
+     * @param planeID is the plane ID of the flight
+     * @param callsign is the callsign, may be null
+     */
+    void flightInserted(int flightID, int planeID, @Nullable String callsign) {
+        add(Field.CALLSIGN, callsign, flightID);
+        String[] plane = planes.get(planeID);
+        if (plane != null) {
+            add(Field.ICAO, plane[0], flightID);
+            add(Field.TAILNR, plane[1], flightID);
+            add(Field.TYPE, plane[2], flightID);
+        }
+    }
+
+    /**
+     * marks the index as loaded
+     */
+    void setLoaded() {
+        loaded = true;
+    }
+
+    /**
+     * @return true if the index was loaded from the database
+     */
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * finds all keys of a field, which start with a prefix, ignoring the case
+     *
+     * @param field is the {@link Field} to search in
+     * @param prefix is the key prefix
+     * @param limit is the max. key count
+     * @return {@link Deque} of the found keys in sorted order, may be empty
+     */
+    @NotNull
+    public Deque<String> keys(@NotNull Field field, @NotNull String prefix, int limit) {
+        Deque<String> keys = new ArrayDeque<>();
+        for (String key : range(field, prefix).keySet()) {
+            if (keys.size() >= limit) {
+                break;
+            }
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    /**
+     * finds all flight IDs with a key of a field, which starts with a prefix, ignoring the case
+     *
+     * @param field is the {@link Field} to search in
+     * @param prefix is the key prefix
+     * @return sorted flight IDs, may be empty
+     */
+    public int @NotNull [] flightIDs(@NotNull Field field, @NotNull String prefix) {
+        return union(range(field, prefix).values());
+    }
+
+    /**
+     * finds all flight IDs with a key of a field, ignoring the case
+     *
+     * @param field is the {@link Field} to search in
+     * @param key is the complete key
+     * @return sorted flight IDs, may be empty
+     */
+    public int @NotNull [] flightIDsOf(@NotNull Field field, @NotNull String key) {
+        PostingList posting = fields.get(field).get(key);
+        return (posting == null) ? new int[0] : posting.toArray();
+    }
+
+    /**
+     * @param field is the {@link Field}
+     * @return the key count of the field
+     */
+    public int size(@NotNull Field field) {
+        return fields.get(field).size();
+    }
+
+    /**
+     * @return the key range of a prefix, a view of the key map
+     */
+    @NotNull
+    private NavigableMap<String, PostingList> range(@NotNull Field field, @NotNull String prefix) {
+        return fields.get(field).subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    /**
+     * @return the posting list of a key, a new one if the key is not indexed yet, null if the key is null
+     */
+    @Nullable
+    private PostingList posting(@NotNull Field field, @Nullable String key) {
+        return (key == null) ? null : fields.get(field).computeIfAbsent(key, k -> new PostingList());
+    }
+
+    /**
+     * adds a flight ID to the posting list of a key, null keys are ignored
+     */
+    private void add(@NotNull Field field, @Nullable String key, int flightID) {
+        PostingList posting = posting(field, key);
+        if (posting != null) {
+            posting.add(flightID);
+        }
+    }
+
+    /**
+     * merges posting lists into one sorted array, every flight has only one key per field,
+     * so the lists don't overlap
+     */
+    private static int @NotNull [] union(@NotNull Collection<PostingList> postings) {
+        int[][] arrays = new int[postings.size()][];
+        int i = 0, length = 0;
+        for (PostingList posting : postings) {
+            if (i == arrays.length) {
+                // a key was inserted while iterating
+                arrays = Arrays.copyOf(arrays, i * 2 + 1);
+            }
+            arrays[i] = posting.toArray();
+            length += arrays[i++].length;
+        }
+        int[] ids = new int[length];
+        int offset = 0;
+        for (int j = 0; j < i; j++) {
+            System.arraycopy(arrays[j], 0, ids, offset, arrays[j].length);
+            offset += arrays[j].length;
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * a sorted, duplicate-free list of positive IDs, stored as variable-length
+     * encoded deltas, so a typical flight ID needs one or two bytes
+     */
+    private static final class PostingList {
+
+        // encoded deltas
+        private byte[] bytes;
+
+        // used byte count, ID count and last (highest) ID
+        private int length, count, last;
+
+        private PostingList() {
+            this.bytes = new byte[4];
+            this.length = 0;
+            this.count = 0;
+            this.last = 0;
+        }
+
+        /**
+         * adds an ID, IDs are mostly added in ascending order, then they are just appended
+         */
+        private synchronized void add(int id) {
+            if (id > last) {
+                append(id - last);
+                last = id;
+                count++;
+                return;
+            }
+            int[] ids = decode();
+            int index = Arrays.binarySearch(ids, id);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            // re-encoding with the inserted ID
+            length = count = last = 0;
+            for (int i = 0; i <= ids.length; i++) {
+                int next = (i < index) ? ids[i] : (i == index) ? id : ids[i - 1];
+                append(next - last);
+                last = next;
+                count++;
+            }
+        }
+
+        /**
+         * @return the IDs in ascending order
+         */
+        private synchronized int @NotNull [] toArray() {
+            return decode();
+        }
+
+        /**
+         * decodes all IDs, must hold the lock
+         */
+        private int @NotNull [] decode() {
+            int[] ids = new int[count];
+            int pos = 0, value = 0, delta, shift;
+            byte b;
+            for (int i = 0; i < count; i++) {
+                delta = shift = 0;
+                do {
+                    b = bytes[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                value += delta;
+                ids[i] = value;
+            }
+            return ids;
+        }
+
+        /**
+         * appends a delta in 7-bit groups, the high bit marks a following group
+         */
+        private void append(int delta) {
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + 5));
+            }
+            while ((delta & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            bytes[length++] = (byte) delta;
+        }
+    }
+}
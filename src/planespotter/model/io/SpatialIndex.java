@@ -0,0 +1,194 @@
+package planespotter.model.io;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static planespotter.util.Time.elapsedMillis;
+import static planespotter.util.Time.nowMillis;
+
+/**
+ * @name SpatialIndex
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class SpatialIndex maintains an SQLite R*Tree next to every tracking table, so bounding-box queries
+ * (area and time range) only read the matching rows instead of scanning the whole table.
+ * Every tracking table gets a 3-dimensional 'rtree_i32'-table 'geo_[table]' with latitude, longitude
+ * (fixed point with 6 decimal places, like {@link TrackBlocks}) and timestamp, keyed by the tracking ID.
+ * The R*Tree is filled once from the existing rows and then kept up to date by insert and delete triggers,
+ * so it is maintained inside the write transactions, without any code in the insert path.
+ * Timestamps are stored as 32-bit integers, which is valid until 2038.
+ * If the SQLite library has no R*Tree module, the tables are used without index (full scan).
+ * @see TrackingPartitions
+ * @see DBOut#visitPositionsInArea(planespotter.dataclasses.Area, long, long, int, PositionVisitor)
+ */
+public final class SpatialIndex {
+
+    // R*Tree table prefix, must not start with 'tracking_' (partition prefix)
+    public static final String PREFIX = "geo_";
+
+    // fixed point multiplier for lat / lon
+    private static final double COORD_SCALE = 1_000_000.;
+
+    // tracking tables with a ready R*Tree
+    private static final Set<String> indexed = ConcurrentHashMap.newKeySet();
+
+    // false if the SQLite library doesn't support R*Trees
+    private static volatile boolean supported = true;
+
+    /**
+     * private constructor, this is a utility class
+     */
+    private SpatialIndex() {
+        throw new UnsupportedOperationException("SpatialIndex is a utility class!");
+    }
+
+    /**
+     * returns the R*Tree table name of a tracking table
+     *
+     * @param trackingTable is the tracking table name
+     * @return the R*Tree table name
+     */
+    @NotNull
+    static String tableOf(@NotNull String trackingTable) {
+        return PREFIX + trackingTable;
+    }
+
+    /**
+     * creates the R*Tree of a tracking table and its triggers, if they don't exist yet,
+     * and fills it with the existing rows, in one transaction,
+     * writers are blocked by DB_SYNC until the R*Tree is complete
+     *
+     * @param trackingTable is the tracking table name
+     * @return true if the tracking table has an R*Tree, false if R*Trees are not supported
+     */
+    static boolean ensure(@NotNull String trackingTable) {
+        if (indexed.contains(trackingTable)) {
+            return true;
+        } else if (!supported) {
+            return false;
+        }
+        synchronized (DBConnector.DB_SYNC) {
+            if (indexed.contains(trackingTable)) {
+                return true;
+            }
+            String geo = tableOf(trackingTable);
+            try (Connection conn = DBConnector.getConnection(false);
+                 Statement stmt = conn.createStatement()) {
+                conn.setAutoCommit(false);
+                try {
+                    if (!exists(stmt, geo)) {
+                        stmt.executeUpdate("CREATE VIRTUAL TABLE " + geo + " USING rtree_i32(" +
+                                           "id, minLat, maxLat, minLon, maxLon, minTs, maxTs)");
+                        long startTime = nowMillis();
+                        int rows = stmt.executeUpdate("INSERT INTO " + geo + " " +
+                                                      "SELECT ID, " + fixed("latitude") + ", " + fixed("latitude") + ", " +
+                                                      fixed("longitude") + ", " + fixed("longitude") + ", timestamp, timestamp " +
+                                                      "FROM " + trackingTable + " " +
+                                                      "WHERE latitude IS NOT NULL AND longitude IS NOT NULL AND timestamp IS NOT NULL");
+                        System.out.println("[SpatialIndex] indexed " + rows + " rows of " + trackingTable + " in " +
+                                           elapsedMillis(startTime) + " ms");
+                    }
+                    stmt.executeUpdate("CREATE TRIGGER IF NOT EXISTS " + geo + "_insert AFTER INSERT ON " + trackingTable + " " +
+                                       "WHEN new.latitude IS NOT NULL AND new.longitude IS NOT NULL AND new.timestamp IS NOT NULL " +
+                                       "BEGIN INSERT INTO " + geo + " VALUES (new.ID, " +
+                                       fixed("new.latitude") + ", " + fixed("new.latitude") + ", " +
+                                       fixed("new.longitude") + ", " + fixed("new.longitude") + ", " +
+                                       "new.timestamp, new.timestamp); END");
+                    stmt.executeUpdate("CREATE TRIGGER IF NOT EXISTS " + geo + "_delete AFTER DELETE ON " + trackingTable + " " +
+                                       "BEGIN DELETE FROM " + geo + " WHERE id = old.ID; END");
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+                indexed.add(trackingTable);
+                return true;
+            } catch (SQLException e) {
+                if (String.valueOf(e.getMessage()).contains("rtree")) {
+                    // the module is missing, no table gets an R*Tree
+                    supported = false;
+                    System.err.println("[SpatialIndex] R*Tree is not supported, area queries scan the tracking tables!");
+                } else {
+                    e.printStackTrace();
+                }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * drops the R*Tree of a tracking table, its triggers are dropped with the tracking table
+     *
+     * @param stmt is a {@link Statement} of an open write connection
+     * @param trackingTable is the tracking table name
+     * @throws SQLException if the R*Tree could not be dropped
+     */
+    static void drop(@NotNull Statement stmt, @NotNull String trackingTable) throws SQLException {
+        indexed.remove(trackingTable);
+        if (supported) {
+            stmt.executeUpdate("DROP TABLE IF EXISTS " + tableOf(trackingTable));
+        }
+    }
+
+    /**
+     * builds the area query of one tracking table, the placeholders are the bounds
+     * in this order: min. lat, max. lat, min. lon, max. lon, first and last timestamp,
+     * the values are bound with {@link SpatialIndex#bounds(double, double, double, double, long, long, boolean)}
+     *
+     * @param trackingTable is the tracking table name
+     * @param columns are the selected columns of the tracking table (alias 't')
+     * @param indexed is true if the tracking table has an R*Tree, see {@link SpatialIndex#ensure(String)}
+     * @return the SELECT-query without ORDER BY
+     */
+    @NotNull
+    static String select(@NotNull String trackingTable, @NotNull String columns, boolean indexed) {
+        if (indexed) {
+            // the R*Tree drives the join, the rows are looked up by ID
+            return "SELECT " + columns + " FROM " + tableOf(trackingTable) + " g CROSS JOIN " + trackingTable + " t ON t.ID = g.id " +
+                   "WHERE g.minLat >= ? AND g.maxLat <= ? AND g.minLon >= ? AND g.maxLon <= ? AND g.minTs >= ? AND g.maxTs <= ?";
+        }
+        return "SELECT " + columns + " FROM " + trackingTable + " t " +
+               "WHERE t.latitude BETWEEN ? AND ? AND t.longitude BETWEEN ? AND ? AND t.timestamp BETWEEN ? AND ?";
+    }
+
+    /**
+     * converts area and time bounds into the parameters of a {@link SpatialIndex#select(String, String, boolean)}-query
+     *
+     * @return the six bound values, fixed point integers for an R*Tree query
+     */
+    static Object @NotNull [] bounds(double minLat, double maxLat, double minLon, double maxLon, long from, long to, boolean indexed) {
+        if (indexed) {
+            return new Object[] {
+                    (long) Math.floor(minLat * COORD_SCALE), (long) Math.ceil(maxLat * COORD_SCALE),
+                    (long) Math.floor(minLon * COORD_SCALE), (long) Math.ceil(maxLon * COORD_SCALE),
+                    Math.max(from, Integer.MIN_VALUE), Math.min(to, Integer.MAX_VALUE)
+            };
+        }
+        return new Object[] { minLat, maxLat, minLon, maxLon, from, to };
+    }
+
+    /**
+     * @return the SQL-expression of a coordinate column as fixed point integer
+     */
+    @NotNull
+    private static String fixed(@NotNull String column) {
+        return "CAST(round(" + column + " * " + (long) COORD_SCALE + ") AS INTEGER)";
+    }
+
+    /**
+     * @return true if a table exists
+     */
+    private static boolean exists(@NotNull Statement stmt, @NotNull String table) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE name = '" + table + "'")) {
+            return rs.next();
+        }
+    }
+}
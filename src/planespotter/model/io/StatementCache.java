@@ -0,0 +1,182 @@
+package planespotter.model.io;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @name StatementCache
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class StatementCache is a per-connection cache of {@link PreparedStatement}s, keyed by their SQL-string.
+ * A cached statement is parsed and planned by SQLite only once and then reused with new parameters,
+ * so the SQL-strings should contain placeholders (?) instead of concatenated values.
+ * The least recently used statement is closed if the cache is full.
+ * The cache is not thread-safe, it must be used by one thread at a time, like its {@link Connection}.
+ * A cached statement must not be used re-entrant: its {@link java.sql.ResultSet} must be closed,
+ * before the same SQL-string is prepared again.
+ * @see DBConnector
+ * @see DBWriter
+ */
+final class StatementCache implements AutoCloseable {
+
+    // the connection of the cached statements
+    @NotNull private final Connection conn;
+
+    // cached statements in access-order, the key is the SQL-string
+    @NotNull private final LinkedHashMap<String, PreparedStatement> statements;
+
+    // max. cached statement count
+    private final int capacity;
+
+    // hit and miss counters
+    private long hits, misses;
+
+    /**
+     * constructs a new {@link StatementCache} for a {@link Connection}
+     *
+     * @param conn is the {@link Connection} of the statements
+     * @param capacity is the max. cached statement count
+     */
+    StatementCache(@NotNull Connection conn, int capacity) {
+        this.conn = conn;
+        this.capacity = Math.max(capacity, 1);
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+        this.hits = 0L;
+        this.misses = 0L;
+    }
+
+    /**
+     * returns the cached {@link PreparedStatement} for a SQL-string or prepares a new one
+     * and binds the given parameters in order
+     *
+     * @param sql is the SQL-string with placeholders
+     * @param params are the parameters, bound with setObject, may be empty
+     * @return the (cached) {@link PreparedStatement} with bound parameters
+     * @throws SQLException if the statement could not be prepared or a parameter could not be bound
+     */
+    @NotNull
+    PreparedStatement prepare(@NotNull String sql, Object @NotNull ... params) throws SQLException {
+        PreparedStatement stmt = lookup(sql, sql, Statement.NO_GENERATED_KEYS);
+        for (int i = 0; i < params.length; i++) {
+            stmt.setObject(i + 1, params[i]);
+        }
+        return stmt;
+    }
+
+    /**
+     * returns the cached {@link PreparedStatement} for an INSERT-string or prepares a new one,
+     * the statement returns the generated keys
+     *
+     * @param sql is the INSERT-string with placeholders
+     * @return the (cached) {@link PreparedStatement} with cleared parameters
+     * @throws SQLException if the statement could not be prepared
+     */
+    @NotNull
+    PreparedStatement prepareInsert(@NotNull String sql) throws SQLException {
+        return lookup("+" + sql, sql, Statement.RETURN_GENERATED_KEYS);
+    }
+
+    /**
+     * removes a statement from the cache and closes it,
+     * used after a statement failed
+     *
+     * @param sql is the SQL-string of the statement
+     */
+    void evict(@NotNull String sql) {
+        closeQuietly(statements.remove(sql));
+        closeQuietly(statements.remove("+" + sql));
+    }
+
+    /**
+     * @return the {@link Connection} of this cache
+     */
+    @NotNull
+    Connection connection() {
+        return conn;
+    }
+
+    /**
+     * @return true if the {@link Connection} of this cache is closed or broken
+     */
+    boolean isClosed() {
+        try {
+            return conn.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    /**
+     * @return the count of reused statements
+     */
+    long hits() {
+        return hits;
+    }
+
+    /**
+     * @return the count of newly prepared statements
+     */
+    long misses() {
+        return misses;
+    }
+
+    /**
+     * closes all cached statements, but not the {@link Connection}
+     */
+    @Override
+    public void close() {
+        statements.values().forEach(StatementCache::closeQuietly);
+        statements.clear();
+    }
+
+    /**
+     * returns a cached statement or prepares and caches a new one
+     */
+    @NotNull
+    private PreparedStatement lookup(@NotNull String key, @NotNull String sql, int autoGeneratedKeys) throws SQLException {
+        PreparedStatement stmt = statements.get(key);
+        if (stmt != null && !stmt.isClosed()) {
+            hits++;
+            stmt.clearParameters();
+            return stmt;
+        }
+        misses++;
+        stmt = conn.prepareStatement(sql, autoGeneratedKeys);
+        statements.put(key, stmt);
+        evictEldest();
+        return stmt;
+    }
+
+    /**
+     * closes the least recently used statements, until the capacity is reached
+     */
+    private void evictEldest() {
+        Iterator<Map.Entry<String, PreparedStatement>> it = statements.entrySet().iterator();
+        while (statements.size() > capacity && it.hasNext()) {
+            closeQuietly(it.next().getValue());
+            it.remove();
+        }
+    }
+
+    /**
+     * closes a statement and ignores errors, the statement may be null
+     */
+    private static void closeQuietly(PreparedStatement stmt) {
+        if (stmt != null) {
+            try {
+                stmt.close();
+            } catch (SQLException ignored) {
+                // the statement is discarded anyway
+            }
+        }
+    }
+}
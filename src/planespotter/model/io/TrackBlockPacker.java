@@ -0,0 +1,114 @@
+package planespotter.model.io;
+
+import org.jetbrains.annotations.NotNull;
+import planespotter.dataclasses.TrackColumns;
+import planespotter.throwables.DataNotFoundException;
+import planespotter.util.math.MathUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static planespotter.util.Time.elapsedSeconds;
+import static planespotter.util.Time.nowMillis;
+
+/**
+ * @name TrackBlockPacker
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class TrackBlockPacker is a {@link Keeper} which packs the tracks of closed flights
+ * into delta-encoded {@link TrackBlocks}. Packed flights are read from their blocks,
+ * so the tracking rows can be deleted, which makes the database much smaller.
+ * Flights are packed after the grace period, and after the compaction if a
+ * {@link TrackCompactor} is used, so only the simplified tracks are packed.
+ * @see TrackBlocks
+ * @see TrackCompactor
+ */
+public class TrackBlockPacker implements Keeper {
+
+    // max. packed flights per pass, limits the pass duration
+    private static final int MAX_FLIGHTS_PER_PASS = 500;
+
+    // grace period in seconds, flights are packed this time after their end
+    private final long graceSeconds;
+
+    // if true, only compacted flights are packed
+    private final boolean afterCompaction;
+
+    // if true, the tracking rows of packed flights are deleted
+    private final boolean dropRows;
+
+    /**
+     * constructs a new {@link TrackBlockPacker}
+     *
+     * @param graceSeconds is the time after the flight end, before a flight is packed
+     * @param afterCompaction indicates if only compacted flights should be packed
+     * @param dropRows indicates if the tracking rows of packed flights should be deleted
+     */
+    public TrackBlockPacker(long graceSeconds, boolean afterCompaction, boolean dropRows) {
+        this.graceSeconds = graceSeconds;
+        this.afterCompaction = afterCompaction;
+        this.dropRows = dropRows;
+    }
+
+    /**
+     * packs all closed, not packed flights which are out of the grace period
+     */
+    @Override
+    public synchronized void keep() {
+        long startMillis = nowMillis();
+        long endBefore = MathUtils.divide(startMillis, 1000L) - graceSeconds;
+        DBOut dbOut = DBOut.getDBOut();
+        DBIn dbIn = DBIn.getDBIn();
+        int flights = 0, blocks = 0, points = 0;
+        TrackColumns columns;
+        for (long[] flight : packableFlights(endBefore)) {
+            try {
+                columns = dbOut.getTrackColumns((int) flight[0]);
+            } catch (DataNotFoundException e) {
+                continue;
+            }
+            blocks += dbIn.writeTrackBlocks(columns, dropRows, flight[1], flight[2]);
+            points += columns.size();
+            flights++;
+        }
+        System.out.println("TrackBlockPacker finished work on the DB in " + elapsedSeconds(startMillis) + " seconds!\n" +
+                           flights + " flights packed into " + blocks + " blocks (" + points + " points)");
+    }
+
+    /**
+     * returns closed, not packed flights which ended before a certain time and still have tracking rows,
+     * flights whose rows were dropped (retention) are never selected, so they can't fill every pass
+     *
+     * @param endBefore is the max. end time in seconds
+     * @return list of long arrays: [flight ID, start time, end time]
+     */
+    @NotNull
+    private List<long[]> packableFlights(long endBefore) {
+        List<long[]> flights = new ArrayList<>();
+        String query = "SELECT f.ID, f.start, f.endTime FROM flights f " +
+                       (afterCompaction ? "JOIN compactions c ON c.flightid = f.ID " : "") +
+                       "WHERE f.endTime IS NOT NULL AND f.endTime < (?) " +
+                       "AND NOT EXISTS (SELECT 1 FROM " + TrackBlocks.table() + " b WHERE b.flightid = f.ID) " +
+                       "AND EXISTS (SELECT 1 FROM " + DBConnector.getTrackingPartitions().source() + " t WHERE t.flightid = f.ID) " +
+                       "LIMIT " + MAX_FLIGHTS_PER_PASS;
+        synchronized (DBConnector.DB_SYNC) {
+            try (Connection conn = DBConnector.getConnection(true);
+                 PreparedStatement pstmt = conn.prepareStatement(query)) {
+                pstmt.setLong(1, endBefore);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    flights.add(new long[] { rs.getInt(1), rs.getLong(2), rs.getLong(3) });
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        return flights;
+    }
+}
@@ -0,0 +1,247 @@
+package planespotter.model.io;
+
+import org.jetbrains.annotations.NotNull;
+import planespotter.dataclasses.TrackColumns;
+import planespotter.throwables.InvalidDataException;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * @name TrackBlocks
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class TrackBlocks contains the block-layout for the tracking data of closed flights.
+ * The points of one flight are packed into blocks of max. {@link TrackBlocks#BLOCK_SIZE} points,
+ * which are saved as BLOBs in the 'trackblocks'-table. Inside a block, every column is written
+ * separately, with delta-encoding and zig-zag-varints, so slowly changing values (time, position,
+ * altitude) need only one or two bytes per point.
+ * Latitude and longitude are saved as fixed point numbers with 6 decimal places (~ 0.1 m).
+ * Flights with blocks are only read from the blocks, the tracking rows are ignored.
+ * @see TrackBlockPacker
+ * @see TrackColumns
+ */
+public final class TrackBlocks {
+
+    // block table name, must not start with 'tracking_' (partition prefix)
+    public static final String TABLE = "trackblocks";
+
+    // max. points per block
+    public static final int BLOCK_SIZE = 256;
+
+    // fixed point multiplier for lat / lon
+    private static final double COORD_SCALE = 1_000_000.;
+
+    // 'table created' flag
+    private static volatile boolean tableCreated = false;
+
+    /**
+     * private constructor, this is a utility class
+     */
+    private TrackBlocks() {
+        throw new UnsupportedOperationException("TrackBlocks is a utility class!");
+    }
+
+    /**
+     * creates the block table, if it doesn't exist yet, and returns its name
+     *
+     * @return the block table name
+     */
+    @NotNull
+    static String table() {
+        if (!tableCreated) {
+            synchronized (DBConnector.DB_SYNC) {
+                if (!tableCreated) {
+                    try (Connection conn = DBConnector.getConnection(false);
+                         Statement stmt = conn.createStatement()) {
+                        stmt.executeUpdate("CREATE TABLE IF NOT EXISTS " + TABLE + " (" +
+                                           "flightid INTEGER NOT NULL, seq INTEGER NOT NULL, count INTEGER NOT NULL, " +
+                                           "firstTs INTEGER, lastTs INTEGER, data BLOB NOT NULL, " +
+                                           "PRIMARY KEY (flightid, seq))");
+                        tableCreated = true;
+                    } catch (SQLException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+        return TABLE;
+    }
+
+    /**
+     * encodes a part of the {@link TrackColumns} into one block
+     *
+     * @param columns are the {@link TrackColumns} to encode
+     * @param from is the first point index (inclusive)
+     * @param to is the last point index (exclusive)
+     * @return the encoded block
+     */
+    public static byte @NotNull [] encode(@NotNull TrackColumns columns, int from, int to) {
+        int count = to - from;
+        // ~ 10 bytes per point is a good first guess
+        ByteArrayOutputStream out = new ByteArrayOutputStream(count * 10 + 5);
+        writeVarint(out, count);
+        long last = 0;
+        for (int i = from; i < to; i++) {
+            last = writeDelta(out, columns.ids()[i], last);
+        }
+        last = 0;
+        for (int i = from; i < to; i++) {
+            last = writeDelta(out, columns.timestamps()[i], last);
+        }
+        last = 0;
+        for (int i = from; i < to; i++) {
+            last = writeDelta(out, Math.round(columns.lat()[i] * COORD_SCALE), last);
+        }
+        last = 0;
+        for (int i = from; i < to; i++) {
+            last = writeDelta(out, Math.round(columns.lon()[i] * COORD_SCALE), last);
+        }
+        last = 0;
+        for (int i = from; i < to; i++) {
+            last = writeDelta(out, columns.altitude()[i], last);
+        }
+        last = 0;
+        for (int i = from; i < to; i++) {
+            last = writeDelta(out, columns.speed()[i], last);
+        }
+        last = 0;
+        for (int i = from; i < to; i++) {
+            last = writeDelta(out, columns.heading()[i], last);
+        }
+        last = 0;
+        for (int i = from; i < to; i++) {
+            last = writeDelta(out, columns.squawk()[i], last);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * reads the point count of a block, without decoding it
+     *
+     * @param block is the encoded block
+     * @return the point count of the block
+     */
+    public static int count(byte @NotNull [] block) {
+        return (int) new Reader(block).varint();
+    }
+
+    /**
+     * decodes a block directly into {@link TrackColumns}, no objects are created per point
+     *
+     * @param block is the encoded block
+     * @param dst are the destination {@link TrackColumns}
+     * @param offset is the first destination index
+     * @return the decoded point count
+     */
+    public static int decode(byte @NotNull [] block, @NotNull TrackColumns dst, int offset) {
+        Reader in = new Reader(block);
+        int count = (int) in.varint();
+        if (offset + count > dst.size()) {
+            throw new InvalidDataException("Destination columns are too small for this block!");
+        }
+        int end = offset + count;
+        long last = 0;
+        for (int i = offset; i < end; i++) {
+            dst.ids()[i] = (int) (last += in.zigzag());
+        }
+        last = 0;
+        for (int i = offset; i < end; i++) {
+            dst.timestamps()[i] = last += in.zigzag();
+        }
+        last = 0;
+        for (int i = offset; i < end; i++) {
+            dst.lat()[i] = (last += in.zigzag()) / COORD_SCALE;
+        }
+        last = 0;
+        for (int i = offset; i < end; i++) {
+            dst.lon()[i] = (last += in.zigzag()) / COORD_SCALE;
+        }
+        last = 0;
+        for (int i = offset; i < end; i++) {
+            dst.altitude()[i] = (int) (last += in.zigzag());
+        }
+        last = 0;
+        for (int i = offset; i < end; i++) {
+            dst.speed()[i] = (int) (last += in.zigzag());
+        }
+        last = 0;
+        for (int i = offset; i < end; i++) {
+            dst.heading()[i] = (int) (last += in.zigzag());
+        }
+        last = 0;
+        for (int i = offset; i < end; i++) {
+            dst.squawk()[i] = (int) (last += in.zigzag());
+        }
+        return count;
+    }
+
+    /**
+     * writes the zig-zag-varint delta of a value
+     *
+     * @return the value, which is the 'last' value for the next delta
+     */
+    private static long writeDelta(@NotNull ByteArrayOutputStream out, long value, long last) {
+        long delta = value - last;
+        writeVarint(out, (delta << 1) ^ (delta >> 63));
+        return value;
+    }
+
+    /**
+     * writes an unsigned varint, 7 bits per byte, the high bit is the 'more bytes' flag
+     */
+    private static void writeVarint(@NotNull ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * varint reader for encoded blocks
+     */
+    private static final class Reader {
+
+        // encoded block
+        private final byte[] block;
+
+        // read position
+        private int pos;
+
+        private Reader(byte @NotNull [] block) {
+            this.block = block;
+            this.pos = 0;
+        }
+
+        /**
+         * @return the next unsigned varint
+         */
+        long varint() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (pos >= block.length) {
+                    throw new InvalidDataException("Track block is truncated!");
+                }
+                b = block[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+
+        /**
+         * @return the next zig-zag-varint
+         */
+        long zigzag() {
+            long raw = varint();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+    }
+}
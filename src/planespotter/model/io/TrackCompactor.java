@@ -0,0 +1,228 @@
+package planespotter.model.io;
+
+import org.jetbrains.annotations.NotNull;
+import planespotter.dataclasses.DataPoint;
+import planespotter.throwables.DataNotFoundException;
+import planespotter.util.math.MathUtils;
+import planespotter.util.math.TrackSimplifier;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Vector;
+
+import static planespotter.util.Time.elapsedSeconds;
+import static planespotter.util.Time.nowMillis;
+
+/**
+ * @name TrackCompactor
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class TrackCompactor is a {@link Keeper} which compacts the tracks of closed flights.
+ * Every track is simplified by a {@link TrackSimplifier} (Douglas-Peucker with position,
+ * altitude and time tolerances) and the dropped tracking rows are deleted.
+ * Raw points are kept for a grace period after the flight end, so recent flights stay complete.
+ * Compacted flights are saved in the 'compactions'-table with the removed row count and the
+ * max. position error, so every flight is only compacted once.
+ * The compactor is run by the {@link KeeperOfTheArchives} after closing flights.
+ * @see TrackSimplifier
+ * @see KeeperOfTheArchives
+ */
+public class TrackCompactor implements Keeper {
+
+    // max. compacted flights per pass, limits the pass duration
+    private static final int MAX_FLIGHTS_PER_PASS = 500;
+
+    // track simplifier with the compaction tolerances
+    private final TrackSimplifier simplifier;
+
+    // grace period in seconds, raw points are kept for this time after the flight end
+    private final long graceSeconds;
+
+    // 'compaction table created' flag
+    private boolean tableCreated;
+
+    /**
+     * constructs a new {@link TrackCompactor}
+     *
+     * @param posToleranceMeters is the max. position error of a dropped point, in meters
+     * @param altToleranceFeet is the max. altitude error of a dropped point, in feet
+     * @param maxGapSeconds is the max. time between two kept points, in seconds
+     * @param graceSeconds is the time after the flight end, in which the raw points are kept
+     */
+    public TrackCompactor(double posToleranceMeters, int altToleranceFeet, long maxGapSeconds, long graceSeconds) {
+        this.simplifier = new TrackSimplifier(posToleranceMeters, altToleranceFeet, maxGapSeconds);
+        this.graceSeconds = graceSeconds;
+        this.tableCreated = false;
+    }
+
+    /**
+     * compacts all closed flights which are out of the grace period
+     * and not compacted yet, prints a report
+     */
+    @Override
+    public synchronized void keep() {
+        long startMillis = nowMillis();
+        long endBefore = MathUtils.divide(startMillis, 1000L) - graceSeconds;
+        DBOut dbOut = DBOut.getDBOut();
+        DBIn dbIn = DBIn.getDBIn();
+        createTable();
+        long freePagesBefore = freePages();
+
+        int flights = 0, removed = 0;
+        double maxError = 0.;
+        for (long[] flight : compactableFlights(endBefore)) {
+            int flightID = (int) flight[0];
+            Vector<DataPoint> tracking;
+            try {
+                tracking = dbOut.getTrackingByFlight(flightID);
+            } catch (DataNotFoundException e) {
+                // no tracking (anymore), nothing to compact
+                saveCompaction(flightID, 0, 0, 0.);
+                continue;
+            }
+            tracking.sort(Comparator.comparingLong(DataPoint::timestamp));
+            int size = tracking.size();
+            double[] lat = new double[size], lon = new double[size];
+            int[] alt = new int[size];
+            long[] timestamps = new long[size];
+            DataPoint dp;
+            for (int i = 0; i < size; i++) {
+                dp = tracking.get(i);
+                lat[i] = dp.pos().lat();
+                lon[i] = dp.pos().lon();
+                alt[i] = dp.altitude();
+                timestamps[i] = dp.timestamp();
+            }
+            TrackSimplifier.Result result = simplifier.simplify(lat, lon, alt, timestamps);
+            int[] dropIDs = new int[result.dropped()];
+            boolean[] keep = result.keep();
+            for (int i = 0, d = 0; i < size; i++) {
+                if (!keep[i]) {
+                    dropIDs[d++] = tracking.get(i).id();
+                }
+            }
+            int deleted = dbIn.deleteTracking(flightID, dropIDs, flight[1], flight[2]);
+            if (deleted < 0) {
+                // not saved as compacted, the flight is compacted again by the next pass
+                continue;
+            }
+            removed += deleted;
+            maxError = Math.max(maxError, result.maxPositionError());
+            saveCompaction(flightID, deleted, result.kept(), result.maxPositionError());
+            flights++;
+        }
+        long reclaimedBytes = (freePages() - freePagesBefore) * pageSize();
+        System.out.println("TrackCompactor finished work on the DB in " + elapsedSeconds(startMillis) + " seconds!\n" +
+                           flights + " flights compacted, " + removed + " rows removed, " +
+                           Math.max(reclaimedBytes, 0L) / 1024 + " KB reclaimed, max. position error: " +
+                           Math.round(maxError) + " m");
+    }
+
+    /**
+     * creates the compactions-table, if it doesn't exist
+     */
+    private void createTable() {
+        if (tableCreated) {
+            return;
+        }
+        synchronized (DBConnector.DB_SYNC) {
+            try (Connection conn = DBConnector.getConnection(false);
+                 Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("CREATE TABLE IF NOT EXISTS compactions (" +
+                                   "flightid INTEGER PRIMARY KEY, removed INTEGER, kept INTEGER, " +
+                                   "maxError REAL, timestamp INTEGER)");
+                tableCreated = true;
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * returns closed, not compacted flights which ended before a certain time
+     *
+     * @param endBefore is the max. end time in seconds
+     * @return list of long arrays: [flight ID, start time, end time]
+     */
+    @NotNull
+    private List<long[]> compactableFlights(long endBefore) {
+        List<long[]> flights = new ArrayList<>();
+        String query = "SELECT f.ID, f.start, f.endTime FROM flights f " +
+                       "LEFT JOIN compactions c ON c.flightid = f.ID " +
+                       "WHERE f.endTime IS NOT NULL AND f.endTime < (?) AND c.flightid IS NULL " +
+                       "LIMIT " + MAX_FLIGHTS_PER_PASS;
+        synchronized (DBConnector.DB_SYNC) {
+            try (Connection conn = DBConnector.getConnection(true);
+                 PreparedStatement pstmt = conn.prepareStatement(query)) {
+                pstmt.setLong(1, endBefore);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    flights.add(new long[] { rs.getInt(1), rs.getLong(2), rs.getLong(3) });
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        return flights;
+    }
+
+    /**
+     * saves a compaction report for a flight
+     */
+    private void saveCompaction(int flightID, int removed, int kept, double maxError) {
+        synchronized (DBConnector.DB_SYNC) {
+            try (Connection conn = DBConnector.getConnection(false);
+                 PreparedStatement pstmt = conn.prepareStatement("INSERT OR REPLACE INTO compactions VALUES (?,?,?,?,?)")) {
+                pstmt.setInt(1, flightID);
+                pstmt.setInt(2, removed);
+                pstmt.setInt(3, kept);
+                pstmt.setDouble(4, maxError);
+                pstmt.setLong(5, MathUtils.divide(nowMillis(), 1000L));
+                pstmt.executeUpdate();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * @return the free page count of the database
+     */
+    private long freePages() {
+        return pragma("freelist_count");
+    }
+
+    /**
+     * @return the page size of the database in bytes
+     */
+    private long pageSize() {
+        return pragma("page_size");
+    }
+
+    /**
+     * reads a numeric pragma value
+     *
+     * @param pragma is the pragma name
+     * @return the pragma value or 0 if an error occurred
+     */
+    private long pragma(@NotNull String pragma) {
+        synchronized (DBConnector.DB_SYNC) {
+            try (Connection conn = DBConnector.getConnection(true);
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("PRAGMA " + pragma)) {
+                return rs.next() ? rs.getLong(1) : 0L;
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        return 0L;
+    }
+}
@@ -0,0 +1,454 @@
+package planespotter.model.io;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * @name TrackingPartitions
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class TrackingPartitions is the routing layer for the time-partitioned tracking storage.
+ * Every period (day or month, UTC) has its own tracking table, named 'tracking_yyyyMM'
+ * or 'tracking_yyyyMMdd', which is created on the first insert in a new period (rollover).
+ * The old 'tracking'-table is kept as legacy partition, which contains all data from before
+ * the partitioning and is not written anymore, the retention deletes its old rows.
+ * DBIn gets the insert-table by timestamp, DBOut gets a table-source (a table name or a
+ * UNION-ALL-subquery), time-bounded queries only get the partitions that overlap the time range.
+ * All tracking tables share one ID sequence: new partitions continue the tracking-IDs of the last partition,
+ * and every insert lifts the sequence of its table to the highest ID first, so late frames, which go
+ * to an older partition, don't get an ID of a newer partition.
+ * @see PartitionKeeper
+ * @see DBIn
+ * @see DBOut
+ */
+public final class TrackingPartitions {
+
+    // legacy tracking table name, also the prefix of all partition tables
+    public static final String LEGACY_TABLE = "tracking";
+
+    // highest ID sequence of all tracking tables
+    private static final String MAX_SEQUENCE = "SELECT max(seq) FROM sqlite_sequence WHERE name = '" + LEGACY_TABLE + "' " +
+                                               "OR name LIKE '" + LEGACY_TABLE + "\\_%' ESCAPE '\\'";
+
+    // lifts the ID sequence of a tracking table to the highest ID of all tracking tables, must run before every insert
+    public static final String SHARE_SEQUENCE = "UPDATE sqlite_sequence SET seq = (" + MAX_SEQUENCE + ") " +
+                                                "WHERE name = (?) AND seq < (" + MAX_SEQUENCE + ")";
+
+    /**
+     * enum Period represents the partition period length
+     */
+    public enum Period {
+        DAY(DateTimeFormatter.ofPattern("yyyyMMdd")),
+        MONTH(DateTimeFormatter.ofPattern("yyyyMM"));
+
+        // table name suffix formatter
+        private final DateTimeFormatter format;
+
+        Period(@NotNull DateTimeFormatter format) {
+            this.format = format;
+        }
+
+        /**
+         * @param epochSecond is a timestamp in seconds
+         * @return the first second of the period that contains the timestamp
+         */
+        long startOf(long epochSecond) {
+            LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(epochSecond, 86400L));
+            if (this == MONTH) {
+                date = date.withDayOfMonth(1);
+            }
+            return date.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        }
+
+        /**
+         * @param periodStart is the first second of a period
+         * @return the first second of the next period
+         */
+        long next(long periodStart) {
+            LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(periodStart, 86400L));
+            date = (this == MONTH) ? date.plusMonths(1) : date.plusDays(1);
+            return date.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        }
+
+        /**
+         * @param periodStart is the first second of a period
+         * @return the first second of the previous period
+         */
+        long previous(long periodStart) {
+            LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(periodStart, 86400L));
+            date = (this == MONTH) ? date.minusMonths(1) : date.minusDays(1);
+            return date.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        }
+
+        /**
+         * @param periodStart is the first second of a period
+         * @return the partition table name for the period
+         */
+        @NotNull
+        String tableName(long periodStart) {
+            LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(periodStart, 86400L));
+            return LEGACY_TABLE + "_" + format.format(date);
+        }
+
+        /**
+         * parses a partition table name back to its period start
+         *
+         * @param table is the table name
+         * @return the period start in seconds or -1 if the name is no partition of this period
+         */
+        long parse(@NotNull String table) {
+            String suffix = table.substring(LEGACY_TABLE.length() + 1);
+            try {
+                LocalDate date = (this == MONTH)
+                        ? YearMonth.parse(suffix, format).atDay(1)
+                        : LocalDate.parse(suffix, format);
+                return date.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+            } catch (RuntimeException e) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * record Partition represents one tracking table with its time range
+     *
+     * @param table is the table name
+     * @param start is the first second in this partition (inclusive)
+     * @param end is the first second after this partition (exclusive)
+     */
+    public record Partition(@NotNull String table, long start, long end) {
+
+        /**
+         * @return true if this partition overlaps the time range [from, to]
+         */
+        boolean overlaps(long from, long to) {
+            return start <= to && end > from;
+        }
+
+        /**
+         * @return true if the partition period is over and no data is inserted anymore
+         */
+        boolean isClosed(long nowSeconds) {
+            return end <= nowSeconds;
+        }
+    }
+
+    // partition period, null means partitioning is disabled
+    @Nullable private volatile Period period;
+
+    // all known partitions by period start
+    @NotNull private final NavigableMap<Long, Partition> partitions;
+
+    // legacy partition with lazy-loaded time range, null if not loaded yet
+    @Nullable private volatile Partition legacy;
+
+    // 'catalog loaded' flag
+    private volatile boolean loaded;
+
+    /**
+     * constructs new {@link TrackingPartitions} with monthly partitions
+     */
+    TrackingPartitions() {
+        this.period = Period.MONTH;
+        this.partitions = new ConcurrentSkipListMap<>();
+        this.loaded = false;
+    }
+
+    /**
+     * sets the partition period, null disables the partitioning
+     * and routes everything to the legacy tracking table
+     *
+     * @param period is the new {@link Period} or null
+     */
+    public void setPeriod(@Nullable Period period) {
+        synchronized (DBConnector.DB_SYNC) {
+            if (this.period != period) {
+                this.period = period;
+                this.loaded = false;
+                this.partitions.clear();
+                this.legacy = null;
+            }
+        }
+    }
+
+    /**
+     * @return the partition period or null if the partitioning is disabled
+     */
+    @Nullable
+    public Period getPeriod() {
+        return period;
+    }
+
+    /**
+     * returns the insert table for a tracking timestamp,
+     * creates the partition table if it doesn't exist yet
+     *
+     * @param epochSecond is the tracking timestamp in seconds
+     * @return the table name to insert the tracking into
+     */
+    @NotNull
+    public String tableFor(long epochSecond) {
+        Period period = this.period;
+        if (period == null) {
+            return LEGACY_TABLE;
+        }
+        ensureLoaded();
+        long start = period.startOf(epochSecond);
+        Partition partition = partitions.get(start);
+        if (partition == null) {
+            partition = create(period, start);
+        }
+        return partition.table();
+    }
+
+    /**
+     * returns the table-source for all tracking data, which can be used
+     * in a FROM-clause with or without alias
+     *
+     * @return the table name or a UNION-ALL-subquery over all partitions
+     */
+    @NotNull
+    public String source() {
+        return source(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * returns the table-source for the tracking data in a time range,
+     * partitions outside the range are pruned
+     *
+     * @param from is the first timestamp in seconds (inclusive)
+     * @param to is the last timestamp in seconds (inclusive)
+     * @return the table name or a UNION-ALL-subquery over all matching partitions
+     */
+    @NotNull
+    public String source(long from, long to) {
+        return unionOf(tables(from, to));
+    }
+
+    /**
+     * returns the table names of all partitions that overlap a time range
+     *
+     * @param from is the first timestamp in seconds (inclusive)
+     * @param to is the last timestamp in seconds (inclusive)
+     * @return all matching table names, the legacy table first
+     */
+    @NotNull
+    public List<String> tables(long from, long to) {
+        List<String> tables = new ArrayList<>();
+        if (period == null) {
+            tables.add(LEGACY_TABLE);
+            return tables;
+        }
+        ensureLoaded();
+        Partition legacy = legacy();
+        if (legacy != null && legacy.overlaps(from, to)) {
+            tables.add(legacy.table());
+        }
+        for (Partition partition : partitions.values()) {
+            if (partition.overlaps(from, to)) {
+                tables.add(partition.table());
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * @return all partitions, without the legacy partition
+     */
+    @NotNull
+    public Collection<Partition> partitions() {
+        ensureLoaded();
+        return partitions.values();
+    }
+
+    /**
+     * @return the legacy partition with the time range of its rows, null if the partitioning is disabled
+     */
+    @Nullable
+    Partition legacyPartition() {
+        return (period == null) ? null : legacy();
+    }
+
+    /**
+     * forgets the time range of the legacy partition, after rows were deleted from it,
+     * the range is loaded again on the next use
+     */
+    void resetLegacy() {
+        legacy = null;
+    }
+
+    /**
+     * removes a partition from the catalog, after its table was dropped
+     *
+     * @param partition is the dropped {@link Partition}
+     */
+    void remove(@NotNull Partition partition) {
+        partitions.remove(partition.start());
+    }
+
+    /**
+     * builds a FROM-source of a list of tracking tables
+     *
+     * @param tables are the table names
+     * @return a single table name or a UNION-ALL-subquery
+     */
+    @NotNull
+    private static String unionOf(@NotNull List<String> tables) {
+        return switch (tables.size()) {
+            // empty legacy table as fallback, the query stays valid
+            case 0 -> "(SELECT * FROM " + LEGACY_TABLE + " WHERE 0)";
+            case 1 -> tables.get(0);
+            default -> {
+                StringBuilder union = new StringBuilder("(");
+                for (int i = 0; i < tables.size(); i++) {
+                    if (i > 0) {
+                        union.append(" UNION ALL ");
+                    }
+                    union.append("SELECT * FROM ").append(tables.get(i));
+                }
+                yield union.append(")").toString();
+            }
+        };
+    }
+
+    /**
+     * loads all existing partition tables from the database catalog, once
+     */
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        // always locking on DB_SYNC, the writer holds it while asking for the insert table
+        synchronized (DBConnector.DB_SYNC) {
+            Period period = this.period;
+            if (loaded || period == null) {
+                return;
+            }
+            String query = "SELECT name FROM sqlite_master WHERE type = 'table' AND name LIKE '" + LEGACY_TABLE + "\\_%' ESCAPE '\\'";
+            try (Connection conn = DBConnector.getConnection(true);
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(query)) {
+                String table;
+                long start;
+                while (rs.next()) {
+                    table = rs.getString(1);
+                    start = period.parse(table);
+                    if (start != -1 && period.tableName(start).equals(table)) {
+                        partitions.put(start, new Partition(table, start, period.next(start)));
+                    }
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            loaded = true;
+        }
+    }
+
+    /**
+     * returns the legacy partition with its time range, the range is loaded once,
+     * because the legacy table doesn't get any new data
+     *
+     * @return the legacy {@link Partition} or null if it is empty
+     */
+    @Nullable
+    private Partition legacy() {
+        if (legacy == null) {
+            synchronized (DBConnector.DB_SYNC) {
+                if (legacy == null) {
+                    String query = "SELECT min(timestamp), max(timestamp) FROM " + LEGACY_TABLE;
+                    // an empty legacy table gets an empty range and never overlaps
+                    Partition loaded = new Partition(LEGACY_TABLE, Long.MAX_VALUE, Long.MIN_VALUE);
+                    try (Connection conn = DBConnector.getConnection(true);
+                         Statement stmt = conn.createStatement();
+                         ResultSet rs = stmt.executeQuery(query)) {
+                        if (rs.next() && rs.getObject(1) != null) {
+                            loaded = new Partition(LEGACY_TABLE, rs.getLong(1), rs.getLong(2) + 1);
+                        }
+                    } catch (SQLException e) {
+                        e.printStackTrace();
+                    }
+                    legacy = loaded;
+                }
+            }
+        }
+        return legacy;
+    }
+
+    /**
+     * creates a new partition table (rollover), with the tracking schema,
+     * a flight ID index, a spatial index and the ID sequence of the last tracking ID
+     *
+     * @param period is the partition {@link Period}
+     * @param start is the period start in seconds
+     * @return the new {@link Partition}
+     */
+    @NotNull
+    private Partition create(@NotNull Period period, long start) {
+        synchronized (DBConnector.DB_SYNC) {
+            Partition partition = partitions.get(start);
+            if (partition != null) {
+                return partition;
+            }
+            String table = period.tableName(start);
+            try (Connection conn = DBConnector.getConnection(false);
+                 Statement stmt = conn.createStatement()) {
+                createTable(stmt, table);
+                System.out.println("[TrackingPartitions] created partition " + table);
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            // the new table is empty, so its R*Tree is created instantly
+            SpatialIndex.ensure(table);
+            partition = new Partition(table, start, period.next(start));
+            partitions.put(start, partition);
+            return partition;
+        }
+    }
+
+    /**
+     * creates a partition table, if it doesn't exist, with the tracking schema, a flight ID index
+     * and an ID sequence, which continues the highest tracking ID
+     *
+     * @param stmt is a statement of a writable connection
+     * @param table is the partition table name
+     * @throws SQLException if the table could not be created
+     */
+    public static void createTable(@NotNull Statement stmt, @NotNull String table) throws SQLException {
+        stmt.executeUpdate("CREATE TABLE IF NOT EXISTS " + table + " (" +
+                           "ID INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                           "flightid INTEGER, latitude REAL, longitude REAL, altitude INTEGER, " +
+                           "groundspeed INTEGER, heading INTEGER, squawk INTEGER, timestamp INTEGER)");
+        stmt.executeUpdate("CREATE INDEX IF NOT EXISTS idx_" + table + "_flightid ON " + table + "(flightid)");
+        // continuing the IDs of the last partition, the sequence table exists after the first AUTOINCREMENT-table
+        long lastID = lastTrackingID(stmt);
+        stmt.executeUpdate("INSERT INTO sqlite_sequence(name, seq) " +
+                           "SELECT '" + table + "', " + lastID + " " +
+                           "WHERE NOT EXISTS (SELECT 1 FROM sqlite_sequence WHERE name = '" + table + "')");
+    }
+
+    /**
+     * @return the highest tracking ID over all tracking tables
+     */
+    static long lastTrackingID(@NotNull Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(MAX_SEQUENCE)) {
+            return rs.next() ? rs.getLong(1) : 0L;
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package planespotter.model.io;
+
+/**
+ * @name TrackingVisitor
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Functional Interface TrackingVisitor is a callback for streaming tracking reads.
+ * Every tracking row is passed as primitive values, without creating any objects,
+ * so bulk reads over millions of rows need constant memory.
+ * @see PositionVisitor
+ * @see DBOut#visitAllTracking(long, int, TrackingVisitor)
+ */
+@FunctionalInterface
+public interface TrackingVisitor {
+
+    /**
+     * visits one tracking row
+     *
+     * @param id is the tracking ID
+     * @param flightID is the flight ID
+     * @param lat is the latitude
+     * @param lon is the longitude
+     * @param timestamp is the timestamp in seconds
+     * @param squawk is the squawk code
+     * @param speed is the ground speed in knots
+     * @param heading is the heading in degrees
+     * @param altitude is the altitude in feet
+     */
+    void visit(int id, int flightID, double lat, double lon, long timestamp,
+               int squawk, int speed, int heading, int altitude);
+}
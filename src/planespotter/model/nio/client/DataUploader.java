@@ -1,7 +1,6 @@
 package planespotter.model.nio.client;
 
 import de.gtec.util.Utilities;
-import de.gtec.util.math.WeightMovingAverage;
 import de.gtec.util.threading.Threading;
 import de.gtec.util.time.Time;
 import org.jetbrains.annotations.Nullable;
@@ -11,6 +10,7 @@ import planespotter.display.models.UploadPane;
 import planespotter.model.Scheduler;
 import planespotter.model.nio.client.http.FrameSender;
 import planespotter.throwables.NoAccessException;
+import planespotter.util.math.MathUtils;
 
 import java.io.IOException;
 import java.net.ConnectException;
@@ -99,8 +99,8 @@ public class DataUploader<D extends Frame> {
             errorQueue.add(e);
         } finally {
             long elapsed = Time.elapsedMillis(start);
-            this.flow = (int) WeightMovingAverage.avg(idx / elapsed, getFlow());
-            this.byteFlow = (int) WeightMovingAverage.avg((idx * UniFrame.SIZE) / elapsed, getByteFlow());
+            this.flow = (int) MathUtils.movingAverage(idx / elapsed, getFlow());
+            this.byteFlow = (int) MathUtils.movingAverage((idx * UniFrame.SIZE) / elapsed, getByteFlow());
         }
     }
 
@@ -0,0 +1,98 @@
+package planespotter.model.simulation;
+
+import de.gtec.util.annotations.Unsigned;
+import org.jetbrains.annotations.NotNull;
+import planespotter.display.MapManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @name AirspaceSimulation
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class AirspaceSimulation replays every aircraft of an area in a time window at N times speed.
+ * Every frame is a moment of the window in milliseconds, so replay steps shorter than a second keep the speed,
+ * the airspace state of a frame is read from the {@link ReplayIndex},
+ * so the replay can jump to any moment (scrubbing) without reading the tracking data again.
+ * @see ReplayIndex
+ * @see Simulator
+ */
+public class AirspaceSimulation extends Simulation<Long> {
+
+    // the map manager, which shows the airspace
+    private final MapManager mapManager;
+
+    // snapshot index of the replayed area and window
+    private final ReplayIndex index;
+
+    /**
+     * constructs a new {@link AirspaceSimulation}
+     *
+     * @param index is the {@link ReplayIndex} of the replayed area and window
+     * @param mapManager is the {@link MapManager}, which shows the airspace
+     * @param speed is the replay speed, 60 means one minute per second
+     * @param period is the frame period of the {@link Simulator} in milliseconds
+     */
+    public AirspaceSimulation(@NotNull ReplayIndex index, @NotNull MapManager mapManager,
+                              @Unsigned int speed, @Unsigned int period) {
+        super(frames(index.getFrom() * 1000, index.getTo() * 1000, Math.max(1L, (long) speed * period)));
+        this.mapManager = mapManager;
+        this.index = index;
+    }
+
+    /**
+     * jumps to the frame at or before a moment, the next processed frame shows that moment
+     *
+     * @param millis is the moment in milliseconds, like the frames
+     */
+    public synchronized void seek(long millis) {
+        int frame = Collections.binarySearch(getFrames(), millis);
+        setCurrentIndex((frame >= 0) ? frame : Math.max(0, -frame - 2));
+    }
+
+    /**
+     * shows the airspace of a frame without changing the current frame, used while scrubbing
+     *
+     * @param frame is the frame index
+     */
+    public void showFrame(int frame) {
+        List<Long> frames = getFrames();
+        if (frame >= 0 && frame < frames.size()) {
+            mapManager.createAirspaceMap(index.stateAt(frames.get(frame) / 1000));
+        }
+    }
+
+    /**
+     * @return the {@link ReplayIndex} of this simulation
+     */
+    @NotNull
+    public ReplayIndex getIndex() {
+        return index;
+    }
+
+    @Override
+    protected synchronized boolean processFrame() {
+        if (getCurrentIndex() >= getFrameCount()) {
+            return false;
+        }
+        showFrame(getAndIncrementIndex());
+        return true;
+    }
+
+    /**
+     * @return the frame timestamps of the window in milliseconds, one per step, the last frame is the window end
+     */
+    @NotNull
+    private static List<Long> frames(long from, long to, long step) {
+        List<Long> frames = new ArrayList<>();
+        for (long time = from; time < to; time += step) {
+            frames.add(time);
+        }
+        frames.add(to);
+        return frames;
+    }
+}
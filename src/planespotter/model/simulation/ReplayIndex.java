@@ -0,0 +1,301 @@
+package planespotter.model.simulation;
+
+import org.jetbrains.annotations.NotNull;
+import planespotter.dataclasses.Area;
+import planespotter.dataclasses.DataPoint;
+import planespotter.dataclasses.Position;
+import planespotter.model.io.DBOut;
+import planespotter.model.io.TrackingVisitor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static planespotter.util.Time.elapsedMillis;
+import static planespotter.util.Time.nowMillis;
+
+/**
+ * @name ReplayIndex
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class ReplayIndex is the time-bucketed snapshot index of all tracking rows inside an area and a time window,
+ * used to replay the whole airspace at any moment of the window.
+ * The rows are stored once in column-layout, ordered by timestamp. Every {@link ReplayIndex#BUCKET_SECONDS}
+ * there is a snapshot with the last-known row of every aircraft, the rows in between are the deltas,
+ * so the state at any moment is one snapshot plus a short delta scan, instead of a scan of all rows.
+ * Aircraft without a row in the last {@link ReplayIndex#STALE_SECONDS} are not in the airspace anymore.
+ * @see AirspaceSimulation
+ * @see DBOut#visitTrackingInArea(Area, long, long, int, TrackingVisitor)
+ */
+public final class ReplayIndex {
+
+    // snapshot interval in seconds
+    public static final int BUCKET_SECONDS = 30;
+
+    // max. age of the last-known state of an aircraft in seconds
+    public static final int STALE_SECONDS = 300;
+
+    // first and last timestamp of the replay window in seconds
+    private final long from, to;
+
+    // tracking rows, ordered by timestamp
+    private final int @NotNull [] ids, flightIDs, squawk, speed, heading, altitude;
+    private final long @NotNull [] timestamps;
+    private final double @NotNull [] lat, lon;
+
+    // row indices of the last-known state of every aircraft, one snapshot per bucket
+    private final int @NotNull [][] snapshots;
+
+    /**
+     * private constructor, indexes columns which are ordered by timestamp,
+     * use {@link ReplayIndex#load(Area, long, long)} or a {@link Recorder}
+     */
+    private ReplayIndex(long from, long to, int @NotNull [] ids, int @NotNull [] flightIDs, long @NotNull [] timestamps,
+                        double @NotNull [] lat, double @NotNull [] lon, int @NotNull [] squawk,
+                        int @NotNull [] speed, int @NotNull [] heading, int @NotNull [] altitude) {
+        this.from = from;
+        this.to = to;
+        this.ids = ids;
+        this.flightIDs = flightIDs;
+        this.timestamps = timestamps;
+        this.lat = lat;
+        this.lon = lon;
+        this.squawk = squawk;
+        this.speed = speed;
+        this.heading = heading;
+        this.altitude = altitude;
+        this.snapshots = buildSnapshots();
+    }
+
+    /**
+     * loads all tracking rows inside an {@link Area} and a time window, with the rows of the
+     * last {@link ReplayIndex#STALE_SECONDS} before the window, and indexes them,
+     * the rows are found by the spatial index of the database
+     *
+     * @param area is the replayed {@link Area}
+     * @param from is the first timestamp of the window in seconds
+     * @param to is the last timestamp of the window in seconds
+     * @return the {@link ReplayIndex} of the area and window
+     */
+    @NotNull
+    public static ReplayIndex load(@NotNull Area area, long from, long to) {
+        long startTime = nowMillis();
+        Recorder recorder = new Recorder();
+        DBOut.getDBOut().visitTrackingInArea(area, from - STALE_SECONDS, to, DBOut.DEFAULT_FETCH_SIZE, recorder);
+        ReplayIndex index = recorder.build(from, to);
+        System.out.println("[ReplayIndex] indexed " + index.size() + " rows in " + index.snapshots.length +
+                           " snapshots in " + elapsedMillis(startTime) + " ms");
+        return index;
+    }
+
+    /**
+     * returns the last-known state of every aircraft in the airspace at a moment,
+     * read from the snapshot before the moment and the rows after that snapshot
+     *
+     * @param timestamp is the moment in seconds, clamped to the replay window
+     * @return the last-known {@link DataPoint} of every aircraft, ordered by flight ID
+     */
+    public DataPoint @NotNull [] stateAt(long timestamp) {
+        long time = Math.max(from, Math.min(to, timestamp));
+        int bucket = (int) ((time - from) / BUCKET_SECONDS);
+        Map<Integer, Integer> state = new HashMap<>();
+        for (int row : snapshots[bucket]) {
+            state.put(flightIDs[row], row);
+        }
+        // delta scan from the snapshot to the moment
+        int first = upperBound(from + (long) bucket * BUCKET_SECONDS);
+        int last = upperBound(time);
+        for (int row = first; row < last; row++) {
+            state.put(flightIDs[row], row);
+        }
+        return state.values()
+                .stream()
+                .filter(row -> timestamps[row] > time - STALE_SECONDS)
+                .sorted((a, b) -> Integer.compare(flightIDs[a], flightIDs[b]))
+                .map(this::dataPoint)
+                .toArray(DataPoint[]::new);
+    }
+
+    /**
+     * @return the first timestamp of the replay window in seconds
+     */
+    public long getFrom() {
+        return from;
+    }
+
+    /**
+     * @return the last timestamp of the replay window in seconds
+     */
+    public long getTo() {
+        return to;
+    }
+
+    /**
+     * @return the indexed row count
+     */
+    public int size() {
+        return timestamps.length;
+    }
+
+    /**
+     * builds the snapshots in one pass over the rows, a snapshot contains every aircraft
+     * with a row at or before its bucket start, which is not stale at that time
+     */
+    private int @NotNull [][] buildSnapshots() {
+        int bucketCount = (int) ((to - from) / BUCKET_SECONDS) + 1;
+        int[][] snapshots = new int[bucketCount][];
+        Map<Integer, Integer> state = new HashMap<>();
+        long bucketStart;
+        int row = 0;
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            bucketStart = from + (long) bucket * BUCKET_SECONDS;
+            for (; row < timestamps.length && timestamps[row] <= bucketStart; row++) {
+                state.put(flightIDs[row], row);
+            }
+            final long minTimestamp = bucketStart - STALE_SECONDS;
+            // stale aircraft are dropped, they can't be in a later snapshot without a new row
+            state.values().removeIf(r -> timestamps[r] <= minTimestamp);
+            snapshots[bucket] = state.values().stream().mapToInt(Integer::intValue).toArray();
+        }
+        return snapshots;
+    }
+
+    /**
+     * @return the index of the first row with a timestamp after a time
+     */
+    private int upperBound(long time) {
+        int low = 0, high = timestamps.length, mid;
+        while (low < high) {
+            mid = (low + high) >>> 1;
+            if (timestamps[mid] <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the {@link DataPoint} of a row
+     */
+    @NotNull
+    private DataPoint dataPoint(int row) {
+        return new DataPoint(ids[row], flightIDs[row], new Position(lat[row], lon[row]), timestamps[row],
+                             squawk[row], speed[row], heading[row], altitude[row]);
+    }
+
+    /**
+     * class Recorder is a {@link TrackingVisitor} which collects tracking rows
+     * in column-layout and builds a {@link ReplayIndex} of them, the rows may come in any order
+     */
+    public static final class Recorder implements TrackingVisitor {
+
+        // collected columns, grown on demand
+        private int[] ids, flightIDs, squawk, speed, heading, altitude;
+        private long[] timestamps;
+        private double[] lat, lon;
+
+        // collected row count
+        private int size;
+
+        /**
+         * constructs a new, empty {@link Recorder}
+         */
+        public Recorder() {
+            int capacity = 1024;
+            this.ids = new int[capacity];
+            this.flightIDs = new int[capacity];
+            this.timestamps = new long[capacity];
+            this.lat = new double[capacity];
+            this.lon = new double[capacity];
+            this.squawk = new int[capacity];
+            this.speed = new int[capacity];
+            this.heading = new int[capacity];
+            this.altitude = new int[capacity];
+            this.size = 0;
+        }
+
+        @Override
+        public void visit(int id, int flightID, double lat, double lon, long timestamp,
+                          int squawk, int speed, int heading, int altitude) {
+            if (size == timestamps.length) {
+                grow();
+            }
+            this.ids[size] = id;
+            this.flightIDs[size] = flightID;
+            this.timestamps[size] = timestamp;
+            this.lat[size] = lat;
+            this.lon[size] = lon;
+            this.squawk[size] = squawk;
+            this.speed[size] = speed;
+            this.heading[size] = heading;
+            this.altitude[size] = altitude;
+            size++;
+        }
+
+        /**
+         * builds the {@link ReplayIndex} of the collected rows, ordered by timestamp
+         *
+         * @param from is the first timestamp of the replay window in seconds
+         * @param to is the last timestamp of the replay window in seconds
+         * @return the new {@link ReplayIndex}
+         */
+        @NotNull
+        public ReplayIndex build(long from, long to) {
+            if (to < from) {
+                throw new IllegalArgumentException("Replay window end must not be before its start!");
+            }
+            // sorting an index permutation, the columns are reordered once
+            final long[] ts = timestamps;
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(ts[a], ts[b]));
+            int[] o = Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+            return new ReplayIndex(from, to, reorder(ids, o), reorder(flightIDs, o), reorder(timestamps, o),
+                                   reorder(lat, o), reorder(lon, o), reorder(squawk, o),
+                                   reorder(speed, o), reorder(heading, o), reorder(altitude, o));
+        }
+
+        private void grow() {
+            int capacity = timestamps.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            flightIDs = Arrays.copyOf(flightIDs, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            lat = Arrays.copyOf(lat, capacity);
+            lon = Arrays.copyOf(lon, capacity);
+            squawk = Arrays.copyOf(squawk, capacity);
+            speed = Arrays.copyOf(speed, capacity);
+            heading = Arrays.copyOf(heading, capacity);
+            altitude = Arrays.copyOf(altitude, capacity);
+        }
+
+        private static int @NotNull [] reorder(int @NotNull [] column, int @NotNull [] order) {
+            int[] sorted = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                sorted[i] = column[order[i]];
+            }
+            return sorted;
+        }
+
+        private static long @NotNull [] reorder(long @NotNull [] column, int @NotNull [] order) {
+            long[] sorted = new long[order.length];
+            for (int i = 0; i < order.length; i++) {
+                sorted[i] = column[order[i]];
+            }
+            return sorted;
+        }
+
+        private static double @NotNull [] reorder(double @NotNull [] column, int @NotNull [] order) {
+            double[] sorted = new double[order.length];
+            for (int i = 0; i < order.length; i++) {
+                sorted[i] = column[order[i]];
+            }
+            return sorted;
+        }
+    }
+}
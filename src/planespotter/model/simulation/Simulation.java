@@ -33,6 +33,13 @@ public abstract class Simulation<T> {
         return currentIndex++;
     }
 
+    public final void setCurrentIndex(int index) {
+        if (index < 0 || index > getFrameCount()) {
+            throw new IndexOutOfBoundsException("Frame index " + index + " is out of bounds!");
+        }
+        this.currentIndex = index;
+    }
+
     public final List<T> getFrames() {
         return frames;
     }
@@ -1,11 +1,9 @@
 package planespotter.util;
 
 import de.gtec.util.SimpleBenchmark;
-import de.gtec.util.bmp.Filler;
-import de.gtec.util.math.HighestValue;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Range;
-import org.jetbrains.annotations.TestOnly;
 import planespotter.dataclasses.Area;
 import planespotter.dataclasses.Position;
 import planespotter.throwables.InvalidArrayException;
@@ -15,7 +13,13 @@ import planespotter.throwables.OutOfRangeException;
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.Vector;
 
@@ -27,13 +31,22 @@ import java.util.Vector;
  * @description
  * the Bitmap class represents a 2D-bitmap,
  * each value stands for a certain level (e.g. the flight count on this position).
- * The 2D-array represents a 2D-map with lat and lon values
+ * The 2D-array represents a 2D-map with lat and lon values.
+ * A Bitmap which was counted from positions has a {@link Header} with grid size, bounds and level scaling,
+ * it is written to and read from heatmap files ({@link Bitmap#HEATMAP_EXTENSION}) with the header,
+ * the file data can be memory-mapped, see {@link Bitmap#writeHeatmap(Bitmap, File)}.
  */
 public class Bitmap {
 
     // minimum grid size to prevent OutOfMemoryErrors
     private static final float MIN_GRID_SIZE = 0.01f;
 
+    // heatmap file extension
+    public static final String HEATMAP_EXTENSION = ".psh";
+
+    // heatmap file magic ('PSHM'), version and header size, the levels start at the header size
+    private static final int HEATMAP_MAGIC = 0x5053484D, HEATMAP_VERSION = 1, HEATMAP_HEADER_SIZE = 64;
+
     // bitmap as 2D-byte array (memory-efficient),
     // it is not possible to use short- or int-arrays here
     // because they use too much memory
@@ -42,6 +55,9 @@ public class Bitmap {
     // bitmap width and height
     public final int width, height;
 
+    // grid size, bounds and scaling, null if unknown (e.g. Bitmap from an image)
+    @Nullable private final Header header;
+
     /**
      * constructor for Bitmap,
      * needs a filled 2D-bitmap-array which must be created before.
@@ -51,7 +67,18 @@ public class Bitmap {
      * @param bitmap is the bitmap 2D-array (pre-filled)
      */
     public Bitmap(byte[][] bitmap) {
+        this(bitmap, null);
+    }
+
+    /**
+     * constructor for Bitmap with {@link Header}
+     *
+     * @param bitmap is the bitmap 2D-array (pre-filled)
+     * @param header is the {@link Header} with grid size, bounds and scaling, may be null
+     */
+    public Bitmap(byte[][] bitmap, @Nullable Header header) {
         this.bitmap = bitmap;
+        this.header = header;
         this.width = bitmap.length;
         if (this.width == 0) {
             throw new InvalidArrayException("Array width and length must be higher or equals one!");
@@ -76,32 +103,50 @@ public class Bitmap {
     @HighMemory(msg = "Huge 2D-arrays (with gridSize about 0.025 and lower) can cause OutOfMemoryError")
     @NotNull
     public static Bitmap fromPosVector(@NotNull Vector<Position> positions, @Range(from = 0, to = 2) float gridSize) {
+        // counted into per-thread grids, which are merged at the end,
+        // a shared grid would lose counts when two threads increment the same field
+        try (HeatmapBuilder builder = new HeatmapBuilder(accumulator(gridSize))) {
+            for (Position pos : positions) {
+                builder.add(pos.lat(), pos.lon());
+            }
+            return builder.toBitmap();
+        }
+    }
+
+    /**
+     * creates a new {@link Accumulator}, which counts streamed positions into a grid,
+     * without collecting them, e.g. for {@link planespotter.model.io.DBOut#visitAllTrackingPositions}
+     *
+     * @param gridSize is the bitmap grid size, 1 is normal (360x180), 0.5 is the double (720x360)
+     * @return new {@link Accumulator} with an empty grid
+     */
+    @NotNull
+    public static Accumulator accumulator(@Range(from = 0, to = 2) float gridSize) {
         checkGridSize(gridSize);
+        return new Accumulator(gridSize);
+    }
 
-        int width = (int) (360.0 / gridSize) + 1;
-        int height = (int) (180.0 / gridSize) + 1;
-        int[][] ints2d = new int[width][height];
-
-        // nicht nötig
-        //fillZeros(ints2d);
-
-        // the parallel stream performs much better than
-        // a normal for-loop, 3s against 12s, we can use
-        // it because positions is a Vector (thread safe)
-        positions.parallelStream()
-                .forEach(pos -> {
-                    int posX, posY;
-                    posX = (int) ((pos.lon() + 180) / gridSize);
-                    posY = (int) ((pos.lat() + 90) / gridSize);
-                    ints2d[posX][posY]++;
-                });
-
-        writeGridSize(ints2d, gridSize, width, height);
-        return Bitmap.fromInt2d(ints2d);
+    /**
+     * creates a new {@link Accumulator} for an {@link Area}, its grid only covers the area,
+     * positions outside the area are ignored, e.g. for {@link planespotter.model.io.DBOut#visitPositionsInArea}
+     *
+     * @param gridSize is the bitmap grid size in degrees
+     * @param area is the {@link Area} of the grid, corners in any order
+     * @return new {@link Accumulator} with an empty area grid
+     */
+    @NotNull
+    public static Accumulator accumulator(@Range(from = 0, to = 2) float gridSize, @NotNull Area area) {
+        checkGridSize(gridSize);
+        Position topLeft = area.getTopLeft(),
+                 bottomRight = area.getBottomRight();
+        return new Accumulator(gridSize,
+                               Math.min(topLeft.lat(), bottomRight.lat()), Math.max(topLeft.lat(), bottomRight.lat()),
+                               Math.min(topLeft.lon(), bottomRight.lon()), Math.max(topLeft.lon(), bottomRight.lon()));
     }
 
     /**
-     * creates a Bitmap from position-vector,
+     * creates a Bitmap from position-vector, but only for a certain {@link Area},
+     * the bitmap only covers the area (x = longitude, y = latitude, from the bottom-left corner),
      * the higher a field value, the more positions in this field
      *
      * @param positions is the position vector, where each bitmap field
@@ -112,71 +157,13 @@ public class Bitmap {
      * @param area is the {@link Area} or: the Bitmap region on the map
      * @return Bitmap instance, created by pos-vector under a certain grid size, but only a certain {@link Area}
      */
+    @NotNull
     public static Bitmap fromPosVector(@NotNull Vector<Position> positions, @Range(from = 0, to = 2) float gridSize, @NotNull Area area) {
-        checkGridSize(gridSize);
-
-        int width = (int) (360.0 / gridSize) + 1;
-        int height = (int) (180.0 / gridSize) + 1;
-        int[][] ints2d = new int[width][height];
-
-        fillZeros(ints2d);
-
-        double topLeftLat = area.getTopLeft().lat(),
-               topLeftLon = area.getTopLeft().lon(),
-               botRightLat = area.getBottomRight().lat(),
-               botRightLon = area.getBottomRight().lon();
-
-        positions.parallelStream()
-                .forEach(pos -> {
-                    int posX, posY;
-                    double lat = pos.lat(), lon = pos.lon();
-                    if (lat > topLeftLat || lat < botRightLat || lon < topLeftLon || lon > botRightLon) {
-                        return;
-                    }
-                    posX = (int) ((lon + 180) / gridSize);
-                    posY = (int) ((lat + 90) / gridSize);
-                    ints2d[posX][posY]++;
-                });
-
-        // TODO: 27.11.2022 das ganze könnte man auch in der fromInt2d machen,
-        //  dann direkt nur den area bereich in ein neues byte array kopieren
-
-        // FIXME: 26.11.2022 FIX Bitmap Ausrichtung, NegativeArraySizeException,
-
-        int sx = (int) ((topLeftLon + 180) / gridSize),
-            sy = (int) ((topLeftLat + 90) / gridSize), // FIXME ey is greater than sy
-            ex = (int) ((botRightLon + 180) / gridSize),
-            ey = (int) ((botRightLat + 90) / gridSize),
-            nw = ex - sx,
-            nh = sy - ey;
-        int[][] i2dNew = new int[nw][nh];
-
-        // FIXME: 26.11.2022 ArrayIndexOutOfBounds
-        for (int x_new = 0, x_old = sx; x_new < nw; x_new++, x_old++) {
-            for (int y_new = 0, y_old = sy; y_new < nh; y_new++, y_old++) {
-                i2dNew[x_new][x_old] = ints2d[x_old][y_old];
-            }
-        }
-
-        writeGridSize(i2dNew, gridSize, nw, nh);
-        return fromInt2d(i2dNew);
-    }
-
-    /**
-     *
-     *
-     * @param ints2d
-     * @param gridSize
-     * @param width
-     * @param height
-     */
-    private static void writeGridSize(int[][] ints2d, float gridSize, int width, int height) {
-        // writing gridSize to the last 4 bytes
-        int last = width - 1;
-        byte[] gridSizeBytes = Utilities.floatToBytes(gridSize);
-        for (int y = height - 4, i = 0; y < height; y++, i++) {
-            ints2d[last][y] = gridSizeBytes[i] + 128;
+        Accumulator accumulator = accumulator(gridSize, area);
+        for (Position pos : positions) {
+            accumulator.add(pos.lat(), pos.lon());
         }
+        return accumulator.toBitmap();
     }
 
     /**
@@ -198,7 +185,7 @@ public class Bitmap {
 
 
     /**
-     * creates a Bitmap from pre-filled 2D-int-array
+     * creates a Bitmap from pre-filled 2D-int-array with linear levels
      * (much easier than creating a Bitmap per constructor)
      *
      * @param ints2d is the input 2D-int array, which is automatically converted to byte-array
@@ -207,6 +194,20 @@ public class Bitmap {
     @HighMemory(msg = "Huge 2D-arrays (with gridSize about 0.02 and lower) can cause OutOfMemoryErrors")
     @NotNull
     public static Bitmap fromInt2d(int[][] ints2d) {
+        return fromInt2d(ints2d, Quantizer.Scaling.LINEAR);
+    }
+
+    /**
+     * creates a Bitmap from pre-filled 2D-int-array,
+     * the counts are converted to byte levels by the {@link Quantizer}
+     *
+     * @param ints2d is the input 2D-int array, which is automatically converted to byte-array
+     * @param scaling is the level {@link Quantizer.Scaling}
+     * @return Bitmap from 2D-int array
+     */
+    @HighMemory(msg = "Huge 2D-arrays (with gridSize about 0.02 and lower) can cause OutOfMemoryErrors")
+    @NotNull
+    public static Bitmap fromInt2d(int[][] ints2d, @NotNull Quantizer.Scaling scaling) {
 
         int width = ints2d.length;
         if (width == 0) {
@@ -216,16 +217,18 @@ public class Bitmap {
         if (height == 0) {
             throw new InvalidArrayException("input array is empty, height out of range!");
         }
-        long start = Time.nowMillis();
-
-        int max = de.gtec.util.Utilities.highestValue(ints2d);
-        byte[][] bytes = new byte[width][height];
-
-        System.out.println("Elapsed: " + Time.elapsedMillis(start) + " ms");
-
-        Filler.fill(bytes, ints2d, width, height, max);
+        return new Bitmap(Quantizer.quantize(ints2d, scaling));
+    }
 
-        return new Bitmap(bytes);
+    /**
+     * converts a field count to a linear byte level, like {@link Bitmap#fromInt2d(int[][])}
+     *
+     * @param count is the field count
+     * @param max is the highest field count, 1 or higher
+     * @return the byte level of the count
+     */
+    static byte level(int count, int max) {
+        return Quantizer.level(count, max);
     }
 
     /**
@@ -254,7 +257,8 @@ public class Bitmap {
     }
 
     /**
-     * creates a {@link Bitmap} from {@link BufferedImage}
+     * creates a {@link Bitmap} from {@link BufferedImage}, the inverse of {@link Bitmap#toImage(boolean)}
+     * without flip, the levels are read from the gray raster, other image types are converted to gray first
      *
      * @param img is the {@link BufferedImage} to convert into {@link Bitmap}
      * @return {@link Bitmap}, converted from {@link BufferedImage}
@@ -263,10 +267,25 @@ public class Bitmap {
     public static Bitmap fromImage(@NotNull BufferedImage img) {
         int width = img.getWidth(),
             height = img.getHeight();
+        BufferedImage gray = img;
+        if (img.getType() != BufferedImage.TYPE_BYTE_GRAY) {
+            gray = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+            Graphics2D g = gray.createGraphics();
+            g.drawImage(img, 0, 0, null);
+            g.dispose();
+        }
+        // the raster of a sub-image can have an offset and a longer scanline
+        var sampleModel = (ComponentSampleModel) gray.getRaster().getSampleModel();
+        int stride = sampleModel.getScanlineStride(),
+            offset = gray.getRaster().getDataBuffer().getOffset()
+                    - gray.getRaster().getSampleModelTranslateY() * stride
+                    - gray.getRaster().getSampleModelTranslateX();
+        byte[] pixels = ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
         byte[][] bmpBytes = new byte[width][height];
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                bmpBytes[x][y] = (byte) img.getRGB(x, y);
+        for (int y = 0; y < height; y++) {
+            int row = offset + y * stride;
+            for (int x = 0; x < width; x++) {
+                bmpBytes[x][y] = (byte) (127 - (pixels[row + x] & 0xFF));
             }
         }
         return new Bitmap(bmpBytes);
@@ -298,31 +317,132 @@ public class Bitmap {
     public static File write(Bitmap bitmap, File file)
             throws IOException {
 
-        String filename = file.getName();
-        if (filename.endsWith(".bmp")) {
-            file = new File(filename + ".bmp");
+        if (!file.getName().endsWith(".bmp")) {
+            file = new File(file.getPath() + ".bmp");
         }
         ImageIO.write(bitmap.toImage(true), "BMP", file);
         return file;
     }
 
     /**
+     * writes a {@link Bitmap} with its {@link Header} to a heatmap file.
+     * The file starts with a 64 byte header (big endian): magic, version (short), scaling (byte, -1 if unknown),
+     * 1 reserved byte, grid size (float, NaN if unknown), width, height, 4 reserved bytes,
+     * min. lat, max. lat, min. lon, max. lon (doubles) and 8 reserved bytes.
+     * The levels follow column by column (x-major, like {@link Bitmap#getBitmap()}).
+     *
+     * @param bitmap is the {@link Bitmap} to write
+     * @param file is the {@link File} to write, the heatmap extension is added if it is missing
+     * @return the written {@link File}
+     * @throws IOException if an error occurs during the write operation
+     */
+    @NotNull
+    public static File writeHeatmap(@NotNull Bitmap bitmap, @NotNull File file)
+            throws IOException {
+
+        if (!file.getName().endsWith(HEATMAP_EXTENSION)) {
+            file = new File(file.getPath() + HEATMAP_EXTENSION);
+        }
+        Header header = bitmap.header;
+        ByteBuffer head = ByteBuffer.allocate(HEATMAP_HEADER_SIZE)
+                .putInt(HEATMAP_MAGIC)
+                .putShort((short) HEATMAP_VERSION)
+                .put((byte) (header == null ? -1 : header.scaling().ordinal()))
+                .put((byte) 0)
+                .putFloat(header == null ? Float.NaN : header.gridSize())
+                .putInt(bitmap.width)
+                .putInt(bitmap.height)
+                .putInt(0)
+                .putDouble(header == null ? Double.NaN : header.minLat())
+                .putDouble(header == null ? Double.NaN : header.maxLat())
+                .putDouble(header == null ? Double.NaN : header.minLon())
+                .putDouble(header == null ? Double.NaN : header.maxLon())
+                .putLong(0L)
+                .flip();
+        ByteBuffer[] buffers = new ByteBuffer[bitmap.width + 1];
+        buffers[0] = head;
+        for (int x = 0; x < bitmap.width; x++) {
+            buffers[x + 1] = ByteBuffer.wrap(bitmap.bitmap[x]);
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // gathering writes, the column arrays are not copied
+            long remaining = HEATMAP_HEADER_SIZE + (long) bitmap.width * bitmap.height;
+            while (remaining > 0) {
+                remaining -= channel.write(buffers);
+            }
+        }
+        return file;
+    }
+
+    /**
+     * reads a heatmap file, which was written by {@link Bitmap#writeHeatmap(Bitmap, File)},
+     * the file is memory-mapped and the levels are copied column by column
      *
+     * @param file is the heatmap file
+     * @return the read {@link Bitmap} with its {@link Header}, the header is null if it was unknown
+     * @throws IOException if the file can't be read
+     * @throws InvalidDataException if the file is no valid heatmap file
+     */
+    @NotNull
+    public static Bitmap readHeatmap(@NotNull File file)
+            throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEATMAP_HEADER_SIZE) {
+                throw new InvalidDataException("Heatmap file is too short!");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != HEATMAP_MAGIC || buffer.getShort() != HEATMAP_VERSION) {
+                throw new InvalidDataException("No heatmap file or unknown version: " + file.getName());
+            }
+            int scaling = buffer.get();
+            buffer.get();
+            float gridSize = buffer.getFloat();
+            int width = buffer.getInt(),
+                height = buffer.getInt();
+            buffer.getInt();
+            double minLat = buffer.getDouble(), maxLat = buffer.getDouble(),
+                   minLon = buffer.getDouble(), maxLon = buffer.getDouble();
+            if (width <= 0 || height <= 0 || size != HEATMAP_HEADER_SIZE + (long) width * height
+                    || scaling >= Quantizer.Scaling.values().length) {
+                throw new InvalidDataException("Invalid heatmap file header: " + file.getName());
+            }
+            buffer.position(HEATMAP_HEADER_SIZE);
+            byte[][] bytes = new byte[width][height];
+            for (byte[] column : bytes) {
+                buffer.get(column);
+            }
+            Header header = (scaling < 0) ? null
+                    : new Header(gridSize, minLat, maxLat, minLon, maxLon, Quantizer.Scaling.values()[scaling]);
+            return new Bitmap(bytes, header);
+        }
+    }
+
+    /**
+     * writes the levels of a {@link Bitmap} to a CSV file, one line per column
      *
-     * @return
+     * @param bitmap is the {@link Bitmap} to write
+     * @param filename is the CSV file name
+     * @return the written {@link File}
+     * @throws IOException if the file can't be written
      */
     @NotNull
     public static File writeToCSV(@NotNull Bitmap bitmap, @NotNull String filename) throws IOException {
         File file = new File(Utilities.checkFileName(filename, "csv"));
-        try (Writer fw = new FileWriter(file)) {
-
-            int c, len;
+        try (Writer fw = new BufferedWriter(new FileWriter(file), 1 << 16)) {
+            // one line per column, written at once
+            StringBuilder line = new StringBuilder(bitmap.height * 5);
             for (byte[] arr : bitmap.getBitmap()) {
-                c = 0;
-                len = arr.length - 1;
-                for (byte lvl : arr) {
-                    fw.write(lvl + (c++ == len ? "\n" : ","));
+                line.setLength(0);
+                for (int y = 0; y < arr.length; y++) {
+                    if (y > 0) {
+                        line.append(',');
+                    }
+                    line.append(arr[y]);
                 }
+                fw.append(line).append('\n');
             }
         }
         return file;
@@ -342,26 +462,24 @@ public class Bitmap {
     }
 
     /**
-     * converts this {@link Bitmap} to a {@link BufferedImage}
+     * converts this {@link Bitmap} to a grayscale {@link BufferedImage}, the levels are written
+     * directly into the gray raster, the highest level is black
      *
+     * @param rotateAndFlip is true if the image should be flipped vertically (north at the top, like a map)
      * @return {@link BufferedImage} displaying the {@link Bitmap}
      */
     public BufferedImage toImage(boolean rotateAndFlip) {
         var img = new BufferedImage(this.width, this.height, BufferedImage.TYPE_BYTE_GRAY);
-        short lvl; Color color;
+        byte[] pixels = ((DataBufferByte) img.getRaster().getDataBuffer()).getData();
+        byte[] column;
         for (int x = 0; x < this.width; x++) {
+            column = this.bitmap[x];
             for (int y = 0; y < this.height; y++) {
-                // this should be an unsigned byte,
-                //  but there is no unsigned byte in Java,
-                //  so we use short here
-                lvl = (short) (255 - (this.bitmap[x][y] + 128));
-                color = new Color(lvl, lvl, lvl);
-                img.setRGB(x, y, color.getRGB());
+                // gray = 255 - unsigned level
+                pixels[(rotateAndFlip ? this.height - 1 - y : y) * this.width + x] = (byte) (127 - column[y]);
             }
         }
-        return rotateAndFlip
-                ? Utilities.rotate(img, 180, BufferedImage.TYPE_BYTE_GRAY, true)
-                : img;
+        return img;
     }
 
     /**
@@ -379,13 +497,21 @@ public class Bitmap {
         return bytes;
     }
 
-    @TestOnly
+    /**
+     * @return the grid size in degrees, NaN if it is unknown
+     */
     public float getGridSize() {
-        int last = width - 1;
-        byte[] fBytes = new byte[] {
-                bitmap[last][height - 1], bitmap[last][height - 2], bitmap[last][height - 3], bitmap[last][height - 4]
-        };
-        return Utilities.bytesToFloat(fBytes);
+        return (header == null) ? Float.NaN : header.gridSize();
+    }
+
+    /**
+     * getter for the {@link Header}
+     *
+     * @return the {@link Header} with grid size, bounds and scaling, null if it is unknown
+     */
+    @Nullable
+    public Header getHeader() {
+        return this.header;
     }
 
     /**
@@ -419,4 +545,185 @@ public class Bitmap {
         return "Bitmap[" + width + "x" + height + "]";
     }
 
+
+    /**
+     * record Header contains the grid of a {@link Bitmap}: the grid size in degrees,
+     * the grid bounds (the min. values are the origin of field 0,0) and the level scaling
+     */
+    public record Header(float gridSize, double minLat, double maxLat, double minLon, double maxLon,
+                         @NotNull Quantizer.Scaling scaling) {
+    }
+
+    /**
+     * class Accumulator counts positions into a Bitmap grid, one by one,
+     * the memory usage only depends on the grid size, not on the position count.
+     * An Accumulator is not thread-safe, it should be filled by one thread,
+     * parallel counting is done with one Accumulator per thread, see {@link HeatmapBuilder}.
+     */
+    public static final class Accumulator {
+
+        // grid size in degrees
+        private final float gridSize;
+
+        // grid bounds, the min. values are the grid origin
+        private final double minLat, maxLat, minLon, maxLon;
+
+        // position counts per field
+        private final int[][] ints2d;
+
+        // counted positions
+        private long count;
+
+        private Accumulator(float gridSize) {
+            this(gridSize, -90, 90, -180, 180);
+        }
+
+        private Accumulator(float gridSize, double minLat, double maxLat, double minLon, double maxLon) {
+            this.gridSize = gridSize;
+            this.minLat = minLat;
+            this.maxLat = maxLat;
+            this.minLon = minLon;
+            this.maxLon = maxLon;
+            this.ints2d = new int[(int) ((maxLon - minLon) / gridSize) + 1][(int) ((maxLat - minLat) / gridSize) + 1];
+            this.count = 0L;
+        }
+
+        /**
+         * counts one position, positions outside the grid bounds are ignored,
+         * can be used as position visitor
+         *
+         * @param lat is the latitude
+         * @param lon is the longitude
+         */
+        public void add(double lat, double lon) {
+            if (lat < minLat || lat > maxLat || lon < minLon || lon > maxLon) {
+                return;
+            }
+            int posX = (int) ((lon - minLon) / gridSize);
+            int posY = (int) ((lat - minLat) / gridSize);
+            ints2d[posX][posY]++;
+            count++;
+        }
+
+        /**
+         * @return the count of counted positions
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * adds the counts of another {@link Accumulator} with the same grid to this one,
+         * the other {@link Accumulator} is not changed
+         *
+         * @param other is the other {@link Accumulator}, must have the same grid size and bounds
+         * @return this {@link Accumulator}
+         */
+        @NotNull
+        public Accumulator merge(@NotNull Accumulator other) {
+            if (other.gridSize != gridSize || other.minLat != minLat || other.maxLat != maxLat
+                    || other.minLon != minLon || other.maxLon != maxLon) {
+                throw new InvalidArrayException("Accumulators must have the same grid!");
+            }
+            int[] column, otherColumn;
+            for (int x = 0; x < ints2d.length; x++) {
+                column = ints2d[x];
+                otherColumn = other.ints2d[x];
+                for (int y = 0; y < column.length; y++) {
+                    column[y] += otherColumn[y];
+                }
+            }
+            count += other.count;
+            return this;
+        }
+
+        /**
+         * @return the count of one field, x is the longitude and y the latitude index
+         */
+        public int get(int x, int y) {
+            return ints2d[x][y];
+        }
+
+        /**
+         * @param lat is the latitude
+         * @param lon is the longitude
+         * @return the count of the field which contains a position, 0 if the position is outside the grid bounds
+         */
+        public int get(double lat, double lon) {
+            if (lat < minLat || lat > maxLat || lon < minLon || lon > maxLon) {
+                return 0;
+            }
+            return ints2d[(int) ((lon - minLon) / gridSize)][(int) ((lat - minLat) / gridSize)];
+        }
+
+        /**
+         * adds a count to one field, e.g. when a grid is restored from a file
+         *
+         * @param x is the longitude index
+         * @param y is the latitude index
+         * @param n is the position count to add
+         */
+        public void add(int x, int y, int n) {
+            ints2d[x][y] += n;
+            count += n;
+        }
+
+        /**
+         * @return the grid size in degrees
+         */
+        public float gridSize() {
+            return gridSize;
+        }
+
+        /**
+         * @return the grid width (longitude fields)
+         */
+        public int width() {
+            return ints2d.length;
+        }
+
+        /**
+         * @return the grid height (latitude fields)
+         */
+        public int height() {
+            return ints2d[0].length;
+        }
+
+        /**
+         * @return a new, empty {@link Accumulator} with the same grid
+         */
+        @NotNull
+        Accumulator emptyCopy() {
+            return new Accumulator(gridSize, minLat, maxLat, minLon, maxLon);
+        }
+
+        /**
+         * @return the memory size of the grid in bytes
+         */
+        long gridBytes() {
+            return (long) ints2d.length * ints2d[0].length * Integer.BYTES;
+        }
+
+        /**
+         * creates the Bitmap of all counted positions with linear levels
+         *
+         * @return new Bitmap with the position counts
+         */
+        @NotNull
+        public Bitmap toBitmap() {
+            return toBitmap(Quantizer.Scaling.LINEAR);
+        }
+
+        /**
+         * creates the Bitmap of all counted positions, the counts are not changed
+         *
+         * @param scaling is the level {@link Quantizer.Scaling}
+         * @return new Bitmap with the position counts
+         */
+        @NotNull
+        public Bitmap toBitmap(@NotNull Quantizer.Scaling scaling) {
+            return new Bitmap(Quantizer.quantize(ints2d, scaling),
+                              new Header(gridSize, minLat, maxLat, minLon, maxLon, scaling));
+        }
+    }
 }
@@ -0,0 +1,235 @@
+package planespotter.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+
+/**
+ * @name HeatmapBuilder
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class HeatmapBuilder counts streamed positions into a {@link Bitmap}-grid on multiple threads, without races.
+ * The producer (e.g. a database cursor) adds the positions one by one, they are collected in primitive batches,
+ * every batch is counted by a worker of an own {@link ForkJoinPool} into the grid of that worker thread.
+ * At the end, the per-thread grids are merged by a fork-join reduction. Integer addition is associative,
+ * so the counts are identical at any parallelism.
+ * The parallelism is limited by the memory, every worker thread needs a whole grid, a fine global grid
+ * can be so huge that only one grid fits into the heap, then the positions are counted on one thread.
+ * A HeatmapBuilder is used once: positions are added by one producer thread, then the result is built.
+ * It should be closed in a try-with-resources block, so the workers are stopped even if the producer fails.
+ * @see Bitmap.Accumulator
+ * @see planespotter.model.Statistics#globalPositionBitmap(float)
+ */
+public final class HeatmapBuilder implements AutoCloseable {
+
+    // positions per batch
+    public static final int BATCH_SIZE = 1 << 16;
+
+    // max. part of the heap for the grids
+    private static final double MAX_HEAP_PART = 0.25;
+
+    // empty grid prototype
+    @NotNull private final Bitmap.Accumulator template;
+
+    // workers, null if the positions are counted on the producer thread
+    private final ForkJoinPool pool;
+
+    // grid of every worker thread
+    @NotNull private final Map<Thread, Bitmap.Accumulator> grids;
+
+    // limits the batches in memory, the producer waits if the workers are behind
+    private final Semaphore inFlight;
+
+    // max. batch count in memory
+    private final int maxInFlight;
+
+    // current batch, latitudes and longitudes alternating
+    private double[] batch;
+
+    // used positions of the current batch
+    private int batchSize;
+
+    // the merged grid, null until the result is built
+    private Bitmap.Accumulator result;
+
+    /**
+     * constructs a new {@link HeatmapBuilder} with one worker per processor
+     *
+     * @param template is an empty {@link Bitmap.Accumulator}, its grid is used by every worker,
+     *                 see {@link Bitmap#accumulator(float)}
+     */
+    public HeatmapBuilder(@NotNull Bitmap.Accumulator template) {
+        this(template, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * constructs a new {@link HeatmapBuilder}
+     *
+     * @param template is an empty {@link Bitmap.Accumulator}, its grid is used by every worker,
+     *                 see {@link Bitmap#accumulator(float)}
+     * @param parallelism is the max. worker count, limited by the heap size
+     */
+    public HeatmapBuilder(@NotNull Bitmap.Accumulator template, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be 1 or higher!");
+        }
+        long maxGrids = (long) (Runtime.getRuntime().maxMemory() * MAX_HEAP_PART / template.gridBytes());
+        int workers = (int) Math.min(parallelism, maxGrids);
+        this.template = template;
+        this.grids = new ConcurrentHashMap<>();
+        this.maxInFlight = workers * 2;
+        if (workers > 1) {
+            this.pool = new ForkJoinPool(workers);
+            this.inFlight = new Semaphore(maxInFlight);
+            this.batch = new double[BATCH_SIZE * 2];
+        } else {
+            this.pool = null;
+            this.inFlight = null;
+        }
+        this.batchSize = 0;
+        this.result = null;
+    }
+
+    /**
+     * adds one position, must be called by one producer thread,
+     * can be used as position visitor
+     *
+     * @param lat is the latitude
+     * @param lon is the longitude
+     */
+    public void add(double lat, double lon) {
+        if (pool == null) {
+            template.add(lat, lon);
+            return;
+        }
+        int index = batchSize++ * 2;
+        batch[index] = lat;
+        batch[index + 1] = lon;
+        if (batchSize == BATCH_SIZE) {
+            submit();
+        }
+    }
+
+    /**
+     * waits for all batches and merges the per-thread grids, the builder can't be used afterwards
+     *
+     * @return the merged {@link Bitmap.Accumulator} with all counted positions
+     */
+    @NotNull
+    public Bitmap.Accumulator merge() {
+        if (result != null) {
+            return result;
+        } else if (pool == null) {
+            return result = template;
+        }
+        try {
+            if (batchSize > 0) {
+                submit();
+            }
+            // all permits are free when every batch is counted
+            inFlight.acquireUninterruptibly(maxInFlight);
+            List<Bitmap.Accumulator> parts = new ArrayList<>(grids.values());
+            result = parts.isEmpty()
+                    ? template
+                    : pool.invoke(new MergeTask(parts.toArray(Bitmap.Accumulator[]::new), 0, parts.size()));
+        } finally {
+            pool.shutdown();
+            batch = null;
+        }
+        return result;
+    }
+
+    /**
+     * @return the {@link Bitmap} of all counted positions
+     */
+    @NotNull
+    public Bitmap toBitmap() {
+        return merge().toBitmap();
+    }
+
+    /**
+     * @return the count of all counted positions, waits for all batches
+     */
+    public long count() {
+        return merge().count();
+    }
+
+    /**
+     * @return the worker count, 1 if the positions are counted on the producer thread
+     */
+    public int parallelism() {
+        return (pool == null) ? 1 : pool.getParallelism();
+    }
+
+    /**
+     * stops the workers, batches which are not counted yet are dropped,
+     * the merged result stays valid
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+            batch = null;
+        }
+    }
+
+    /**
+     * hands the current batch to a worker, which counts it into the grid of its thread
+     */
+    private void submit() {
+        final double[] positions = batch;
+        final int size = batchSize;
+        inFlight.acquireUninterruptibly();
+        // not tracked as task, a finished batch is garbage right away
+        pool.execute(() -> {
+            try {
+                Bitmap.Accumulator grid = grids.computeIfAbsent(Thread.currentThread(), t -> template.emptyCopy());
+                for (int i = 0; i < size * 2; i += 2) {
+                    grid.add(positions[i], positions[i + 1]);
+                }
+            } finally {
+                inFlight.release();
+            }
+        });
+        batch = new double[BATCH_SIZE * 2];
+        batchSize = 0;
+    }
+
+    /**
+     * merges a range of grids by halves, the left grid of every pair gets the sum
+     */
+    private static final class MergeTask extends RecursiveTask<Bitmap.Accumulator> {
+
+        // serial version, fork-join tasks are serializable
+        private static final long serialVersionUID = 1L;
+
+        private final Bitmap.Accumulator[] grids;
+        private final int from, to;
+
+        private MergeTask(Bitmap.Accumulator[] grids, int from, int to) {
+            this.grids = grids;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Bitmap.Accumulator compute() {
+            if (to - from == 1) {
+                return grids[from];
+            }
+            int mid = (from + to) >>> 1;
+            MergeTask left = new MergeTask(grids, from, mid);
+            left.fork();
+            Bitmap.Accumulator right = new MergeTask(grids, mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+}
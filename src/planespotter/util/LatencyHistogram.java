@@ -0,0 +1,137 @@
+package planespotter.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @name LatencyHistogram
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class LatencyHistogram is a lock-free latency histogram with power-of-2 buckets in nanoseconds.
+ * Bucket i contains all values in [2^(i-1), 2^i), so recording is one array increment,
+ * and percentiles are exact up to a factor of 2, which is enough for latency monitoring.
+ */
+public final class LatencyHistogram {
+
+    // bucket count, one per possible bit length of a positive long
+    private static final int BUCKETS = 64;
+
+    // histogram name, used in the summary
+    @NotNull private final String name;
+
+    // bucket counters
+    private final AtomicLongArray buckets;
+
+    // value count and sum
+    private final LongAdder count, sum;
+
+    // max. value
+    private final AtomicLong max;
+
+    /**
+     * constructs a new, empty {@link LatencyHistogram}
+     *
+     * @param name is the histogram name
+     */
+    public LatencyHistogram(@NotNull String name) {
+        this.name = name;
+        this.buckets = new AtomicLongArray(BUCKETS);
+        this.count = new LongAdder();
+        this.sum = new LongAdder();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * records a latency value
+     *
+     * @param nanos is the latency in nanoseconds, negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        nanos = Math.max(nanos, 0L);
+        buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(nanos));
+        count.increment();
+        sum.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * @return the count of recorded values
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * @return the mean latency in nanoseconds, 0 if nothing was recorded
+     */
+    public long mean() {
+        long c = count.sum();
+        return (c == 0L) ? 0L : sum.sum() / c;
+    }
+
+    /**
+     * @return the max. latency in nanoseconds
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * returns the upper bound of the bucket which contains a percentile
+     *
+     * @param percentile is the percentile, from 0 to 100
+     * @return the percentile latency in nanoseconds (upper bucket bound), 0 if nothing was recorded
+     */
+    public long percentile(double percentile) {
+        if (percentile < 0. || percentile > 100.) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100!");
+        }
+        long total = count.sum();
+        if (total == 0L) {
+            return 0L;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.), seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= Math.max(rank, 1L)) {
+                // the max. value is a better bound for the last bucket
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * resets all counters
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0L);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0L);
+    }
+
+    /**
+     * @return a one-line summary with count, mean, p50, p99 and max in milliseconds
+     */
+    @NotNull
+    @Override
+    public String toString() {
+        return String.format("%s: n=%d, mean=%.2f ms, p50=%.2f ms, p99=%.2f ms, max=%.2f ms", name, count(),
+                             mean() / 1e6, percentile(50.) / 1e6, percentile(99.) / 1e6, max() / 1e6);
+    }
+
+    /**
+     * @return the (inclusive) upper bound of a bucket
+     */
+    private static long upperBound(int bucket) {
+        return (bucket == 0) ? 0L : (bucket >= 63) ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+}
@@ -0,0 +1,232 @@
+package planespotter.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Range;
+import planespotter.throwables.InvalidArrayException;
+import planespotter.throwables.OutOfRangeException;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * @name Quantizer
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class Quantizer converts 2D-int count grids into {@link Bitmap} byte levels in pure Java,
+ * it replaces the native Filler and highestValue functions, which only exist as Windows DLLs,
+ * so heatmaps are identical on every platform.
+ * The max-scan and the conversion run column-parallel on the common fork-join pool, the inner loops
+ * are primitive loops over one column, which are vectorized by the JIT.
+ * A count of 0 is always level -128 (no positions), counts higher than 0 are scaled to -127..127
+ * with the {@link Scaling} of the grid.
+ * @see Bitmap#fromInt2d(int[][], Scaling)
+ */
+public final class Quantizer {
+
+    // percentile of the non-zero counts which is the highest level with PERCENTILE scaling
+    public static final double PERCENTILE = 0.99;
+
+    // byte levels for non-zero counts
+    private static final int LEVELS = 255;
+
+    // bits of one percentile histogram digit, a count is found by its high and its low digit
+    private static final int DIGIT_BITS = 16;
+
+    /**
+     * level scalings, linear spreads the counts evenly, log shows hot spots and sparse regions together,
+     * percentile scales linear up to the 99th percentile of the non-zero counts, so single outliers
+     * don't darken the whole map
+     */
+    public enum Scaling {
+        LINEAR,
+        LOG,
+        PERCENTILE
+    }
+
+    /**
+     * private constructor, no instances
+     */
+    private Quantizer() {
+        throw new UnsupportedOperationException("Quantizer can't be instantiated!");
+    }
+
+    /**
+     * finds the highest value of a 2D-int array, column-parallel
+     *
+     * @param ints2d is the 2D-int array
+     * @return the highest value, 0 if the array only contains values of 0 or lower
+     */
+    public static int highestValue(int[][] ints2d) {
+        return Arrays.stream(ints2d)
+                .parallel()
+                .mapToInt(Quantizer::max)
+                .max()
+                .orElse(0);
+    }
+
+    /**
+     * converts a 2D-int count array into byte levels
+     *
+     * @param ints2d is the count array, every count must be 0 or higher
+     * @param scaling is the {@link Scaling} of the levels
+     * @return new 2D-byte array with the same size
+     */
+    @NotNull
+    public static byte[][] quantize(int[][] ints2d, @NotNull Scaling scaling) {
+        if (ints2d.length == 0 || ints2d[0].length == 0) {
+            throw new InvalidArrayException("input array is empty, width or height out of range!");
+        }
+        byte[][] bytes = new byte[ints2d.length][ints2d[0].length];
+        fill(bytes, ints2d, scaling);
+        return bytes;
+    }
+
+    /**
+     * fills a 2D-byte array with the byte levels of a 2D-int count array
+     *
+     * @param bytes is the byte array to fill, must have the same size as the count array
+     * @param ints2d is the count array, every count must be 0 or higher
+     * @param scaling is the {@link Scaling} of the levels
+     */
+    public static void fill(byte[][] bytes, int[][] ints2d, @NotNull Scaling scaling) {
+        int max = highestValue(ints2d);
+        int top = switch (scaling) {
+            case LINEAR, LOG -> max;
+            case PERCENTILE -> percentile(ints2d, PERCENTILE);
+        };
+        // factor from the scaled count to the level, counts of 1 are always level 1,
+        // rounded up, so the top count always gets the highest level
+        final float factor = (scaling == Scaling.LOG)
+                ? (top <= 1) ? 0f : Math.nextUp((LEVELS - 1) / (float) Math.log(top))
+                : (top <= 1) ? 0f : Math.nextUp((LEVELS - 1) / (float) (top - 1));
+        final int cap = Math.max(1, top);
+        IntStream.range(0, ints2d.length)
+                .parallel()
+                .forEach(x -> {
+                    if (scaling == Scaling.LOG) {
+                        logColumn(bytes[x], ints2d[x], factor);
+                    } else {
+                        linearColumn(bytes[x], ints2d[x], factor, cap);
+                    }
+                });
+    }
+
+    /**
+     * converts one count to a linear byte level
+     *
+     * @param count is the count, 0 or higher
+     * @param max is the highest count, 1 or higher
+     * @return the byte level of the count
+     */
+    public static byte level(@Range(from = 0, to = Integer.MAX_VALUE) int count, @Range(from = 1, to = Integer.MAX_VALUE) int max) {
+        if (count < 0 || max <= 0) {
+            throw new OutOfRangeException("count or max is out of range!");
+        }
+        float factor = (max <= 1) ? 0f : Math.nextUp((LEVELS - 1) / (float) (max - 1));
+        return linear(Math.min(count, max), factor);
+    }
+
+    /**
+     * finds a percentile of the non-zero counts, by a histogram of the high 16 bits of the counts
+     * and a histogram of the low 16 bits in the bucket of the percentile,
+     * so the grid is scanned twice and never copied or sorted
+     *
+     * @param ints2d is the count array
+     * @param percentile is the percentile, between 0 and 1
+     * @return the count at the percentile, 0 if there are no non-zero counts
+     */
+    public static int percentile(int[][] ints2d, @Range(from = 0, to = 1) double percentile) {
+        long[] high = histogram(ints2d, DIGIT_BITS, -1);
+        long total = 0;
+        for (long n : high) {
+            total += n;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        // index of the percentile in the sorted non-zero counts
+        long[] rank = { Math.min(total - 1, Math.round(percentile * (total - 1))) };
+        int highDigit = bucketOf(high, rank);
+        int lowDigit = bucketOf(histogram(ints2d, 0, highDigit), rank);
+        return (highDigit << DIGIT_BITS) | lowDigit;
+    }
+
+    /**
+     * counts the non-zero counts per digit, column-parallel
+     *
+     * @param shift is the shift of the digit, 16 for the high digit, 0 for the low digit
+     * @param highDigit is the high digit of the counted counts, -1 to count all
+     * @return the count per digit value
+     */
+    private static long[] histogram(int[][] ints2d, int shift, int highDigit) {
+        final int mask = (1 << DIGIT_BITS) - 1;
+        return IntStream.range(0, ints2d.length)
+                .parallel()
+                .collect(() -> new long[1 << DIGIT_BITS], (histogram, x) -> {
+                    for (int n : ints2d[x]) {
+                        if (n > 0 && (highDigit < 0 || n >>> DIGIT_BITS == highDigit)) {
+                            histogram[(n >>> shift) & mask]++;
+                        }
+                    }
+                }, (a, b) -> {
+                    for (int i = 0; i < a.length; i++) {
+                        a[i] += b[i];
+                    }
+                });
+    }
+
+    /**
+     * finds the bucket of a rank in a histogram and makes the rank relative to the bucket
+     *
+     * @param histogram is the histogram
+     * @param rank is the rank in the histogram, one element, it is the rank in the bucket afterwards
+     * @return the bucket which contains the rank
+     */
+    private static int bucketOf(long[] histogram, long[] rank) {
+        int bucket = 0;
+        while (rank[0] >= histogram[bucket]) {
+            rank[0] -= histogram[bucket++];
+        }
+        return bucket;
+    }
+
+    /**
+     * @return the highest value of one column
+     */
+    private static int max(int[] column) {
+        int max = 0;
+        for (int n : column) {
+            max = Math.max(max, n);
+        }
+        return max;
+    }
+
+    /**
+     * converts one column linear, counts higher than the cap get the highest level
+     */
+    private static void linearColumn(byte[] levels, int[] counts, float factor, int cap) {
+        for (int y = 0; y < counts.length; y++) {
+            levels[y] = linear(Math.min(counts[y], cap), factor);
+        }
+    }
+
+    /**
+     * converts one column logarithmic
+     */
+    private static void logColumn(byte[] levels, int[] counts, float factor) {
+        int n;
+        for (int y = 0; y < counts.length; y++) {
+            n = counts[y];
+            levels[y] = (n == 0) ? -128 : (byte) (1 + Math.min(LEVELS - 1, (int) (Math.log(n) * factor)) - 128);
+        }
+    }
+
+    /**
+     * @return the linear byte level of a count which is not higher than the top count
+     */
+    private static byte linear(int count, float factor) {
+        return (count == 0) ? -128 : (byte) (1 + Math.min(LEVELS - 1, (int) ((count - 1) * factor)) - 128);
+    }
+}
@@ -0,0 +1,401 @@
+package planespotter.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Range;
+import planespotter.dataclasses.Area;
+import planespotter.dataclasses.Position;
+import planespotter.throwables.InvalidArrayException;
+import planespotter.throwables.OutOfRangeException;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.Arrays;
+import java.util.Vector;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * @name SparseBitmap
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class SparseBitmap is a position count grid for fine grid sizes, which is split into fixed-size tiles
+ * of {@link SparseBitmap#TILE_SIZE}x{@link SparseBitmap#TILE_SIZE} fields. A tile is allocated when
+ * the first position is counted into it, so empty regions (e.g. the oceans) don't use any memory
+ * and the memory usage depends on the covered region, not on the grid size.
+ * A grid can be bounded to an {@link Area}, then only the area is covered (x = longitude, y = latitude,
+ * from the bottom-left corner, like {@link Bitmap#fromPosVector(Vector, float, Area)}).
+ * It can be converted to byte levels ({@link Bitmap}) and images and combined field by field
+ * with other grids of the same bounds.
+ * A SparseBitmap is not thread-safe, it should be filled by one thread.
+ * @see Bitmap
+ */
+public final class SparseBitmap {
+
+    // tile size as power of 2 and tile size in fields per axis
+    public static final int TILE_BITS = 6, TILE_SIZE = 1 << TILE_BITS;
+
+    // minimum grid size, the tile table of a global grid grows with the field count
+    public static final float MIN_GRID_SIZE = 0.005f;
+
+    // field index mask inside a tile
+    private static final int TILE_MASK = TILE_SIZE - 1;
+
+    // grid size in degrees
+    private final float gridSize;
+
+    // grid bounds, the min. values are the grid origin
+    private final double minLat, maxLat, minLon, maxLon;
+
+    // grid size in fields and in tiles
+    private final int width, height, tilesX, tilesY;
+
+    // tiles, x-major, null if no position was counted into a tile
+    private final int[][] tiles;
+
+    // counted positions and allocated tiles
+    private long count;
+    private int tileCount;
+
+    /**
+     * constructs a new, empty {@link SparseBitmap}
+     */
+    private SparseBitmap(float gridSize, double minLat, double maxLat, double minLon, double maxLon) {
+        if (gridSize < MIN_GRID_SIZE) {
+            throw new OutOfRangeException("grid size must be " + MIN_GRID_SIZE + " or higher!");
+        }
+        this.gridSize = gridSize;
+        this.minLat = minLat;
+        this.maxLat = maxLat;
+        this.minLon = minLon;
+        this.maxLon = maxLon;
+        this.width = (int) ((maxLon - minLon) / gridSize) + 1;
+        this.height = (int) ((maxLat - minLat) / gridSize) + 1;
+        this.tilesX = (width + TILE_MASK) >> TILE_BITS;
+        this.tilesY = (height + TILE_MASK) >> TILE_BITS;
+        this.tiles = new int[tilesX * tilesY][];
+        this.count = 0L;
+        this.tileCount = 0;
+    }
+
+    /**
+     * creates a new, empty {@link SparseBitmap} which covers the whole world
+     *
+     * @param gridSize is the grid size in degrees
+     * @return new global {@link SparseBitmap}
+     */
+    @NotNull
+    public static SparseBitmap global(@Range(from = 0, to = 2) float gridSize) {
+        return new SparseBitmap(gridSize, -90, 90, -180, 180);
+    }
+
+    /**
+     * creates a new, empty {@link SparseBitmap} which only covers an {@link Area},
+     * positions outside the area are ignored
+     *
+     * @param gridSize is the grid size in degrees
+     * @param area is the {@link Area} of the grid, corners in any order
+     * @return new {@link SparseBitmap} of the area
+     */
+    @NotNull
+    public static SparseBitmap forArea(@Range(from = 0, to = 2) float gridSize, @NotNull Area area) {
+        Position topLeft = area.getTopLeft(),
+                 bottomRight = area.getBottomRight();
+        return new SparseBitmap(gridSize,
+                                Math.min(topLeft.lat(), bottomRight.lat()), Math.max(topLeft.lat(), bottomRight.lat()),
+                                Math.min(topLeft.lon(), bottomRight.lon()), Math.max(topLeft.lon(), bottomRight.lon()));
+    }
+
+    /**
+     * creates a {@link SparseBitmap} from a position vector, but only for a certain {@link Area}
+     *
+     * @param positions are the positions to count
+     * @param gridSize is the grid size in degrees
+     * @param area is the {@link Area} of the grid
+     * @return new {@link SparseBitmap} with the position counts
+     */
+    @NotNull
+    public static SparseBitmap fromPosVector(@NotNull Vector<Position> positions, @Range(from = 0, to = 2) float gridSize, @NotNull Area area) {
+        SparseBitmap grid = forArea(gridSize, area);
+        for (Position pos : positions) {
+            grid.add(pos.lat(), pos.lon());
+        }
+        return grid;
+    }
+
+    /**
+     * combines grids field by field, like a fold from the first grid: the operator is applied
+     * to the combined counts and the counts of every further grid, a missing tile counts as zeros,
+     * tiles which are empty in every grid stay empty, so the operator must return 0 for two zero counts
+     *
+     * @param operator is the combine operator, e.g. Integer::sum or Math::max
+     * @param grids are the grids to combine, at least one, all with the same bounds and grid size
+     * @return new {@link SparseBitmap} with the combined counts
+     */
+    @NotNull
+    public static SparseBitmap combine(@NotNull IntBinaryOperator operator, @NotNull SparseBitmap... grids) {
+        if (grids.length == 0) {
+            throw new InvalidArrayException("At least one grid is required!");
+        }
+        SparseBitmap first = grids[0],
+                     result = new SparseBitmap(first.gridSize, first.minLat, first.maxLat, first.minLon, first.maxLon);
+        for (SparseBitmap grid : grids) {
+            result.checkBounds(grid);
+        }
+        int[] zeros = new int[TILE_SIZE * TILE_SIZE];
+        int[] target, source;
+        boolean allocated;
+        for (int t = 0; t < result.tiles.length; t++) {
+            allocated = false;
+            for (SparseBitmap grid : grids) {
+                allocated |= grid.tiles[t] != null;
+            }
+            if (!allocated) {
+                continue;
+            }
+            // missing tiles are zero tiles, so every grid is applied to every field
+            target = (grids[0].tiles[t] == null) ? new int[zeros.length] : grids[0].tiles[t].clone();
+            for (int g = 1; g < grids.length; g++) {
+                source = (grids[g].tiles[t] == null) ? zeros : grids[g].tiles[t];
+                for (int i = 0; i < target.length; i++) {
+                    target[i] = operator.applyAsInt(target[i], source[i]);
+                }
+            }
+            result.tiles[t] = target;
+            result.tileCount++;
+            for (int n : target) {
+                result.count += n;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * counts one position, positions outside the grid bounds are ignored,
+     * can be used as position visitor
+     *
+     * @param lat is the latitude
+     * @param lon is the longitude
+     */
+    public void add(double lat, double lon) {
+        if (lat < minLat || lat > maxLat || lon < minLon || lon > maxLon) {
+            return;
+        }
+        add((int) ((lon - minLon) / gridSize), (int) ((lat - minLat) / gridSize), 1);
+    }
+
+    /**
+     * adds a count to one field, the tile is allocated if it is empty
+     *
+     * @param x is the longitude index
+     * @param y is the latitude index
+     * @param n is the position count to add
+     * @throws OutOfRangeException if the field is outside the grid
+     */
+    public void add(int x, int y, int n) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new OutOfRangeException("Field (" + x + ", " + y + ") is outside the grid!");
+        }
+        int t = (x >> TILE_BITS) * tilesY + (y >> TILE_BITS);
+        int[] tile = tiles[t];
+        if (tile == null) {
+            tile = tiles[t] = new int[TILE_SIZE * TILE_SIZE];
+            tileCount++;
+        }
+        tile[((x & TILE_MASK) << TILE_BITS) | (y & TILE_MASK)] += n;
+        count += n;
+    }
+
+    /**
+     * @return the count of one field, x is the longitude and y the latitude index
+     */
+    public int get(int x, int y) {
+        int[] tile = tiles[(x >> TILE_BITS) * tilesY + (y >> TILE_BITS)];
+        return (tile == null) ? 0 : tile[((x & TILE_MASK) << TILE_BITS) | (y & TILE_MASK)];
+    }
+
+    /**
+     * adds the counts of another {@link SparseBitmap} with the same grid to this one,
+     * the other {@link SparseBitmap} is not changed
+     *
+     * @param other is the other {@link SparseBitmap}, must have the same grid size and bounds
+     * @return this {@link SparseBitmap}
+     */
+    @NotNull
+    public SparseBitmap merge(@NotNull SparseBitmap other) {
+        checkBounds(other);
+        int[] tile, otherTile;
+        for (int t = 0; t < tiles.length; t++) {
+            if ((otherTile = other.tiles[t]) == null) {
+                continue;
+            }
+            if ((tile = tiles[t]) == null) {
+                tiles[t] = otherTile.clone();
+                tileCount++;
+            } else {
+                for (int i = 0; i < tile.length; i++) {
+                    tile[i] += otherTile[i];
+                }
+            }
+        }
+        count += other.count;
+        return this;
+    }
+
+    /**
+     * @return the highest field count
+     */
+    public int max() {
+        int max = 0;
+        for (int[] tile : tiles) {
+            if (tile != null) {
+                for (int n : tile) {
+                    max = Math.max(max, n);
+                }
+            }
+        }
+        return max;
+    }
+
+    /**
+     * converts this grid to a dense {@link Bitmap} with byte levels,
+     * should only be used for areas or coarse grid sizes, the {@link Bitmap} has every field
+     *
+     * @return new {@link Bitmap} with the byte levels of this grid
+     */
+    @NotNull
+    public Bitmap toBitmap() {
+        int max = Math.max(1, max());
+        byte[][] bytes = new byte[width][height];
+        byte zero = Bitmap.level(0, max);
+        for (byte[] column : bytes) {
+            Arrays.fill(column, zero);
+        }
+        forEachTile((tile, x0, y0, w, h) -> {
+            for (int x = 0; x < w; x++) {
+                for (int y = 0; y < h; y++) {
+                    bytes[x0 + x][y0 + y] = Bitmap.level(tile[(x << TILE_BITS) | y], max);
+                }
+            }
+        });
+        return new Bitmap(bytes, new Bitmap.Header(gridSize, minLat, maxLat, minLon, maxLon, Quantizer.Scaling.LINEAR));
+    }
+
+    /**
+     * converts this grid to a grayscale image with the same levels and orientation as
+     * {@link Bitmap#toImage(boolean)}, only the allocated tiles are converted
+     *
+     * @param flip is true if the image should have north at the top, like a map
+     * @return the grayscale {@link BufferedImage} of this grid
+     */
+    @NotNull
+    public BufferedImage toImage(boolean flip) {
+        int max = Math.max(1, max());
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] pixels = ((DataBufferByte) img.getRaster().getDataBuffer()).getData();
+        Arrays.fill(pixels, gray(Bitmap.level(0, max)));
+        forEachTile((tile, x0, y0, w, h) -> {
+            for (int x = 0; x < w; x++) {
+                for (int y = 0; y < h; y++) {
+                    int row = flip ? height - 1 - (y0 + y) : y0 + y;
+                    pixels[row * width + x0 + x] = gray(Bitmap.level(tile[(x << TILE_BITS) | y], max));
+                }
+            }
+        });
+        return img;
+    }
+
+    /**
+     * @return the count of all counted positions
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return the grid size in degrees
+     */
+    public float gridSize() {
+        return gridSize;
+    }
+
+    /**
+     * @return the grid width (longitude fields)
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * @return the grid height (latitude fields)
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * @return the count of allocated tiles
+     */
+    public int tileCount() {
+        return tileCount;
+    }
+
+    /**
+     * @return the memory size of the tile table and the allocated tiles in bytes (approximately)
+     */
+    public long memoryBytes() {
+        return (long) tiles.length * Integer.BYTES + (long) tileCount * TILE_SIZE * TILE_SIZE * Integer.BYTES;
+    }
+
+    /**
+     * overwritten toString() method returns this {@link SparseBitmap} as a {@link String}
+     *
+     * @return {@link String} of this {@link SparseBitmap} object
+     */
+    @Override
+    public String toString() {
+        return "SparseBitmap[" + width + "x" + height + ", " + tileCount + "/" + tiles.length + " tiles]";
+    }
+
+    /**
+     * checks if another grid has the same grid size and bounds
+     */
+    private void checkBounds(@NotNull SparseBitmap other) {
+        if (other.gridSize != gridSize || other.minLat != minLat || other.maxLat != maxLat
+                || other.minLon != minLon || other.maxLon != maxLon) {
+            throw new InvalidArrayException("Sparse bitmaps must have the same grid!");
+        }
+    }
+
+    /**
+     * visits every allocated tile with its field origin and its size inside the grid,
+     * the edge tiles can be smaller than {@link SparseBitmap#TILE_SIZE}
+     */
+    private void forEachTile(@NotNull TileVisitor visitor) {
+        int[] tile;
+        for (int tx = 0; tx < tilesX; tx++) {
+            for (int ty = 0; ty < tilesY; ty++) {
+                if ((tile = tiles[tx * tilesY + ty]) != null) {
+                    int x0 = tx << TILE_BITS,
+                        y0 = ty << TILE_BITS;
+                    visitor.visit(tile, x0, y0, Math.min(TILE_SIZE, width - x0), Math.min(TILE_SIZE, height - y0));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the gray value of a byte level, like {@link Bitmap#toImage(boolean)}
+     */
+    private static byte gray(byte level) {
+        return (byte) (255 - (level + 128));
+    }
+
+    /**
+     * visitor for the allocated tiles
+     */
+    @FunctionalInterface
+    private interface TileVisitor {
+        void visit(int[] tile, int x0, int y0, int width, int height);
+    }
+}
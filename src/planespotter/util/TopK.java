@@ -0,0 +1,143 @@
+package planespotter.util;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * @name TopK
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class TopK keeps the k int-keys with the highest counts of a stream of (key, count)-pairs.
+ * It is a bounded min-heap on two primitive arrays, the smallest kept count is the root,
+ * so every offer costs O(log k) and the memory is O(k), whatever the stream length is.
+ * Every key should be offered only once, with its total count (e.g. from a GROUP BY).
+ * Keys with the same count keep the key which was offered first.
+ */
+public final class TopK {
+
+    // heap keys and counts, index 0 is the smallest count
+    private final int[] keys;
+    private final long[] counts;
+
+    // used heap size
+    private int size;
+
+    /**
+     * constructs a new, empty {@link TopK}
+     *
+     * @param k is the max. key count, 1 or higher
+     */
+    public TopK(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be 1 or higher!");
+        }
+        this.keys = new int[k];
+        this.counts = new long[k];
+        this.size = 0;
+    }
+
+    /**
+     * offers a key with its count, the key is kept if it is one of the k highest counts
+     *
+     * @param key is the key
+     * @param count is the count of the key
+     * @return true if the key was kept
+     */
+    public boolean offer(int key, long count) {
+        if (size < keys.length) {
+            keys[size] = key;
+            counts[size] = count;
+            siftUp(size++);
+            return true;
+        } else if (count <= counts[0]) {
+            return false;
+        }
+        keys[0] = key;
+        counts[0] = count;
+        siftDown(0);
+        return true;
+    }
+
+    /**
+     * @return the count of kept keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the kept keys, highest count first
+     */
+    public int @NotNull [] keys() {
+        int[] sortedKeys = new int[size];
+        long[] sortedCounts = new long[size];
+        sorted(sortedKeys, sortedCounts);
+        return sortedKeys;
+    }
+
+    /**
+     * @return the counts of the kept keys, highest count first, in the order of {@link TopK#keys()}
+     */
+    public long @NotNull [] counts() {
+        int[] sortedKeys = new int[size];
+        long[] sortedCounts = new long[size];
+        sorted(sortedKeys, sortedCounts);
+        return sortedCounts;
+    }
+
+    /**
+     * sorts a copy of the heap, highest count first, by a heap sort on the copy
+     */
+    private void sorted(int[] outKeys, long[] outCounts) {
+        TopK copy = new TopK(keys.length);
+        System.arraycopy(keys, 0, copy.keys, 0, size);
+        System.arraycopy(counts, 0, copy.counts, 0, size);
+        copy.size = size;
+        for (int i = size - 1; i >= 0; i--) {
+            // the root is the smallest remaining count
+            outKeys[i] = copy.keys[0];
+            outCounts[i] = copy.counts[0];
+            copy.size--;
+            copy.swap(0, copy.size);
+            copy.siftDown(0);
+        }
+    }
+
+    /**
+     * moves an entry up until its parent has a smaller count
+     */
+    private void siftUp(int i) {
+        int parent;
+        while (i > 0 && counts[parent = (i - 1) >>> 1] > counts[i]) {
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    /**
+     * moves an entry down until its children have higher counts
+     */
+    private void siftDown(int i) {
+        int child;
+        while ((child = 2 * i + 1) < size) {
+            if (child + 1 < size && counts[child + 1] < counts[child]) {
+                child++;
+            }
+            if (counts[i] <= counts[child]) {
+                return;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        long count = counts[a];
+        counts[a] = counts[b];
+        counts[b] = count;
+    }
+}
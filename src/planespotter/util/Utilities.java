@@ -26,7 +26,6 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.InaccessibleObjectException;
 import java.net.*;
-import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -241,29 +240,6 @@ public final class Utilities {
                 ? ADSBFrame.SIZE : Frame.SIZE;
     }
 
-    /**
-     * parses a float to byte array
-     *
-     * @param f is the float to parse
-     * @return byte array (length of 4) containing the float value
-     */
-    public static byte[] floatToBytes(float f) {
-        return ByteBuffer.allocate(4).putFloat(f).array();
-    }
-
-    /**
-     * parses a byte array to float
-     *
-     * @param bytes is the byte array to parse, should be with length 4
-     * @return float, parsed from byte array
-     */
-    public static float bytesToFloat(byte[] bytes) {
-        if (bytes.length < 4) {
-            throw new InvalidDataException("byte array must at least contain 4 bytes");
-        }
-        return ByteBuffer.wrap(bytes).getFloat();
-    }
-
     public static Size2D checkBmpSize(@NotNull Bitmap[] bmps) {
         int c = 0, w = 0, h = 0;
         for (Bitmap bmp : bmps) {
@@ -290,7 +266,7 @@ public final class Utilities {
     public static Collection<Area> calculateInterestingAreas(double latGridSize, double lonGridSize, int interestingByteLvl) throws DataNotFoundException {
         Collection<Area> interesting = Collections.synchronizedCollection(new ArrayDeque<>());
         String[] raster = Areas.getWorldAreaRaster1D(latGridSize, lonGridSize);
-        // TODO: 24.12.2022 REPLACE WITH .bmp FILE
+        // read from the persistent density grid, no tracking scan
         byte[][] bmp = new Statistics().globalPositionBitmap(1.0f).getBitmap();
         Arrays.stream(raster)
                 .parallel()
@@ -0,0 +1,414 @@
+package planespotter.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * @name WeightedCache
+ * @author jml04
+ * @version 1.0
+ * @param <K> is the Key class
+ * @param <V> is the Value class
+ *
+ * @description
+ * Class WeightedCache is a concurrent cache with segmented-LRU eviction, bounded by the weight of its values
+ * instead of the entry count, so one big value (e.g. a Vector with a million DataPoints) counts as much as it weighs.
+ * New entries start in the probation segment and are promoted to the protected segment on their second use,
+ * so one-time results (scans) can't push out frequently used entries. The protected segment holds max. 80%
+ * of the weight, its least recently used entries are demoted to the probation segment.
+ * Reads are lock-free: a hit is recorded in a lossy ring buffer, which is drained into the LRU-lists
+ * under the eviction lock by the next write (or a read which finds the buffer full).
+ * Removed and evicted nodes release their value at once, so a node which is still in the read buffer
+ * doesn't keep a heavy value reachable beyond the max. weight.
+ * Writes and evictions are serialized by the eviction lock, values which are heavier than the max. weight
+ * are not cached. Hit, miss and eviction counters are exposed for monitoring.
+ */
+public final class WeightedCache<K, V> {
+
+    // read buffer size, must be a power of 2
+    private static final int READ_BUFFER_SIZE = 128;
+
+    // protected segment share of the max. weight, in percent
+    private static final int PROTECTED_PERCENT = 80;
+
+    // cache entries, read without lock
+    @NotNull private final ConcurrentHashMap<K, Node<K, V>> map;
+
+    // weight function for the values
+    @NotNull private final ToLongFunction<V> weigher;
+
+    // lossy buffer for recorded reads
+    @NotNull private final AtomicReferenceArray<Node<K, V>> readBuffer;
+
+    // read buffer write counter
+    @NotNull private final AtomicLong readCounter;
+
+    // guards the LRU-lists and the weights
+    @NotNull private final ReentrantLock evictionLock;
+
+    // LRU-lists with sentinel heads, the eldest node is head.next
+    @NotNull private final Node<K, V> probation, protectedSegment;
+
+    // hit, miss and eviction counters
+    @NotNull private final LongAdder hits, misses, evictions;
+
+    // max. total weight
+    private volatile long maxWeight;
+
+    // current total and protected weight, guarded by the eviction lock
+    private long weight, protectedWeight;
+
+    // read buffer drain counter, guarded by the eviction lock
+    private long drained;
+
+    /**
+     * constructor for {@link WeightedCache}
+     *
+     * @param maxWeight is the max. total weight of the cached values
+     * @param weigher is the weight function, every value weighs at least 1
+     */
+    public WeightedCache(long maxWeight, @NotNull ToLongFunction<V> weigher) {
+        this.map = new ConcurrentHashMap<>();
+        this.weigher = weigher;
+        this.readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        this.readCounter = new AtomicLong();
+        this.evictionLock = new ReentrantLock();
+        this.probation = Node.sentinel();
+        this.protectedSegment = Node.sentinel();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+        this.maxWeight = Math.max(maxWeight, 0L);
+        this.weight = 0L;
+        this.protectedWeight = 0L;
+        this.drained = 0L;
+    }
+
+    /**
+     * returns a value from the cache by key, if one exists, without locking
+     *
+     * @param key is the key paired with the value
+     * @return the value paired with the key or null, if the key was not found
+     */
+    @Nullable
+    public V get(@NotNull K key) {
+        Node<K, V> node = map.get(key);
+        // the value is null if the node was evicted meanwhile
+        V value = (node == null) ? null : node.value;
+        if (value == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        recordRead(node);
+        return value;
+    }
+
+    /**
+     * puts a value with a key into the cache, replaces an existing value,
+     * evicts the least recently used entries if the max. weight is exceeded
+     *
+     * @param key is the key of type K
+     * @param value is the value of type V
+     * @return true if the value was cached, false if it is heavier than the max. weight
+     */
+    public boolean put(@NotNull K key, @NotNull V value) {
+        long valueWeight = Math.max(weigher.applyAsLong(value), 1L);
+        if (valueWeight > maxWeight) {
+            remove(key);
+            return false;
+        }
+        Node<K, V> node = new Node<>(key, value, valueWeight);
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            Node<K, V> old = map.put(key, node);
+            if (old != null) {
+                release(old);
+            }
+            link(probation, node);
+            weight += valueWeight;
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * removes an entry from the cache, if it is present
+     *
+     * @param key is the key of the entry to remove
+     */
+    public void remove(@NotNull K key) {
+        evictionLock.lock();
+        try {
+            Node<K, V> node = map.remove(key);
+            if (node != null) {
+                release(node);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * removes all entries
+     */
+    public void clear() {
+        evictionLock.lock();
+        try {
+            map.clear();
+            for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+                readBuffer.set(i, null);
+            }
+            // unlinking every node, so late recorded reads of removed nodes are ignored
+            while (probation.next != probation) {
+                release(probation.next);
+            }
+            while (protectedSegment.next != protectedSegment) {
+                release(protectedSegment.next);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * sets the max. total weight, evicts entries if needed
+     *
+     * @param maxWeight is the new max. weight
+     */
+    public void setMaxWeight(long maxWeight) {
+        evictionLock.lock();
+        try {
+            this.maxWeight = Math.max(maxWeight, 0L);
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * @return the max. total weight
+     */
+    public long maxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * @return the current total weight
+     */
+    public long weight() {
+        evictionLock.lock();
+        try {
+            return weight;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * @return the cached entry count
+     */
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * @return the count of found keys
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the count of missing keys
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the count of evicted entries
+     */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return a one-line summary with size, weight and counters
+     */
+    @NotNull
+    @Override
+    public String toString() {
+        return String.format("WeightedCache: size=%d, weight=%d/%d, hits=%d, misses=%d, evictions=%d",
+                             size(), weight(), maxWeight, hits(), misses(), evictions());
+    }
+
+    /**
+     * records a read in the lossy read buffer, drains the buffer if it is full
+     * and the eviction lock is free, reads are dropped if the buffer is full
+     */
+    private void recordRead(@NotNull Node<K, V> node) {
+        long index = readCounter.getAndIncrement();
+        readBuffer.lazySet((int) (index & (READ_BUFFER_SIZE - 1)), node);
+        if ((index & (READ_BUFFER_SIZE - 1)) == READ_BUFFER_SIZE - 1 && evictionLock.tryLock()) {
+            try {
+                drainReadBuffer();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * applies the buffered reads to the LRU-lists, must hold the eviction lock
+     */
+    private void drainReadBuffer() {
+        long end = readCounter.get();
+        // older reads were overwritten, only the last buffer length can be applied
+        long start = Math.max(drained, end - READ_BUFFER_SIZE);
+        Node<K, V> node;
+        for (long i = start; i < end; i++) {
+            node = readBuffer.getAndSet((int) (i & (READ_BUFFER_SIZE - 1)), null);
+            if (node != null && node.isLinked()) {
+                onAccess(node);
+            }
+        }
+        drained = end;
+        evict();
+    }
+
+    /**
+     * moves an accessed node to the protected segment, must hold the eviction lock
+     */
+    private void onAccess(@NotNull Node<K, V> node) {
+        if (!node.inProtected) {
+            unlink(node);
+            node.inProtected = true;
+            link(protectedSegment, node);
+            weight += node.weight;
+            protectedWeight += node.weight;
+        } else {
+            // moving to the most recently used position
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            link(protectedSegment, node);
+        }
+        // demoting the least recently used protected nodes
+        long protectedMax = maxWeight * PROTECTED_PERCENT / 100;
+        Node<K, V> eldest;
+        while (protectedWeight > protectedMax && (eldest = protectedSegment.next) != protectedSegment) {
+            unlink(eldest);
+            eldest.inProtected = false;
+            link(probation, eldest);
+            weight += eldest.weight;
+        }
+    }
+
+    /**
+     * evicts the least recently used nodes, first from the probation segment,
+     * until the max. weight is reached, must hold the eviction lock
+     */
+    private void evict() {
+        Node<K, V> eldest;
+        while (weight > maxWeight) {
+            eldest = (probation.next != probation) ? probation.next : protectedSegment.next;
+            if (eldest == protectedSegment) {
+                return;
+            }
+            map.remove(eldest.key, eldest);
+            release(eldest);
+            evictions.increment();
+        }
+    }
+
+    /**
+     * links a node before the sentinel head, which is the most recently used position of a segment,
+     * the weights are updated by the caller
+     */
+    private static <K, V> void link(@NotNull Node<K, V> head, @NotNull Node<K, V> node) {
+        node.prev = head.prev;
+        node.next = head;
+        head.prev.next = node;
+        head.prev = node;
+    }
+
+    /**
+     * unlinks a node which left the cache and drops its value, the read buffer may still reference the node
+     * until the next drain, must hold the eviction lock
+     */
+    private void release(@NotNull Node<K, V> node) {
+        unlink(node);
+        node.value = null;
+    }
+
+    /**
+     * unlinks a node from its segment and subtracts its weight, must hold the eviction lock
+     */
+    private void unlink(@NotNull Node<K, V> node) {
+        if (!node.isLinked()) {
+            return;
+        }
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = node.next = null;
+        weight -= node.weight;
+        if (node.inProtected) {
+            protectedWeight -= node.weight;
+        }
+    }
+
+    /**
+     * a cache node, a list node of one of the LRU-lists
+     */
+    private static final class Node<K, V> {
+
+        // key, null in sentinels
+        private final K key;
+
+        // value, null in sentinels and after the node left the cache
+        private volatile V value;
+
+        // weight of the value
+        private final long weight;
+
+        // list pointers, guarded by the eviction lock
+        private Node<K, V> prev, next;
+
+        // segment flag, guarded by the eviction lock
+        private boolean inProtected;
+
+        private Node(K key, V value, long weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.inProtected = false;
+        }
+
+        /**
+         * @return a new sentinel head of an empty list
+         */
+        @NotNull
+        private static <K, V> Node<K, V> sentinel() {
+            Node<K, V> head = new Node<>(null, null, 0L);
+            head.prev = head.next = head;
+            return head;
+        }
+
+        /**
+         * @return true if this node is in a list
+         */
+        private boolean isLinked() {
+            return next != null;
+        }
+    }
+}
@@ -1,22 +1,26 @@
 package planespotter.util.combine;
 
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import planespotter.util.Bitmap;
 import planespotter.util.Utilities;
 import planespotter.util.math.MathUtils;
 import planespotter.util.math.Size2D;
 
-import java.util.Queue;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public abstract class BitmapCombiner extends Combiner<Bitmap> {
 
-    protected static final int MODE_MEAN = 1,
-                               MODE_MAX  = 2,
-                               MODE_BIN  = 3;
+    protected static final int MODE_MEAN     = 1,
+                               MODE_MAX      = 2,
+                               MODE_BIN      = 3,
+                               MODE_WEIGHTED = 4,
+                               MODE_DIFF     = 5;
 
-    protected static final Object C_LOCK = new Object();
+    // min. field count of a combine task, smaller column ranges are not split
+    private static final int TILE_FIELDS = 1 << 16;
 
     public BitmapCombiner(Bitmap... initElements) {
         super(initElements);
@@ -24,87 +28,117 @@ public abstract class BitmapCombiner extends Combiner<Bitmap> {
 
     @Nullable
     protected Bitmap combineBmp(int len, int mode) {
+        return combineBmp(len, mode, null);
+    }
+
+    /**
+     * combines the first len bitmaps column by column, the columns are split into tiles
+     * which are combined in parallel by fork-join tasks, every task has its own parameter array
+     *
+     * @param len is the count of bitmaps to combine
+     * @param mode is the combine mode, one of the mode constants
+     * @param weights are the bitmap weights for {@link BitmapCombiner#MODE_WEIGHTED}, one per bitmap
+     * @return the combined {@link Bitmap}, null if there are less than 2 bitmaps,
+     *         it has the {@link Bitmap.Header} of the bitmaps if they all have the same one
+     */
+    @Nullable
+    protected Bitmap combineBmp(int len, int mode, float @Nullable [] weights) {
         checkMode(mode);
         if (len < 2) {
             System.err.println("At least 2 Bitmaps are needed for combine-operations");
             return null;
         }
+        if (mode == MODE_WEIGHTED && (weights == null || weights.length != len)) {
+            throw new IllegalArgumentException("Weighted combine needs one weight per Bitmap");
+        }
         // TODO: 19.10.2022 maybe replace with "Größe anpassen / skalieren"
         Size2D size = Utilities.checkBmpSize(getElements()); // represents the size (x = width, y = height)
 
         int width = size.width();
         int height = size.height();
 
-        byte[][] result = new byte[width][height],
-                params = new byte[len][height];
-        Queue<CompletableFuture<Void>> futures = new ConcurrentLinkedQueue<>();
+        byte[][][] sources = new byte[len][][];
+        for (int i = 0; i < len; i++) {
+            sources[i] = getElements()[i].getBitmap();
+        }
+        byte[][] result = new byte[width][];
+        // bitmaps without rows are combined in one task, nothing to split
+        int tileColumns = (height == 0) ? Math.max(width, 1) : Math.max(1, TILE_FIELDS / height);
+        ForkJoinPool.commonPool().invoke(new CombineTask(sources, result, mode, weights, 0, width, tileColumns));
+        return new Bitmap(result, sharedHeader(len));
+    }
 
-        switch (mode) {
-            case MODE_MEAN -> {
-                for (int x = 0, j = 0; x < width; x++, j++) {
-                    futures.add(asyncMeanTask(len, result, params, x, j));
-                }
-            }
-            case MODE_MAX -> {
-                for (int x = 0, j = 0; x < width; x++, j++) {
-                    futures.add(asyncMaxTask(len, result, params, x, j));
-                }
-            }
-            case MODE_BIN -> {
-                for (int x = 0, j = 0; x < width; x++, j++) {
-                    futures.add(asyncBinTask(len, result, params, x, j));
-                }
+    /**
+     * @return the {@link Bitmap.Header} of the first len bitmaps, if they all have the same one, else null
+     */
+    @Nullable
+    private Bitmap.Header sharedHeader(int len) {
+        Bitmap.Header header = getElements()[0].getHeader();
+        for (int i = 1; i < len; i++) {
+            if (!Objects.equals(header, getElements()[i].getHeader())) {
+                return null;
             }
         }
-        while (!futures.isEmpty()) {
-            futures.poll().join();
-        }
-        return new Bitmap(result);
+        return header;
     }
 
     private void checkMode(int mode) {
-        if (mode < MODE_MEAN || mode > MODE_BIN) {
+        if (mode < MODE_MEAN || mode > MODE_DIFF) {
             throw new IllegalArgumentException("Mode not known, use BitmapCombiner mode constants instead");
         }
     }
 
-    private CompletableFuture<Void> asyncMeanTask(int len, byte[][] result, byte[][] params, final int x, final int j) {
-        return CompletableFuture.runAsync(() -> {
-            for (int i = 0; i < len; i++) {
-                byte[] arr = getElements()[i].getBitmap()[x];
-                params[i] = arr;
-            }
-            byte[] mean = MathUtils.arrayMean(params);
-            //synchronized (C_LOCK) {
-            result[j] = mean;
-            //}
-        });
-    }
+    /**
+     * combines a column range, ranges with more than one tile are split by halves
+     */
+    private static final class CombineTask extends RecursiveAction {
 
-    private CompletableFuture<Void> asyncMaxTask(int len, byte[][] result, byte[][] params, final int x, final int j) {
-        return CompletableFuture.runAsync(() -> {
-            for (int i = 0; i < len; i++) {
-                byte[] arr = getElements()[i].getBitmap()[x];
-                params[i] = arr;
-            }
-            byte[] max = MathUtils.arrayMax(params);
-            //synchronized (C_LOCK) {
-            result[j] = max;
-            //}
-        });
-    }
+        private static final long serialVersionUID = 1L;
+
+        private final byte[][][] sources;
+        private final byte[][] result;
+        private final int mode;
+        private final float[] weights;
+        private final int from, to, tileColumns;
+
+        private CombineTask(byte[][][] sources, byte[][] result, int mode, float[] weights, int from, int to, int tileColumns) {
+            this.sources = sources;
+            this.result = result;
+            this.mode = mode;
+            this.weights = weights;
+            this.from = from;
+            this.to = to;
+            this.tileColumns = tileColumns;
+        }
 
-    private CompletableFuture<Void> asyncBinTask(int len, byte[][] result, byte[][] params, final int x, final int j) {
-        return CompletableFuture.runAsync(() -> {
-            for (int i = 0; i < len; i++) {
-                byte[] arr = getElements()[i].getBitmap()[x];
-                params[i] = arr;
+        @Override
+        protected void compute() {
+            if (to - from > tileColumns) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new CombineTask(sources, result, mode, weights, from, mid, tileColumns),
+                          new CombineTask(sources, result, mode, weights, mid, to, tileColumns));
+                return;
+            }
+            // task-local parameters, every column is written by exactly one task
+            byte[][] params = new byte[sources.length][];
+            for (int x = from; x < to; x++) {
+                for (int i = 0; i < sources.length; i++) {
+                    params[i] = sources[i][x];
+                }
+                result[x] = combine(params);
             }
-            byte[] or = MathUtils.arrayBinOr(params);
-            //synchronized (C_LOCK) {
-            result[j] = or;
-            //}
-        });
+        }
+
+        @NotNull
+        private byte[] combine(byte[][] params) {
+            return switch (mode) {
+                case MODE_MEAN -> MathUtils.arrayMean(params);
+                case MODE_MAX -> MathUtils.arrayMax(params);
+                case MODE_BIN -> MathUtils.arrayBinOr(params);
+                case MODE_WEIGHTED -> MathUtils.arrayWeightedSum(params, weights);
+                default -> MathUtils.arrayDiff(params);
+            };
+        }
     }
 
 }
@@ -0,0 +1,23 @@
+package planespotter.util.combine;
+
+import org.jetbrains.annotations.NotNull;
+import planespotter.util.Bitmap;
+
+/**
+ * combines the first {@link Bitmap} with the others, the result is the absolute
+ * difference of the first level and the mean level of the other bitmaps
+ */
+public class BitmapDiffCombiner extends BitmapCombiner {
+
+    public BitmapDiffCombiner(Bitmap... initElements) {
+        super(initElements);
+    }
+
+    @Override
+    @NotNull
+    public BitmapDiffCombiner combine() {
+        setResult(combineBmp(elements(), MODE_DIFF));
+        return this;
+    }
+
+}
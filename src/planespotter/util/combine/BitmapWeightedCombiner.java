@@ -0,0 +1,35 @@
+package planespotter.util.combine;
+
+import org.jetbrains.annotations.NotNull;
+import planespotter.util.Bitmap;
+
+public class BitmapWeightedCombiner extends BitmapCombiner {
+
+    // one weight per bitmap
+    private float[] weights;
+
+    public BitmapWeightedCombiner(float @NotNull [] weights, Bitmap... initElements) {
+        super(initElements);
+        this.weights = weights;
+    }
+
+    /**
+     * sets the bitmap weights, e.g. after bitmaps were added
+     *
+     * @param weights are the weights, one per bitmap
+     * @return this {@link BitmapWeightedCombiner}
+     */
+    @NotNull
+    public BitmapWeightedCombiner setWeights(float @NotNull ... weights) {
+        this.weights = weights;
+        return this;
+    }
+
+    @Override
+    @NotNull
+    public BitmapWeightedCombiner combine() {
+        setResult(combineBmp(elements(), MODE_WEIGHTED, weights));
+        return this;
+    }
+
+}
@@ -4,7 +4,6 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Range;
 import planespotter.throwables.InvalidArrayException;
 import planespotter.throwables.OutOfRangeException;
-import planespotter.util.Bytes;
 import planespotter.util.Utilities;
 
 import java.math.BigDecimal;
@@ -23,6 +22,8 @@ public abstract class MathUtils {
 
     public static final double LAT_TO_KM_MULTIPLIER = 110.574;
     public static final double LON_TO_KM_MULTIPLIER = 111.320;
+    // mean earth radius in km
+    public static final double EARTH_RADIUS_KM = 6371.0088;
 
     public static double abs(Vector2D<Double> v2d) {
         return (v2d instanceof Vector3D<Double> v3d)
@@ -55,6 +56,22 @@ public abstract class MathUtils {
         return km / (LON_TO_KM_MULTIPLIER * cos(toRadians(lat)));
     }
 
+    /**
+     * calculates the great-circle distance between two positions with the haversine formula
+     *
+     * @param lat1 is the latitude of the first position
+     * @param lon1 is the longitude of the first position
+     * @param lat2 is the latitude of the second position
+     * @param lon2 is the longitude of the second position
+     * @return the distance in km
+     */
+    public static double greatCircleKm(double lat1, double lon1, double lat2, double lon2) {
+        double sinLat = Math.sin(Math.toRadians(lat2 - lat1) / 2),
+               sinLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+        double h = sinLat * sinLat + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1., h)));
+    }
+
     /**
      * Note: this method is slower than a simple a / b
      *
@@ -113,6 +130,18 @@ public abstract class MathUtils {
         }
     }
 
+    /**
+     * weights a new value with 7/8 and the previous average with 1/8,
+     * pure Java, like the native WeightMovingAverage, which only exists for Windows
+     *
+     * @param value is the new value
+     * @param average is the previous average
+     * @return the new average
+     */
+    public static double movingAverage(double value, double average) {
+        return 0.875 * value + 0.125 * average;
+    }
+
     /**
      * converts a boolean to byte (0 or 1)
      *
@@ -123,6 +152,11 @@ public abstract class MathUtils {
         return (byte) (bool ? 0 : 1);
     }
 
+    /*
+     * The array kernels work on unsigned byte levels (level + 128). The inner loops run over one
+     * array at a time with primitive accumulators and without branches, so the JIT can vectorize them.
+     */
+
     public static byte[] arrayMean(byte[][] arrays) {
         int len = arrays.length;
         if (len == 0) {
@@ -134,13 +168,16 @@ public abstract class MathUtils {
         int arrayLen = arrays[0].length;
         checkArraySizes(arrays, len, arrayLen);
 
-        byte[] result = new byte[arrayLen];
-        for (int i = 0, mean; i < arrayLen; i++) {
-            mean = 0;
-            for (byte[] bts : arrays) {
-                mean += Bytes.toUnsignedInt(bts[i]);
+        int[] sums = new int[arrayLen];
+        for (byte[] bts : arrays) {
+            for (int i = 0; i < arrayLen; i++) {
+                sums[i] += bts[i];
             }
-            result[i] = Bytes.fromUnsignedInt(mean / len);
+        }
+        byte[] result = new byte[arrayLen];
+        int offset = 128 * len;
+        for (int i = 0; i < arrayLen; i++) {
+            result[i] = (byte) ((sums[i] + offset) / len - 128);
         }
         return result;
     }
@@ -153,13 +190,12 @@ public abstract class MathUtils {
         int arrayLen = arrays[0].length;
         checkArraySizes(arrays, len, arrayLen);
 
-        byte[] result = new byte[arrayLen];
-        for (int i = 0; i < arrayLen; i++) {
-            byte max = -128;
-            for (int j = 0; j < len; j++) {
-                max = (byte) Math.max(max, arrays[j][i]);
+        byte[] result = arrays[0].clone();
+        for (int j = 1; j < len; j++) {
+            byte[] bts = arrays[j];
+            for (int i = 0; i < arrayLen; i++) {
+                result[i] = (byte) Math.max(result[i], bts[i]);
             }
-            result[i] = max;
         }
         return result;
     }
@@ -172,13 +208,82 @@ public abstract class MathUtils {
         int arrayLen = arrays[0].length;
         checkArraySizes(arrays, len, arrayLen);
 
+        int[] or = new int[arrayLen];
+        for (byte[] bts : arrays) {
+            for (int i = 0; i < arrayLen; i++) {
+                or[i] |= bts[i] + 128;
+            }
+        }
         byte[] result = new byte[arrayLen];
-        for (int i = 0, or; i < arrayLen; i++) {
-            or = 0;
-            for (int j = 0; j < len; j++) {
-                or |= Bytes.toUnsignedInt(arrays[j][i]);
+        for (int i = 0; i < arrayLen; i++) {
+            result[i] = (byte) (or[i] - 128);
+        }
+        return result;
+    }
+
+    /**
+     * sums the weighted unsigned levels of byte arrays, the sum is clamped to the byte level range
+     *
+     * @param arrays are the byte arrays, all with the same length
+     * @param weights are the weights, one per array
+     * @return the weighted sum as byte levels
+     */
+    public static byte[] arrayWeightedSum(byte[][] arrays, float[] weights) {
+        int len = arrays.length;
+        if (len < 2) {
+            throw new InvalidArrayException("Too few arrays given, must be at least 2");
+        }
+        if (weights.length != len) {
+            throw new InvalidArrayException("Every array needs one weight");
+        }
+        int arrayLen = arrays[0].length;
+        checkArraySizes(arrays, len, arrayLen);
+
+        float[] sums = new float[arrayLen];
+        for (int j = 0; j < len; j++) {
+            byte[] bts = arrays[j];
+            float weight = weights[j];
+            for (int i = 0; i < arrayLen; i++) {
+                sums[i] += weight * (bts[i] + 128);
             }
-            result[i] = Bytes.fromUnsignedInt(or);
+        }
+        byte[] result = new byte[arrayLen];
+        for (int i = 0; i < arrayLen; i++) {
+            result[i] = (byte) (Math.min(255, Math.max(0, Math.round(sums[i]))) - 128);
+        }
+        return result;
+    }
+
+    /**
+     * computes the absolute difference of the first byte array and the mean of the others,
+     * for two arrays this is |a - b| of the unsigned levels
+     *
+     * @param arrays are the byte arrays, all with the same length
+     * @return the difference as byte levels
+     */
+    public static byte[] arrayDiff(byte[][] arrays) {
+        int len = arrays.length;
+        if (len < 2) {
+            throw new InvalidArrayException("Too few arrays given, must be at least 2");
+        }
+        int arrayLen = arrays[0].length;
+        checkArraySizes(arrays, len, arrayLen);
+
+        int others = len - 1;
+        int[] diffs = new int[arrayLen];
+        byte[] first = arrays[0];
+        for (int i = 0; i < arrayLen; i++) {
+            diffs[i] = first[i] * others;
+        }
+        for (int j = 1; j < len; j++) {
+            byte[] bts = arrays[j];
+            for (int i = 0; i < arrayLen; i++) {
+                diffs[i] -= bts[i];
+            }
+        }
+        byte[] result = new byte[arrayLen];
+        for (int i = 0; i < arrayLen; i++) {
+            result[i] = (byte) (Math.abs(diffs[i]) / others - 128);
         }
         return result;
     }
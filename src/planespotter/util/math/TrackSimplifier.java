@@ -0,0 +1,193 @@
+package planespotter.util.math;
+
+import org.jetbrains.annotations.NotNull;
+import planespotter.throwables.InvalidArrayException;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import static java.lang.StrictMath.*;
+
+/**
+ * @name TrackSimplifier
+ * @author jml04
+ * @version 1.0
+ *
+ * @description
+ * Class TrackSimplifier simplifies flight tracks with a Douglas-Peucker algorithm.
+ * The distance of a point to a segment is the synchronized euclidean distance (SED),
+ * the distance between the point and the position which is interpolated by time on the segment,
+ * so dropped points can be restored by time within the position tolerance.
+ * Altitude and time are tolerances too: a point is kept if the interpolated altitude
+ * differs too much, and no two kept points are more than 'maxGapSeconds' apart.
+ * The algorithm works iterative with a stack, not recursive, so long tracks can't overflow the stack.
+ */
+public final class TrackSimplifier {
+
+    // meters per latitude degree
+    private static final double METERS_PER_DEGREE = MathUtils.LAT_TO_KM_MULTIPLIER * 1000.;
+
+    // position tolerance in meters
+    private final double posTolerance;
+
+    // altitude tolerance in feet
+    private final int altTolerance;
+
+    // max. time between two kept points in seconds
+    private final long maxGapSeconds;
+
+    /**
+     * constructs a new {@link TrackSimplifier} with tolerances
+     *
+     * @param posToleranceMeters is the max. position error of a dropped point, in meters
+     * @param altToleranceFeet is the max. altitude error of a dropped point, in feet
+     * @param maxGapSeconds is the max. time between two kept points, in seconds
+     */
+    public TrackSimplifier(double posToleranceMeters, int altToleranceFeet, long maxGapSeconds) {
+        if (posToleranceMeters <= 0 || altToleranceFeet <= 0 || maxGapSeconds <= 0) {
+            throw new IllegalArgumentException("Tolerances must be higher than 0!");
+        }
+        this.posTolerance = posToleranceMeters;
+        this.altTolerance = altToleranceFeet;
+        this.maxGapSeconds = maxGapSeconds;
+    }
+
+    /**
+     * simplifies a track, the arrays must have the same length and must be sorted by timestamp
+     *
+     * @param lat are the latitudes
+     * @param lon are the longitudes
+     * @param alt are the altitudes in feet
+     * @param timestamps are the timestamps in seconds
+     * @return {@link Result} with a keep-mask and the max. position error
+     */
+    @NotNull
+    public Result simplify(double @NotNull [] lat, double @NotNull [] lon, int @NotNull [] alt, long @NotNull [] timestamps) {
+        int length = lat.length;
+        if (lon.length != length || alt.length != length || timestamps.length != length) {
+            throw new InvalidArrayException("Track arrays must have the same length!");
+        }
+        boolean[] keep = new boolean[length];
+        if (length <= 2) {
+            Arrays.fill(keep, true);
+            return new Result(keep, length, 0.);
+        }
+        keep[0] = keep[length - 1] = true;
+        Deque<int[]> segments = new ArrayDeque<>();
+        segments.push(new int[] { 0, length - 1 });
+        int[] segment;
+        int first, last, worst;
+        double worstError, error;
+        while (!segments.isEmpty()) {
+            segment = segments.pop();
+            first = segment[0];
+            last = segment[1];
+            if (last - first < 2) {
+                continue;
+            }
+            worst = -1;
+            worstError = 1.;
+            for (int i = first + 1; i < last; i++) {
+                error = normalizedError(lat, lon, alt, timestamps, first, last, i);
+                if (error > worstError) {
+                    worstError = error;
+                    worst = i;
+                }
+            }
+            // splitting too long segments in the middle, if all points are inside the tolerance
+            if (worst == -1 && timestamps[last] - timestamps[first] > maxGapSeconds) {
+                worst = (first + last) >>> 1;
+            }
+            if (worst != -1) {
+                keep[worst] = true;
+                segments.push(new int[] { first, worst });
+                segments.push(new int[] { worst, last });
+            }
+        }
+        return new Result(keep, count(keep), maxPositionError(lat, lon, timestamps, keep));
+    }
+
+    /**
+     * calculates the biggest error of one point to a segment, normalized by the tolerances,
+     * a value over 1 means the point must be kept
+     */
+    private double normalizedError(double[] lat, double[] lon, int[] alt, long[] ts, int first, int last, int i) {
+        double ratio = ratio(ts, first, last, i);
+        double posError = sed(lat, lon, first, last, i, ratio) / posTolerance;
+        double interpolatedAlt = alt[first] + (alt[last] - alt[first]) * ratio;
+        double altError = abs(alt[i] - interpolatedAlt) / altTolerance;
+        return max(posError, altError);
+    }
+
+    /**
+     * @return the time ratio of point i between the first and the last point
+     */
+    private static double ratio(long[] ts, int first, int last, int i) {
+        long duration = ts[last] - ts[first];
+        return duration == 0 ? 0.5 : (double) (ts[i] - ts[first]) / duration;
+    }
+
+    /**
+     * calculates the synchronized euclidean distance in meters,
+     * on a local equirectangular projection around the point
+     */
+    private static double sed(double[] lat, double[] lon, int first, int last, int i, double ratio) {
+        double interpolatedLat = lat[first] + (lat[last] - lat[first]) * ratio;
+        double interpolatedLon = lon[first] + (lon[last] - lon[first]) * ratio;
+        double dy = (lat[i] - interpolatedLat) * METERS_PER_DEGREE;
+        double dx = (lon[i] - interpolatedLon) * METERS_PER_DEGREE * cos(toRadians(lat[i]));
+        return sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * calculates the max. position error of all dropped points,
+     * compared to the simplified track
+     */
+    private static double maxPositionError(double[] lat, double[] lon, long[] ts, boolean[] keep) {
+        double maxError = 0.;
+        int first = 0, last;
+        for (int next = 1; next < keep.length; next++) {
+            if (!keep[next]) {
+                continue;
+            }
+            last = next;
+            for (int i = first + 1; i < last; i++) {
+                maxError = max(maxError, sed(lat, lon, first, last, i, ratio(ts, first, last, i)));
+            }
+            first = last;
+        }
+        return maxError;
+    }
+
+    /**
+     * @return the count of true values
+     */
+    private static int count(boolean[] keep) {
+        int count = 0;
+        for (boolean k : keep) {
+            if (k) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * record Result is the result of a track simplification
+     *
+     * @param keep is the keep-mask, true for every point which is kept
+     * @param kept is the count of kept points
+     * @param maxPositionError is the max. position error of the dropped points in meters
+     */
+    public record Result(boolean @NotNull [] keep, int kept, double maxPositionError) {
+
+        /**
+         * @return the count of dropped points
+         */
+        public int dropped() {
+            return keep.length - kept;
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import planespotter.util.Bitmap;
+import planespotter.util.Quantizer;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitmapCodecTest {
+
+    private static Bitmap bitmap() {
+        Bitmap.Accumulator grid = Bitmap.accumulator(1f);
+        grid.add(50.1, 8.6);
+        grid.add(50.1, 8.6);
+        grid.add(-33.9, 151.2);
+        return grid.toBitmap(Quantizer.Scaling.LOG);
+    }
+
+    @Test
+    void imageRoundTrip() {
+        Bitmap bitmap = bitmap();
+        BufferedImage img = bitmap.toImage(false);
+
+        assertEquals(0, img.getRaster().getSample(188, 140, 0), "Highest level is black");
+        assertEquals(255, img.getRaster().getSample(0, 0, 0), "No positions is white");
+        assertEquals(bitmap, Bitmap.fromImage(img));
+        assertEquals(img.getRaster().getSample(188, 140, 0), bitmap.toImage(true).getRaster().getSample(188, 180 - 140, 0));
+    }
+
+    @Test
+    void heatmapFileKeepsHeader(@TempDir File dir) throws IOException {
+        Bitmap bitmap = bitmap();
+        File file = Bitmap.writeHeatmap(bitmap, new File(dir, "density"));
+        Bitmap read = Bitmap.readHeatmap(file);
+
+        assertTrue(file.getName().endsWith(Bitmap.HEATMAP_EXTENSION));
+        assertEquals(bitmap, read);
+        assertEquals(bitmap.getHeader(), read.getHeader());
+        assertEquals(1f, read.getGridSize());
+        assertEquals(Quantizer.Scaling.LOG, read.getHeader().scaling());
+    }
+}
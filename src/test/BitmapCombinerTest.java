@@ -0,0 +1,63 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import planespotter.util.Bitmap;
+import planespotter.util.Quantizer;
+import planespotter.util.combine.*;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitmapCombinerTest {
+
+    private static Bitmap random(long seed, int width, int height) {
+        SplittableRandom rand = new SplittableRandom(seed);
+        byte[][] bytes = new byte[width][height];
+        for (byte[] column : bytes) {
+            for (int y = 0; y < height; y++) {
+                column[y] = (byte) rand.nextInt(256);
+            }
+        }
+        return new Bitmap(bytes);
+    }
+
+    @Test
+    void everyFieldIsCombined() {
+        // more columns than one tile, so the columns are combined by several tasks
+        Bitmap a = random(1, 1441, 721), b = random(2, 1441, 721), c = random(3, 1441, 721);
+        Bitmap mean = new BitmapMeanCombiner(a, b, c).combine().getResult(),
+               max = new BitmapMaxCombiner(a, b, c).combine().getResult(),
+               or = new BitmapBinCombiner(a, b).combine().getResult(),
+               weighted = new BitmapWeightedCombiner(new float[] { .5f, .5f }, a, b).combine().getResult(),
+               diff = new BitmapDiffCombiner(a, b).combine().getResult();
+
+        for (int x = 0; x < a.width; x += 7) {
+            for (int y = 0; y < a.height; y++) {
+                int ua = a.getBitmap()[x][y] + 128, ub = b.getBitmap()[x][y] + 128, uc = c.getBitmap()[x][y] + 128;
+                assertEquals((ua + ub + uc) / 3, mean.getBitmap()[x][y] + 128);
+                assertEquals(Math.max(ua, Math.max(ub, uc)), max.getBitmap()[x][y] + 128);
+                assertEquals(ua | ub, or.getBitmap()[x][y] + 128);
+                assertEquals(Math.round((ua + ub) * .5f), weighted.getBitmap()[x][y] + 128, 1);
+                assertEquals(Math.abs(ua - ub), diff.getBitmap()[x][y] + 128);
+            }
+        }
+    }
+
+    @Test
+    void weightedNeedsOneWeightPerBitmap() {
+        Bitmap a = random(1, 4, 4), b = random(2, 4, 4);
+        assertThrows(IllegalArgumentException.class, () -> new BitmapWeightedCombiner(new float[] { 1f }, a, b).combine());
+    }
+
+    @Test
+    void combinedBitmapKeepsASharedHeader() {
+        Bitmap.Header header = new Bitmap.Header(.5f, -90, 90, -180, 180, Quantizer.Scaling.LOG),
+                      other = new Bitmap.Header(1f, -90, 90, -180, 180, Quantizer.Scaling.LOG);
+        byte[][] bytes = new byte[4][4];
+        Bitmap a = new Bitmap(bytes, header), b = new Bitmap(bytes, header), c = new Bitmap(bytes, other);
+
+        assertEquals(header, new BitmapMaxCombiner(a, b).combine().getResult().getHeader());
+        assertNull(new BitmapMaxCombiner(a, c).combine().getResult().getHeader(), "Different grids have no shared header");
+    }
+}
@@ -0,0 +1,54 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import planespotter.model.io.FlightSummaries;
+import planespotter.util.math.MathUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightSummariesTest {
+
+    @Test
+    void greatCircleKm() {
+        // Frankfurt -> New York JFK is ~ 6200 km
+        double distance = MathUtils.greatCircleKm(50.0379, 8.5622, 40.6413, -73.7781);
+        assertEquals(6200., distance, 20.);
+        assertEquals(0., MathUtils.greatCircleKm(50., 8., 50., 8.), 1e-9);
+        // one degree of latitude
+        assertEquals(111.2, MathUtils.greatCircleKm(0., 0., 1., 0.), 0.1);
+    }
+
+    @Test
+    void summaryCountsConsecutivePoints() {
+        FlightSummaries.Summary summary = new FlightSummaries.Summary(7);
+        summary.add(0., 0., 1000L);
+        summary.add(1., 0., 1600L);
+        summary.add(2., 0., 2200L);
+
+        assertEquals(3, summary.points());
+        assertEquals(1000L, summary.firstTimestamp());
+        assertEquals(2200L, summary.lastTimestamp());
+        assertEquals(2 * MathUtils.greatCircleKm(0., 0., 1., 0.), summary.distance(), 1e-6);
+        assertEquals(0., summary.minLat());
+        assertEquals(2., summary.maxLat());
+    }
+
+    @Test
+    void summarySkipsGapsAndOlderPoints() {
+        FlightSummaries.Summary summary = new FlightSummaries.Summary(7);
+        summary.add(0., 0., 1000L);
+        // more than MAX_GAP_SECONDS later, the route is unknown
+        summary.add(10., 0., 1000L + FlightSummaries.MAX_GAP_SECONDS + 1);
+        assertEquals(0., summary.distance());
+        // older point only extends the time range and the bounding box
+        summary.add(-5., 3., 500L);
+        assertEquals(0., summary.distance());
+        assertEquals(500L, summary.firstTimestamp());
+        assertEquals(-5., summary.minLat());
+        assertEquals(3., summary.maxLon());
+        // the next point continues from the newest point
+        summary.add(11., 0., 1000L + FlightSummaries.MAX_GAP_SECONDS + 61);
+        assertEquals(MathUtils.greatCircleKm(10., 0., 11., 0.), summary.distance(), 1e-6);
+        assertEquals(4, summary.points());
+    }
+}
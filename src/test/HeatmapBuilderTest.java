@@ -0,0 +1,42 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import planespotter.util.Bitmap;
+import planespotter.util.HeatmapBuilder;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeatmapBuilderTest {
+
+    private static Bitmap.Accumulator build(int parallelism, int rows) {
+        SplittableRandom rand = new SplittableRandom(7);
+        try (HeatmapBuilder builder = new HeatmapBuilder(Bitmap.accumulator(1f), parallelism)) {
+            for (int i = 0; i < rows; i++) {
+                builder.add(rand.nextDouble(-90, 90), rand.nextDouble(-180, 180));
+            }
+            return builder.merge();
+        }
+    }
+
+    @Test
+    void identicalCountsAtAnyParallelism() {
+        int rows = HeatmapBuilder.BATCH_SIZE * 3 + 7;
+        Bitmap.Accumulator sequential = build(1, rows);
+        Bitmap.Accumulator parallel = build(4, rows);
+
+        assertEquals(rows, sequential.count());
+        assertEquals(rows, parallel.count());
+        for (int x = 0; x < 361; x++) {
+            for (int y = 0; y < 181; y++) {
+                assertEquals(sequential.get(x, y), parallel.get(x, y));
+            }
+        }
+    }
+
+    @Test
+    void mergeRejectsOtherGrids() {
+        assertThrows(RuntimeException.class, () -> Bitmap.accumulator(1f).merge(Bitmap.accumulator(0.5f)));
+    }
+}
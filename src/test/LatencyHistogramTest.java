@@ -0,0 +1,35 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import planespotter.util.LatencyHistogram;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1_000L);
+        }
+        histogram.record(1_000_000L);
+
+        assertEquals(100, histogram.count());
+        assertEquals(1_000_000L, histogram.max());
+        assertTrue(histogram.percentile(50.) >= 1_000L && histogram.percentile(50.) < 2_000L,
+                   "The median is in the bucket of 1000 ns");
+        assertEquals(1_000_000L, histogram.percentile(100.));
+        assertEquals((99 * 1_000L + 1_000_000L) / 100, histogram.mean());
+    }
+
+    @Test
+    void reset() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        histogram.record(5_000L);
+        histogram.reset();
+
+        assertEquals(0, histogram.count());
+        assertEquals(0L, histogram.percentile(99.));
+    }
+}
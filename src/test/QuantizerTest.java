@@ -0,0 +1,58 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import planespotter.util.Quantizer;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantizerTest {
+
+    private static final int[][] COUNTS = {
+            { 0, 1, 2, 3 },
+            { 10, 100, 1000, 100_000 }
+    };
+
+    @Test
+    void linearLevels() {
+        byte[][] levels = Quantizer.quantize(COUNTS, Quantizer.Scaling.LINEAR);
+
+        assertEquals(100_000, Quantizer.highestValue(COUNTS));
+        assertEquals(-128, levels[0][0], "No positions");
+        assertEquals(-127, levels[0][1], "One position is the lowest level");
+        assertEquals(127, levels[1][3], "The max is the highest level");
+        assertEquals(Quantizer.level(1000, 100_000), levels[1][2]);
+    }
+
+    @Test
+    void logAndPercentileKeepSmallCountsVisible() {
+        byte[][] log = Quantizer.quantize(COUNTS, Quantizer.Scaling.LOG),
+                 percentile = Quantizer.quantize(COUNTS, Quantizer.Scaling.PERCENTILE),
+                 linear = Quantizer.quantize(COUNTS, Quantizer.Scaling.LINEAR);
+
+        assertEquals(127, log[1][3]);
+        assertTrue(log[1][1] > linear[1][1]);
+        assertEquals(1000, Quantizer.percentile(COUNTS, 0.9));
+        assertEquals(127, percentile[1][3], "Counts above the percentile are clamped");
+        assertTrue(percentile[1][1] >= linear[1][1]);
+    }
+
+    @Test
+    void percentileMatchesTheSortedCounts() {
+        SplittableRandom rand = new SplittableRandom(7);
+        int[][] counts = new int[64][64];
+        for (int[] column : counts) {
+            for (int y = 0; y < column.length; y++) {
+                // zeros, small counts and counts above 16 bits
+                column[y] = (rand.nextInt(4) == 0) ? 0 : rand.nextInt(rand.nextBoolean() ? 100 : 1 << 20);
+            }
+        }
+        int[] nonZero = Arrays.stream(counts).flatMapToInt(Arrays::stream).filter(n -> n > 0).sorted().toArray();
+        for (double p : new double[] { 0., 0.5, 0.9, Quantizer.PERCENTILE, 1. }) {
+            assertEquals(nonZero[(int) Math.round(p * (nonZero.length - 1))], Quantizer.percentile(counts, p));
+        }
+        assertEquals(0, Quantizer.percentile(new int[2][2], 0.5));
+    }
+}
@@ -0,0 +1,42 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import planespotter.dataclasses.DataPoint;
+import planespotter.model.simulation.ReplayIndex;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayIndexTest {
+
+    private static ReplayIndex index() {
+        ReplayIndex.Recorder recorder = new ReplayIndex.Recorder();
+        // unordered rows, flight 1 every 10 s, flight 2 only before and at the window start
+        for (int t = 200; t >= 0; t -= 10) {
+            recorder.visit(t, 1, 50., 8. + t / 1000., 1000 + t, 0, 400, 90, 30000);
+        }
+        recorder.visit(500, 2, 49., 9., 990, 0, 300, 180, 10000);
+        recorder.visit(501, 2, 49., 9.1, 1000, 0, 300, 180, 10000);
+        return recorder.build(1000, 1400);
+    }
+
+    @Test
+    void stateAtIsLastKnownRow() {
+        DataPoint[] state = index().stateAt(1045);
+
+        assertEquals(2, state.length);
+        assertEquals(1, state[0].flightID());
+        assertEquals(1040, state[0].timestamp(), "Snapshot at 1030 plus the delta rows up to 1045");
+        assertEquals(2, state[1].flightID());
+        assertEquals(1000, state[1].timestamp());
+    }
+
+    @Test
+    void dropsStaleAircraft() {
+        ReplayIndex index = index();
+        DataPoint[] state = index.stateAt(1000 + ReplayIndex.STALE_SECONDS + 50);
+
+        assertEquals(1, state.length, "Flight 2 is stale");
+        assertEquals(1200, state[0].timestamp());
+        assertEquals(23, index.size());
+    }
+}
@@ -0,0 +1,26 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import planespotter.constants.SQLQueries;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SQLQueriesTest {
+
+    @Test
+    void inIntKeepsAllElements() {
+        assertEquals("IN (1,2,3)", SQLQueries.IN_INT(new int[] { 1, 2, 3 }));
+        assertEquals("IN (42)", SQLQueries.IN_INT(new ArrayDeque<>(List.of(42))));
+        assertEquals("IN ()", SQLQueries.IN_INT(new ArrayDeque<Integer>()));
+    }
+
+    @Test
+    void jsonArrays() {
+        assertEquals("[1,2,3]", SQLQueries.jsonArray(new int[] { 1, 2, 3 }));
+        assertEquals("[]", SQLQueries.jsonArray(new int[0]));
+        assertEquals("[\"A320\",\"a\\\"b\",\"c\\\\d\"]", SQLQueries.jsonArray(List.of("A320", "a\"b", "c\\d")));
+    }
+}
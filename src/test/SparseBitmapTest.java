@@ -0,0 +1,62 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import planespotter.util.SparseBitmap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SparseBitmapTest {
+
+    @Test
+    void allocatesOnlyTouchedTiles() {
+        SparseBitmap grid = SparseBitmap.global(0.025f);
+        grid.add(50.1, 8.6);
+        grid.add(50.1, 8.6);
+        grid.add(-33.9, 151.2);
+
+        assertEquals(14400, grid.width());
+        assertEquals(7200, grid.height());
+        assertEquals(2, grid.tileCount());
+        assertEquals(3, grid.count());
+        assertEquals(2, grid.get((int) ((8.6 + 180) / 0.025f), (int) ((50.1 + 90) / 0.025f)));
+        assertTrue(grid.memoryBytes() < 1 << 20, "A few tiles instead of a world grid");
+    }
+
+    @Test
+    void combineAndMergeMatch() {
+        SparseBitmap a = SparseBitmap.global(1f), b = SparseBitmap.global(1f);
+        a.add(10, 10);
+        b.add(10, 10);
+        b.add(-10, -10);
+
+        SparseBitmap sum = SparseBitmap.combine(Integer::sum, a, b),
+                     max = SparseBitmap.combine(Math::max, a, b);
+
+        assertEquals(3, sum.count());
+        assertEquals(2, sum.get(190, 100));
+        assertEquals(1, max.get(190, 100));
+        assertEquals(1, max.get(170, 80));
+        assertEquals(sum.get(190, 100), a.merge(b).get(190, 100));
+        assertThrows(RuntimeException.class, () -> a.merge(SparseBitmap.global(0.5f)));
+    }
+
+    @Test
+    void combineAppliesMissingTilesAsZeros() {
+        SparseBitmap a = SparseBitmap.global(1f), b = SparseBitmap.global(1f);
+        a.add(10, 10);
+        a.add(10, 10);
+        b.add(10, 10);
+        b.add(-10, -10);
+
+        // the tile of (-10, -10) is missing in a, so a - b is -1 there
+        SparseBitmap diff = SparseBitmap.combine((x, y) -> x - y, a, b),
+                     min = SparseBitmap.combine(Math::min, a, b);
+
+        assertEquals(1, diff.get(190, 100));
+        assertEquals(-1, diff.get(170, 80));
+        assertEquals(1, min.get(190, 100));
+        assertEquals(0, min.get(170, 80));
+        assertThrows(RuntimeException.class, () -> a.add(a.width(), 0, 1));
+        assertThrows(RuntimeException.class, () -> a.add(0, -1, 1));
+    }
+}
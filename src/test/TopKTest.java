@@ -0,0 +1,52 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import planespotter.util.TopK;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKTest {
+
+    @Test
+    void keepsHighestCounts() {
+        TopK top = new TopK(3);
+        long[] counts = { 5, 1, 9, 3, 7, 2, 8 };
+        for (int key = 0; key < counts.length; key++) {
+            top.offer(key, counts[key]);
+        }
+        assertEquals(3, top.size());
+        assertArrayEquals(new int[] { 2, 6, 4 }, top.keys());
+        assertArrayEquals(new long[] { 9, 8, 7 }, top.counts());
+    }
+
+    @Test
+    void keepsFewerThanK() {
+        TopK top = new TopK(5);
+        top.offer(42, 1);
+        top.offer(7, 3);
+        assertArrayEquals(new int[] { 7, 42 }, top.keys());
+    }
+
+    @Test
+    void matchesSortedCounts() {
+        Random random = new Random(4711);
+        long[] counts = random.longs(10_000, 0, 1_000_000).toArray();
+        TopK top = new TopK(20);
+        for (int key = 0; key < counts.length; key++) {
+            top.offer(key, counts[key]);
+        }
+        long[] expected = IntStream.range(0, counts.length)
+                .mapToLong(i -> counts[i])
+                .sorted()
+                .skip(counts.length - 20)
+                .toArray();
+        long[] actual = top.counts();
+        for (int i = 0; i < 20; i++) {
+            assertEquals(expected[19 - i], actual[i]);
+            assertEquals(counts[top.keys()[i]], actual[i]);
+        }
+    }
+}
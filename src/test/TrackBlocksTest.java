@@ -0,0 +1,38 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import planespotter.dataclasses.TrackColumns;
+import planespotter.model.io.TrackBlocks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrackBlocksTest {
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        int size = 300;
+        TrackColumns columns = TrackColumns.allocate(42, size);
+        for (int i = 0; i < size; i++) {
+            columns.set(i, 1000 + i * 3, 1_650_000_000L + i * 7L, 50.123456 + i * 0.0012, -8.654321 - i * 0.0009,
+                        (i < 150) ? i * 100 : 30000 - i, 250 + (i % 5), (i * 13) % 360, 7000);
+        }
+        byte[] first = TrackBlocks.encode(columns, 0, TrackBlocks.BLOCK_SIZE);
+        byte[] second = TrackBlocks.encode(columns, TrackBlocks.BLOCK_SIZE, size);
+        assertEquals(TrackBlocks.BLOCK_SIZE, TrackBlocks.count(first));
+        assertEquals(size - TrackBlocks.BLOCK_SIZE, TrackBlocks.count(second));
+        assertTrue(first.length < TrackBlocks.BLOCK_SIZE * 16, "Delta-encoded points need only a few bytes");
+
+        TrackColumns decoded = TrackColumns.allocate(42, size);
+        int offset = TrackBlocks.decode(first, decoded, 0);
+        TrackBlocks.decode(second, decoded, offset);
+
+        assertArrayEquals(columns.ids(), decoded.ids());
+        assertArrayEquals(columns.timestamps(), decoded.timestamps());
+        assertArrayEquals(columns.lat(), decoded.lat(), 1e-6);
+        assertArrayEquals(columns.lon(), decoded.lon(), 1e-6);
+        assertArrayEquals(columns.altitude(), decoded.altitude());
+        assertArrayEquals(columns.speed(), decoded.speed());
+        assertArrayEquals(columns.heading(), decoded.heading());
+        assertArrayEquals(columns.squawk(), decoded.squawk());
+    }
+}
@@ -0,0 +1,63 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import planespotter.util.math.TrackSimplifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrackSimplifierTest {
+
+    @Test
+    void simplifyStraightTrack() {
+        int length = 100;
+        double[] lat = new double[length], lon = new double[length];
+        int[] alt = new int[length];
+        long[] ts = new long[length];
+        for (int i = 0; i < length; i++) {
+            lat[i] = 50. + i * 0.001;
+            lon[i] = 8. + i * 0.001;
+            alt[i] = 30000;
+            ts[i] = 1_000_000L + i * 5L;
+        }
+        TrackSimplifier.Result result = new TrackSimplifier(50., 250, 3600L).simplify(lat, lon, alt, ts);
+
+        assertEquals(2, result.kept(), "A straight track at constant speed is reduced to its end points");
+        assertTrue(result.keep()[0] && result.keep()[length - 1]);
+        assertTrue(result.maxPositionError() < 1.);
+    }
+
+    @Test
+    void simplifyKeepsTurnsAndClimbs() {
+        double[] lat = { 50., 50.1, 50.2, 50.2, 50.2 };
+        double[] lon = { 8., 8., 8., 8.1, 8.2 };
+        int[] alt = { 30000, 30000, 30000, 30000, 35000 };
+        long[] ts = { 0L, 60L, 120L, 180L, 240L };
+        TrackSimplifier.Result result = new TrackSimplifier(50., 250, 3600L).simplify(lat, lon, alt, ts);
+
+        assertTrue(result.keep()[2], "The turn point must be kept");
+        assertTrue(result.maxPositionError() <= 50.);
+    }
+
+    @Test
+    void simplifyRespectsMaxGap() {
+        int length = 61;
+        double[] lat = new double[length], lon = new double[length];
+        int[] alt = new int[length];
+        long[] ts = new long[length];
+        for (int i = 0; i < length; i++) {
+            lat[i] = 50. + i * 0.001;
+            lon[i] = 8.;
+            alt[i] = 10000;
+            ts[i] = i * 10L;
+        }
+        TrackSimplifier.Result result = new TrackSimplifier(50., 250, 120L).simplify(lat, lon, alt, ts);
+        boolean[] keep = result.keep();
+        long lastKept = ts[0];
+        for (int i = 1; i < length; i++) {
+            if (keep[i]) {
+                assertTrue(ts[i] - lastKept <= 120L, "No gap may be longer than the max. gap");
+                lastKept = ts[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import planespotter.constants.SQLQueries;
+import planespotter.model.io.TrackingPartitions;
+
+import java.sql.*;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrackingPartitionsTest {
+
+    private static long insert(Connection conn, String table, long timestamp) throws SQLException {
+        try (PreparedStatement share = conn.prepareStatement(TrackingPartitions.SHARE_SEQUENCE)) {
+            share.setString(1, table);
+            share.executeUpdate();
+        }
+        try (PreparedStatement insert = conn.prepareStatement(String.format(SQLQueries.TRACKING_PARTITION_QUERRY, table),
+                                                              Statement.RETURN_GENERATED_KEYS)) {
+            insert.setInt(1, 1);
+            insert.setDouble(2, 50.);
+            insert.setDouble(3, 8.);
+            insert.setInt(4, 0);
+            insert.setInt(5, 0);
+            insert.setInt(6, 0);
+            insert.setInt(7, 0);
+            insert.setLong(8, timestamp);
+            insert.executeUpdate();
+            try (ResultSet rs = insert.getGeneratedKeys()) {
+                assertTrue(rs.next());
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    @Test
+    void lateFramesAfterARolloverGetUniqueIDs() throws SQLException {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+             Statement stmt = conn.createStatement()) {
+            Set<Long> ids = new HashSet<>();
+            TrackingPartitions.createTable(stmt, "tracking_202401");
+            assertTrue(ids.add(insert(conn, "tracking_202401", 1L)));
+            assertTrue(ids.add(insert(conn, "tracking_202401", 2L)));
+            // rollover, the new partition continues the IDs
+            TrackingPartitions.createTable(stmt, "tracking_202402");
+            assertTrue(ids.add(insert(conn, "tracking_202402", 3L)));
+            // late frame in the old partition, then the new partition again
+            assertTrue(ids.add(insert(conn, "tracking_202401", 2L)));
+            assertTrue(ids.add(insert(conn, "tracking_202402", 4L)));
+            assertTrue(ids.add(insert(conn, "tracking_202401", 2L)));
+            assertEquals(6, ids.size());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import planespotter.util.WeightedCache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeightedCacheTest {
+
+    @Test
+    void evictsByWeight() {
+        WeightedCache<String, int[]> cache = new WeightedCache<>(10, ids -> ids.length);
+        cache.put("a", new int[4]);
+        cache.put("b", new int[4]);
+        cache.put("c", new int[4]);
+
+        assertNull(cache.get("a"), "The eldest entry is evicted");
+        assertNotNull(cache.get("c"));
+        assertEquals(8, cache.weight());
+        assertEquals(1, cache.evictions());
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void protectsReusedEntries() {
+        WeightedCache<String, int[]> cache = new WeightedCache<>(10, ids -> ids.length);
+        cache.put("hot", new int[3]);
+        assertNotNull(cache.get("hot"));
+        // one-time entries, the write drains the recorded read first
+        cache.put("a", new int[3]);
+        cache.put("b", new int[3]);
+        cache.put("c", new int[3]);
+
+        assertNotNull(cache.get("hot"), "A reused entry survives a scan");
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void rejectsTooHeavyValues() {
+        WeightedCache<String, int[]> cache = new WeightedCache<>(10, ids -> ids.length);
+        assertFalse(cache.put("big", new int[11]));
+        assertEquals(0, cache.size());
+
+        cache.put("a", new int[2]);
+        cache.clear();
+        assertEquals(0, cache.weight());
+        assertNull(cache.get("a"));
+    }
+}